@@ -52,6 +52,18 @@ public final class DiagnoseCommand {
                         return 1;
                     }))
             )
+            .then(ClientCommandManager.literal("segmented")
+                .executes(context -> {
+                    DiagnoseOrchestrator.getInstance().startSegmented(3600, context.getSource());
+                    return 1;
+                })
+                .then(ClientCommandManager.argument("time", IntegerArgumentType.integer(60, 86400))
+                    .executes(context -> {
+                        int seconds = IntegerArgumentType.getInteger(context, "time");
+                        DiagnoseOrchestrator.getInstance().startSegmented(seconds, context.getSource());
+                        return 1;
+                    }))
+            )
         );
     }
 }
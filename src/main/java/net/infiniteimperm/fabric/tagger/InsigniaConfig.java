@@ -3,11 +3,15 @@ package net.infiniteimperm.fabric.tagger;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import net.fabricmc.loader.api.FabricLoader;
+import net.infiniteimperm.fabric.tagger.diagnose.NvidiaSmiCollector;
+import net.infiniteimperm.fabric.tagger.diagnose.SamplerCollector;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class InsigniaConfig {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
@@ -34,13 +38,36 @@ public class InsigniaConfig {
     // Diagnose Custom Mode Profiler Toggles
     public boolean diagnoseCustomPresentMon = true;
     public boolean diagnoseCustomJfr = true;
+    public boolean diagnoseCustomJfrJvmRuntime = false;
     public boolean diagnoseCustomPerfCounters = true;
     public boolean diagnoseCustomTypeperf = true;
     public boolean diagnoseCustomProcessContention = true;
+    // Custom-mode toggles for pluggable collectors, by collector id; missing ids use the collector's default.
+    public Map<String, Boolean> diagnoseCustomCollectors = new LinkedHashMap<>();
+    // Superseded by diagnoseCustomCollectors entries of the same collector; only read in load() so older configs keep their choice.
     public boolean diagnoseCustomNvidiaSmi = true;
+    public boolean diagnoseCustomThreadSched = true;
+    public boolean diagnoseCustomProcessIo = true;
+    public boolean diagnoseCustomJvmThreads = true;
+    public boolean diagnoseCustomGcTelemetry = true;
+    public boolean diagnoseCustomOffHeap = true;
     public boolean diagnoseCustomSpark = true;
     public boolean diagnoseCustomNsight = false;
     public boolean diagnoseCustomWpr = false;
+    public int diagnoseThreadSchedIntervalMs = 50;
+    public int diagnoseLeakThresholdMbPerMin = 50;
+    public int diagnoseSegmentMinutes = 10;
+    public boolean diagnoseTriggerOnJoin = false;
+    public boolean diagnoseTriggerOnReload = false;
+    public boolean diagnoseTriggerOnDimensionChange = false;
+    public int diagnoseTriggerFrameTimeMs = 0; // 0 = off
+    public int diagnoseTriggerFramePercentile = 99;
+    public int diagnoseTriggerFrameWindowSeconds = 10;
+    public int diagnoseTriggerF8Repeats = 0; // 0 = off
+    public boolean diagnoseTriggerPreRoll = false;
+    public int diagnoseTriggerCaptureSeconds = 60;
+    public int diagnoseTriggerCooldownMinutes = 10;
+    public int diagnoseTriggerDiskBudgetMb = 2048;
     
     public static InsigniaConfig getInstance() {
         return INSTANCE;
@@ -56,6 +83,44 @@ public class InsigniaConfig {
                     INSTANCE = loaded;
                     // Clamp values to valid ranges
                     INSTANCE.queueDurabilityThreshold = Math.max(0.5f, Math.min(1.0f, INSTANCE.queueDurabilityThreshold));
+                    // Multiples of 10 ms only: the sampling scheduler ticks at the gcd of all sampler intervals.
+                    INSTANCE.diagnoseThreadSchedIntervalMs = Math.max(1, Math.min(100, Math.round(INSTANCE.diagnoseThreadSchedIntervalMs / 10f))) * 10;
+                    INSTANCE.diagnoseLeakThresholdMbPerMin = Math.max(5, Math.min(1000, INSTANCE.diagnoseLeakThresholdMbPerMin));
+                    INSTANCE.diagnoseSegmentMinutes = Math.max(1, Math.min(60, INSTANCE.diagnoseSegmentMinutes));
+                    if (INSTANCE.diagnoseCustomCollectors == null) {
+                        INSTANCE.diagnoseCustomCollectors = new LinkedHashMap<>();
+                    }
+                    if (!INSTANCE.diagnoseCustomNvidiaSmi) {
+                        INSTANCE.diagnoseCustomCollectors.putIfAbsent(NvidiaSmiCollector.ID, false);
+                        INSTANCE.diagnoseCustomNvidiaSmi = true;
+                    }
+                    if (!INSTANCE.diagnoseCustomThreadSched) {
+                        INSTANCE.diagnoseCustomCollectors.putIfAbsent(SamplerCollector.THREAD_SCHED, false);
+                        INSTANCE.diagnoseCustomThreadSched = true;
+                    }
+                    if (!INSTANCE.diagnoseCustomProcessIo) {
+                        INSTANCE.diagnoseCustomCollectors.putIfAbsent(SamplerCollector.PROCESS_IO, false);
+                        INSTANCE.diagnoseCustomProcessIo = true;
+                    }
+                    if (!INSTANCE.diagnoseCustomJvmThreads) {
+                        INSTANCE.diagnoseCustomCollectors.putIfAbsent(SamplerCollector.JVM_THREADS, false);
+                        INSTANCE.diagnoseCustomJvmThreads = true;
+                    }
+                    if (!INSTANCE.diagnoseCustomGcTelemetry) {
+                        INSTANCE.diagnoseCustomCollectors.putIfAbsent(SamplerCollector.GC_TELEMETRY, false);
+                        INSTANCE.diagnoseCustomGcTelemetry = true;
+                    }
+                    if (!INSTANCE.diagnoseCustomOffHeap) {
+                        INSTANCE.diagnoseCustomCollectors.putIfAbsent(SamplerCollector.OFF_HEAP, false);
+                        INSTANCE.diagnoseCustomOffHeap = true;
+                    }
+                    INSTANCE.diagnoseTriggerFrameTimeMs = Math.max(0, Math.min(1000, INSTANCE.diagnoseTriggerFrameTimeMs));
+                    INSTANCE.diagnoseTriggerFramePercentile = Math.max(50, Math.min(99, INSTANCE.diagnoseTriggerFramePercentile));
+                    INSTANCE.diagnoseTriggerFrameWindowSeconds = Math.max(1, Math.min(120, INSTANCE.diagnoseTriggerFrameWindowSeconds));
+                    INSTANCE.diagnoseTriggerF8Repeats = Math.max(0, Math.min(10, INSTANCE.diagnoseTriggerF8Repeats));
+                    INSTANCE.diagnoseTriggerCaptureSeconds = Math.max(10, Math.min(600, INSTANCE.diagnoseTriggerCaptureSeconds));
+                    INSTANCE.diagnoseTriggerCooldownMinutes = Math.max(1, Math.min(240, INSTANCE.diagnoseTriggerCooldownMinutes));
+                    INSTANCE.diagnoseTriggerDiskBudgetMb = Math.max(100, Math.min(100_000, INSTANCE.diagnoseTriggerDiskBudgetMb));
                 }
                 TaggerMod.LOGGER.info("Loaded Insignia config from file");
             } catch (Exception e) {
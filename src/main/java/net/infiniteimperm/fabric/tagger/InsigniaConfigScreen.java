@@ -3,9 +3,14 @@ package net.infiniteimperm.fabric.tagger;
 import me.shedaniel.clothconfig2.api.ConfigBuilder;
 import me.shedaniel.clothconfig2.api.ConfigCategory;
 import me.shedaniel.clothconfig2.api.ConfigEntryBuilder;
+import net.infiniteimperm.fabric.tagger.diagnose.CaptureTriggers;
+import net.infiniteimperm.fabric.tagger.diagnose.Collector;
+import net.infiniteimperm.fabric.tagger.diagnose.CollectorRegistry;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.text.Text;
 
+import java.util.Locale;
+
 public class InsigniaConfigScreen {
     
     public static Screen createConfigScreen(Screen parent) {
@@ -14,7 +19,10 @@ public class InsigniaConfigScreen {
         ConfigBuilder builder = ConfigBuilder.create()
             .setParentScreen(parent)
             .setTitle(Text.literal("Insignia Configuration"))
-            .setSavingRunnable(InsigniaConfig::save);
+            .setSavingRunnable(() -> {
+                InsigniaConfig.save();
+                CaptureTriggers.syncWithConfig();
+            });
         
         ConfigEntryBuilder entryBuilder = builder.entryBuilder();
         
@@ -93,6 +101,12 @@ public class InsigniaConfigScreen {
             .setSaveConsumer(newValue -> config.diagnoseCustomJfr = newValue)
             .build());
 
+        profiler.addEntry(entryBuilder.startBooleanToggle(Text.literal("Custom: JFR JIT/Safepoint/ClassLoad"), config.diagnoseCustomJfrJvmRuntime)
+            .setDefaultValue(false)
+            .setTooltip(Text.literal("Also record JIT compilation, deoptimization, safepoint and class-load events for /diagnose custom (always on in full mode)"))
+            .setSaveConsumer(newValue -> config.diagnoseCustomJfrJvmRuntime = newValue)
+            .build());
+
         profiler.addEntry(entryBuilder.startBooleanToggle(Text.literal("Custom: Perf Counters"), config.diagnoseCustomPerfCounters)
             .setDefaultValue(true)
             .setTooltip(Text.literal("Enable internal JVM/OS counters sampler for /diagnose custom"))
@@ -107,16 +121,39 @@ public class InsigniaConfigScreen {
 
         profiler.addEntry(entryBuilder.startBooleanToggle(Text.literal("Custom: Process Contention"), config.diagnoseCustomProcessContention)
             .setDefaultValue(true)
-            .setTooltip(Text.literal("Enable process contention sampler for /diagnose custom"))
+            .setTooltip(Text.literal("Enable process contention sampler for /diagnose custom (plus PSI/cgroup pressure on Linux)"))
             .setSaveConsumer(newValue -> config.diagnoseCustomProcessContention = newValue)
             .build());
 
-        profiler.addEntry(entryBuilder.startBooleanToggle(Text.literal("Custom: nvidia-smi"), config.diagnoseCustomNvidiaSmi)
-            .setDefaultValue(true)
-            .setTooltip(Text.literal("Enable NVIDIA telemetry for /diagnose custom"))
-            .setSaveConsumer(newValue -> config.diagnoseCustomNvidiaSmi = newValue)
+        profiler.addEntry(entryBuilder.startIntSlider(Text.literal("Thread Scheduler Interval (x10 ms)"), config.diagnoseThreadSchedIntervalMs / 10, 1, 100)
+            .setDefaultValue(5)
+            .setTooltip(Text.literal("How often the Linux thread scheduler sampler reads /proc, in 10 ms steps"))
+            .setSaveConsumer(newValue -> config.diagnoseThreadSchedIntervalMs = newValue * 10)
             .build());
 
+        profiler.addEntry(entryBuilder.startIntSlider(Text.literal("Heap Leak Threshold (MB/min)"), config.diagnoseLeakThresholdMbPerMin, 5, 1000)
+            .setDefaultValue(50)
+            .setTooltip(Text.literal("Old gen after-GC growth that triggers class histograms of all objects (no forced GC) and leak_suspects.txt"))
+            .setSaveConsumer(newValue -> config.diagnoseLeakThresholdMbPerMin = newValue)
+            .build());
+
+        profiler.addEntry(entryBuilder.startIntSlider(Text.literal("Segment Length (minutes)"), config.diagnoseSegmentMinutes, 1, 60)
+            .setDefaultValue(10)
+            .setTooltip(Text.literal("/diagnose segmented rolls JFR and samplers into a new segment this often and analyses each one as it closes"))
+            .setSaveConsumer(newValue -> config.diagnoseSegmentMinutes = newValue)
+            .build());
+
+        // One toggle per registered collector, including ones contributed by other mods
+        for (Collector collector : CollectorRegistry.discover()) {
+            boolean defaultEnabled = CollectorRegistry.defaultEnabled(collector);
+            profiler.addEntry(entryBuilder.startBooleanToggle(Text.literal("Custom: " + collector.displayName()),
+                    config.diagnoseCustomCollectors.getOrDefault(collector.id(), defaultEnabled))
+                .setDefaultValue(defaultEnabled)
+                .setTooltip(Text.literal("Enable the " + collector.displayName() + " collector (" + collector.overhead().name().toLowerCase(Locale.ROOT) + " overhead) for /diagnose custom"))
+                .setSaveConsumer(newValue -> config.diagnoseCustomCollectors.put(collector.id(), newValue))
+                .build());
+        }
+
         profiler.addEntry(entryBuilder.startBooleanToggle(Text.literal("Custom: spark"), config.diagnoseCustomSpark)
             .setDefaultValue(true)
             .setTooltip(Text.literal("Enable spark profiler dispatch for /diagnose custom"))
@@ -134,6 +171,75 @@ public class InsigniaConfigScreen {
             .setTooltip(Text.literal("Enable WPR trace capture for /diagnose custom"))
             .setSaveConsumer(newValue -> config.diagnoseCustomWpr = newValue)
             .build());
+
+        // Capture Triggers Category
+        ConfigCategory triggers = builder.getOrCreateCategory(Text.literal("Capture Triggers"));
+
+        triggers.addEntry(entryBuilder.startBooleanToggle(Text.literal("On World Join"), config.diagnoseTriggerOnJoin)
+            .setDefaultValue(false)
+            .setTooltip(Text.literal("Start a capture when a world or server is joined"))
+            .setSaveConsumer(newValue -> config.diagnoseTriggerOnJoin = newValue)
+            .build());
+
+        triggers.addEntry(entryBuilder.startBooleanToggle(Text.literal("On Resource Reload"), config.diagnoseTriggerOnReload)
+            .setDefaultValue(false)
+            .setTooltip(Text.literal("Start a capture when a resource pack reload begins"))
+            .setSaveConsumer(newValue -> config.diagnoseTriggerOnReload = newValue)
+            .build());
+
+        triggers.addEntry(entryBuilder.startBooleanToggle(Text.literal("On Dimension Change"), config.diagnoseTriggerOnDimensionChange)
+            .setDefaultValue(false)
+            .setTooltip(Text.literal("Start a capture when the player changes dimension"))
+            .setSaveConsumer(newValue -> config.diagnoseTriggerOnDimensionChange = newValue)
+            .build());
+
+        triggers.addEntry(entryBuilder.startIntSlider(Text.literal("Frame Time Limit (ms)"), config.diagnoseTriggerFrameTimeMs, 0, 1000)
+            .setDefaultValue(0)
+            .setTooltip(Text.literal("Start a capture when the frame-time percentile below exceeds this over the window; 0 = off"))
+            .setSaveConsumer(newValue -> config.diagnoseTriggerFrameTimeMs = newValue)
+            .build());
+
+        triggers.addEntry(entryBuilder.startIntSlider(Text.literal("Frame Time Percentile"), config.diagnoseTriggerFramePercentile, 50, 99)
+            .setDefaultValue(99)
+            .setSaveConsumer(newValue -> config.diagnoseTriggerFramePercentile = newValue)
+            .build());
+
+        triggers.addEntry(entryBuilder.startIntSlider(Text.literal("Frame Time Window (seconds)"), config.diagnoseTriggerFrameWindowSeconds, 1, 120)
+            .setDefaultValue(10)
+            .setSaveConsumer(newValue -> config.diagnoseTriggerFrameWindowSeconds = newValue)
+            .build());
+
+        triggers.addEntry(entryBuilder.startIntSlider(Text.literal("F8 Presses Within 10s"), config.diagnoseTriggerF8Repeats, 0, 10)
+            .setDefaultValue(0)
+            .setTooltip(Text.literal("Start a capture after this many stutter marks within 10 seconds; 0 = off"))
+            .setSaveConsumer(newValue -> config.diagnoseTriggerF8Repeats = newValue)
+            .build());
+
+        triggers.addEntry(entryBuilder.startBooleanToggle(Text.literal("Pre-Roll (lightweight)"), config.diagnoseTriggerPreRoll)
+            .setDefaultValue(false)
+            .setTooltip(Text.literal("Keep a rolling JFR recording while triggers are enabled and save its last seconds when one fires, instead of starting a capture"))
+            .setSaveConsumer(newValue -> config.diagnoseTriggerPreRoll = newValue)
+            .build());
+
+        triggers.addEntry(entryBuilder.startIntSlider(Text.literal("Capture / Pre-Roll Length (seconds)"), config.diagnoseTriggerCaptureSeconds, 10, 600)
+            .setDefaultValue(60)
+            .setTooltip(Text.literal("Length of a triggered capture (uses the Custom profiler toggles), or how much history pre-roll keeps"))
+            .setSaveConsumer(newValue -> config.diagnoseTriggerCaptureSeconds = newValue)
+            .build());
+
+        triggers.addEntry(entryBuilder.startIntSlider(Text.literal("Cooldown (minutes)"), config.diagnoseTriggerCooldownMinutes, 1, 240)
+            .setDefaultValue(10)
+            .setTooltip(Text.literal("Minimum time between two triggered captures"))
+            .setSaveConsumer(newValue -> config.diagnoseTriggerCooldownMinutes = newValue)
+            .build());
+
+        triggers.addEntry(entryBuilder.startIntField(Text.literal("Disk Budget (MB)"), config.diagnoseTriggerDiskBudgetMb)
+            .setDefaultValue(2048)
+            .setMin(100)
+            .setMax(100_000)
+            .setTooltip(Text.literal("Skip triggers while the diagnose output folder is larger than this"))
+            .setSaveConsumer(newValue -> config.diagnoseTriggerDiskBudgetMb = newValue)
+            .build());
         
         return builder.build();
     }
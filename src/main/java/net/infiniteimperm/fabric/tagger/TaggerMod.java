@@ -8,6 +8,7 @@ import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.message.v1.ClientReceiveMessageEvents;
 import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
 import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
+import net.infiniteimperm.fabric.tagger.diagnose.CaptureTriggers;
 import net.infiniteimperm.fabric.tagger.diagnose.DiagnoseOrchestrator;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.option.KeyBinding;
@@ -34,6 +35,10 @@ public class TaggerMod implements ClientModInitializer {
         
         // Sync Ghost Totem Detector state with config
         GhostTotemDetector.syncWithConfig();
+        CaptureTriggers.syncWithConfig();
+
+        // Rebuild the bundle of a /diagnose capture the last session crashed or was killed during
+        DiagnoseOrchestrator.getInstance().recoverInterruptedCapture();
 
         userStutterMarkKey = KeyBindingHelper.registerKeyBinding(new KeyBinding(
             "key.insignia.user_stutter_mark",
@@ -69,6 +74,10 @@ public class TaggerMod implements ClientModInitializer {
         });
 
         WorldRenderEvents.START.register(context -> DiagnoseOrchestrator.onWorldFrameStart());
+        WorldRenderEvents.AFTER_SETUP.register(context -> DiagnoseOrchestrator.onWorldAfterSetup());
+        WorldRenderEvents.BEFORE_ENTITIES.register(context -> DiagnoseOrchestrator.onWorldBeforeEntities());
+        WorldRenderEvents.AFTER_ENTITIES.register(context -> DiagnoseOrchestrator.onWorldAfterEntities());
+        WorldRenderEvents.AFTER_TRANSLUCENT.register(context -> DiagnoseOrchestrator.onWorldAfterTranslucent());
         WorldRenderEvents.END.register(context -> DiagnoseOrchestrator.onWorldFrameEnd());
 
         // Register HUD render callback for Totem Warning Overlay (in-game view)
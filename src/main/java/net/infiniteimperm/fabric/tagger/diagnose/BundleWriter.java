@@ -239,10 +239,26 @@ public final class BundleWriter {
         sb.append("Spark detected: ").append(sparkPresent).append("\n\n");
         sb.append("Artifacts:\n");
         sb.append("- presentmon.csv\n");
+        sb.append("- frametimes.csv (in-process buffer swap timing, PresentMon-compatible; used when PresentMon is unavailable)\n");
+        sb.append("- mangohud.csv (MangoHud frame log written during the capture, when found)\n");
         sb.append("- recording.jfr\n");
         sb.append("- bad_frames.json\n");
         sb.append("- windows_hardware_counters.csv\n");
         sb.append("- process_contention.csv\n");
+        sb.append("- jvm_threads.csv (CPU time and allocation per JVM thread role every 100 ms: render, server, chunk_workers, io, gc, jit, jfr, insignia, jvm, other)\n");
+        sb.append("- jvm_threads_summary.txt (per-role CPU share, average/peak cores and allocation over the capture, plus the busiest threads)\n");
+        sb.append("- gc_events.csv (one row per GC from MXBean notifications: cause, duration, per-pool before/after bytes, heap allocation and MB/s since the previous GC)\n");
+        sb.append("- memory_pools.csv (used bytes per memory pool every 100 ms)\n");
+        sb.append("- gc_summary.txt (per-collector count/total/max, causes, allocation rate and pool peaks; GC visibility even without JFR)\n");
+        sb.append("- leak_suspects.txt + heap_histogram_*.txt (only when old gen occupancy after old/full GCs trends upward past the configured MB/min; top growing classes between a baseline and a trigger histogram)\n");
+        sb.append("- segments.csv / segments_summary.txt (/diagnose segmented only: one row per segment_NNN directory with frames, bad frames and analysis time, plus cross-segment totals and worst segments)\n");
+        sb.append("- offheap.csv (every 100 ms: direct/mapped buffer pools, heap/non-heap used, vertex and texture upload bytes per interval, live NativeImage and vertex buffer bytes, off-heap estimate of direct + mapped + NativeImage; folded into bad_frames.json offheap)\n");
+        sb.append("- nmt.csv (Native Memory Tracking summary per category every 5 s; only when the game runs with -XX:NativeMemoryTracking=summary)\n");
+        sb.append("- process_io.csv (Linux only: /proc/self/io bytes/syscalls and minor/major page fault deltas, 10 ms sampling; rows only when storage IO or page faults moved; rchar/syscr include the sampler's own reads)\n");
+        sb.append("- system_pressure.csv (Linux only: PSI cpu/memory/io stall and cgroup v2 throttling/memory event deltas; feeds bad_frames.json root_causes)\n");
+        sb.append("- thread_sched.csv (Linux only: per-thread CPU, run-queue wait and context switch deltas from /proc; folded into bad_frames.json thread_sched)\n");
+        sb.append("- render_stalls.txt (render thread stacks sampled every 1 ms while a HUD frame runs past 50 ms, from its start to its end)\n");
+        sb.append("- resource_reload_waterfall.csv (only when a resource reload happened during capture)\n");
         sb.append("- system_info.json\n");
         sb.append("- device-details.json\n");
         sb.append("- logs/*.log\n\n");
@@ -250,18 +266,26 @@ public final class BundleWriter {
         sb.append("- insignia.HudFrameStart(frameId, nanoTime, wallMillis)\n");
         sb.append("- insignia.HudFrameEnd(frameId, nanoTime, wallMillis, frameDurationNs)\n");
         sb.append("- insignia.FramePhase(frameId, phase, durationNs, nanoTime, wallMillis)\n");
-        sb.append("  phase enum: 1=WORLD, 2=ENTITIES, 3=BLOCK_ENTITIES, 4=PARTICLES, 5=GUI, 6=POST, 7=UPLOADS\n");
-        sb.append("- insignia.FrameSummary(frameId, totalFrameDurationNs + aggregated per-frame counters)\n");
+        sb.append("  phase enum: 1=WORLD, 2=ENTITIES, 3=BLOCK_ENTITIES, 4=PARTICLES, 5=GUI, 6=POST, 7=UPLOADS,\n");
+        sb.append("              8=WORLD_SETUP, 9=WORLD_TERRAIN, 10=WORLD_TRANSLUCENT (incl. block outline), 11=WORLD_LATE\n");
+        sb.append("  WORLD is the whole world pass; 2 and 8-11 split it at the Fabric WorldRenderEvents stages and sum to WORLD.\n");
+        sb.append("- insignia.FrameSummary(frameId, totalFrameDurationNs, cpuNs, allocBytes + aggregated per-frame counters; cpuNs/allocBytes are render-thread deltas since the previous summary)\n");
         sb.append("- insignia.FrameBoundary(phase, frameIndex, nanoTime, wallMillis) [legacy HUD boundary marker]\n");
         sb.append("- insignia.WorldTransition(transitionType, durationNs, nanoTime, wallMillis)\n");
         sb.append("  transitionType enum: 1=JOIN, 2=LEAVE, 3=DIM_CHANGE\n");
         sb.append("- insignia.UserStutterMark(frameId, label, nanoTime, wallMillis)\n");
         sb.append("- insignia.ResourceReload(phase, durationNs, nanoTime, wallMillis)\n");
         sb.append("  phase enum: 1=START, 2=END\n");
+        sb.append("- insignia.ResourceReloaderStage(reloadId, reloader, stage, threads, startOffsetNs, durationNs, busyNs, taskCount) [prepare/apply per reloader; also resource_reload_waterfall.csv]\n");
         sb.append("- insignia.ChunkBuildBatch(frameId, chunkCount, buildDurationNs, uploadDurationNs)\n");
         sb.append("- insignia.BufferUploadBatch(frameId, uploadCount, bytes, durationNs)\n");
         sb.append("- insignia.TextureUploadBatch(frameId, uploadCount, bytes, durationNs)\n");
         sb.append("- insignia.ShaderCompileBatch(frameId, compileCount, durationNs)\n");
+        sb.append("- insignia.BlockEntityRender(frameId, blockEntityType, renderCount, durationNs) [per type, frames with >=1 ms of block entity rendering]\n");
+        sb.append("- insignia.BlockEntityOffender(frameId, blockEntityType, x, y, z, durationNs) [slowest single block entities in that frame]\n");
+        sb.append("- insignia.HeapHistogram(histogramLabel) [duration of a leak-detector class histogram; its safepoint pause is the profiler's own]\n");
+        sb.append("- insignia.RenderStall(frameSequence, stallStartWallMillis, stallDurationNs, sampleCount, sampleIntervalNs, stacks) [render thread burst samples; also render_stalls.txt]\n");
+        sb.append("- insignia.MainThreadTask(frameId, taskOwner, taskCount, runDurationNs, maxQueueLatencyNs) [slowest task owners drained from the client executor, frames with >=1 ms of task work]\n");
         sb.append("Note: renderer batch hooks aggregate uploads per frame; zero counts usually mean the path was not exercised during capture.\n\n");
         sb.append("Reference parsing behavior:\n");
         sb.append("- PresentMon interpretation should follow CapFrameX-style frame-time analysis patterns.\n");
@@ -271,6 +295,8 @@ public final class BundleWriter {
         sb.append("- Analyze this diagnostics bundle for Minecraft stutter root causes.\n");
         sb.append("- Use presentmon.csv for frame-time spikes and pacing anomalies.\n");
         sb.append("- Use recording.jfr + insignia.FrameBoundary events to correlate bad frames with CPU samples, allocations, locks, parks, and GC pauses.\n");
+        sb.append("- In bad_frames.json, jvm_runtime (full mode or the custom JIT toggle) separates JIT/class-load warm-up stutter from steady-state stutter.\n");
+        sb.append("- Each bad frame carries root_causes labels (gc_pause, jit_warmup, render_thread_descheduled, cpu/memory/io_pressure, cgroup_cpu_throttled, disk_reads, major_page_faults, profiler_heap_histogram); pressure labels mean the host, not the game, stalled the frame, and profiler_heap_histogram means the leak detector's own heap walk did.\n");
         sb.append("- Use ETL/nsys outputs when present to validate GPU/driver/scheduler hypotheses.\n");
         sb.append("- Provide:\n");
         sb.append("  1) Top likely root causes ranked by confidence.\n");
@@ -517,6 +543,10 @@ public final class BundleWriter {
         }
     }
 
+    private static String jsonInstant(Instant instant) {
+        return instant == null ? "null" : "\"" + instant + "\"";
+    }
+
     private static String escape(String input) {
         if (input == null) {
             return "";
@@ -730,6 +760,20 @@ public final class BundleWriter {
         List<Path> required,
         List<Path> optional,
         List<String> notes) throws IOException {
+        return writeManifest(outFile, detection, required, optional, notes, List.of(), null);
+    }
+
+    /**
+     * Manifest with each collector's start/stop instants and the capture window (their intersection) the parser used.
+     */
+    public static Path writeManifest(
+        Path outFile,
+        ToolDetection.DetectionReport detection,
+        List<Path> required,
+        List<Path> optional,
+        List<String> notes,
+        List<CollectorStartup.Timing> collectors,
+        CollectorStartup.Window window) throws IOException {
         StringBuilder sb = new StringBuilder();
         sb.append("{\n");
         sb.append("  \"required\": {\n");
@@ -765,6 +809,29 @@ public final class BundleWriter {
         }
         sb.append("    ]\n");
         sb.append("  },\n");
+        if (!collectors.isEmpty()) {
+            sb.append("  \"collectors\": [\n");
+            for (int i = 0; i < collectors.size(); i++) {
+                CollectorStartup.Timing timing = collectors.get(i);
+                sb.append("    {\"name\": \"").append(escape(timing.name()))
+                    .append("\", \"start\": ").append(jsonInstant(timing.start()))
+                    .append(", \"stop\": ").append(jsonInstant(timing.stop()))
+                    .append(", \"status\": \"").append(escape(timing.status())).append("\"}");
+                if (i + 1 < collectors.size()) {
+                    sb.append(",");
+                }
+                sb.append("\n");
+            }
+            sb.append("  ],\n");
+            sb.append("  \"capture_window\": ");
+            if (window == null) {
+                sb.append("null,\n");
+            } else {
+                sb.append("{\"start\": ").append(jsonInstant(window.start()))
+                    .append(", \"end\": ").append(jsonInstant(window.end()))
+                    .append(", \"duration_ms\": ").append(window.length().toMillis()).append("},\n");
+            }
+        }
         sb.append("  \"notes\": [\n");
         for (int i = 0; i < notes.size(); i++) {
             sb.append("    \"").append(escape(notes.get(i))).append("\"");
@@ -0,0 +1,111 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import jdk.jfr.consumer.RecordingFile;
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds {@code recording.jfr} for a capture that never reached {@link JfrController#stopAndDump} (game crash, kill,
+ * hard freeze). {@code setToDisk(true)} recordings live as chunk files in the JVM's JFR repository, and the format
+ * allows complete chunks to be concatenated into one recording, which is what {@code jfr assemble} does.
+ */
+public final class CaptureRecovery {
+    private CaptureRecovery() {
+    }
+
+    public record Stitched(int chunks, int skipped, long bytes) {
+    }
+
+    /**
+     * JFR repository of this JVM, or blank before JFR has created it (it does so on the first recording start).
+     */
+    public static String currentRepository() {
+        return System.getProperty("jdk.jfr.repository", "");
+    }
+
+    /**
+     * Concatenates the readable chunks in {@code repository} modified at or after {@code since} into {@code outJfr},
+     * oldest first. Chunks that fail to parse (torn by the crash) are skipped so the rest still open.
+     */
+    public static Stitched stitchChunks(Path repository, Instant since, Path outJfr) throws IOException {
+        List<Path> chunks = new ArrayList<>();
+        if (repository != null && Files.isDirectory(repository)) {
+            try (Stream<Path> files = Files.list(repository)) {
+                files.filter(path -> path.getFileName().toString().endsWith(".jfr"))
+                    .filter(path -> !lastModified(path).isBefore(since))
+                    .sorted()
+                    .forEach(chunks::add);
+            }
+        }
+        int used = 0;
+        int skipped = 0;
+        long bytes = 0L;
+        Files.createDirectories(outJfr.toAbsolutePath().getParent());
+        try (FileChannel out = FileChannel.open(outJfr, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Path chunk : chunks) {
+                if (!isReadable(chunk)) {
+                    skipped++;
+                    continue;
+                }
+                try (FileChannel in = FileChannel.open(chunk, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long position = 0L;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                    bytes += size;
+                    used++;
+                }
+            }
+        }
+        if (used == 0) {
+            Files.deleteIfExists(outJfr);
+        }
+        return new Stitched(used, skipped, bytes);
+    }
+
+    /**
+     * Latest modification time among {@code files}, i.e. roughly when the interrupted capture last wrote anything.
+     */
+    public static Instant lastWrite(List<Path> files, Instant fallback) {
+        Instant latest = fallback;
+        for (Path file : files) {
+            if (file != null && Files.exists(file)) {
+                Instant modified = lastModified(file);
+                if (modified.isAfter(latest)) {
+                    latest = modified;
+                }
+            }
+        }
+        return latest;
+    }
+
+    private static boolean isReadable(Path chunk) {
+        try (RecordingFile file = new RecordingFile(chunk)) {
+            while (file.hasMoreEvents()) {
+                file.readEvent();
+            }
+            return true;
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][Recovery] Skipping unreadable JFR chunk {}: {}", chunk.getFileName(), e.toString());
+            return false;
+        }
+    }
+
+    private static Instant lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant();
+        } catch (IOException e) {
+            return Instant.EPOCH;
+        }
+    }
+}
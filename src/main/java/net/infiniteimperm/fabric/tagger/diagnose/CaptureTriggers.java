@@ -0,0 +1,254 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import net.infiniteimperm.fabric.tagger.InsigniaConfig;
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Declarative capture triggers from {@link InsigniaConfig}: world join, resource reload start, dimension change, a
+ * frame-time percentile over a rolling window, and repeated F8 marks. A trigger that passes the cooldown is handed to
+ * {@link DiagnoseOrchestrator#startTriggered}, which applies the disk budget and either starts a timed capture or, in
+ * pre-roll mode, dumps the rolling JFR recording kept here. Hooks run on the render thread.
+ */
+public final class CaptureTriggers {
+    static final long MARK_WINDOW_MS = 10_000L;
+    static final int MIN_WINDOW_FRAMES = 60;
+    private static final DateTimeFormatter TS = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final CaptureTriggers INSTANCE = new CaptureTriggers(reason -> DiagnoseOrchestrator.getInstance().startTriggered(reason));
+
+    public record Settings(boolean onJoin, boolean onReload, boolean onDimensionChange, int frameTimeMs, int framePercentile,
+                           int frameWindowSeconds, int markRepeats, boolean preRoll, int preRollSeconds, int cooldownMinutes) {
+        static Settings fromConfig(InsigniaConfig cfg) {
+            return new Settings(cfg.diagnoseTriggerOnJoin, cfg.diagnoseTriggerOnReload, cfg.diagnoseTriggerOnDimensionChange,
+                cfg.diagnoseTriggerFrameTimeMs, cfg.diagnoseTriggerFramePercentile, cfg.diagnoseTriggerFrameWindowSeconds,
+                cfg.diagnoseTriggerF8Repeats, cfg.diagnoseTriggerPreRoll, cfg.diagnoseTriggerCaptureSeconds, cfg.diagnoseTriggerCooldownMinutes);
+        }
+
+        boolean anyEnabled() {
+            return onJoin || onReload || onDimensionChange || frameTimeMs > 0 || markRepeats > 0;
+        }
+    }
+
+    private final Predicate<String> sink;
+    private Settings settings = new Settings(false, false, false, 0, 99, 10, 0, false, 60, 10);
+    private FrameWindow frameWindow;
+    private final ArrayDeque<Long> marks = new ArrayDeque<>();
+    private long lastFrameNs;
+    private long cooldownUntilMs = Long.MIN_VALUE;
+    private Recording preRoll;
+
+    // sink returns false when it could not act (a capture is already running); the cooldown then does not start.
+    CaptureTriggers(Predicate<String> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Re-reads the trigger settings; starts or stops the pre-roll recording to match. Called on init and config save.
+     */
+    public static void syncWithConfig() {
+        INSTANCE.apply(Settings.fromConfig(InsigniaConfig.getInstance()));
+    }
+
+    public static void onWorldJoin() {
+        if (INSTANCE.settings.onJoin()) {
+            INSTANCE.fire("world_join", System.currentTimeMillis());
+        }
+    }
+
+    public static void onResourceReloadStart() {
+        if (INSTANCE.settings.onReload()) {
+            INSTANCE.fire("resource_reload", System.currentTimeMillis());
+        }
+    }
+
+    public static void onDimensionChange() {
+        if (INSTANCE.settings.onDimensionChange()) {
+            INSTANCE.fire("dimension_change", System.currentTimeMillis());
+        }
+    }
+
+    public static void onFrameStart() {
+        INSTANCE.frame(System.nanoTime(), System.currentTimeMillis());
+    }
+
+    public static void onUserMark() {
+        INSTANCE.mark(System.currentTimeMillis());
+    }
+
+    /**
+     * Writes the last {@code preRollSeconds} of the rolling recording to {@code outJfr} off the calling thread.
+     */
+    public static boolean dumpPreRoll(Path outJfr, Consumer<Path> onDone) {
+        Recording recording = INSTANCE.preRoll;
+        if (recording == null) {
+            return false;
+        }
+        Thread worker = new Thread(() -> {
+            try {
+                recording.dump(outJfr);
+                onDone.accept(outJfr);
+            } catch (Exception e) {
+                TaggerMod.LOGGER.warn("[Diagnose][Triggers] pre-roll dump failed", e);
+            }
+        }, "insignia-preroll-dump");
+        worker.setDaemon(true);
+        worker.start();
+        return true;
+    }
+
+    public static Path preRollFile(Path baseDir, String reason) {
+        return baseDir.resolve("preroll-" + LocalDateTime.now().format(TS) + "-" + reason + ".jfr");
+    }
+
+    public static void log(Path baseDir, String line) {
+        try {
+            Files.createDirectories(baseDir);
+            Files.writeString(baseDir.resolve("triggers.log"), Instant.now() + " " + line + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            TaggerMod.LOGGER.warn("[Diagnose][Triggers] Failed writing trigger log", e);
+        }
+        TaggerMod.LOGGER.info("[Diagnose][Triggers] {}", line);
+    }
+
+    static long directorySize(Path dir) {
+        if (dir == null || !Files.isDirectory(dir)) {
+            return 0L;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(path -> {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    return 0L;
+                }
+            }).sum();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    void apply(Settings next) {
+        settings = next;
+        frameWindow = next.frameTimeMs() > 0 ? new FrameWindow(next.frameWindowSeconds(), next.frameTimeMs(), next.framePercentile()) : null;
+        marks.clear();
+        boolean wantPreRoll = next.preRoll() && next.anyEnabled();
+        if (wantPreRoll && preRoll == null) {
+            try {
+                Recording recording = new Recording(Configuration.getConfiguration("default"));
+                recording.setName("insignia-preroll");
+                recording.setToDisk(true);
+                recording.setMaxAge(Duration.ofSeconds(next.preRollSeconds()));
+                recording.start();
+                preRoll = recording;
+                TaggerMod.LOGGER.info("[Diagnose][Triggers] pre-roll recording started ({} s)", next.preRollSeconds());
+            } catch (Exception e) {
+                TaggerMod.LOGGER.warn("[Diagnose][Triggers] pre-roll recording unavailable", e);
+            }
+        } else if (wantPreRoll) {
+            preRoll.setMaxAge(Duration.ofSeconds(next.preRollSeconds()));
+        } else if (preRoll != null) {
+            preRoll.close();
+            preRoll = null;
+        }
+    }
+
+    void frame(long nowNs, long nowMs) {
+        FrameWindow window = frameWindow;
+        if (window != null && lastFrameNs != 0L && window.record(nowNs, nowNs - lastFrameNs)) {
+            fire("frame_p" + settings.framePercentile() + "_over_" + settings.frameTimeMs() + "ms", nowMs);
+        }
+        lastFrameNs = nowNs;
+    }
+
+    void mark(long nowMs) {
+        int repeats = settings.markRepeats();
+        if (repeats <= 0) {
+            return;
+        }
+        marks.addLast(nowMs);
+        while (!marks.isEmpty() && nowMs - marks.peekFirst() > MARK_WINDOW_MS) {
+            marks.pollFirst();
+        }
+        if (marks.size() >= repeats) {
+            marks.clear();
+            fire("f8_x" + repeats, nowMs);
+        }
+    }
+
+    void fire(String reason, long nowMs) {
+        if (nowMs < cooldownUntilMs) {
+            return;
+        }
+        if (sink.test(reason)) {
+            cooldownUntilMs = nowMs + settings.cooldownMinutes() * 60_000L;
+        }
+    }
+
+    /**
+     * Rolling per-second frame counts. The window's frame-time percentile exceeds the limit exactly when more than
+     * (100 - percentile)% of its frames do, so two counters per second replace sorting; checked once per second.
+     */
+    static final class FrameWindow {
+        private final int[] frames;
+        private final int[] over;
+        private final long limitNs;
+        private final int percentile;
+        private long currentSecond = Long.MIN_VALUE;
+
+        FrameWindow(int windowSeconds, int limitMs, int percentile) {
+            this.frames = new int[Math.max(1, windowSeconds)];
+            this.over = new int[frames.length];
+            this.limitNs = limitMs * 1_000_000L;
+            this.percentile = percentile;
+        }
+
+        boolean record(long nowNs, long frameNs) {
+            long second = nowNs / 1_000_000_000L;
+            boolean crossed = false;
+            if (second != currentSecond) {
+                if (currentSecond != Long.MIN_VALUE) {
+                    crossed = exceeded();
+                    long gap = Math.min(frames.length, second - currentSecond);
+                    for (long s = 1; s <= gap; s++) {
+                        int slot = (int) Math.floorMod(currentSecond + s, (long) frames.length);
+                        frames[slot] = 0;
+                        over[slot] = 0;
+                    }
+                }
+                currentSecond = second;
+            }
+            int slot = (int) Math.floorMod(second, (long) frames.length);
+            frames[slot]++;
+            if (frameNs > limitNs) {
+                over[slot]++;
+            }
+            return crossed;
+        }
+
+        boolean exceeded() {
+            long total = 0L;
+            long slow = 0L;
+            for (int i = 0; i < frames.length; i++) {
+                total += frames[i];
+                slow += over[i];
+            }
+            return total >= MIN_WINDOW_FRAMES && slow * 100L > total * (100L - percentile);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A profiler that runs during {@code /diagnose} next to the built-in collectors. Implementations are found by
+ * {@link CollectorRegistry}: built-ins, {@link java.util.ServiceLoader} providers and the {@code insignia:collector}
+ * Fabric entrypoint, so other mods can contribute their own. Every selected collector is started in parallel behind
+ * the capture's start barrier, stopped and exported with a timeout, and its {@link #artifacts} go into the bundle.
+ * Instances may be reused across captures; keep per-capture state in {@link #start} and tolerate {@link #stop} after a
+ * failed or timed-out start.
+ */
+public interface Collector {
+    /**
+     * Rough cost while running. /diagnose normal skips HIGH; /diagnose custom defaults to the same.
+     */
+    enum Overhead {
+        LOW,
+        MEDIUM,
+        HIGH
+    }
+
+    /**
+     * Stable lower_snake_case id, used in the config, manifest and logs.
+     */
+    String id();
+
+    default String displayName() {
+        return id();
+    }
+
+    Overhead overhead();
+
+    /**
+     * Whether the collector can run on this machine (tool installed, OS supported). Called on the client thread.
+     */
+    boolean detect();
+
+    /**
+     * Returns false when the collector did not start but the capture should go on without it.
+     */
+    boolean start(CollectorContext context) throws Exception;
+
+    void stop(CollectorContext context) throws Exception;
+
+    /**
+     * Post-capture conversion (parsing, copying tool output into the run directory); runs after every collector stopped.
+     */
+    default void export(CollectorContext context) throws Exception {
+    }
+
+    /**
+     * Files this collector produced, normally under {@link CollectorContext#runDir()}.
+     */
+    List<Path> artifacts(CollectorContext context);
+}
@@ -0,0 +1,11 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * What a {@link Collector} gets for one capture. {@code notes} end up in README_ANALYZE.txt and the manifest and are
+ * safe to append to from any thread.
+ */
+public record CollectorContext(Path runDir, Path logsDir, DiagnoseOrchestrator.Mode mode, int captureSeconds, List<String> notes) {
+}
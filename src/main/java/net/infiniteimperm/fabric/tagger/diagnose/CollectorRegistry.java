@@ -0,0 +1,105 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.fabricmc.loader.api.FabricLoader;
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Finds {@link Collector}s and picks the ones a capture runs. Other mods register theirs with a
+ * {@code "insignia:collector": ["com.example.MyCollector"]} entrypoint in fabric.mod.json, or as a
+ * {@code META-INF/services} provider of {@link Collector}.
+ */
+public final class CollectorRegistry {
+    public static final String ENTRYPOINT = "insignia:collector";
+    // Names the orchestrator's own collectors use in the start barrier and manifest.
+    static final Set<String> RESERVED_IDS = Set.of("jfr", "frame_timing", "presentmon", "samplers", "typeperf", "spark", "nsys", "wpr");
+
+    private CollectorRegistry() {
+    }
+
+    /**
+     * Built-ins, then ServiceLoader providers, then Fabric entrypoints. A provider that fails to load is logged and
+     * skipped; later duplicates of an id are dropped.
+     */
+    public static List<Collector> discover() {
+        List<Collector> found = new ArrayList<>();
+        found.add(new NvidiaSmiCollector());
+        found.addAll(SamplerCollector.builtIns());
+        Iterator<Collector> services = ServiceLoader.load(Collector.class, Collector.class.getClassLoader()).iterator();
+        while (true) {
+            try {
+                if (!services.hasNext()) {
+                    break;
+                }
+                found.add(services.next());
+            } catch (ServiceConfigurationError e) {
+                TaggerMod.LOGGER.warn("[Diagnose][Collectors] Skipping collector service provider", e);
+            }
+        }
+        try {
+            found.addAll(FabricLoader.getInstance().getEntrypoints(ENTRYPOINT, Collector.class));
+        } catch (RuntimeException e) {
+            TaggerMod.LOGGER.warn("[Diagnose][Collectors] Failed loading {} entrypoints", ENTRYPOINT, e);
+        }
+        return dedupe(found);
+    }
+
+    static List<Collector> dedupe(List<Collector> collectors) {
+        Map<String, Collector> byId = new LinkedHashMap<>();
+        for (Collector collector : collectors) {
+            String id = collector.id();
+            if (id == null || id.isBlank() || RESERVED_IDS.contains(id)) {
+                TaggerMod.LOGGER.warn("[Diagnose][Collectors] Ignoring {} with invalid or reserved id '{}'", collector.getClass().getName(), id);
+            } else if (byId.containsKey(id)) {
+                TaggerMod.LOGGER.warn("[Diagnose][Collectors] Ignoring {}: id '{}' already registered by {}", collector.getClass().getName(), id,
+                    byId.get(id).getClass().getName());
+            } else {
+                byId.put(id, collector);
+            }
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    public static boolean defaultEnabled(Collector collector) {
+        return collector.overhead() != Collector.Overhead.HIGH;
+    }
+
+    /**
+     * FULL runs every collector, NORMAL skips HIGH overhead ones, CUSTOM follows the per-id toggles in the config.
+     */
+    static boolean enabledFor(Collector collector, DiagnoseOrchestrator.Mode mode, Map<String, Boolean> customToggles) {
+        return switch (mode) {
+            case FULL -> true;
+            case NORMAL -> defaultEnabled(collector);
+            case CUSTOM -> customToggles.getOrDefault(collector.id(), defaultEnabled(collector));
+        };
+    }
+
+    /**
+     * The enabled collectors whose {@link Collector#detect} passes.
+     */
+    public static List<Collector> select(List<Collector> collectors, DiagnoseOrchestrator.Mode mode, Map<String, Boolean> customToggles) {
+        List<Collector> selected = new ArrayList<>();
+        for (Collector collector : collectors) {
+            if (!enabledFor(collector, mode, customToggles)) {
+                continue;
+            }
+            try {
+                if (collector.detect()) {
+                    selected.add(collector);
+                }
+            } catch (RuntimeException e) {
+                TaggerMod.LOGGER.warn("[Diagnose][Collectors] {} detection failed", collector.id(), e);
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,165 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lifecycle of the {@link Collector}s selected for one capture. Starts go through the capture's
+ * {@link CollectorStartup} barrier; stop and export run every collector in parallel, each bounded by the timeout, and
+ * a collector that throws or hangs is reported in the notes without failing the capture. {@link #stopAll} is
+ * idempotent so it doubles as cleanup.
+ */
+public final class CollectorRunner {
+    @FunctionalInterface
+    private interface Phase {
+        void run(Collector collector) throws Exception;
+    }
+
+    private final List<Collector> collectors;
+    private final CollectorContext context;
+    private final Duration timeout;
+    private final Set<String> attempted = ConcurrentHashMap.newKeySet();
+    private final Set<String> stopped = ConcurrentHashMap.newKeySet();
+    private final Set<String> failed = ConcurrentHashMap.newKeySet();
+
+    public CollectorRunner(List<Collector> collectors, CollectorContext context, Duration timeout) {
+        this.collectors = List.copyOf(collectors);
+        this.context = context;
+        this.timeout = timeout;
+    }
+
+    public List<Collector> collectors() {
+        return collectors;
+    }
+
+    public void register(CollectorStartup startup) {
+        for (Collector collector : collectors) {
+            startup.add(collector.id(), () -> {
+                attempted.add(collector.id());
+                return collector.start(context);
+            });
+        }
+    }
+
+    /**
+     * Collectors that started; the others get a note (start failure) and are not exported.
+     */
+    public List<Collector> started(CollectorStartup startup) {
+        List<Collector> out = new ArrayList<>();
+        for (Collector collector : collectors) {
+            if (startup.started(collector.id())) {
+                out.add(collector);
+                continue;
+            }
+            failed.add(collector.id());
+            Exception failure = startup.failure(collector.id());
+            context.notes().add(collector.displayName() + (failure != null ? " failed to start: " + failure.getMessage() : " did not start."));
+        }
+        return out;
+    }
+
+    /**
+     * Stops every collector whose start was attempted and that is not stopped yet, recording stop instants.
+     */
+    public void stopAll(CollectorStartup startup) {
+        List<Collector> targets = new ArrayList<>();
+        for (Collector collector : collectors) {
+            if (attempted.contains(collector.id()) && stopped.add(collector.id())) {
+                startup.markStopped(collector.id());
+                targets.add(collector);
+            }
+        }
+        runPhase("stop", targets, c -> c.stop(context));
+    }
+
+    public void exportAll(CollectorStartup startup) {
+        List<Collector> targets = new ArrayList<>();
+        for (Collector collector : collectors) {
+            if (startup.started(collector.id())) {
+                targets.add(collector);
+            }
+        }
+        runPhase("export", targets, c -> c.export(context));
+    }
+
+    public List<Path> artifacts(Collector collector) {
+        try {
+            List<Path> artifacts = collector.artifacts(context);
+            return artifacts != null ? artifacts : List.of();
+        } catch (RuntimeException e) {
+            TaggerMod.LOGGER.warn("[Diagnose][Collectors] {} artifacts failed", collector.id(), e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Working when the collector started, no phase failed and at least one artifact (if it declares any) exists.
+     */
+    public void addStatus(List<String> working, List<String> failedNames) {
+        for (Collector collector : collectors) {
+            List<Path> artifacts = artifacts(collector);
+            boolean ok = attempted.contains(collector.id()) && !failed.contains(collector.id())
+                && (artifacts.isEmpty() || artifacts.stream().anyMatch(Files::exists));
+            List<String> target = ok ? working : failedNames;
+            if (!target.contains(collector.displayName())) {
+                target.add(collector.displayName());
+            }
+        }
+    }
+
+    private void runPhase(String phase, List<Collector> targets, Phase task) {
+        if (targets.isEmpty()) {
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(targets.size(), r -> {
+            Thread t = new Thread(r, "insignia-collector-" + phase);
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Map<Collector, Future<?>> pending = new LinkedHashMap<>();
+            for (Collector collector : targets) {
+                pending.put(collector, pool.submit(() -> {
+                    task.run(collector);
+                    return null;
+                }));
+            }
+            long deadline = System.nanoTime() + timeout.toNanos();
+            for (Map.Entry<Collector, Future<?>> entry : pending.entrySet()) {
+                Collector collector = entry.getKey();
+                try {
+                    entry.getValue().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    entry.getValue().cancel(true);
+                    failed.add(collector.id());
+                    context.notes().add(collector.displayName() + " " + phase + " timed out after " + timeout.toSeconds() + " s.");
+                    TaggerMod.LOGGER.warn("[Diagnose][Collectors] {} {} timed out", collector.id(), phase);
+                } catch (ExecutionException e) {
+                    failed.add(collector.id());
+                    context.notes().add(collector.displayName() + " " + phase + " failed: " + e.getCause().getMessage());
+                    TaggerMod.LOGGER.warn("[Diagnose][Collectors] {} {} failed", collector.id(), phase, e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
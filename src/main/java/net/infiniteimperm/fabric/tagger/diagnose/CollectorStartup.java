@@ -0,0 +1,216 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Starts a capture's collectors in parallel. Every collector gets its own thread, all threads meet at a barrier and
+ * then call their start together, so slow starters (PresentMon's startup probe, typeperf, nvidia-smi) no longer delay
+ * the ones after them. The instant each collector began capturing is kept (the instant its start call returned, unless
+ * the starter reports its own), stop instants are added by the caller, and {@link #window()} is the span every started
+ * collector covers.
+ */
+public final class CollectorStartup {
+    /**
+     * Starts one collector; returns false when it did not start but the capture can go on without it.
+     */
+    @FunctionalInterface
+    public interface Starter {
+        boolean start() throws Exception;
+    }
+
+    /**
+     * Starts one collector and returns when it began capturing, which may be before the call returned (a start that
+     * probes for a while); null when it did not start but the capture can go on without it.
+     */
+    @FunctionalInterface
+    public interface TimedStarter {
+        Instant start() throws Exception;
+    }
+
+    public record Timing(String name, Instant start, Instant stop, String status) {
+    }
+
+    public record Window(Instant start, Instant end) {
+        public Duration length() {
+            return Duration.between(start, end);
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public void add(String name, Starter starter) {
+        addTimed(name, () -> starter.start() ? Instant.now() : null);
+    }
+
+    public void addTimed(String name, TimedStarter starter) {
+        entries.put(name, new Entry(starter));
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public void startAll() throws InterruptedException {
+        startAll(null);
+    }
+
+    /**
+     * Runs every starter behind a shared barrier and waits for all of them, at most {@code timeout} in total when
+     * given. A starter that throws or is still running at the deadline is recorded as failed; the caller decides
+     * whether that aborts the capture.
+     */
+    public void startAll(Duration timeout) throws InterruptedException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        CyclicBarrier barrier = new CyclicBarrier(entries.size());
+        ExecutorService pool = Executors.newFixedThreadPool(entries.size(), r -> {
+            Thread t = new Thread(r, "insignia-collector-start");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                String name = e.getKey();
+                Entry entry = e.getValue();
+                pending.add(pool.submit(() -> {
+                    try {
+                        barrier.await();
+                        Instant at = entry.starter.start();
+                        if (at != null && entry.failure == null) {
+                            entry.start = at;
+                        }
+                    } catch (Exception ex) {
+                        entry.failure = ex;
+                        TaggerMod.LOGGER.warn("[Diagnose][Startup] {} failed to start", name, ex);
+                    }
+                }));
+            }
+            long deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : Long.MAX_VALUE;
+            List<Entry> ordered = new ArrayList<>(entries.values());
+            for (int i = 0; i < pending.size(); i++) {
+                Future<?> future = pending.get(i);
+                try {
+                    if (timeout == null) {
+                        future.get();
+                    } else {
+                        future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    }
+                } catch (ExecutionException ignored) {
+                    // Starters record their own failures.
+                } catch (TimeoutException e) {
+                    ordered.get(i).failure = new TimeoutException("did not start within " + timeout.toSeconds() + " s");
+                    future.cancel(true);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public boolean started(String name) {
+        Entry entry = entries.get(name);
+        return entry != null && entry.start != null && !entry.dropped;
+    }
+
+    public Exception failure(String name) {
+        Entry entry = entries.get(name);
+        return entry != null ? entry.failure : null;
+    }
+
+    /**
+     * Replaces a started collector's start instant once the real one is known (e.g. after an elevated launch).
+     */
+    public void correctStart(String name, Instant at) {
+        Entry entry = entries.get(name);
+        if (entry != null && entry.start != null && at != null) {
+            entry.start = at;
+        }
+    }
+
+    /**
+     * Takes a collector out of the window when it turns out to have produced no data after starting.
+     */
+    public void drop(String name) {
+        Entry entry = entries.get(name);
+        if (entry != null) {
+            entry.dropped = true;
+        }
+    }
+
+    public void markStopped(String name) {
+        markStopped(name, Instant.now());
+    }
+
+    public void markStopped(String name, Instant at) {
+        Entry entry = entries.get(name);
+        if (entry != null && entry.start != null && entry.stop == null && at != null) {
+            entry.stop = at;
+        }
+    }
+
+    /**
+     * Latest start to earliest stop over the collectors that started; collectors not yet stopped count as running
+     * now. Null when nothing started or the spans do not overlap.
+     */
+    public Window window() {
+        Instant start = null;
+        Instant end = null;
+        Instant now = Instant.now();
+        for (Entry entry : entries.values()) {
+            if (entry.start == null || entry.dropped) {
+                continue;
+            }
+            Instant stop = entry.stop != null ? entry.stop : now;
+            start = start == null || entry.start.isAfter(start) ? entry.start : start;
+            end = end == null || stop.isBefore(end) ? stop : end;
+        }
+        return start != null && end.isAfter(start) ? new Window(start, end) : null;
+    }
+
+    public List<Timing> timings() {
+        List<Timing> out = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            String status;
+            if (entry.failure != null) {
+                status = "failed";
+            } else if (entry.start == null) {
+                status = "not_started";
+            } else if (entry.dropped) {
+                status = "dropped";
+            } else {
+                status = "ok";
+            }
+            out.add(new Timing(e.getKey(), entry.start, entry.stop, status));
+        }
+        return out;
+    }
+
+    private static final class Entry {
+        final TimedStarter starter;
+        volatile Instant start;
+        volatile Instant stop;
+        volatile Exception failure;
+        volatile boolean dropped;
+
+        Entry(TimedStarter starter) {
+            this.starter = starter;
+        }
+    }
+}
@@ -6,19 +6,29 @@ import net.infiniteimperm.fabric.tagger.InsigniaConfig;
 import net.infiniteimperm.fabric.tagger.TaggerMod;
 import net.minecraft.client.MinecraftClient;
 
+import java.io.BufferedReader;
+import java.io.RandomAccessFile;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.nio.charset.StandardCharsets;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -28,6 +38,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.Collections;
+import java.util.stream.Stream;
 
 public final class DiagnoseOrchestrator {
     public enum Mode {
@@ -39,16 +50,27 @@ public final class DiagnoseOrchestrator {
     private static final class CapturePlan {
         boolean presentMon;
         boolean jfr;
+        boolean jfrJvmRuntime;
         boolean perfCounters;
         boolean typeperf;
         boolean processContention;
-        boolean nvidiaSmi;
         boolean spark;
         boolean nsys;
         boolean wpr;
+        // Pluggable collectors picked by CollectorRegistry for this mode; detection already passed.
+        List<Collector> collectors = List.of();
 
         boolean anyEnabled() {
-            return presentMon || jfr || perfCounters || typeperf || processContention || nvidiaSmi || spark || nsys || wpr;
+            return presentMon || jfr || perfCounters || typeperf || processContention || spark || nsys || wpr || !collectors.isEmpty();
+        }
+
+        boolean hasCollector(String id) {
+            for (Collector collector : collectors) {
+                if (collector.id().equals(id)) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
@@ -64,6 +86,14 @@ public final class DiagnoseOrchestrator {
     private static final int SPARK_FETCH_RETRIES = 3;
     private static final long SPARK_FETCH_RETRY_BACKOFF_MS = 1500L;
     private static final int NSYS_PROFILE_BUFFER_SECONDS = 15;
+    private static final String COLLECTOR_JFR = "jfr";
+    private static final String COLLECTOR_FRAME_TIMING = "frame_timing";
+    private static final String COLLECTOR_PRESENTMON = "presentmon";
+    private static final String COLLECTOR_SAMPLERS = "samplers";
+    private static final String COLLECTOR_TYPEPERF = "typeperf";
+    private static final Duration COLLECTOR_START_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration COLLECTOR_STOP_TIMEOUT = Duration.ofSeconds(20);
+    private static final int EXPORT_PARALLELISM = 4;
 
     private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
         Thread t = new Thread(r, "insignia-diagnose");
@@ -72,12 +102,14 @@ public final class DiagnoseOrchestrator {
     });
 
     private final AtomicBoolean active = new AtomicBoolean(false);
+    private final AtomicBoolean triggerPending = new AtomicBoolean(false);
     private volatile Path activeRunDir;
     private volatile ElevatedHelper elevatedHelper;
     private volatile Instant sparkDispatchAt;
     private volatile String sparkUrlFromChat;
     private volatile Instant sparkUrlCapturedAt;
     private volatile long nsysTimedLaunchMs;
+    private volatile Path recoveredRunDir;
 
     private DiagnoseOrchestrator() {
     }
@@ -91,17 +123,39 @@ public final class DiagnoseOrchestrator {
     }
 
     public static void onHudFrameStart() {
+        RenderStallWatchdog.onFrameBoundary(true);
         JfrController.onHudFrameStart();
+        CaptureTriggers.onFrameStart();
     }
 
     public static void onHudFrameEnd() {
+        if (JfrController.isRecording()) {
+            JfrController.onMainThreadQueueDepth(MinecraftClient.getInstance().getTaskCount());
+        }
         JfrController.onHudFrameEnd();
+        RenderStallWatchdog.onFrameBoundary(false);
     }
 
     public static void onWorldFrameStart() {
         JfrController.onWorldFrameStart();
     }
 
+    public static void onWorldAfterSetup() {
+        JfrController.onWorldAfterSetup();
+    }
+
+    public static void onWorldBeforeEntities() {
+        JfrController.onWorldBeforeEntities();
+    }
+
+    public static void onWorldAfterEntities() {
+        JfrController.onWorldAfterEntities();
+    }
+
+    public static void onWorldAfterTranslucent() {
+        JfrController.onWorldAfterTranslucent();
+    }
+
     public static void onWorldFrameEnd() {
         JfrController.onWorldFrameEnd();
     }
@@ -112,6 +166,8 @@ public final class DiagnoseOrchestrator {
 
     public static void onWorldTransitionJoin(long durationNs) {
         JfrController.onWorldTransition(JfrController.transitionJoin(), durationNs);
+        INSTANCE.announceRecoveredCapture();
+        CaptureTriggers.onWorldJoin();
     }
 
     public static void onWorldTransitionLeave(long durationNs) {
@@ -120,14 +176,17 @@ public final class DiagnoseOrchestrator {
 
     public static void onWorldTransitionDimChange(long durationNs) {
         JfrController.onWorldTransition(JfrController.transitionDimChange(), durationNs);
+        CaptureTriggers.onDimensionChange();
     }
 
     public static void onUserStutterMark(String label) {
         JfrController.onUserStutterMark(label);
+        CaptureTriggers.onUserMark();
     }
 
     public static void onResourceReloadStart() {
         JfrController.onResourceReload(JfrController.resourceReloadStartPhase(), 0L);
+        CaptureTriggers.onResourceReloadStart();
     }
 
     public static void onResourceReloadEnd(long durationNs) {
@@ -217,15 +276,24 @@ public final class DiagnoseOrchestrator {
         }
     }
 
+    private static boolean dropWindowsOnlyCollectors(CapturePlan plan) {
+        boolean dropped = plan.presentMon || plan.typeperf || plan.nsys || plan.wpr;
+        plan.presentMon = false;
+        plan.typeperf = false;
+        plan.nsys = false;
+        plan.wpr = false;
+        return dropped;
+    }
+
     private CapturePlan buildCapturePlan(Mode mode) {
         CapturePlan plan = new CapturePlan();
         if (mode == Mode.FULL) {
             plan.presentMon = true;
             plan.jfr = true;
+            plan.jfrJvmRuntime = true;
             plan.perfCounters = true;
             plan.typeperf = true;
             plan.processContention = true;
-            plan.nvidiaSmi = true;
             plan.spark = true;
             plan.nsys = true;
             plan.wpr = true;
@@ -237,7 +305,6 @@ public final class DiagnoseOrchestrator {
             plan.perfCounters = true;
             plan.typeperf = true;
             plan.processContention = true;
-            plan.nvidiaSmi = true;
             plan.spark = true;
             plan.nsys = false;
             plan.wpr = false;
@@ -247,10 +314,10 @@ public final class DiagnoseOrchestrator {
         InsigniaConfig cfg = InsigniaConfig.getInstance();
         plan.presentMon = cfg.diagnoseCustomPresentMon;
         plan.jfr = cfg.diagnoseCustomJfr;
+        plan.jfrJvmRuntime = cfg.diagnoseCustomJfr && cfg.diagnoseCustomJfrJvmRuntime;
         plan.perfCounters = cfg.diagnoseCustomPerfCounters;
         plan.typeperf = cfg.diagnoseCustomTypeperf;
         plan.processContention = cfg.diagnoseCustomProcessContention;
-        plan.nvidiaSmi = cfg.diagnoseCustomNvidiaSmi;
         plan.spark = cfg.diagnoseCustomSpark;
         plan.nsys = cfg.diagnoseCustomNsight;
         plan.wpr = cfg.diagnoseCustomWpr;
@@ -269,11 +336,11 @@ public final class DiagnoseOrchestrator {
             }
             return;
         }
-        if (!ToolDetection.isWindows()) {
-            ChatUi.error("Diagnostics currently supports Windows only.");
-            return;
-        }
         CapturePlan plan = buildCapturePlan(mode);
+        if (!ToolDetection.isWindows() && dropWindowsOnlyCollectors(plan)) {
+            ChatUi.hintGray("PresentMon, typeperf, Nsight and WPR are skipped on this OS; frame timing comes from the in-process capture.");
+        }
+        plan.collectors = CollectorRegistry.select(CollectorRegistry.discover(), mode, InsigniaConfig.getInstance().diagnoseCustomCollectors);
         if (!plan.anyEnabled()) {
             ChatUi.error("No profilers enabled for /diagnose " + mode.name().toLowerCase(Locale.ROOT) + ".");
             ChatUi.hintGray("Open /insignia -> Profiler and enable at least one toggle.");
@@ -304,6 +371,199 @@ public final class DiagnoseOrchestrator {
         executor.submit(() -> runCapture(mode, plan, report, effectiveCaptureSeconds));
     }
 
+    /**
+     * Entry point for {@link CaptureTriggers}; only queues the trigger. On the diagnose executor it is skipped when the
+     * diagnose folder is over its disk budget, otherwise it dumps the pre-roll recording (lightweight mode) or starts a
+     * timed capture of the custom plan. Returns false when a capture is running or another trigger is already queued,
+     * so the trigger's cooldown is not spent on it.
+     */
+    public boolean startTriggered(String reason) {
+        if (active.get() || !triggerPending.compareAndSet(false, true)) {
+            return false;
+        }
+        // Triggers fire on the render thread; the disk walk, tool detection and logging run on the diagnose executor.
+        executor.submit(() -> {
+            try {
+                runTriggered(reason);
+            } catch (Exception e) {
+                TaggerMod.LOGGER.warn("[Diagnose] capture trigger {} failed", reason, e);
+            } finally {
+                triggerPending.set(false);
+            }
+        });
+        return true;
+    }
+
+    private void runTriggered(String reason) {
+        if (active.get()) {
+            return;
+        }
+        InsigniaConfig cfg = InsigniaConfig.getInstance();
+        Path base = diagnoseBaseDir();
+        long budgetBytes = cfg.diagnoseTriggerDiskBudgetMb * 1024L * 1024L;
+        long usedBytes = CaptureTriggers.directorySize(base);
+        if (usedBytes > budgetBytes) {
+            CaptureTriggers.log(base, "trigger=" + reason + " skipped: " + (usedBytes / (1024L * 1024L)) + " MB used, budget " + cfg.diagnoseTriggerDiskBudgetMb + " MB");
+            ChatUi.hintGray("Capture trigger " + reason + " skipped: diagnose folder is over its " + cfg.diagnoseTriggerDiskBudgetMb + " MB disk budget.");
+            return;
+        }
+        if (cfg.diagnoseTriggerPreRoll) {
+            Path out = CaptureTriggers.preRollFile(base, reason);
+            if (CaptureTriggers.dumpPreRoll(out, dumped -> {
+                CaptureTriggers.log(base, "trigger=" + reason + " pre-roll dumped to " + dumped);
+                ChatUi.clickableOpenFolderLabel("Pre-roll saved: " + dumped.getFileName(), base);
+            })) {
+                ChatUi.info("Capture trigger " + reason + ": saving the last " + cfg.diagnoseTriggerCaptureSeconds + "s of JFR...");
+                return;
+            }
+            CaptureTriggers.log(base, "trigger=" + reason + " pre-roll unavailable; starting a timed capture instead");
+        }
+        CaptureTriggers.log(base, "trigger=" + reason + " starting " + cfg.diagnoseTriggerCaptureSeconds + "s custom capture");
+        ChatUi.info("Capture trigger: " + reason);
+        start(Mode.CUSTOM, cfg.diagnoseTriggerCaptureSeconds, null);
+    }
+
+    /**
+     * Multi-hour capture that rolls JFR, frame timing and the samplers into a new segment every
+     * {@code diagnoseSegmentMinutes} and analyses each segment as it closes (see {@link SegmentedCapture}). Runs the
+     * normal plan's in-process collectors only: the external tools write one file for the whole session.
+     */
+    public void startSegmented(int captureSeconds, FabricClientCommandSource source) {
+        if (active.get()) {
+            ChatUi.warn("Diagnostics already running.");
+            if (activeRunDir != null) {
+                ChatUi.info("Active run: " + activeRunDir.toAbsolutePath());
+            }
+            return;
+        }
+        CapturePlan plan = buildCapturePlan(Mode.NORMAL);
+        dropWindowsOnlyCollectors(plan);
+        plan.spark = false;
+        // Other collectors run outside the segment loop, so segments keep only the in-process samplers.
+        plan.collectors = CollectorRegistry.select(CollectorRegistry.discover(), Mode.NORMAL, Map.of()).stream()
+            .filter(SamplerCollector.class::isInstance)
+            .toList();
+        ToolDetection.DetectionReport report = ToolDetection.detectAll();
+        if (!report.jfrAvailable) {
+            ChatUi.error("Cannot run diagnose: JFR is unavailable in this Java runtime.");
+            return;
+        }
+        if (!active.compareAndSet(false, true)) {
+            ChatUi.warn("Diagnostics already running.");
+            return;
+        }
+        int effectiveCaptureSeconds = Math.max(60, captureSeconds);
+        int segmentMinutes = InsigniaConfig.getInstance().diagnoseSegmentMinutes;
+        ChatUi.info("Starting segmented diagnostics (" + effectiveCaptureSeconds + "s in " + segmentMinutes + " min segments)...");
+        ChatUi.hintGray("Segmented captures use in-process frame timing, JFR and samplers only.");
+        executor.submit(() -> runSegmentedCapture(plan, report, effectiveCaptureSeconds, segmentMinutes));
+    }
+
+    private void runSegmentedCapture(CapturePlan plan, ToolDetection.DetectionReport report, int captureSeconds, int segmentMinutes) {
+        List<String> notes = Collections.synchronizedList(new ArrayList<>());
+        List<String> working = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        Path runRootDir = null;
+        Path stateFile = null;
+        try {
+            runRootDir = createRunDir();
+            Path runDir = runRootDir.resolve("results");
+            Files.createDirectories(runDir.resolve("logs"));
+            activeRunDir = runRootDir;
+            Path latestLog = runDir.resolve("diagnose.log");
+            stateFile = runRootDir.getParent().resolve(ACTIVE_STATE_FILE);
+            log(latestLog, "Run started. mode=SEGMENTED segmentMinutes=" + segmentMinutes + " runDir=" + runRootDir + " resultsDir=" + runDir);
+            recoverStaleSessions(report, runDir, latestLog, stateFile, notes);
+
+            ProfilerSessionState.State state = new ProfilerSessionState.State();
+            state.ownerPid = ProcessHandle.current().pid();
+            state.runDir = runRootDir.toString();
+            state.createdAt = Instant.now().toString();
+            state.mode = Mode.NORMAL.name();
+            ProfilerSessionState.save(stateFile, state);
+            Path segmentStateFile = stateFile;
+
+            SegmentedCapture capture = new SegmentedCapture(runDir, captureSeconds * 1000L, segmentMinutes * 60_000L, plan.jfrJvmRuntime,
+                (sampling, dir) -> registerSamplers(sampling, plan, dir, dir.resolve("logs")),
+                (dir, segmentStart, samplerFiles) -> {
+                    // Closed segments are complete on disk; recovery only has to rebuild the one still recording.
+                    state.jfrRepository = CaptureRecovery.currentRepository();
+                    state.segmentDir = dir.toString();
+                    state.segmentStartedAt = segmentStart.toString();
+                    state.samplerFiles = new ArrayList<>();
+                    for (Path samplerFile : samplerFiles) {
+                        state.samplerFiles.add(samplerFile.toString());
+                    }
+                    ProfilerSessionState.save(segmentStateFile, state);
+                },
+                line -> log(latestLog, line));
+            Instant startWall = Instant.now();
+            announceStarted("Segmented capture");
+            List<SegmentedCapture.SegmentResult> segments = capture.run();
+            Instant endWall = Instant.now();
+            log(latestLog, "Segmented capture completed. segments=" + segments.size() + ". Exporting.");
+            notes.add("Segmented capture: " + segments.size() + " segment(s) of " + segmentMinutes
+                + " min, each with its own recording.jfr and bad_frames.json; see segments.csv and segments_summary.txt.");
+            Path segmentIndex = runDir.resolve("segments.csv");
+            Path segmentSummary = runDir.resolve("segments_summary.txt");
+            announceExportIfExists("Segment index", segmentIndex);
+
+            ChatUi.info("Exporting profiler results...");
+            Path systemInfo = runDir.resolve("system_info.json");
+            Path deviceDetails = runDir.resolve("device-details.json");
+            Path readme = runDir.resolve("README_ANALYZE.txt");
+            BundleWriter.writeSystemInfo(systemInfo, Mode.NORMAL, report, ProcessHandle.current().pid(), startWall, endWall);
+            BundleWriter.writeDeviceDetails(deviceDetails, startWall, endWall);
+            BundleWriter.writeReadme(readme, Mode.NORMAL, report.sparkPresent, notes);
+
+            // Per-segment analyses are small and go first; raw recordings fill the remaining zip parts.
+            List<Path> required = new ArrayList<>(List.of(segmentIndex, segmentSummary, systemInfo, deviceDetails, readme, latestLog));
+            int analysed = 0;
+            for (SegmentedCapture.SegmentResult segment : segments) {
+                Path badFrames = runDir.resolve(segment.dir()).resolve("bad_frames.json");
+                if (Files.exists(badFrames)) {
+                    required.add(badFrames);
+                    analysed++;
+                }
+            }
+            List<Path> optional = discoverOptionalFiles(runDir, required);
+            Path manifest = runDir.resolve("index.json");
+            BundleWriter.writeManifest(manifest, report, required, optional, notes);
+            required.add(manifest);
+            List<Path> shareZips = BundleWriter.zipResultsPartitioned(
+                runRootDir,
+                "mc-diagnose-" + runRootDir.getFileName(),
+                required,
+                optional,
+                notes,
+                SHARE_ZIP_MAX_BYTES,
+                SHARE_ZIP_MAX_PARTS
+            );
+            for (Path zip : shareZips) {
+                log(latestLog, "Share zip completed: " + zip);
+            }
+            addUnique(working, "segments analysed " + analysed + "/" + segments.size());
+            if (analysed < segments.size()) {
+                addUnique(failed, "segment analysis (" + (segments.size() - analysed) + " without bad_frames.json)");
+            }
+            sendFinalSummary(true, runRootDir, working, failed, "not available");
+        } catch (Exception e) {
+            TaggerMod.LOGGER.error("[Diagnose] Segmented capture failed", e);
+            if (runRootDir != null) {
+                failed.add("diagnostics: " + e.getClass().getSimpleName() + ": " + e.getMessage());
+                sendFinalSummary(false, runRootDir, working, failed, "not available");
+            } else {
+                ChatUi.error("Diagnostics failed before run directory creation: " + e.getClass().getSimpleName() + ": " + e.getMessage());
+            }
+        } finally {
+            if (stateFile != null) {
+                ProfilerSessionState.clear(stateFile);
+            }
+            active.set(false);
+            activeRunDir = null;
+        }
+    }
+
     private void runCapture(Mode mode, CapturePlan plan, ToolDetection.DetectionReport report, int captureSeconds) {
         List<String> notes = Collections.synchronizedList(new ArrayList<>());
         List<String> working = new ArrayList<>();
@@ -317,12 +577,13 @@ public final class DiagnoseOrchestrator {
         NsysStartMode nsysMode = NsysStartMode.NOT_STARTED;
         String nsysSession = null;
         WprStartStatus wprStatus = WprStartStatus.NOT_AVAILABLE;
-        PerfCounterSampler perfSampler = null;
         TypeperfController typeperf = null;
         boolean typeperfStarted = false;
-        NvidiaSmiController nvidiaSmi = null;
-        boolean nvidiaSmiStarted = false;
-        ProcessContentionSampler contentionSampler = null;
+        SamplingScheduler sampling = new SamplingScheduler();
+        CollectorStartup startup = new CollectorStartup();
+        CollectorRunner collectors = null;
+        RenderStallWatchdog stallWatchdog = null;
+        FrameTimingCapture frameTiming = null;
         Path nsysStartLog = null;
         Path nsysStopLog = null;
         Path wprStartLog = null;
@@ -348,21 +609,22 @@ public final class DiagnoseOrchestrator {
             Path presentStderr = logsDir.resolve("presentmon.stderr.log");
             Path jfrLog = logsDir.resolve("jfr.log");
             Path countersCsv = runDir.resolve("counters.csv");
-            Path countersLog = logsDir.resolve("counters.log");
             Path hardwareCountersCsv = runDir.resolve("windows_hardware_counters.csv");
             Path typeperfStdout = logsDir.resolve("typeperf.stdout.log");
             Path typeperfStderr = logsDir.resolve("typeperf.stderr.log");
-            Path nvidiaSmiCsv = runDir.resolve("nvidia_smi.csv");
-            Path nvidiaSmiStderr = logsDir.resolve("nvidia-smi.stderr.log");
             Path contentionCsv = runDir.resolve("process_contention.csv");
-            Path contentionLog = logsDir.resolve("process_contention.log");
+            Path threadSchedCsv = runDir.resolve("thread_sched.csv");
+            Path pressureCsv = runDir.resolve("system_pressure.csv");
+            Path processIoCsv = runDir.resolve("process_io.csv");
+            Path offHeapCsv = runDir.resolve("offheap.csv");
 
             log(latestLog, "Run started. mode=" + mode + " runDir=" + runRootDir + " resultsDir=" + runDir);
             recoverStaleSessions(report, runDir, latestLog, stateFile, notes);
 
             Path presentCsv = plan.presentMon ? runDir.resolve("presentmon.csv") : null;
             Path recordingJfr = plan.jfr ? runDir.resolve("recording.jfr") : null;
-            Path badFrames = (plan.jfr && plan.presentMon) ? runDir.resolve("bad_frames.json") : null;
+            Path badFrames = plan.jfr ? runDir.resolve("bad_frames.json") : null;
+            Path frameTimingCsv = plan.jfr ? runDir.resolve("frametimes.csv") : null;
             Path systemInfo = runDir.resolve("system_info.json");
             Path deviceDetails = runDir.resolve("device-details.json");
             Path readme = runDir.resolve("README_ANALYZE.txt");
@@ -371,64 +633,30 @@ public final class DiagnoseOrchestrator {
                 presentMon = new PresentMonController(report.presentMon, runDir, presentCsv, presentStdout, presentStderr, captureSeconds);
             }
             if (plan.jfr) {
-                jfr = new JfrController(jfrLog);
-            }
-            if (plan.perfCounters) {
-                perfSampler = new PerfCounterSampler(countersCsv, countersLog, 100L);
+                jfr = new JfrController(jfrLog, plan.jfrJvmRuntime);
             }
             if (plan.typeperf) {
                 typeperf = new TypeperfController(report.typeperf, runDir, hardwareCountersCsv, typeperfStdout, typeperfStderr);
             }
-            if (plan.nvidiaSmi) {
-                nvidiaSmi = new NvidiaSmiController(report.nvidiaSmi, runDir, nvidiaSmiCsv, nvidiaSmiStderr);
-            }
-            if (plan.processContention) {
-                contentionSampler = new ProcessContentionSampler(contentionCsv, contentionLog, 1000L, 12);
-            }
+            collectors = new CollectorRunner(plan.collectors, new CollectorContext(runDir, logsDir, mode, captureSeconds, notes), COLLECTOR_STOP_TIMEOUT);
+            List<Path> samplerFiles = registerSamplers(sampling, plan, runDir, logsDir);
             state = new ProfilerSessionState.State();
             state.ownerPid = ProcessHandle.current().pid();
             state.runDir = runRootDir.toString();
             state.createdAt = Instant.now().toString();
+            state.mode = mode.name();
+            for (Path samplerFile : samplerFiles) {
+                state.samplerFiles.add(samplerFile.toString());
+            }
             ProfilerSessionState.save(stateFile, state);
 
             if (plan.wpr) {
                 clearExistingWprIfRunning(report, runDir, notes);
             }
 
-            if (plan.jfr && jfr != null) {
-                log(latestLog, "Starting JFR recording...");
-                jfr.start();
-                announceStarted("JFR");
-            }
-            if (plan.presentMon && presentMon != null) {
-                log(latestLog, "Starting PresentMon capture...");
-                presentMon.start();
-                announceStarted("PresentMon");
-            }
-            if (plan.perfCounters && perfSampler != null) {
-                log(latestLog, "Starting perf counter sampler...");
-                perfSampler.start();
-                announceStarted("perf counters");
-            }
-            if (plan.typeperf && typeperf != null) {
-                typeperfStarted = typeperf.start(notes);
-                if (!typeperfStarted) {
-                    throw new IllegalStateException("typeperf failed to start (required profiler). Check typeperf.stderr.log");
-                }
-                announceStarted("typeperf");
-            }
-            if (plan.processContention && contentionSampler != null) {
-                log(latestLog, "Starting process contention sampler...");
-                contentionSampler.start();
-                announceStarted("process contention");
-            }
-            if (plan.nvidiaSmi && nvidiaSmi != null) {
-                nvidiaSmiStarted = nvidiaSmi.start(notes);
-                if (nvidiaSmiStarted) {
-                    announceStarted("nvidia-smi");
-                }
-            }
-            log(latestLog, "Mandatory captures started.");
+            stallWatchdog = new RenderStallWatchdog(runDir.resolve("render_stalls.txt"));
+            stallWatchdog.start();
+            log(latestLog, "Render stall watchdog started.");
 
             nsysStartLog = logsDir.resolve("nsys-start.log");
             nsysStopLog = logsDir.resolve("nsys-stop.log");
@@ -449,6 +677,7 @@ public final class DiagnoseOrchestrator {
             final Path wprStartLogFinal = wprStartLog;
             final String nsysSessionFinal = nsysSession;
             final List<String> notesFinal = notes;
+            // Optional tools launch first and start alongside the mandatory collectors; they are joined afterwards.
             CompletableFuture<Instant> sparkFuture;
             if (plan.spark && report.sparkPresent) {
                 sparkFuture = CompletableFuture.supplyAsync(() -> startSparkCapture(logsDir.resolve("spark.log"), notesFinal, captureSeconds));
@@ -464,6 +693,102 @@ public final class DiagnoseOrchestrator {
             CompletableFuture<WprStartStatus> wprFuture = plan.wpr
                 ? CompletableFuture.supplyAsync(() -> startOptionalWpr(report, runDirFinal, wprStartLogFinal, notesFinal))
                 : CompletableFuture.completedFuture(WprStartStatus.NOT_AVAILABLE);
+
+            final JfrController jfrFinal = jfr;
+            final PresentMonController presentMonFinal = presentMon;
+            final TypeperfController typeperfFinal = typeperf;
+            AtomicReference<FrameTimingCapture> frameTimingStarted = new AtomicReference<>();
+            if (plan.jfr && jfr != null) {
+                startup.add(COLLECTOR_JFR, () -> {
+                    jfrFinal.start();
+                    return true;
+                });
+                startup.add(COLLECTOR_FRAME_TIMING, () -> {
+                    FrameTimingCapture capture = new FrameTimingCapture(frameTimingCsv, Instant.now());
+                    capture.start();
+                    frameTimingStarted.set(capture);
+                    return true;
+                });
+            }
+            if (plan.presentMon && presentMon != null) {
+                startup.addTimed(COLLECTOR_PRESENTMON, () -> {
+                    presentMonFinal.start();
+                    // Direct launches report launch + start delay; elevated ones are corrected when PresentMon stops.
+                    Instant capturing = presentMonFinal.captureStartWall();
+                    return capturing != null ? capturing : Instant.now();
+                });
+            }
+            if (!sampling.isEmpty()) {
+                startup.add(COLLECTOR_SAMPLERS, () -> {
+                    sampling.start();
+                    return true;
+                });
+            }
+            if (plan.typeperf && typeperf != null) {
+                startup.add(COLLECTOR_TYPEPERF, () -> typeperfFinal.start(notesFinal));
+            }
+            collectors.register(startup);
+            log(latestLog, "Starting collectors in parallel: " + startup.timings().stream().map(CollectorStartup.Timing::name).toList());
+            startup.startAll(COLLECTOR_START_TIMEOUT);
+            frameTiming = frameTimingStarted.get();
+            typeperfStarted = startup.started(COLLECTOR_TYPEPERF);
+            for (CollectorStartup.Timing timing : startup.timings()) {
+                log(latestLog, "Collector " + timing.name() + ": " + timing.status() + (timing.start() != null ? " at " + timing.start() : ""));
+            }
+
+            if (plan.jfr && jfr != null) {
+                if (startup.failure(COLLECTOR_JFR) != null) {
+                    throw startup.failure(COLLECTOR_JFR);
+                }
+                // Chunks land in the repository as the recording runs; recorded so a crash can be recovered next launch.
+                state.jfrRepository = CaptureRecovery.currentRepository();
+                ProfilerSessionState.save(stateFile, state);
+                announceStarted("JFR");
+                if (frameTiming != null) {
+                    announceStarted("in-process frame timing");
+                }
+            }
+            if (plan.presentMon && presentMon != null) {
+                Exception presentMonFailure = startup.failure(COLLECTOR_PRESENTMON);
+                if (presentMonFailure == null) {
+                    announceStarted("PresentMon");
+                } else {
+                    if (frameTiming == null) {
+                        throw presentMonFailure;
+                    }
+                    log(latestLog, "PresentMon failed to start (" + presentMonFailure.getMessage() + "); using in-process frame timing instead.");
+                    notes.add("PresentMon unavailable (" + presentMonFailure.getMessage() + "); bad frames are derived from frametimes.csv (in-process buffer swap timing).");
+                    ChatUi.warn("PresentMon unavailable; using in-process frame timing.");
+                    try {
+                        presentMon.stop();
+                    } catch (Exception ignored) {
+                    }
+                    presentMon = null;
+                    presentCsv = null;
+                }
+            }
+            if (!sampling.isEmpty()) {
+                if (plan.perfCounters) {
+                    announceStarted("perf counters");
+                }
+                if (plan.processContention) {
+                    announceStarted("process contention");
+                    if (PressureSampler.isSupported()) {
+                        announceStarted("system pressure");
+                    }
+                }
+            }
+            if (plan.typeperf && typeperf != null) {
+                if (!typeperfStarted) {
+                    throw new IllegalStateException("typeperf failed to start (required profiler). Check typeperf.stderr.log");
+                }
+                announceStarted("typeperf");
+            }
+            for (Collector collector : collectors.started(startup)) {
+                announceStarted(collector.displayName());
+            }
+            log(latestLog, "Mandatory captures started.");
+
             sparkDispatchTime = sparkFuture.join();
             nsysMode = nsysFuture.join();
             boolean nsysWasTimedProfile = (nsysMode == NsysStartMode.TIMED_PROFILE);
@@ -489,166 +814,269 @@ public final class DiagnoseOrchestrator {
                 Thread.sleep(250L);
             }
 
-            stopOptionalExportersParallel(
-                report,
-                runDir,
-                notes,
-                nsysMode == NsysStartMode.SESSION,
-                nsysStopLog,
-                nsysSession,
-                wprStatus == WprStartStatus.STARTED
-                    || wprStatus == WprStartStatus.STARTED_ELEVATED
-                    || wprStatus == WprStartStatus.ALREADY_RUNNING,
-                wprStatus == WprStartStatus.STARTED_ELEVATED,
-                wprStopLog
-            );
-            nsysMode = NsysStartMode.NOT_STARTED;
-            if (wprStatus == WprStartStatus.STARTED
+            final Path runRoot = runRootDir;
+            final Path diagnoseLog = latestLog;
+            final JfrController jfrStop = jfr;
+            final PresentMonController presentMonStop = presentMon;
+            final Path presentCsvFinal = presentCsv;
+            final TypeperfController typeperfStop = typeperfStarted ? typeperf : null;
+            final CollectorRunner collectorsStop = collectors;
+            final RenderStallWatchdog stallWatchdogStop = stallWatchdog;
+            final FrameTimingCapture frameTimingStop = frameTiming;
+            final Instant sparkDispatch = sparkDispatchTime;
+            final boolean stopNsysSession = nsysMode == NsysStartMode.SESSION;
+            final boolean stopWpr = wprStatus == WprStartStatus.STARTED
                 || wprStatus == WprStartStatus.STARTED_ELEVATED
-                || wprStatus == WprStartStatus.ALREADY_RUNNING) {
-                wprStatus = WprStartStatus.STOPPED;
-            }
-            if (perfSampler != null) {
-                perfSampler.stop();
-            }
-            if (typeperfStarted && typeperf != null) {
-                typeperf.stop(notes);
-                typeperfStarted = false;
-            }
-            if (contentionSampler != null) {
-                contentionSampler.stop();
-            }
-            if (nvidiaSmiStarted && nvidiaSmi != null) {
-                nvidiaSmi.stop(notes);
-                nvidiaSmiStarted = false;
-            }
-            copySparkOutputsIfAny(sparkDispatchTime, runDir, notes);
-            sparkUrl = readSparkUrl(runDir);
-            if (plan.presentMon && presentMon != null) {
-                log(latestLog, "Stopping PresentMon...");
-                presentMon.stop();
-                announceExportIfExists("PresentMon", presentCsv);
-            }
-            if (plan.jfr && jfr != null && recordingJfr != null) {
-                log(latestLog, "Stopping JFR and dumping recording...");
-                jfr.stopAndDump(recordingJfr);
+                || wprStatus == WprStartStatus.ALREADY_RUNNING;
+            final boolean wprElevated = wprStatus == WprStartStatus.STARTED_ELEVATED;
+            final Path nsysStopLogFinal = nsysStopLog;
+            final Path wprStopLogFinal = wprStopLog;
+            AtomicReference<String> sparkUrlFound = new AtomicReference<>(sparkUrl);
+            AtomicReference<CollectorStartup.Window> windowFound = new AtomicReference<>();
+            AtomicReference<Path> mangoHudFound = new AtomicReference<>();
+            AtomicReference<Instant> mangoHudStart = new AtomicReference<>();
+            AtomicReference<Path> badFramesWritten = new AtomicReference<>(badFrames);
+
+            // Stops have no dependencies so they all run even when an export step fails; the rest waits only for what it reads.
+            ExportGraph export = new ExportGraph(EXPORT_PARALLELISM, line -> log(diagnoseLog, line));
+            export.add("stop_optional", () -> stopOptionalExportersParallel(
+                report, runDirFinal, notesFinal, stopNsysSession, nsysStopLogFinal, nsysSessionFinal, stopWpr, wprElevated, wprStopLogFinal));
+            // One step per stop, so a stop that throws cannot keep the others from running.
+            export.add("stop_samplers", () -> {
+                startup.markStopped(COLLECTOR_SAMPLERS);
+                sampling.stop();
+            });
+            export.addIf(typeperfStop != null, "stop_typeperf", () -> {
+                startup.markStopped(COLLECTOR_TYPEPERF);
+                typeperfStop.stop(notesFinal);
+            });
+            export.add("stop_collectors", () -> collectorsStop.stopAll(startup));
+            export.addIf(stallWatchdogStop != null, "stop_stall_watchdog", () -> {
+                stallWatchdogStop.stop();
+                log(diagnoseLog, "Render stall watchdog stopped. stalls=" + stallWatchdogStop.stallCount());
+            });
+            export.addIf(frameTimingStop != null, "stop_frame_timing", () -> {
+                startup.markStopped(COLLECTOR_FRAME_TIMING);
+                frameTimingStop.stop();
+                log(diagnoseLog, "In-process frame timing stopped. frames=" + frameTimingStop.framesWritten());
+            });
+            export.addIf(plan.presentMon && presentMonStop != null, "stop_presentmon", () -> {
+                log(diagnoseLog, "Stopping PresentMon...");
+                Instant stopRequested = Instant.now();
+                presentMonStop.stop();
+                if (presentMonStop.isElevated()) {
+                    Instant capturing = presentMonStop.captureStartWall();
+                    if (capturing != null) {
+                        startup.correctStart(COLLECTOR_PRESENTMON, capturing);
+                    } else {
+                        startup.drop(COLLECTOR_PRESENTMON);
+                    }
+                }
+                // The timed capture may already have run out on its own.
+                Instant presentMonEnd = presentMonStop.timedEndWall();
+                startup.markStopped(COLLECTOR_PRESENTMON, presentMonEnd != null && presentMonEnd.isBefore(stopRequested) ? presentMonEnd : stopRequested);
+                announceExportIfExists("PresentMon", presentCsvFinal);
+            });
+            export.addIf(plan.jfr && jfrStop != null && recordingJfr != null, "stop_jfr", () -> {
+                log(diagnoseLog, "Stopping JFR and dumping recording...");
+                jfrStop.stopAndDump(recordingJfr);
+                startup.markStopped(COLLECTOR_JFR, jfrStop.endWall());
                 announceExportIfExists("JFR", recordingJfr);
-            }
-            log(latestLog, "Capture completed. Exporting.");
-
-            ChatUi.info("Exporting profiler results...");
-            if (plan.jfr && plan.presentMon && recordingJfr != null && presentCsv != null && badFrames != null && jfr != null) {
-                log(latestLog, "Running JFR parser against recording.jfr + presentmon.csv...");
-                new JfrParser().parse(recordingJfr, presentCsv, badFrames, jfr.startWall(), jfr.endWall());
+                Path reloadWaterfall = runDirFinal.resolve("resource_reload_waterfall.csv");
+                if (jfrStop.writeResourceReloadWaterfall(reloadWaterfall)) {
+                    notesFinal.add("Resource reload waterfall written (per-reloader prepare/apply timing).");
+                    announceExportIfExists("Resource reload waterfall", reloadWaterfall);
+                }
+            });
+            export.add("spark_outputs", () -> {
+                copySparkOutputsIfAny(sparkDispatch, runDirFinal, notesFinal);
+                sparkUrlFound.set(readSparkUrl(runDirFinal));
+            }, "stop_optional").optional("spark_outputs");
+            export.add("capture_window", () -> {
+                CollectorStartup.Window window = startup.window();
+                windowFound.set(window);
+                if (window != null) {
+                    log(diagnoseLog, "Capture window (all collectors running): " + window.start() + " .. " + window.end() + " (" + window.length().toMillis() + " ms)");
+                    notesFinal.add(String.format(Locale.ROOT, "Capture window: %.1f s during which every collector was running (%s .. %s); bad frame analysis is limited to it.",
+                        window.length().toMillis() / 1000d, window.start(), window.end()));
+                } else {
+                    log(diagnoseLog, "Collector spans do not overlap; analysis falls back to the JFR recording span.");
+                }
+            }, "stop_samplers", "stop_typeperf", "stop_collectors", "stop_frame_timing", "stop_presentmon", "stop_jfr");
+            export.addIf(plan.jfr && jfrStop != null && jfrStop.startWall() != null, "mangohud", () -> {
+                Optional<Path> mangoHudLog = MangoHudLogs.findLatest(MangoHudLogs.candidateDirs(), jfrStop.startWall());
+                if (mangoHudLog.isPresent()) {
+                    Path mangoHudCsv = runDirFinal.resolve("mangohud.csv");
+                    Files.copy(mangoHudLog.get(), mangoHudCsv, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                    mangoHudFound.set(mangoHudCsv);
+                    mangoHudStart.set(MangoHudLogs.logStart(mangoHudLog.get()).orElse(null));
+                    if (mangoHudStart.get() == null) {
+                        notesFinal.add("MangoHud log name carries no start time; its frames are aligned to the capture start.");
+                    }
+                    log(diagnoseLog, "Picked up MangoHud log written during capture: " + mangoHudLog.get());
+                    notesFinal.add("MangoHud frame log included as mangohud.csv (source: " + mangoHudLog.get().getFileName() + ").");
+                }
+            }).optional("mangohud");
+            export.addIf(plan.jfr && recordingJfr != null && badFrames != null && jfrStop != null, "jfr_parse", () -> {
+                Path frameSource = selectFrameSource(presentCsvFinal, mangoHudFound.get(), frameTimingCsv);
+                if (frameSource == null) {
+                    notesFinal.add("No frame timing source produced data; bad frame analysis skipped.");
+                    badFramesWritten.set(null);
+                    return;
+                }
+                log(diagnoseLog, "Running JFR parser against recording.jfr + " + frameSource.getFileName() + "...");
+                CollectorStartup.Window window = windowFound.get();
+                new JfrParser()
+                    .withThreadSchedCsv(plan.hasCollector(SamplerCollector.THREAD_SCHED) ? threadSchedCsv : null)
+                    .withPressureCsv(plan.processContention ? pressureCsv : null)
+                    .withProcessIoCsv(plan.hasCollector(SamplerCollector.PROCESS_IO) ? processIoCsv : null)
+                    .withOffHeapCsv(plan.hasCollector(SamplerCollector.OFF_HEAP) ? offHeapCsv : null)
+                    .withMangoHudLogStart(mangoHudStart.get())
+                    .parse(recordingJfr, frameSource, badFrames,
+                        window != null ? window.start() : jfrStop.startWall(),
+                        window != null ? window.end() : jfrStop.endWall());
                 announceExportIfExists("JFR bad frame analysis", badFrames);
-            }
-            if (plan.wpr) {
-                log(latestLog, "Running ETL export pipeline...");
-                new EtlExportController(report, runDir, logsDir, notes).exportIfPossible();
-                announceExportIfExists("WPR trace", runDir.resolve("trace.etl"));
-                announceExportIfExists("WPA export", runDir.resolve("wpa_exports"));
-                announceExportIfExists("tracerpt export", runDir.resolve("trace_raw.csv"));
-            }
-            if (nsysWasTimedProfile) {
-                Path nsysRep = runDir.resolve("nsys-report.nsys-rep");
+            }, "capture_window", "mangohud");
+            export.addIf(plan.wpr, "etl_export", () -> {
+                log(diagnoseLog, "Running ETL export pipeline...");
+                new EtlExportController(report, runDirFinal, logsDir, notesFinal).exportIfPossible();
+                announceExportIfExists("WPR trace", runDirFinal.resolve("trace.etl"));
+                announceExportIfExists("WPA export", runDirFinal.resolve("wpa_exports"));
+                announceExportIfExists("tracerpt export", runDirFinal.resolve("trace_raw.csv"));
+            }, "stop_optional");
+            export.addIf(nsysWasTimedProfile, "nsys_wait", () -> {
+                Path nsysRep = runDirFinal.resolve("nsys-report.nsys-rep");
                 // Ensure at least 30s of actual waiting from this point regardless of how long
                 // post-capture exports took; nsys can take 10-20s to write its report after profiling ends.
                 long nsysWaitDeadline = Math.max(nsysTimedDeadline + 5_000L, System.currentTimeMillis() + 30_000L);
-                log(latestLog, "Waiting for nsys timed profile report (deadline in " + Math.max(0, nsysWaitDeadline - System.currentTimeMillis()) + "ms)...");
+                log(diagnoseLog, "Waiting for nsys timed profile report (deadline in " + Math.max(0, nsysWaitDeadline - System.currentTimeMillis()) + "ms)...");
                 while (!Files.exists(nsysRep) && System.currentTimeMillis() < nsysWaitDeadline) {
                     Thread.sleep(500L);
                 }
                 if (Files.exists(nsysRep)) {
-                    notes.add("nsys timed profile report appeared before bundle export.");
-                    log(latestLog, "nsys-report.nsys-rep found.");
+                    notesFinal.add("nsys timed profile report appeared before bundle export.");
+                    log(diagnoseLog, "nsys-report.nsys-rep found.");
                 } else {
-                    notes.add("nsys timed profile: report not found within wait window; profile may still be running.");
-                    log(latestLog, "nsys-report.nsys-rep not found after wait; proceeding.");
+                    notesFinal.add("nsys timed profile: report not found within wait window; profile may still be running.");
+                    log(diagnoseLog, "nsys-report.nsys-rep not found after wait; proceeding.");
                 }
-            }
-            log(latestLog, "Collecting external Nsight reports if present...");
-            NsysExternalCollector.collectPossibleReports(runDir, jfr != null ? jfr.startWall() : Instant.now(), notes);
-            if (plan.nsys) {
-                announceExportIfExists("Nsight Systems", runDir.resolve("nsys-report.nsys-rep"));
-            }
-            if (plan.typeperf) {
-                announceExportIfExists("typeperf", hardwareCountersCsv);
-            }
-            if (plan.nvidiaSmi) {
-                announceExportIfExists("nvidia-smi", nvidiaSmiCsv);
-            }
-            if (plan.processContention) {
-                announceExportIfExists("process contention", contentionCsv);
-            }
-
-            log(latestLog, "Writing system_info.json, device-details.json, and README_ANALYZE.txt...");
-            long targetPid = presentMon != null ? presentMon.targetPid() : ProcessHandle.current().pid();
-            Instant startWall = jfr != null ? jfr.startWall() : Instant.now();
-            Instant endWall = jfr != null ? jfr.endWall() : Instant.now();
-            BundleWriter.writeSystemInfo(systemInfo, mode, report, targetPid, startWall, endWall);
-            BundleWriter.writeDeviceDetails(deviceDetails, startWall, endWall);
-            if (plan.nsys || plan.wpr) {
-                BundleWriter.includeFullModeFiles(runDir, notes);
-            }
-            BundleWriter.writeReadme(readme, mode, report.sparkPresent, notes);
-
-            List<Path> required = new ArrayList<>();
-            if (presentCsv != null) {
-                required.add(presentCsv);
-                required.add(presentStdout);
-                required.add(presentStderr);
-            }
-            if (recordingJfr != null) {
-                required.add(recordingJfr);
-                required.add(jfrLog);
-            }
-            if (badFrames != null) {
-                required.add(badFrames);
-            }
-            required.add(systemInfo);
-            required.add(deviceDetails);
-            required.add(readme);
-            required.add(latestLog);
-            if (plan.perfCounters) {
-                required.add(countersCsv);
-            }
-            if (plan.typeperf) {
-                required.add(hardwareCountersCsv);
-            }
-            List<Path> optional = discoverOptionalFiles(runDir, required);
-            for (Path req : required) {
-                if (!Files.exists(req)) {
-                    throw new IllegalStateException("Required artifact missing before export: " + req.getFileName());
+            }, "stop_optional");
+            export.add("nsys_collect", () -> {
+                log(diagnoseLog, "Collecting external Nsight reports if present...");
+                NsysExternalCollector.collectPossibleReports(runDirFinal, jfrStop != null ? jfrStop.startWall() : Instant.now(), notesFinal);
+                if (plan.nsys) {
+                    announceExportIfExists("Nsight Systems", runDirFinal.resolve("nsys-report.nsys-rep"));
                 }
-            }
-            Path manifest = runDir.resolve("index.json");
-            BundleWriter.writeManifest(manifest, report, required, optional, notes);
-            List<Path> requiredWithManifest = new ArrayList<>(required);
-            requiredWithManifest.add(manifest);
-            log(latestLog, "Manifest written. requiredFiles=" + requiredWithManifest.size() + ", optionalCandidates=" + optional.size());
+            }, "nsys_wait", "stop_optional");
+            export.add("collector_exports", () -> {
+                collectorsStop.exportAll(startup);
+                for (Collector collector : collectorsStop.collectors()) {
+                    for (Path artifact : collectorsStop.artifacts(collector)) {
+                        announceExportIfExists(collector.displayName(), artifact);
+                    }
+                }
+                if (plan.typeperf) {
+                    announceExportIfExists("typeperf", hardwareCountersCsv);
+                }
+                if (plan.processContention) {
+                    announceExportIfExists("process contention", contentionCsv);
+                    announceExportIfExists("system pressure", pressureCsv);
+                }
+            }, "stop_samplers", "stop_typeperf", "stop_collectors");
+            export.add("system_info", () -> {
+                log(diagnoseLog, "Writing system_info.json...");
+                long targetPid = presentMonStop != null ? presentMonStop.targetPid() : ProcessHandle.current().pid();
+                BundleWriter.writeSystemInfo(systemInfo, mode, report,
+                    targetPid, jfrStop != null ? jfrStop.startWall() : Instant.now(), jfrStop != null ? jfrStop.endWall() : Instant.now());
+            }, "stop_jfr");
+            export.add("device_details", () -> {
+                log(diagnoseLog, "Writing device-details.json...");
+                BundleWriter.writeDeviceDetails(deviceDetails,
+                    jfrStop != null ? jfrStop.startWall() : Instant.now(), jfrStop != null ? jfrStop.endWall() : Instant.now());
+            }, "stop_jfr");
+            // latest.log is copied here, so this runs after every other step has logged.
+            export.addIf(plan.nsys || plan.wpr, "full_mode_files", () -> BundleWriter.includeFullModeFiles(runDirFinal, notesFinal), export.all());
+            export.add("readme", () -> BundleWriter.writeReadme(readme, mode, report.sparkPresent, notesFinal), export.all());
+            export.add("manifest_and_zip", () -> {
+                List<Path> required = new ArrayList<>();
+                if (presentCsvFinal != null) {
+                    required.add(presentCsvFinal);
+                    required.add(presentStdout);
+                    required.add(presentStderr);
+                }
+                if (recordingJfr != null) {
+                    required.add(recordingJfr);
+                    required.add(jfrLog);
+                }
+                if (badFramesWritten.get() != null) {
+                    required.add(badFramesWritten.get());
+                }
+                required.add(systemInfo);
+                required.add(deviceDetails);
+                required.add(readme);
+                required.add(diagnoseLog);
+                if (plan.perfCounters) {
+                    required.add(countersCsv);
+                }
+                if (plan.typeperf) {
+                    required.add(hardwareCountersCsv);
+                }
+                List<Path> optional = discoverOptionalFiles(runDirFinal, required);
+                for (Path req : required) {
+                    if (!Files.exists(req)) {
+                        throw new IllegalStateException("Required artifact missing before export: " + req.getFileName());
+                    }
+                }
+                Path manifest = runDirFinal.resolve("index.json");
+                BundleWriter.writeManifest(manifest, report, required, optional, notesFinal, startup.timings(), windowFound.get());
+                List<Path> requiredWithManifest = new ArrayList<>(required);
+                requiredWithManifest.add(manifest);
+                log(diagnoseLog, "Manifest written. requiredFiles=" + requiredWithManifest.size() + ", optionalCandidates=" + optional.size());
+
+                String zipBaseName = "mc-diagnose-" + runRoot.getFileName();
+                ChatUi.info("zipping, this might take a second");
+                List<Path> shareZips = BundleWriter.zipResultsPartitioned(
+                    runRoot,
+                    zipBaseName,
+                    requiredWithManifest,
+                    optional,
+                    notesFinal,
+                    SHARE_ZIP_MAX_BYTES,
+                    SHARE_ZIP_MAX_PARTS
+                );
+                for (Path zip : shareZips) {
+                    log(diagnoseLog, "Share zip completed: " + zip);
+                }
+            }, "readme");
 
-            String zipBaseName = "mc-diagnose-" + runRootDir.getFileName();
-            ChatUi.info("zipping, this might take a second");
-            List<Path> shareZips = BundleWriter.zipResultsPartitioned(
-                runRootDir,
-                zipBaseName,
-                requiredWithManifest,
-                optional,
-                notes,
-                SHARE_ZIP_MAX_BYTES,
-                SHARE_ZIP_MAX_PARTS
-            );
-            for (Path zip : shareZips) {
-                log(latestLog, "Share zip completed: " + zip);
+            log(latestLog, "Capture completed. Exporting.");
+            ChatUi.info("Exporting profiler results...");
+            try {
+                export.run();
+            } finally {
+                // Every stop is its own step with no dependencies, so each one ran; cleanup must not stop these again.
+                nsysMode = NsysStartMode.NOT_STARTED;
+                if (wprStatus == WprStartStatus.STARTED
+                    || wprStatus == WprStartStatus.ALREADY_RUNNING) {
+                    wprStatus = WprStartStatus.STOPPED;
+                }
+                typeperfStarted = false;
+                stallWatchdog = null;
+                frameTiming = null;
+                sparkUrl = sparkUrlFound.get();
             }
 
             collectProfilerStatus(runRootDir, runDir, report, plan, working, failed);
+            collectors.addStatus(working, failed);
             sendFinalSummary(true, runRootDir, working, failed, sparkUrl);
         } catch (Exception e) {
             TaggerMod.LOGGER.error("[Diagnose] Capture failed", e);
             if (runRootDir != null && runDir != null) {
                 failed.add("diagnostics: " + e.getClass().getSimpleName() + ": " + e.getMessage());
                 collectProfilerStatus(runRootDir, runDir, report, plan, working, failed);
+                if (collectors != null) {
+                    collectors.addStatus(working, failed);
+                }
                 sparkUrl = readSparkUrl(runDir);
                 sendFinalSummary(false, runRootDir, working, failed, sparkUrl);
             } else {
@@ -680,11 +1108,9 @@ public final class DiagnoseOrchestrator {
             if (typeperfStarted && typeperf != null) {
                 typeperf.stop(notes);
             }
-            if (contentionSampler != null) {
-                contentionSampler.stop();
-            }
-            if (nvidiaSmiStarted && nvidiaSmi != null) {
-                nvidiaSmi.stop(notes);
+            sampling.stop();
+            if (collectors != null) {
+                collectors.stopAll(startup);
             }
             try {
                 if (presentMon != null) {
@@ -703,8 +1129,11 @@ public final class DiagnoseOrchestrator {
             } catch (Exception e) {
                 TaggerMod.LOGGER.warn("[Diagnose] Failed to stop JFR during cleanup", e);
             }
-            if (perfSampler != null) {
-                perfSampler.stop();
+            if (stallWatchdog != null) {
+                stallWatchdog.stop();
+            }
+            if (frameTiming != null) {
+                frameTiming.stop();
             }
             if (stateFile != null) {
                 ProfilerSessionState.clear(stateFile);
@@ -718,6 +1147,35 @@ public final class DiagnoseOrchestrator {
         }
     }
 
+    // Registers the plan's in-process samplers writing into dir; returns their data files for the session state.
+    private static List<Path> registerSamplers(SamplingScheduler sampling, CapturePlan plan, Path dir, Path logsDir) {
+        List<Path> samplerFiles = new ArrayList<>();
+        if (plan.perfCounters) {
+            Path countersCsv = dir.resolve("counters.csv");
+            sampling.register(new PerfCounterSampler(countersCsv, logsDir.resolve("counters.log"), 100L));
+            samplerFiles.add(countersCsv);
+        }
+        if (plan.processContention) {
+            Path contentionCsv = dir.resolve("process_contention.csv");
+            sampling.register(new ProcessContentionSampler(contentionCsv, logsDir.resolve("process_contention.log"), 1000L, 12));
+            samplerFiles.add(contentionCsv);
+            if (PressureSampler.isSupported()) {
+                Path pressureCsv = dir.resolve("system_pressure.csv");
+                sampling.register(new PressureSampler(pressureCsv, logsDir.resolve("system_pressure.log"), 100L));
+                samplerFiles.add(pressureCsv);
+            }
+        }
+        for (Collector collector : plan.collectors) {
+            if (collector instanceof SamplerCollector samplerCollector) {
+                for (SamplingScheduler.Sampler sampler : samplerCollector.samplers(dir, logsDir)) {
+                    sampling.register(sampler);
+                }
+                samplerFiles.addAll(samplerCollector.dataFiles(dir));
+            }
+        }
+        return samplerFiles;
+    }
+
     private NsysStartMode startOptionalNsys(ToolDetection.DetectionReport report, Path runDir, Path logBaseFile, List<String> notes, String sessionName, int captureSeconds) {
         if (report.nsys == null || !report.nsys.found || report.nsys.path == null) {
             return NsysStartMode.NOT_STARTED;
@@ -954,7 +1412,7 @@ public final class DiagnoseOrchestrator {
                 found++;
                 handle.destroy();
                 try {
-                    handle.onExit().get(2, java.util.concurrent.TimeUnit.SECONDS);
+                    handle.onExit().get(2, TimeUnit.SECONDS);
                 } catch (Exception ignored) {
                 }
                 if (handle.isAlive()) {
@@ -1171,7 +1629,7 @@ public final class DiagnoseOrchestrator {
         try {
             Path sparkDir = FabricLoader.getInstance().getGameDir().resolve("spark");
             if (Files.isDirectory(sparkDir)) {
-                try (var stream = Files.walk(sparkDir)) {
+                try (Stream<Path> stream = Files.walk(sparkDir)) {
                     List<Path> candidates = stream.filter(Files::isRegularFile)
                         .filter(path -> {
                             try {
@@ -1183,7 +1641,7 @@ public final class DiagnoseOrchestrator {
                         .toList();
                     for (Path candidate : candidates) {
                         Path target = runDir.resolve("spark-" + candidate.getFileName().toString());
-                        Files.copy(candidate, target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+                        Files.copy(candidate, target, StandardCopyOption.REPLACE_EXISTING);
                         copied++;
                     }
                 }
@@ -1198,12 +1656,12 @@ public final class DiagnoseOrchestrator {
     }
 
     private List<Path> discoverOptionalFiles(Path runDir, List<Path> required) throws Exception {
-        java.util.Set<Path> requiredSet = new java.util.HashSet<>();
+        Set<Path> requiredSet = new HashSet<>();
         for (Path req : required) {
             requiredSet.add(req.toAbsolutePath().normalize());
         }
         List<Path> files = new ArrayList<>();
-        try (var stream = Files.walk(runDir)) {
+        try (Stream<Path> stream = Files.walk(runDir)) {
             stream.filter(Files::isRegularFile).forEach(path -> {
                 Path normalized = path.toAbsolutePath().normalize();
                 if (!requiredSet.contains(normalized)) {
@@ -1214,8 +1672,12 @@ public final class DiagnoseOrchestrator {
         return files;
     }
 
+    private static Path diagnoseBaseDir() {
+        return Path.of(System.getProperty("java.io.tmpdir")).resolve("mc-diagnose");
+    }
+
     private Path createRunDir() throws Exception {
-        Path base = Path.of(System.getProperty("java.io.tmpdir")).resolve("mc-diagnose");
+        Path base = diagnoseBaseDir();
         Files.createDirectories(base);
         String stamp = LocalDateTime.now().format(TS);
         Path runDir = base.resolve(stamp);
@@ -1223,9 +1685,174 @@ public final class DiagnoseOrchestrator {
         return runDir;
     }
 
+    /**
+     * Rebuilds the bundle of a capture the previous game session never finished (crash, kill, hard freeze) from the
+     * JFR repository and sampler files recorded in the session state. Queued on the diagnose executor, so a
+     * /diagnose issued meanwhile runs after it; external tool cleanup is left to {@link #recoverStaleSessions}.
+     */
+    public void recoverInterruptedCapture() {
+        Path stateFile = diagnoseBaseDir().resolve(ACTIVE_STATE_FILE);
+        executor.submit(() -> {
+            try {
+                recoverInterruptedCapture(stateFile);
+            } catch (Exception e) {
+                TaggerMod.LOGGER.warn("[Diagnose] interrupted capture recovery failed", e);
+            }
+        });
+    }
+
+    private void recoverInterruptedCapture(Path stateFile) throws Exception {
+        Optional<ProfilerSessionState.State> stale = ProfilerSessionState.load(stateFile);
+        if (stale.isEmpty() || !stale.get().hasCaptureData()) {
+            return;
+        }
+        ProfilerSessionState.State old = stale.get();
+        Instant createdAt = parseInstant(old.createdAt);
+        if (isOwnerAlive(old.ownerPid, createdAt)) {
+            // Another game instance is still running this capture.
+            return;
+        }
+        try {
+            Path runRootDir = Path.of(old.runDir);
+            if (Files.isDirectory(runRootDir.resolve("results"))) {
+                buildRecoveredBundle(old, runRootDir, createdAt);
+                recoveredRunDir = runRootDir;
+            }
+        } finally {
+            old.jfrRepository = "";
+            old.samplerFiles = new ArrayList<>();
+            old.segmentDir = "";
+            old.segmentStartedAt = "";
+            if (old.hasExternalTools()) {
+                ProfilerSessionState.save(stateFile, old);
+            } else {
+                ProfilerSessionState.clear(stateFile);
+            }
+        }
+    }
+
+    private void buildRecoveredBundle(ProfilerSessionState.State old, Path runRootDir, Instant startWall) throws Exception {
+        Path runDir = runRootDir.resolve("results");
+        Path latestLog = runDir.resolve("diagnose.log");
+        List<String> notes = new ArrayList<>();
+        log(latestLog, "Recovering capture interrupted before export. ownerPid=" + old.ownerPid + " jfrRepository=" + old.jfrRepository);
+        notes.add("RECOVERED: this capture was interrupted (game crash, kill or freeze) and rebuilt on the next launch from the data written before it stopped.");
+        // Segmented captures: only the segment that was recording needs rebuilding; earlier ones were closed and analysed.
+        Path captureDir = old.segmentDir.isBlank() ? runDir : Path.of(old.segmentDir);
+        Instant captureStart = old.segmentDir.isBlank() ? startWall : parseInstant(old.segmentStartedAt);
+        if (!old.segmentDir.isBlank()) {
+            notes.add("Segmented capture interrupted in " + captureDir.getFileName() + "; only that segment was rebuilt.");
+        }
+
+        Path recordingJfr = captureDir.resolve("recording.jfr");
+        if (!old.jfrRepository.isBlank() && !Files.exists(recordingJfr)) {
+            CaptureRecovery.Stitched stitched = CaptureRecovery.stitchChunks(Path.of(old.jfrRepository), captureStart, recordingJfr);
+            log(latestLog, "Stitched recording.jfr: chunks=" + stitched.chunks() + " skipped=" + stitched.skipped() + " bytes=" + stitched.bytes());
+            notes.add(stitched.chunks() > 0
+                ? "recording.jfr stitched from " + stitched.chunks() + " JFR repository chunk(s); " + stitched.skipped() + " unreadable chunk(s) skipped."
+                : "No readable JFR chunks survived in " + old.jfrRepository + " (the JVM deletes its repository on a clean exit).");
+        }
+        List<Path> captureFiles = new ArrayList<>();
+        int samplersFound = 0;
+        for (String samplerFile : old.samplerFiles) {
+            Path path = Path.of(samplerFile);
+            captureFiles.add(path);
+            if (Files.exists(path)) {
+                samplersFound++;
+            }
+        }
+        notes.add("Sampler files recovered: " + samplersFound + " of " + old.samplerFiles.size() + " (rows up to the last flush before the interruption).");
+
+        Path presentCsv = captureDir.resolve("presentmon.csv");
+        Path frameTimingCsv = captureDir.resolve("frametimes.csv");
+        captureFiles.add(recordingJfr);
+        captureFiles.add(presentCsv);
+        captureFiles.add(frameTimingCsv);
+        Instant endWall = CaptureRecovery.lastWrite(captureFiles, captureStart);
+        Path badFrames = captureDir.resolve("bad_frames.json");
+        Path frameSource = selectFrameSource(presentCsv, frameTimingCsv);
+        if (Files.exists(recordingJfr) && frameSource != null) {
+            try {
+                new JfrParser()
+                    .withThreadSchedCsv(captureDir.resolve("thread_sched.csv"))
+                    .withPressureCsv(captureDir.resolve("system_pressure.csv"))
+                    .withProcessIoCsv(captureDir.resolve("process_io.csv"))
+                    .withOffHeapCsv(captureDir.resolve("offheap.csv"))
+                    .parse(recordingJfr, frameSource, badFrames, captureStart, endWall);
+            } catch (Exception e) {
+                notes.add("Bad frame analysis failed on recovered data: " + e.getMessage());
+                TaggerMod.LOGGER.warn("[Diagnose] recovered bad frame analysis failed", e);
+            }
+        }
+
+        ToolDetection.DetectionReport report = ToolDetection.detectAll();
+        Path readme = runDir.resolve("README_ANALYZE.txt");
+        BundleWriter.writeReadme(readme, parseMode(old.mode), report.sparkPresent, notes);
+        List<Path> required = new ArrayList<>();
+        for (Path path : List.of(recordingJfr, badFrames, readme, latestLog)) {
+            if (Files.exists(path)) {
+                required.add(path);
+            }
+        }
+        List<Path> optional = discoverOptionalFiles(runDir, required);
+        Path manifest = runDir.resolve("index.json");
+        BundleWriter.writeManifest(manifest, report, required, optional, notes);
+        required.add(manifest);
+        List<Path> shareZips = BundleWriter.zipResultsPartitioned(
+            runRootDir,
+            "mc-diagnose-" + runRootDir.getFileName() + "-recovered",
+            required,
+            optional,
+            notes,
+            SHARE_ZIP_MAX_BYTES,
+            SHARE_ZIP_MAX_PARTS
+        );
+        for (Path zip : shareZips) {
+            log(latestLog, "Recovered share zip completed: " + zip);
+        }
+    }
+
+    private void announceRecoveredCapture() {
+        Path runRootDir = recoveredRunDir;
+        if (runRootDir == null) {
+            return;
+        }
+        recoveredRunDir = null;
+        ChatUi.warn("Recovered a diagnostics capture interrupted by a crash or freeze in the previous session.");
+        ChatUi.clickableOpenFolderLabel("**OPEN RECOVERED RESULTS FOLDER**", runRootDir);
+    }
+
+    // A live pid only counts as the owner if that process started before the capture did (pids get reused).
+    static boolean isOwnerAlive(long ownerPid, Instant createdAt) {
+        if (ownerPid <= 0L || ownerPid == ProcessHandle.current().pid()) {
+            return false;
+        }
+        return ProcessHandle.of(ownerPid)
+            .filter(ProcessHandle::isAlive)
+            .flatMap(handle -> handle.info().startInstant())
+            .map(started -> !started.isAfter(createdAt))
+            .orElse(false);
+    }
+
+    private static Instant parseInstant(String value) {
+        try {
+            return Instant.parse(value);
+        } catch (Exception e) {
+            return Instant.EPOCH;
+        }
+    }
+
+    private static Mode parseMode(String value) {
+        try {
+            return Mode.valueOf(value);
+        } catch (Exception e) {
+            return Mode.NORMAL;
+        }
+    }
+
     private void recoverStaleSessions(ToolDetection.DetectionReport report, Path runDir, Path latestLog, Path stateFile, List<String> notes) {
         try {
-            var stale = ProfilerSessionState.load(stateFile);
+            Optional<ProfilerSessionState.State> stale = ProfilerSessionState.load(stateFile);
             if (stale.isEmpty()) {
                 return;
             }
@@ -1257,13 +1884,35 @@ public final class DiagnoseOrchestrator {
         }
     }
 
-    private void log(Path diagnoseLog, String line) {
+    // First frame log that produced rows, in preference order: PresentMon, MangoHud, in-process swap timing.
+    static Path selectFrameSource(Path... candidates) {
+        for (Path candidate : candidates) {
+            if (hasDataRows(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasDataRows(Path csv) {
+        if (csv == null || !Files.isRegularFile(csv)) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            return reader.readLine() != null && reader.readLine() != null;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Synchronized because export steps log from several threads.
+    private synchronized void log(Path diagnoseLog, String line) {
         try {
             String full = Instant.now() + " " + line + "\n";
-            Files.writeString(diagnoseLog, full, java.nio.charset.StandardCharsets.UTF_8,
+            Files.writeString(diagnoseLog, full, StandardCharsets.UTF_8,
                 Files.exists(diagnoseLog)
-                    ? java.nio.file.StandardOpenOption.APPEND
-                    : java.nio.file.StandardOpenOption.CREATE);
+                    ? StandardOpenOption.APPEND
+                    : StandardOpenOption.CREATE);
             TaggerMod.LOGGER.info("[Diagnose] {}", line);
         } catch (Exception e) {
             TaggerMod.LOGGER.error("[Diagnose] Failed writing diagnose log", e);
@@ -1297,7 +1946,7 @@ public final class DiagnoseOrchestrator {
             if (size <= maxBytes) {
                 return Files.readString(file, StandardCharsets.UTF_8);
             }
-            try (java.io.RandomAccessFile raf = new java.io.RandomAccessFile(file.toFile(), "r")) {
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
                 long offset = size - maxBytes;
                 raf.seek(offset);
                 byte[] buf = new byte[maxBytes];
@@ -1350,9 +1999,6 @@ public final class DiagnoseOrchestrator {
         if (plan.processContention) {
             addArtifactStatus("process contention", resultsDir.resolve("process_contention.csv"), working, failed);
         }
-        if (plan.nvidiaSmi && report.nvidiaSmi != null && report.nvidiaSmi.found) {
-            addArtifactStatus("nvidia-smi", resultsDir.resolve("nvidia_smi.csv"), working, failed);
-        }
         if (plan.nsys && report.nsys != null && report.nsys.found) {
             addArtifactStatus("Nsight Systems export", resultsDir.resolve("nsys-report.nsys-rep"), working, failed);
         }
@@ -1360,7 +2006,7 @@ public final class DiagnoseOrchestrator {
             addArtifactStatus("WPR export", resultsDir.resolve("trace.etl"), working, failed);
         }
         addArtifactStatus("manifest", resultsDir.resolve("index.json"), working, failed);
-        try (var stream = Files.list(runRootDir)) {
+        try (Stream<Path> stream = Files.list(runRootDir)) {
             boolean anyZip = stream.anyMatch(path -> {
                 String n = path.getFileName().toString().toLowerCase(Locale.ROOT);
                 String base = "mc-diagnose-" + runRootDir.getFileName().toString().toLowerCase(Locale.ROOT);
@@ -1811,7 +2457,7 @@ public final class DiagnoseOrchestrator {
             if (elapsed >= EXPORT_TIMEOUT_MS) {
                 try {
                     process.destroy();
-                    if (!process.waitFor(2, java.util.concurrent.TimeUnit.SECONDS)) {
+                    if (!process.waitFor(2, TimeUnit.SECONDS)) {
                         process.destroyForcibly();
                     }
                 } catch (Exception ignored) {
@@ -1842,7 +2488,7 @@ public final class DiagnoseOrchestrator {
                 if (Files.exists(runDir.resolve("nsys-report.nsys-rep"))) {
                     return true;
                 }
-                try (var stream = Files.list(runDir)) {
+                try (Stream<Path> stream = Files.list(runDir)) {
                     return stream.anyMatch(path -> {
                         String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
                         return name.endsWith(".nsys-rep") || name.endsWith(".qdrep");
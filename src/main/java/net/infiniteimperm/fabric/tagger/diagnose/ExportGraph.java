@@ -0,0 +1,200 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Post-capture work as a dependency graph on a bounded executor. A step runs once all its dependencies finished, so
+ * independent steps (JFR parse, ETL export, system info, device details, ...) overlap instead of queueing behind each
+ * other. A failed step skips its dependents but not unrelated branches; {@link #run} rethrows the first failure of a
+ * non-optional step once everything that can run has run. Each step's start offset and duration go to the log.
+ */
+public final class ExportGraph {
+    @FunctionalInterface
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    public record StepResult(String name, String status, long startOffsetMs, long durationMs) {
+    }
+
+    private static final String OK = "ok";
+    private static final String FAILED = "failed";
+    private static final String SKIPPED = "skipped";
+    private static final String DISABLED = "disabled";
+
+    private final int parallelism;
+    private final Consumer<String> log;
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+    public ExportGraph(int parallelism, Consumer<String> log) {
+        this.parallelism = Math.max(1, parallelism);
+        this.log = log;
+    }
+
+    public ExportGraph add(String name, Step step, String... dependsOn) {
+        return addIf(true, name, step, dependsOn);
+    }
+
+    /**
+     * Registers a step that only runs when {@code enabled}; when it does not, steps depending on it proceed as if it
+     * had succeeded, so callers can wire the graph the same way whatever the capture plan.
+     */
+    public ExportGraph addIf(boolean enabled, String name, Step step, String... dependsOn) {
+        if (nodes.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate export step " + name);
+        }
+        for (String dep : dependsOn) {
+            if (!nodes.containsKey(dep)) {
+                throw new IllegalArgumentException("Export step " + name + " depends on unknown step " + dep);
+            }
+        }
+        nodes.put(name, new Node(name, step, List.of(dependsOn), enabled));
+        return this;
+    }
+
+    /**
+     * A failure of this step is logged but does not skip its dependents or fail the graph.
+     */
+    public ExportGraph optional(String name) {
+        Node node = nodes.get(name);
+        if (node == null) {
+            throw new IllegalArgumentException("Unknown export step " + name);
+        }
+        node.optional = true;
+        return this;
+    }
+
+    /**
+     * Every step registered so far, for a step that has to come last (README, manifest).
+     */
+    public String[] all() {
+        return nodes.keySet().toArray(new String[0]);
+    }
+
+    public List<StepResult> run() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "insignia-export");
+            t.setDaemon(true);
+            return t;
+        });
+        CompletionService<Node> completions = new ExecutorCompletionService<>(pool);
+        long t0 = System.nanoTime();
+        Exception firstFailure = null;
+        try {
+            for (Node node : nodes.values()) {
+                if (!node.enabled) {
+                    node.status = DISABLED;
+                }
+            }
+            int inFlight = 0;
+            while (true) {
+                boolean progressed = true;
+                while (progressed) {
+                    progressed = false;
+                    for (Node node : nodes.values()) {
+                        if (node.status != null || node.submitted) {
+                            continue;
+                        }
+                        String blocked = blockedBy(node);
+                        if (blocked == null) {
+                            node.submitted = true;
+                            inFlight++;
+                            completions.submit(() -> execute(node, t0), node);
+                        } else if (!blocked.isEmpty()) {
+                            node.status = SKIPPED;
+                            log.accept(String.format(Locale.ROOT, "Export step %s: skipped (%s failed)", node.name, blocked));
+                            progressed = true;
+                        }
+                    }
+                }
+                if (inFlight == 0) {
+                    break;
+                }
+                Node done = completions.take().get();
+                inFlight--;
+                if (done.status.equals(FAILED) && !done.optional && firstFailure == null) {
+                    firstFailure = done.failure;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        List<StepResult> results = new ArrayList<>();
+        long busyMs = 0L;
+        for (Node node : nodes.values()) {
+            if (!node.status.equals(DISABLED)) {
+                results.add(new StepResult(node.name, node.status, node.startOffsetMs, node.durationMs));
+                busyMs += node.durationMs;
+            }
+        }
+        long wallMs = (System.nanoTime() - t0) / 1_000_000L;
+        log.accept(String.format(Locale.ROOT, "Export graph finished in %d ms (%d ms of step time on %d threads)", wallMs, busyMs, parallelism));
+        if (firstFailure != null) {
+            throw firstFailure;
+        }
+        return results;
+    }
+
+    // null when runnable, "" while waiting, otherwise the name of the dependency that failed or was skipped.
+    private String blockedBy(Node node) {
+        for (String depName : node.dependsOn) {
+            Node dep = nodes.get(depName);
+            if (dep.status == null) {
+                return "";
+            }
+            if (dep.status.equals(SKIPPED) || (dep.status.equals(FAILED) && !dep.optional)) {
+                return dep.name;
+            }
+        }
+        return null;
+    }
+
+    private void execute(Node node, long t0) {
+        long start = System.nanoTime();
+        node.startOffsetMs = (start - t0) / 1_000_000L;
+        try {
+            node.step.run();
+            node.durationMs = (System.nanoTime() - start) / 1_000_000L;
+            node.status = OK;
+            log.accept(String.format(Locale.ROOT, "Export step %s: ok in %d ms (started +%d ms)", node.name, node.durationMs, node.startOffsetMs));
+        } catch (Exception e) {
+            node.durationMs = (System.nanoTime() - start) / 1_000_000L;
+            node.failure = e;
+            node.status = FAILED;
+            TaggerMod.LOGGER.warn("[Diagnose][Export] step {} failed", node.name, e);
+            log.accept(String.format(Locale.ROOT, "Export step %s: failed after %d ms (started +%d ms): %s%s", node.name, node.durationMs,
+                node.startOffsetMs, e.getClass().getSimpleName(), node.optional ? " (optional, continuing)" : ""));
+        }
+    }
+
+    private static final class Node {
+        final String name;
+        final Step step;
+        final List<String> dependsOn;
+        final boolean enabled;
+        boolean optional;
+        boolean submitted;
+        volatile String status;
+        volatile Exception failure;
+        volatile long startOffsetMs;
+        volatile long durationMs;
+
+        Node(String name, Step step, List<String> dependsOn, boolean enabled) {
+            this.name = name;
+            this.step = step;
+            this.dependsOn = dependsOn;
+            this.enabled = enabled;
+        }
+    }
+}
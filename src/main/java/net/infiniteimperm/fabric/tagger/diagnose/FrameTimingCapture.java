@@ -0,0 +1,150 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process frame source: times the window buffer swap on the render thread and streams a
+ * PresentMon-compatible CSV, so bad-frame analysis works without PresentMon (Linux, refused UAC).
+ * The render thread only writes into a preallocated ring; a writer thread drains it.
+ */
+public final class FrameTimingCapture {
+    static final String CSV_HEADER = "Application,ProcessID,Runtime,TimeInSeconds,MsBetweenPresents,MsInPresentAPI";
+    static final int RING_CAPACITY = 8192;
+    private static final long DRAIN_INTERVAL_MS = 100L;
+    private static final AtomicReference<FrameTimingCapture> ACTIVE = new AtomicReference<>();
+
+    private final Path csvPath;
+    private final Instant anchorWall;
+    private final long anchorNs;
+    private final long[] swapStartNs = new long[RING_CAPACITY];
+    private final long[] swapDurationNs = new long[RING_CAPACITY];
+    private final AtomicLong written = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    // Single producer (render thread) / single consumer (writer thread).
+    private volatile long head;
+    private volatile long tail;
+    private long pendingSwapStartNs;
+    private volatile boolean running;
+    private Thread thread;
+
+    // TimeInSeconds is relative to anchorWall; pass the JFR start so the parser's capture window lines up.
+    public FrameTimingCapture(Path csvPath, Instant anchorWall) {
+        this.csvPath = csvPath;
+        this.anchorWall = anchorWall;
+        this.anchorNs = System.nanoTime() - Math.max(0L, Instant.now().toEpochMilli() - anchorWall.toEpochMilli()) * 1_000_000L;
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        ACTIVE.set(this);
+        thread = new Thread(this::runLoop, "insignia-frame-timing");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        ACTIVE.compareAndSet(this, null);
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(2000L);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        TaggerMod.LOGGER.info("[Diagnose][FrameTiming] stopped frames={} dropped={} anchor={}", written.get(), dropped.get(), anchorWall);
+    }
+
+    public Path csvPath() {
+        return csvPath;
+    }
+
+    public long framesWritten() {
+        return written.get();
+    }
+
+    public static void onSwapStart() {
+        FrameTimingCapture capture = ACTIVE.get();
+        if (capture != null) {
+            capture.pendingSwapStartNs = System.nanoTime();
+        }
+    }
+
+    public static void onSwapEnd() {
+        FrameTimingCapture capture = ACTIVE.get();
+        if (capture == null || capture.pendingSwapStartNs == 0L) {
+            return;
+        }
+        long start = capture.pendingSwapStartNs;
+        capture.pendingSwapStartNs = 0L;
+        capture.record(start, System.nanoTime() - start);
+    }
+
+    void record(long startNs, long durationNs) {
+        long h = head;
+        if (h - tail >= RING_CAPACITY) {
+            dropped.incrementAndGet();
+            return;
+        }
+        int slot = (int) (h % RING_CAPACITY);
+        swapStartNs[slot] = startNs;
+        swapDurationNs[slot] = Math.max(0L, durationNs);
+        head = h + 1;
+    }
+
+    private void runLoop() {
+        long pid = ProcessHandle.current().pid();
+        long previousStartNs = 0L;
+        StringBuilder line = new StringBuilder(96);
+        try {
+            Files.createDirectories(csvPath.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(csvPath, StandardCharsets.UTF_8)) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                while (true) {
+                    boolean stillRunning = running;
+                    long h = head;
+                    for (long t = tail; t < h; t++) {
+                        int slot = (int) (t % RING_CAPACITY);
+                        long start = swapStartNs[slot];
+                        long duration = swapDurationNs[slot];
+                        if (previousStartNs != 0L) {
+                            line.setLength(0);
+                            formatRow(line, pid, start - anchorNs, start - previousStartNs, duration);
+                            writer.write(line.toString());
+                            written.incrementAndGet();
+                        }
+                        previousStartNs = start;
+                    }
+                    tail = h;
+                    writer.flush();
+                    if (!stillRunning) {
+                        break;
+                    }
+                    Thread.sleep(DRAIN_INTERVAL_MS);
+                }
+            }
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][FrameTiming] writer failure", e);
+        }
+    }
+
+    static void formatRow(StringBuilder sb, long pid, long sinceAnchorNs, long betweenPresentsNs, long inPresentNs) {
+        sb.append("java,").append(pid).append(",OpenGL,")
+            .append(String.format(Locale.ROOT, "%.6f,%.4f,%.4f", sinceAnchorNs / 1_000_000_000d, betweenPresentsNs / 1_000_000d, inPresentNs / 1_000_000d))
+            .append('\n');
+    }
+}
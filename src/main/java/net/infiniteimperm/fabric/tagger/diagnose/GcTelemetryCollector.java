@@ -0,0 +1,333 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * GC and memory-pool telemetry without JFR: subscribes to {@link GarbageCollectorMXBean} notifications for each
+ * collection's cause, duration and per-pool before/after occupancy, derives the heap allocation rate between GCs,
+ * and samples {@link MemoryPoolMXBean} usage on the scheduler tick. Notifications arrive on the JMX thread and are
+ * queued; all file output happens on the scheduler thread. Old-generation occupancy after old and full collections
+ * feeds the optional {@link HeapLeakDetector}.
+ */
+public final class GcTelemetryCollector implements SamplingScheduler.Sampler {
+    private final Path gcCsv;
+    private final Path poolsCsv;
+    private final Path summaryFile;
+    private final long intervalMs;
+    private final HeapLeakDetector leakDetector;
+    private final ConcurrentLinkedQueue<GcEvent> pending = new ConcurrentLinkedQueue<>();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final NotificationListener listener = this::onNotification;
+    private final StringBuilder sb = new StringBuilder(512);
+    private final Map<String, CollectorTotals> collectors = new LinkedHashMap<>();
+    private final Map<String, Integer> causes = new TreeMap<>();
+    private List<MemoryPoolMXBean> pools;
+    private boolean[] heapPool;
+    private boolean[] oldGenPool;
+    private long[] lastAfter;
+    private long[] peakUsed;
+    private long jvmStartWallMs;
+    private long lastGcEndWallMs;
+    private long firstWallMs;
+    private long lastWallMs;
+    private long totalAllocBytes;
+    private double peakAllocRateMbS;
+    private SamplerOutput gcOut;
+    private SamplerOutput poolsOut;
+
+    /**
+     * @param leakDetector receives old-generation occupancy after each GC; may be null
+     */
+    public GcTelemetryCollector(Path gcCsv, Path poolsCsv, Path summaryFile, long intervalMs, HeapLeakDetector leakDetector) {
+        this.gcCsv = gcCsv;
+        this.poolsCsv = poolsCsv;
+        this.summaryFile = summaryFile;
+        this.intervalMs = intervalMs;
+        this.leakDetector = leakDetector;
+    }
+
+    public static boolean isSupported() {
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String name() {
+        return "gc-telemetry";
+    }
+
+    @Override
+    public long intervalMs() {
+        return intervalMs;
+    }
+
+    @Override
+    public void open(SamplingScheduler.Tick tick) throws Exception {
+        pools = ManagementFactory.getMemoryPoolMXBeans();
+        heapPool = new boolean[pools.size()];
+        oldGenPool = new boolean[pools.size()];
+        lastAfter = new long[pools.size()];
+        peakUsed = new long[pools.size()];
+        StringBuilder gcHeader = new StringBuilder("ts_ms,gc_id,gc,action,cause,start_ms,duration_ms,alloc_bytes,alloc_mb_s");
+        StringBuilder poolsHeader = new StringBuilder("ts_ms,mono_ns");
+        for (int i = 0; i < pools.size(); i++) {
+            MemoryPoolMXBean pool = pools.get(i);
+            String column = columnName(pool.getName());
+            heapPool[i] = pool.getType() == MemoryType.HEAP;
+            oldGenPool[i] = heapPool[i] && isOldGen(pool.getName());
+            lastAfter[i] = used(pool.getUsage());
+            gcHeader.append(',').append(column).append("_before,").append(column).append("_after");
+            poolsHeader.append(',').append(column).append("_used");
+        }
+        boolean anyOldGen = false;
+        for (boolean old : oldGenPool) {
+            anyOldGen |= old;
+        }
+        if (!anyOldGen) {
+            // Single-generation heaps (ZGC non-generational, Shenandoah, Epsilon): the whole heap is the trend.
+            System.arraycopy(heapPool, 0, oldGenPool, 0, heapPool.length);
+        }
+        gcOut = SamplerOutput.csv(gcCsv, gcHeader.toString());
+        poolsOut = SamplerOutput.csv(poolsCsv, poolsHeader.toString());
+        jvmStartWallMs = ManagementFactory.getRuntimeMXBean().getStartTime();
+        firstWallMs = tick.wallMillis();
+        lastWallMs = tick.wallMillis();
+        lastGcEndWallMs = tick.wallMillis();
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (bean instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    @Override
+    public void sample(SamplingScheduler.Tick tick) throws Exception {
+        drainGcEvents(tick.wallMillis());
+        sb.setLength(0);
+        sb.append(tick.wallMillis()).append(',').append(tick.nanoTime());
+        for (int i = 0; i < pools.size(); i++) {
+            long used = used(pools.get(i).getUsage());
+            peakUsed[i] = Math.max(peakUsed[i], used);
+            sb.append(',').append(used);
+        }
+        sb.append('\n');
+        poolsOut.write(sb, tick.wallMillis());
+        lastWallMs = tick.wallMillis();
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (Exception ignored) {
+            }
+        }
+        emitters.clear();
+        try {
+            if (gcOut != null) {
+                drainGcEvents(System.currentTimeMillis());
+            }
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][GcTelemetry] Failed writing final GC events", e);
+        }
+        for (SamplerOutput output : new SamplerOutput[]{gcOut, poolsOut}) {
+            try {
+                if (output != null) {
+                    output.close();
+                }
+            } catch (Exception e) {
+                TaggerMod.LOGGER.warn("[Diagnose][GcTelemetry] Failed closing output", e);
+            }
+        }
+        if (pools == null) {
+            return;
+        }
+        try {
+            Files.writeString(summaryFile, formatSummary(), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][GcTelemetry] Failed writing summary", e);
+        }
+    }
+
+    private void onNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        GcInfo gc = info.getGcInfo();
+        Map<String, MemoryUsage> before = gc.getMemoryUsageBeforeGc();
+        Map<String, MemoryUsage> after = gc.getMemoryUsageAfterGc();
+        long[] beforeBytes = new long[pools.size()];
+        long[] afterBytes = new long[pools.size()];
+        for (int i = 0; i < pools.size(); i++) {
+            String pool = pools.get(i).getName();
+            beforeBytes[i] = before.containsKey(pool) ? used(before.get(pool)) : -1L;
+            afterBytes[i] = after.containsKey(pool) ? used(after.get(pool)) : -1L;
+        }
+        pending.add(new GcEvent(gc.getId(), info.getGcName(), info.getGcAction(), info.getGcCause(),
+            jvmStartWallMs + gc.getStartTime(), gc.getDuration(), beforeBytes, afterBytes));
+    }
+
+    private void drainGcEvents(long nowMs) throws Exception {
+        GcEvent event;
+        boolean wrote = false;
+        while ((event = pending.poll()) != null) {
+            // Heap growth since the previous collection's after-occupancy is what the game allocated in between.
+            long alloc = 0L;
+            for (int i = 0; i < pools.size(); i++) {
+                if (heapPool[i] && event.before[i] >= 0L) {
+                    alloc += Math.max(0L, event.before[i] - lastAfter[i]);
+                }
+            }
+            long sinceMs = event.startWallMs - lastGcEndWallMs;
+            double rateMbS = sinceMs > 0L ? alloc / (1024d * 1024d) / (sinceMs / 1000d) : 0d;
+            sb.setLength(0);
+            sb.append(event.startWallMs + event.durationMs).append(',')
+                .append(event.id).append(',')
+                .append(csvCell(event.gc)).append(',')
+                .append(csvCell(event.action)).append(',')
+                .append(csvCell(event.cause)).append(',')
+                .append(event.startWallMs).append(',')
+                .append(event.durationMs).append(',')
+                .append(alloc).append(',')
+                .append(String.format(Locale.ROOT, "%.1f", rateMbS));
+            for (int i = 0; i < pools.size(); i++) {
+                sb.append(',');
+                if (event.before[i] >= 0L) {
+                    sb.append(event.before[i]);
+                    peakUsed[i] = Math.max(peakUsed[i], event.before[i]);
+                }
+                sb.append(',');
+                if (event.after[i] >= 0L) {
+                    sb.append(event.after[i]);
+                    lastAfter[i] = event.after[i];
+                }
+            }
+            sb.append('\n');
+            gcOut.write(sb, nowMs);
+            wrote = true;
+            if (leakDetector != null && HeapLeakDetector.reclaimsOldGen(event.gc, event.action)) {
+                long oldAfter = 0L;
+                boolean reported = false;
+                for (int i = 0; i < pools.size(); i++) {
+                    if (oldGenPool[i] && event.after[i] >= 0L) {
+                        oldAfter += event.after[i];
+                        reported = true;
+                    }
+                }
+                if (reported) {
+                    leakDetector.onGc(event.startWallMs + event.durationMs, oldAfter);
+                }
+            }
+            lastGcEndWallMs = Math.max(lastGcEndWallMs, event.startWallMs + event.durationMs);
+            totalAllocBytes += alloc;
+            peakAllocRateMbS = Math.max(peakAllocRateMbS, rateMbS);
+            collectors.computeIfAbsent(event.gc, ignored -> new CollectorTotals()).add(event.durationMs);
+            causes.merge(event.cause, 1, Integer::sum);
+        }
+        if (wrote) {
+            // GC rows are rare and the most useful thing to have on disk after a crash.
+            gcOut.flush(nowMs);
+        }
+    }
+
+    private String formatSummary() {
+        StringBuilder out = new StringBuilder();
+        double wallS = Math.max(1L, lastWallMs - firstWallMs) / 1000d;
+        out.append(String.format(Locale.ROOT, "GC telemetry over %.1f s%n", wallS));
+        out.append(String.format(Locale.ROOT, "%-28s %6s %10s %8s %8s%n", "collector", "count", "total_ms", "max_ms", "avg_ms"));
+        if (collectors.isEmpty()) {
+            out.append("(no collections during capture)\n");
+        }
+        for (Map.Entry<String, CollectorTotals> entry : collectors.entrySet()) {
+            CollectorTotals totals = entry.getValue();
+            out.append(String.format(Locale.ROOT, "%-28s %6d %10d %8d %8.1f%n", entry.getKey(), totals.count, totals.totalMs,
+                totals.maxMs, totals.totalMs / (double) totals.count));
+        }
+        out.append("Note: ZGC/Shenandoah \"Cycles\" and G1 concurrent durations are concurrent work, not pauses.\n");
+        if (!causes.isEmpty()) {
+            out.append(String.format(Locale.ROOT, "%nCauses:%n"));
+            for (Map.Entry<String, Integer> entry : causes.entrySet()) {
+                out.append(String.format(Locale.ROOT, "  %-40s %6d%n", entry.getKey(), entry.getValue()));
+            }
+        }
+        out.append(String.format(Locale.ROOT, "%nHeap allocation between GCs: %.1f MB total, %.1f MB/s average, %.1f MB/s peak%n",
+            totalAllocBytes / (1024d * 1024d), totalAllocBytes / (1024d * 1024d) / wallS, peakAllocRateMbS));
+        if (leakDetector != null) {
+            out.append(leakDetector.describe()).append('\n');
+        }
+        out.append(String.format(Locale.ROOT, "%nPool peaks (used MB, from samples and GC before-occupancy):%n"));
+        for (int i = 0; i < pools.size(); i++) {
+            MemoryPoolMXBean pool = pools.get(i);
+            long max = pool.getUsage() != null ? pool.getUsage().getMax() : -1L;
+            out.append(String.format(Locale.ROOT, "  %-36s %-8s %10.1f%s%n", pool.getName(), heapPool[i] ? "heap" : "non-heap",
+                peakUsed[i] / (1024d * 1024d), max > 0L ? String.format(Locale.ROOT, " / %.1f max", max / (1024d * 1024d)) : ""));
+        }
+        return out.toString();
+    }
+
+    static boolean isOldGen(String poolName) {
+        String name = poolName.toLowerCase(Locale.ROOT);
+        return name.contains("old") || name.contains("tenured");
+    }
+
+    static String columnName(String poolName) {
+        return poolName.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+    }
+
+    private static long used(MemoryUsage usage) {
+        return usage != null ? usage.getUsed() : 0L;
+    }
+
+    private static String csvCell(String value) {
+        String v = value == null ? "" : value;
+        if (v.contains(",") || v.contains("\"")) {
+            return "\"" + v.replace("\"", "\"\"") + "\"";
+        }
+        return v;
+    }
+
+    private record GcEvent(long id, String gc, String action, String cause, long startWallMs, long durationMs,
+                           long[] before, long[] after) {
+    }
+
+    private static final class CollectorTotals {
+        int count;
+        long totalMs;
+        long maxMs;
+
+        void add(long durationMs) {
+            count++;
+            totalMs += durationMs;
+            maxMs = Math.max(maxMs, durationMs);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fits a least-squares trend to old-generation occupancy after each collection that reclaims the old generation
+ * (see {@link #reclaimsOldGen}); after young collections the old gen still holds everything promoted since the last
+ * old collection, so fitting those would measure the promotion rate. When the slope reaches half the threshold a
+ * baseline class histogram is taken through the DiagnosticCommand MBean; when it reaches the threshold a second one
+ * is taken and the classes that grew the most between the two are written to {@code leak_suspects.txt}. Histograms
+ * are taken with {@code -all}, so no full GC is forced, but the heap walk still pauses the game at a safepoint: there
+ * are at most two per capture, spaced by {@link #REARM_MS}, each recorded as an {@code insignia.HeapHistogram} JFR
+ * event so the analysis can tell that pause apart, and they run on their own thread instead of the sampling thread
+ * that reports GCs. Histogram sizes are shallow (unreachable objects included), not retained.
+ */
+public final class HeapLeakDetector {
+    static final int MIN_POINTS = 5;
+    static final long MIN_SPAN_MS = 30_000L;
+    static final long REARM_MS = 60_000L;
+    private static final int TOP_CLASSES = 25;
+    private static final Pattern HISTOGRAM_ROW = Pattern.compile("^\\s*\\d+:\\s+(\\d+)\\s+(\\d+)\\s+(\\S+)");
+
+    private final Path runDir;
+    private final double thresholdMbPerMin;
+    private final Callable<String> histogramSource;
+    private final Executor histogramExecutor;
+    private final List<long[]> points = new ArrayList<>();
+    private volatile Map<String, long[]> baseline;
+    private long baselineWallMs;
+    private long lastHistogramWallMs = Long.MIN_VALUE;
+    private volatile boolean histogramRunning;
+    private boolean triggerTaken;
+    private volatile int histograms;
+    private volatile boolean suspectsWritten;
+
+    public HeapLeakDetector(Path runDir, double thresholdMbPerMin) {
+        this(runDir, thresholdMbPerMin, HeapLeakDetector::classHistogram, task -> {
+            Thread t = new Thread(task, "insignia-heap-histogram");
+            t.setDaemon(true);
+            t.start();
+        });
+    }
+
+    HeapLeakDetector(Path runDir, double thresholdMbPerMin, Callable<String> histogramSource, Executor histogramExecutor) {
+        this.runDir = runDir;
+        this.thresholdMbPerMin = thresholdMbPerMin;
+        this.histogramSource = histogramSource;
+        this.histogramExecutor = histogramExecutor;
+    }
+
+    public void onGc(long wallMs, long oldGenAfterBytes) {
+        points.add(new long[]{wallMs, oldGenAfterBytes});
+        if (triggerTaken || histogramRunning || points.size() < MIN_POINTS || wallMs - points.get(0)[0] < MIN_SPAN_MS) {
+            return;
+        }
+        if (lastHistogramWallMs != Long.MIN_VALUE && wallMs - lastHistogramWallMs < REARM_MS) {
+            return;
+        }
+        double slope = slopeMbPerMin();
+        if (baseline == null && slope >= thresholdMbPerMin / 2d) {
+            lastHistogramWallMs = wallMs;
+            baselineWallMs = wallMs;
+            runHistogram(() -> baseline = takeHistogram("baseline", slope));
+        } else if (baseline != null && slope >= thresholdMbPerMin) {
+            lastHistogramWallMs = wallMs;
+            triggerTaken = true;
+            Map<String, long[]> before = baseline;
+            double seconds = (wallMs - baselineWallMs) / 1000d;
+            runHistogram(() -> {
+                Map<String, long[]> current = takeHistogram("trigger", slope);
+                if (current != null) {
+                    writeSuspects(before, current, seconds, slope);
+                }
+            });
+        }
+    }
+
+    /**
+     * Whether a collection's after-occupancy reflects what the old generation actually retains: full and old
+     * collections of the stop-the-world collectors ({@code "end of major GC"}), and the whole-heap cycles of
+     * collectors without a young generation (ZGC, Shenandoah). G1 mixed collections are reported as minor GCs by the
+     * notification API and cannot be told apart, so they are left out.
+     */
+    public static boolean reclaimsOldGen(String gc, String action) {
+        if (action != null && action.contains("major")) {
+            return true;
+        }
+        return gc != null && gc.endsWith(" Cycles") && !gc.contains("Minor");
+    }
+
+    public double slopeMbPerMin() {
+        return slopeBytesPerMs(points) * 60_000d / (1024d * 1024d);
+    }
+
+    public String describe() {
+        if (points.size() < MIN_POINTS) {
+            return String.format(Locale.ROOT, "Old gen after-GC trend: not enough old/full collections (%d of %d needed); histograms=%d",
+                points.size(), MIN_POINTS, histograms);
+        }
+        return String.format(Locale.ROOT, "Old gen after-GC trend: %+.1f MB/min over %d old/full GCs (threshold %.0f MB/min); histograms=%d%s",
+            slopeMbPerMin(), points.size(), thresholdMbPerMin, histograms,
+            suspectsWritten ? "; see leak_suspects.txt" : "");
+    }
+
+    private void runHistogram(Runnable task) {
+        histogramRunning = true;
+        histogramExecutor.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                histogramRunning = false;
+            }
+        });
+    }
+
+    private Map<String, long[]> takeHistogram(String label, double slope) {
+        try {
+            JfrController.HeapHistogramEvent event = new JfrController.HeapHistogramEvent();
+            event.begin();
+            String text = histogramSource.call();
+            event.histogramLabel = label;
+            event.commit();
+            Files.writeString(runDir.resolve("heap_histogram_" + (histograms + 1) + "_" + label + ".txt"), text, StandardCharsets.UTF_8);
+            histograms++;
+            TaggerMod.LOGGER.info("[Diagnose][HeapLeak] took {} class histogram at slope {} MB/min", label, slope);
+            return parseHistogram(text);
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][HeapLeak] class histogram failed", e);
+            return null;
+        }
+    }
+
+    private void writeSuspects(Map<String, long[]> before, Map<String, long[]> after, double seconds, double slope) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "Old gen after-GC occupancy growing at %.1f MB/min (threshold %.0f MB/min).%n", slope, thresholdMbPerMin));
+        out.append(String.format(Locale.ROOT, "Top growing classes by shallow size over %.0f s between heap_histogram_1 and heap_histogram_%d:%n", seconds, histograms));
+        out.append(String.format(Locale.ROOT, "%14s %14s %14s  %s%n", "bytes_delta", "instances_delta", "bytes_now", "class"));
+        for (String[] row : topGrowing(before, after, TOP_CLASSES)) {
+            out.append(String.format(Locale.ROOT, "%14s %14s %14s  %s%n", row[1], row[2], row[3], row[0]));
+        }
+        try {
+            Files.writeString(runDir.resolve("leak_suspects.txt"), out.toString(), StandardCharsets.UTF_8);
+            suspectsWritten = true;
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][HeapLeak] Failed writing leak suspects", e);
+        }
+    }
+
+    static double slopeBytesPerMs(List<long[]> points) {
+        int n = points.size();
+        if (n < 2) {
+            return 0d;
+        }
+        double t0 = points.get(0)[0];
+        double meanT = 0d;
+        double meanY = 0d;
+        for (long[] point : points) {
+            meanT += (point[0] - t0) / n;
+            meanY += point[1] / (double) n;
+        }
+        double cov = 0d;
+        double var = 0d;
+        for (long[] point : points) {
+            double dt = point[0] - t0 - meanT;
+            cov += dt * (point[1] - meanY);
+            var += dt * dt;
+        }
+        return var > 0d ? cov / var : 0d;
+    }
+
+    /**
+     * Class name -> {instances, bytes} from {@code GC.class_histogram} output.
+     */
+    static Map<String, long[]> parseHistogram(String text) {
+        Map<String, long[]> classes = new HashMap<>();
+        for (String line : text.split("\n")) {
+            Matcher m = HISTOGRAM_ROW.matcher(line);
+            if (m.find()) {
+                classes.put(m.group(3), new long[]{Long.parseLong(m.group(1)), Long.parseLong(m.group(2))});
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Rows of {class, bytes_delta, instances_delta, bytes_now} for classes whose shallow bytes grew, largest first.
+     */
+    static List<String[]> topGrowing(Map<String, long[]> before, Map<String, long[]> after, int limit) {
+        List<Map.Entry<String, long[]>> grown = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : after.entrySet()) {
+            long[] was = before.getOrDefault(entry.getKey(), new long[2]);
+            long[] now = entry.getValue();
+            if (now[1] > was[1]) {
+                grown.add(Map.entry(entry.getKey(), new long[]{now[1] - was[1], now[0] - was[0], now[1]}));
+            }
+        }
+        grown.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        List<String[]> rows = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : grown.subList(0, Math.min(limit, grown.size()))) {
+            long[] v = entry.getValue();
+            rows.add(new String[]{entry.getKey(), Long.toString(v[0]), Long.toString(v[1]), Long.toString(v[2])});
+        }
+        return rows;
+    }
+
+    private static String classHistogram() throws Exception {
+        ObjectName name = new ObjectName("com.sun.management:type=DiagnosticCommand");
+        return (String) ManagementFactory.getPlatformMBeanServer().invoke(name, "gcClassHistogram",
+            new Object[]{new String[]{"-all"}}, new String[]{String[].class.getName()});
+    }
+}
@@ -7,15 +7,26 @@ import jdk.jfr.Name;
 import jdk.jfr.Recording;
 import net.infiniteimperm.fabric.tagger.TaggerMod;
 
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 public final class JfrController {
     private static final AtomicReference<JfrController> ACTIVE = new AtomicReference<>();
@@ -23,14 +34,28 @@ public final class JfrController {
     static final long UPLOAD_BATCH_DURATION_THRESHOLD_NS = 500_000L;
     static final int UPLOAD_BATCH_COUNT_THRESHOLD = 32;
     static final long SHADER_BATCH_DURATION_THRESHOLD_NS = 1_000_000L;
+    private static final Duration JIT_COMPILATION_THRESHOLD = Duration.ofMillis(1);
+    static final int BLOCK_ENTITY_TYPE_SLOTS = 64;
+    static final int BLOCK_ENTITY_TOP_OFFENDERS = 8;
+    static final long BLOCK_ENTITY_REPORT_THRESHOLD_NS = 1_000_000L;
+    static final int MAIN_THREAD_TASK_OWNER_SLOTS = 64;
+    static final int MAIN_THREAD_TASK_TOP_OWNERS = 8;
+    static final long MAIN_THREAD_TASK_REPORT_THRESHOLD_NS = 1_000_000L;
     private static final int PHASE_WORLD = 1;
+    private static final int PHASE_WORLD_ENTITIES = 2;
+    private static final int PHASE_BLOCK_ENTITIES = 3;
     private static final int PHASE_GUI = 5;
     private static final int PHASE_POST = 6;
+    private static final int PHASE_WORLD_SETUP = 8;
+    private static final int PHASE_WORLD_TERRAIN = 9;
+    private static final int PHASE_WORLD_TRANSLUCENT = 10;
+    private static final int PHASE_WORLD_LATE = 11;
     private static final int TRANSITION_JOIN = 1;
     private static final int TRANSITION_LEAVE = 2;
     private static final int TRANSITION_DIM_CHANGE = 3;
 
     private final Path logPath;
+    private final boolean jvmRuntimeEvents;
     private final ConcurrentLinkedQueue<FrameBoundary> queue = new ConcurrentLinkedQueue<>();
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final AtomicLong frameIndex = new AtomicLong(0);
@@ -41,10 +66,21 @@ public final class JfrController {
     private final AtomicLong worldTransitionCount = new AtomicLong(0);
     private final AtomicLong userMarkCount = new AtomicLong(0);
     private final AtomicLong resourceReloadCount = new AtomicLong(0);
+    private final AtomicLong resourceReloaderStageCount = new AtomicLong(0);
+    private final AtomicLong mainThreadTaskEventCount = new AtomicLong(0);
+    private final AtomicLong renderStallCount = new AtomicLong(0);
+    private final AtomicLong mainThreadTasksQueued = new AtomicLong(0);
+    private final AtomicLong mainThreadTaskMaxDepth = new AtomicLong(0);
+    private final AtomicLong resourceReloadSequence = new AtomicLong(0);
+    private final ConcurrentLinkedQueue<ReloaderStageRecord> reloaderStages = new ConcurrentLinkedQueue<>();
+    private volatile long activeReloadId;
+    private volatile long activeReloadStartNs;
     private final AtomicLong chunkBatchCount = new AtomicLong(0);
     private final AtomicLong bufferUploadBatchCount = new AtomicLong(0);
     private final AtomicLong textureUploadBatchCount = new AtomicLong(0);
     private final AtomicLong shaderBatchCount = new AtomicLong(0);
+    private final AtomicLong blockEntityTypeEventCount = new AtomicLong(0);
+    private final AtomicLong blockEntityOffenderEventCount = new AtomicLong(0);
     private final AtomicLong vanillaChunkHookSeen = new AtomicLong(0);
     private final AtomicLong sodiumChunkHookSeen = new AtomicLong(0);
     private final AtomicLong vanillaBufferHookSeen = new AtomicLong(0);
@@ -52,6 +88,8 @@ public final class JfrController {
     private final AtomicLong textureHookSeen = new AtomicLong(0);
     private final AtomicLong vanillaShaderHookSeen = new AtomicLong(0);
     private final AtomicLong sodiumShaderHookSeen = new AtomicLong(0);
+    private final AtomicLong blockEntityHookSeen = new AtomicLong(0);
+    private final AtomicLong mainThreadTaskHookSeen = new AtomicLong(0);
     private final AtomicLong textureNoFrameDrops = new AtomicLong(0);
     private final AtomicLong shaderNoFrameDrops = new AtomicLong(0);
     private final AtomicLong shaderBelowThresholdDrops = new AtomicLong(0);
@@ -59,10 +97,23 @@ public final class JfrController {
     private volatile long activeFrameStartNs;
     private volatile long activeFrameStartWallMs;
     private volatile long worldPhaseStartNs;
+    private volatile long worldStageStartNs;
+    private volatile int worldStagePhase;
     private volatile long hudPhaseStartNs;
     private volatile long worldDurationNs;
+    private volatile long worldSetupDurationNs;
+    private volatile long worldTerrainDurationNs;
+    private volatile long worldEntitiesDurationNs;
+    private volatile long worldTranslucentDurationNs;
+    private volatile long worldLateDurationNs;
     private volatile long hudDurationNs;
     private volatile long postDurationNs;
+    // Render-thread CPU/allocation counters sampled at each frame summary; -1 means no baseline yet or unsupported.
+    private ThreadCounters threadCounters;
+    private ThreadMXBean threadBean;
+    private com.sun.management.ThreadMXBean allocationBean;
+    private long lastBoundaryCpuNs = -1L;
+    private long lastBoundaryAllocBytes = -1L;
     private volatile int chunkBuildCount;
     private volatile long chunkBuildDurationNs;
     private volatile long chunkUploadDurationNs;
@@ -87,13 +138,47 @@ public final class JfrController {
     private volatile long pendingShaderCompileDurationNs;
     private volatile int pendingOffFrameShaderCompileCount;
     private volatile long pendingOffFrameShaderCompileDurationNs;
+    // Block entity stats are only touched from the render thread. World rendering runs before the
+    // HUD callback that opens a frame, so they accumulate here and are consumed by the next summary;
+    // a present with no summary since the last one (HUD hidden) drops them instead.
+    private final IdentityHashMap<Object, Integer> blockEntityTypeSlots = new IdentityHashMap<>();
+    private final String[] blockEntityTypeNames = new String[BLOCK_ENTITY_TYPE_SLOTS];
+    private final int[] blockEntityCounts = new int[BLOCK_ENTITY_TYPE_SLOTS];
+    private final long[] blockEntityDurationNs = new long[BLOCK_ENTITY_TYPE_SLOTS];
+    private final int[] blockEntityTouchedSlots = new int[BLOCK_ENTITY_TYPE_SLOTS];
+    private int blockEntityTouchedCount;
+    private int blockEntityTotalCount;
+    private long blockEntityTotalDurationNs;
+    private final long[] topBlockEntityDurationNs = new long[BLOCK_ENTITY_TOP_OFFENDERS];
+    private final int[] topBlockEntitySlot = new int[BLOCK_ENTITY_TOP_OFFENDERS];
+    private final int[] topBlockEntityX = new int[BLOCK_ENTITY_TOP_OFFENDERS];
+    private final int[] topBlockEntityY = new int[BLOCK_ENTITY_TOP_OFFENDERS];
+    private final int[] topBlockEntityZ = new int[BLOCK_ENTITY_TOP_OFFENDERS];
+    private int topBlockEntityUsed;
+    // Main-thread task stats are only touched from the render thread, which is where queued tasks run.
+    private final HashMap<String, Integer> mainThreadTaskOwnerSlots = new HashMap<>();
+    private final String[] mainThreadTaskOwnerNames = new String[MAIN_THREAD_TASK_OWNER_SLOTS];
+    private final int[] mainThreadTaskOwnerCounts = new int[MAIN_THREAD_TASK_OWNER_SLOTS];
+    private final long[] mainThreadTaskOwnerRunNs = new long[MAIN_THREAD_TASK_OWNER_SLOTS];
+    private final long[] mainThreadTaskOwnerMaxLatencyNs = new long[MAIN_THREAD_TASK_OWNER_SLOTS];
+    private final int[] mainThreadTaskTouchedSlots = new int[MAIN_THREAD_TASK_OWNER_SLOTS];
+    private int mainThreadTaskTouchedCount;
+    private int mainThreadTaskCount;
+    private long mainThreadTaskRunNs;
+    private long mainThreadTaskMaxLatencyNs;
     private Recording recording;
     private Thread worker;
     private Instant startWall;
     private Instant endWall;
 
     public JfrController(Path logPath) {
+        this(logPath, false);
+    }
+
+    // jvmRuntimeEvents adds JIT compilation, deoptimization, safepoint and class-load events (warm-up analysis).
+    public JfrController(Path logPath, boolean jvmRuntimeEvents) {
         this.logPath = logPath;
+        this.jvmRuntimeEvents = jvmRuntimeEvents;
     }
 
     public void start() throws Exception {
@@ -111,8 +196,12 @@ public final class JfrController {
         enableIfPresent("jdk.ThreadStart", false);
         enableIfPresent("jdk.ThreadEnd", false);
         enableIfPresent("jdk.JavaErrorThrow", true);
+        if (jvmRuntimeEvents) {
+            enableJvmRuntimeEvents();
+        }
 
         recording.start();
+        initThreadCounters();
         startWall = Instant.now();
         running.set(true);
         ACTIVE.set(this);
@@ -121,11 +210,49 @@ public final class JfrController {
         worker.setDaemon(true);
         worker.start();
         logLine("[JFR] recording started at " + startWall);
-        logLine("[JFR] custom instrumentation enabled: HudFrameStart/HudFrameEnd/FramePhase/FrameSummary/WorldTransition/UserStutterMark/ResourceReload/ChunkBuildBatch/BufferUploadBatch/TextureUploadBatch/ShaderCompileBatch");
+        logLine("[JFR] custom instrumentation enabled: HudFrameStart/HudFrameEnd/FramePhase/FrameSummary/WorldTransition/UserStutterMark/ResourceReload/ResourceReloaderStage/MainThreadTask/RenderStall/ChunkBuildBatch/BufferUploadBatch/TextureUploadBatch/ShaderCompileBatch/BlockEntityRender/BlockEntityOffender");
         logLine("[JFR] thresholds: upload batch flush when bytes>=" + UPLOAD_BATCH_BYTES_THRESHOLD
             + " or durationNs>=" + UPLOAD_BATCH_DURATION_THRESHOLD_NS
             + " or uploadCount>=" + UPLOAD_BATCH_COUNT_THRESHOLD
-            + ", shader_compile durationNs>=" + SHADER_BATCH_DURATION_THRESHOLD_NS);
+            + ", shader_compile durationNs>=" + SHADER_BATCH_DURATION_THRESHOLD_NS
+            + ", block_entity report durationNs>=" + BLOCK_ENTITY_REPORT_THRESHOLD_NS
+            + ", main_thread_task report durationNs>=" + MAIN_THREAD_TASK_REPORT_THRESHOLD_NS);
+    }
+
+    // The switches are JVM-wide and shared with the JVM thread sampler; the hold is released in stopAndDump.
+    private void initThreadCounters() {
+        try {
+            threadCounters = ThreadCounters.acquire();
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (ThreadCounters.cpuTimeEnabled()) {
+                threadBean = bean;
+            }
+            if (ThreadCounters.allocationEnabled()) {
+                allocationBean = (com.sun.management.ThreadMXBean) bean;
+            }
+        } catch (Exception e) {
+            logLine("[JFR] thread cpu/allocation counters unavailable: " + e.getMessage());
+        }
+        logLine("[JFR] render thread counters: cpu=" + (threadBean != null) + " alloc=" + (allocationBean != null));
+    }
+
+    /**
+     * Difference between two samples of a monotonic per-thread counter, or 0 when either sample is
+     * missing (-1) or the counter went backwards.
+     */
+    static long counterDelta(long previous, long current) {
+        if (previous < 0L || current < 0L || current < previous) {
+            return 0L;
+        }
+        return current - previous;
+    }
+
+    private long sampleThreadCpuNs() {
+        return threadBean != null ? threadBean.getCurrentThreadCpuTime() : -1L;
+    }
+
+    private long sampleThreadAllocBytes() {
+        return allocationBean != null ? allocationBean.getCurrentThreadAllocatedBytes() : -1L;
     }
 
     public void stopAndDump(Path outputJfr) throws Exception {
@@ -134,6 +261,10 @@ public final class JfrController {
         if (worker != null) {
             worker.join(1500);
         }
+        if (threadCounters != null) {
+            threadCounters.close();
+            threadCounters = null;
+        }
         flushPendingOffFrameBatches();
         drainBatch();
         endWall = Instant.now();
@@ -149,22 +280,77 @@ public final class JfrController {
             + " worldTransition=" + worldTransitionCount.get()
             + " userMark=" + userMarkCount.get()
             + " resourceReload=" + resourceReloadCount.get()
+            + " resourceReloaderStage=" + resourceReloaderStageCount.get()
+            + " mainThreadTask=" + mainThreadTaskEventCount.get()
+            + " renderStall=" + renderStallCount.get()
+            + " mainThreadTasksQueued=" + mainThreadTasksQueued.get()
             + " chunkBatch=" + chunkBatchCount.get()
             + " bufferUploadBatch=" + bufferUploadBatchCount.get()
             + " textureUploadBatch=" + textureUploadBatchCount.get()
-            + " shaderBatch=" + shaderBatchCount.get());
+            + " shaderBatch=" + shaderBatchCount.get()
+            + " blockEntityType=" + blockEntityTypeEventCount.get()
+            + " blockEntityOffender=" + blockEntityOffenderEventCount.get());
         logLine("[JFR] hook_seen_counts vanillaChunk=" + vanillaChunkHookSeen.get()
             + " sodiumChunk=" + sodiumChunkHookSeen.get()
             + " vanillaBuffer=" + vanillaBufferHookSeen.get()
             + " sodiumBuffer=" + sodiumBufferHookSeen.get()
             + " texture=" + textureHookSeen.get()
             + " vanillaShader=" + vanillaShaderHookSeen.get()
-            + " sodiumShader=" + sodiumShaderHookSeen.get());
+            + " sodiumShader=" + sodiumShaderHookSeen.get()
+            + " blockEntity=" + blockEntityHookSeen.get()
+            + " mainThreadTask=" + mainThreadTaskHookSeen.get());
         logLine("[JFR] offframe_activity texture=" + textureNoFrameDrops.get()
             + " shader=" + shaderNoFrameDrops.get()
             + " subthreshold_shader_updates=" + shaderBelowThresholdDrops.get());
     }
 
+    /**
+     * Writes the per-reloader prepare/apply timings collected during the capture as a CSV waterfall.
+     * Returns false when no resource reload happened while recording.
+     */
+    public boolean writeResourceReloadWaterfall(Path outCsv) throws IOException {
+        List<ReloaderStageRecord> records = new ArrayList<>(reloaderStages);
+        if (records.isEmpty()) {
+            return false;
+        }
+        Files.writeString(outCsv, formatReloadWaterfall(records), StandardCharsets.UTF_8);
+        logLine("[JFR] resource reload waterfall written to " + outCsv.toAbsolutePath() + " stages=" + records.size());
+        return true;
+    }
+
+    static String formatReloadWaterfall(List<ReloaderStageRecord> records) {
+        List<ReloaderStageRecord> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparingLong(ReloaderStageRecord::reloadId)
+            .thenComparingLong(ReloaderStageRecord::startOffsetNs)
+            .thenComparing(ReloaderStageRecord::stage));
+        StringBuilder sb = new StringBuilder();
+        sb.append("reload_id,reloader,stage,start_offset_ms,end_offset_ms,span_ms,busy_ms,tasks,threads\n");
+        for (ReloaderStageRecord r : sorted) {
+            sb.append(r.reloadId()).append(',')
+                .append(csvCell(r.reloader())).append(',')
+                .append(r.stage()).append(',')
+                .append(formatMs(r.startOffsetNs())).append(',')
+                .append(formatMs(r.endOffsetNs())).append(',')
+                .append(formatMs(r.endOffsetNs() - r.startOffsetNs())).append(',')
+                .append(formatMs(r.busyNs())).append(',')
+                .append(r.taskCount()).append(',')
+                .append(csvCell(r.threads())).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String formatMs(long ns) {
+        return String.format(Locale.ROOT, "%.3f", ns / 1_000_000d);
+    }
+
+    private static String csvCell(String value) {
+        String v = value == null ? "" : value;
+        if (v.contains(",") || v.contains("\"")) {
+            return "\"" + v.replace("\"", "\"\"") + "\"";
+        }
+        return v;
+    }
+
     public Instant startWall() {
         return startWall;
     }
@@ -219,6 +405,23 @@ public final class JfrController {
         }
     }
 
+    private void enableJvmRuntimeEvents() {
+        enableWithThreshold("jdk.Compilation", JIT_COMPILATION_THRESHOLD);
+        enableIfPresent("jdk.Deoptimization", false);
+        enableWithThreshold("jdk.SafepointBegin", Duration.ZERO);
+        enableWithThreshold("jdk.SafepointStateSynchronization", Duration.ZERO);
+        enableWithThreshold("jdk.ClassLoad", Duration.ZERO);
+    }
+
+    private void enableWithThreshold(String eventName, Duration threshold) {
+        try {
+            recording.enable(eventName).withThreshold(threshold);
+            logLine("[JFR] enabled event: " + eventName + " threshold=" + threshold.toMillis() + "ms");
+        } catch (Throwable t) {
+            logLine("[JFR] event not available: " + eventName + " (" + t.getClass().getSimpleName() + ")");
+        }
+    }
+
     private void enableIfPresent(String eventName, boolean withStackTrace) {
         try {
             var settings = recording.enable(eventName);
@@ -255,7 +458,6 @@ public final class JfrController {
         controller.activeFrameId = controller.frameIndex.incrementAndGet();
         controller.activeFrameStartNs = nowNs;
         controller.activeFrameStartWallMs = nowMs;
-        controller.worldDurationNs = 0L;
         controller.hudDurationNs = 0L;
         controller.postDurationNs = 0L;
         controller.chunkBuildCount = 0;
@@ -277,7 +479,6 @@ public final class JfrController {
         controller.shaderCompileDurationNs = 0L;
         controller.pendingShaderCompileCount = 0;
         controller.pendingShaderCompileDurationNs = 0L;
-        controller.worldPhaseStartNs = 0L;
         controller.hudPhaseStartNs = nowNs;
 
         HudFrameStartEvent event = new HudFrameStartEvent();
@@ -315,15 +516,34 @@ public final class JfrController {
         controller.flushFrameSummary(nowNs, nowMs);
     }
 
+    // World rendering runs before the HUD callback opens the frame, so world stages accumulate
+    // until the next frame summary and their FramePhase events are emitted from there. A present
+    // with no summary in between drops them, so each breakdown covers exactly one world pass.
     public static void onWorldFrameStart() {
         JfrController controller = ACTIVE.get();
         if (controller == null || !controller.running.get()) {
             return;
         }
-        if (controller.activeFrameId == 0L) {
-            return;
-        }
-        controller.worldPhaseStartNs = System.nanoTime();
+        long nowNs = System.nanoTime();
+        controller.worldPhaseStartNs = nowNs;
+        controller.worldStageStartNs = nowNs;
+        controller.worldStagePhase = PHASE_WORLD_SETUP;
+    }
+
+    public static void onWorldAfterSetup() {
+        markWorldStage(PHASE_WORLD_TERRAIN);
+    }
+
+    public static void onWorldBeforeEntities() {
+        markWorldStage(PHASE_WORLD_ENTITIES);
+    }
+
+    public static void onWorldAfterEntities() {
+        markWorldStage(PHASE_WORLD_TRANSLUCENT);
+    }
+
+    public static void onWorldAfterTranslucent() {
+        markWorldStage(PHASE_WORLD_LATE);
     }
 
     public static void onWorldFrameEnd() {
@@ -331,15 +551,43 @@ public final class JfrController {
         if (controller == null || !controller.running.get()) {
             return;
         }
-        if (controller.activeFrameId == 0L || controller.worldPhaseStartNs <= 0L) {
+        if (controller.worldPhaseStartNs <= 0L) {
             return;
         }
         long nowNs = System.nanoTime();
-        long nowMs = System.currentTimeMillis();
-        long dur = Math.max(0L, nowNs - controller.worldPhaseStartNs);
-        controller.worldDurationNs += dur;
-        controller.emitPhase(controller.activeFrameId, PHASE_WORLD, dur, nowNs, nowMs);
+        controller.closeWorldStage(nowNs);
+        controller.worldDurationNs += Math.max(0L, nowNs - controller.worldPhaseStartNs);
         controller.worldPhaseStartNs = 0L;
+        controller.worldStageStartNs = 0L;
+        controller.worldStagePhase = 0;
+    }
+
+    private static void markWorldStage(int nextPhase) {
+        JfrController controller = ACTIVE.get();
+        if (controller == null || !controller.running.get()) {
+            return;
+        }
+        if (controller.worldStageStartNs <= 0L) {
+            return;
+        }
+        long nowNs = System.nanoTime();
+        controller.closeWorldStage(nowNs);
+        controller.worldStageStartNs = nowNs;
+        controller.worldStagePhase = nextPhase;
+    }
+
+    // A stage event that does not fire (e.g. another renderer skips it) leaves its time in the previous stage.
+    private void closeWorldStage(long nowNs) {
+        long dur = Math.max(0L, nowNs - worldStageStartNs);
+        switch (worldStagePhase) {
+            case PHASE_WORLD_SETUP -> worldSetupDurationNs += dur;
+            case PHASE_WORLD_TERRAIN -> worldTerrainDurationNs += dur;
+            case PHASE_WORLD_ENTITIES -> worldEntitiesDurationNs += dur;
+            case PHASE_WORLD_TRANSLUCENT -> worldTranslucentDurationNs += dur;
+            case PHASE_WORLD_LATE -> worldLateDurationNs += dur;
+            default -> {
+            }
+        }
     }
 
     public static void onPostPhaseDuration(long durationNs) {
@@ -376,8 +624,13 @@ public final class JfrController {
         if (controller == null || !controller.running.get()) {
             return;
         }
+        long nowNs = System.nanoTime();
+        if (phase == resourceReloadStartPhase()) {
+            controller.activeReloadId = controller.resourceReloadSequence.incrementAndGet();
+            controller.activeReloadStartNs = nowNs;
+        }
         ResourceReloadEvent event = new ResourceReloadEvent();
-        event.nanoTime = System.nanoTime();
+        event.nanoTime = nowNs;
         event.wallMillis = System.currentTimeMillis();
         event.phase = phase;
         event.durationNs = Math.max(0L, durationNs);
@@ -385,6 +638,61 @@ public final class JfrController {
         controller.resourceReloadCount.incrementAndGet();
     }
 
+    public static void onRenderStallRecorded() {
+        JfrController controller = ACTIVE.get();
+        if (controller != null && controller.running.get()) {
+            controller.renderStallCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Called after the buffer swap. Anything accumulated since the last frame summary was rendered in an
+     * iteration that never opened a HUD frame, so it is dropped rather than folded into the next one.
+     */
+    public static void onFramePresented() {
+        JfrController controller = ACTIVE.get();
+        if (controller == null || !controller.running.get() || controller.activeFrameId != 0L) {
+            return;
+        }
+        controller.resetWorldStats();
+        controller.resetBlockEntityStats();
+    }
+
+    public static boolean isRecording() {
+        JfrController controller = ACTIVE.get();
+        return controller != null && controller.running.get();
+    }
+
+    /**
+     * Records one stage (prepare or apply) of a single {@code ResourceReloader}. Start/end are
+     * {@link System#nanoTime()} values of the first task start and last task end on that stage's executor.
+     */
+    public static void onResourceReloaderStage(String reloader, String stage, long startNs, long endNs, long busyNs, int taskCount, String threads) {
+        JfrController controller = ACTIVE.get();
+        if (controller == null || !controller.running.get() || taskCount <= 0) {
+            return;
+        }
+        long reloadId = controller.activeReloadId;
+        long baseNs = controller.activeReloadStartNs > 0L ? controller.activeReloadStartNs : startNs;
+        long startOffsetNs = Math.max(0L, startNs - baseNs);
+        long endOffsetNs = Math.max(startOffsetNs, endNs - baseNs);
+        ResourceReloaderStageEvent event = new ResourceReloaderStageEvent();
+        event.reloadId = reloadId;
+        event.reloader = reloader == null ? "" : reloader;
+        event.stage = stage;
+        event.threads = threads == null ? "" : threads;
+        event.startOffsetNs = startOffsetNs;
+        event.durationNs = endOffsetNs - startOffsetNs;
+        event.busyNs = Math.max(0L, busyNs);
+        event.taskCount = taskCount;
+        event.nanoTime = System.nanoTime();
+        event.wallMillis = System.currentTimeMillis();
+        event.commit();
+        controller.resourceReloaderStageCount.incrementAndGet();
+        controller.reloaderStages.add(new ReloaderStageRecord(
+            reloadId, event.reloader, stage, startOffsetNs, endOffsetNs, event.busyNs, taskCount, event.threads));
+    }
+
     public static void onUserStutterMark(String label) {
         JfrController controller = ACTIVE.get();
         if (controller == null || !controller.running.get()) {
@@ -596,6 +904,88 @@ public final class JfrController {
         markHookSeen(HookType.SODIUM_SHADER);
     }
 
+    /**
+     * Records one block entity render. {@code type} is used as an identity key for the per-type slot;
+     * {@code typeNamer} is only invoked the first time a type is seen in this capture.
+     */
+    public static void onBlockEntityRender(Object type, Function<Object, String> typeNamer, int x, int y, int z, long durationNs) {
+        JfrController controller = ACTIVE.get();
+        if (controller == null || !controller.running.get() || type == null) {
+            return;
+        }
+        long safeDur = Math.max(0L, durationNs);
+        int slot = controller.blockEntitySlot(type, typeNamer);
+        if (controller.blockEntityCounts[slot] == 0) {
+            controller.blockEntityTouchedSlots[controller.blockEntityTouchedCount++] = slot;
+        }
+        controller.blockEntityCounts[slot]++;
+        controller.blockEntityDurationNs[slot] += safeDur;
+        controller.blockEntityTotalCount++;
+        controller.blockEntityTotalDurationNs += safeDur;
+
+        int target = offenderSlotToReplace(controller.topBlockEntityDurationNs, controller.topBlockEntityUsed, safeDur);
+        if (target < 0) {
+            return;
+        }
+        if (target == controller.topBlockEntityUsed) {
+            controller.topBlockEntityUsed++;
+        }
+        controller.topBlockEntityDurationNs[target] = safeDur;
+        controller.topBlockEntitySlot[target] = slot;
+        controller.topBlockEntityX[target] = x;
+        controller.topBlockEntityY[target] = y;
+        controller.topBlockEntityZ[target] = z;
+    }
+
+    public static void onBlockEntityHookSeen() {
+        markHookSeen(HookType.BLOCK_ENTITY);
+    }
+
+    int blockEntitySlot(Object type, Function<Object, String> typeNamer) {
+        Integer existing = blockEntityTypeSlots.get(type);
+        if (existing != null) {
+            return existing;
+        }
+        int slot = blockEntityTypeSlots.size();
+        if (slot >= BLOCK_ENTITY_TYPE_SLOTS - 1) {
+            // Last slot aggregates everything once the table is full; overflow types are not mapped,
+            // so the table stays at its fixed size however many modded types show up.
+            slot = BLOCK_ENTITY_TYPE_SLOTS - 1;
+            blockEntityTypeNames[slot] = "<other>";
+            return slot;
+        }
+        String name;
+        try {
+            name = typeNamer != null ? typeNamer.apply(type) : null;
+        } catch (Exception e) {
+            name = null;
+        }
+        blockEntityTypeNames[slot] = name == null || name.isBlank() ? type.getClass().getSimpleName() : name;
+        blockEntityTypeSlots.put(type, slot);
+        return slot;
+    }
+
+    /**
+     * Returns the index in {@code durations} a new offender should be written to, or -1 when it is
+     * not slower than anything already kept.
+     */
+    static int offenderSlotToReplace(long[] durations, int used, long candidateNs) {
+        if (used < durations.length) {
+            return used;
+        }
+        int minIndex = 0;
+        for (int i = 1; i < used; i++) {
+            if (durations[i] < durations[minIndex]) {
+                minIndex = i;
+            }
+        }
+        return candidateNs > durations[minIndex] ? minIndex : -1;
+    }
+
+    static boolean shouldReportBlockEntities(long totalDurationNs) {
+        return totalDurationNs >= BLOCK_ENTITY_REPORT_THRESHOLD_NS;
+    }
+
     public static int transitionJoin() {
         return TRANSITION_JOIN;
     }
@@ -627,6 +1017,12 @@ public final class JfrController {
         phaseCount.incrementAndGet();
     }
 
+    private void emitPhaseIfPositive(long frameId, int phase, long durationNs, long nowNs, long nowMs) {
+        if (durationNs > 0L) {
+            emitPhase(frameId, phase, durationNs, nowNs, nowMs);
+        }
+    }
+
     private void flushFrameSummary(long nowNs, long nowMs) {
         if (activeFrameId == 0L) {
             return;
@@ -640,14 +1036,45 @@ public final class JfrController {
         if (pendingShaderCompileCount > 0 || pendingShaderCompileDurationNs > 0L) {
             emitShaderCompileBatch(activeFrameId, pendingShaderCompileCount, pendingShaderCompileDurationNs);
         }
+        if (worldDurationNs > 0L) {
+            emitPhase(activeFrameId, PHASE_WORLD, worldDurationNs, nowNs, nowMs);
+            emitPhaseIfPositive(activeFrameId, PHASE_WORLD_SETUP, worldSetupDurationNs, nowNs, nowMs);
+            emitPhaseIfPositive(activeFrameId, PHASE_WORLD_TERRAIN, worldTerrainDurationNs, nowNs, nowMs);
+            emitPhaseIfPositive(activeFrameId, PHASE_WORLD_ENTITIES, worldEntitiesDurationNs, nowNs, nowMs);
+            emitPhaseIfPositive(activeFrameId, PHASE_WORLD_TRANSLUCENT, worldTranslucentDurationNs, nowNs, nowMs);
+            emitPhaseIfPositive(activeFrameId, PHASE_WORLD_LATE, worldLateDurationNs, nowNs, nowMs);
+        }
+        if (blockEntityTotalDurationNs > 0L) {
+            emitPhase(activeFrameId, PHASE_BLOCK_ENTITIES, blockEntityTotalDurationNs, nowNs, nowMs);
+        }
+        if (shouldReportBlockEntities(blockEntityTotalDurationNs)) {
+            emitBlockEntityBreakdown(activeFrameId, nowNs, nowMs);
+        }
+        if (mainThreadTaskRunNs >= MAIN_THREAD_TASK_REPORT_THRESHOLD_NS) {
+            emitMainThreadTaskBreakdown(activeFrameId, nowNs, nowMs);
+        }
         long totalFrameNs = Math.max(0L, nowNs - activeFrameStartNs);
+        // Deltas cover the whole render loop iteration since the previous summary, like the world stats.
+        long cpuNow = sampleThreadCpuNs();
+        long allocNow = sampleThreadAllocBytes();
+        long cpuNs = counterDelta(lastBoundaryCpuNs, cpuNow);
+        long allocBytes = counterDelta(lastBoundaryAllocBytes, allocNow);
+        lastBoundaryCpuNs = cpuNow;
+        lastBoundaryAllocBytes = allocNow;
         FrameSummaryEvent event = new FrameSummaryEvent();
         event.frameId = activeFrameId;
         event.nanoTime = nowNs;
         event.wallMillis = nowMs;
         event.frameStartWallMillis = activeFrameStartWallMs;
         event.totalFrameDurationNs = totalFrameNs;
+        event.cpuNs = cpuNs;
+        event.allocBytes = allocBytes;
         event.worldDurationNs = worldDurationNs;
+        event.worldSetupDurationNs = worldSetupDurationNs;
+        event.worldTerrainDurationNs = worldTerrainDurationNs;
+        event.worldEntitiesDurationNs = worldEntitiesDurationNs;
+        event.worldTranslucentDurationNs = worldTranslucentDurationNs;
+        event.worldLateDurationNs = worldLateDurationNs;
         event.hudDurationNs = hudDurationNs;
         event.postDurationNs = postDurationNs;
         event.chunkBuildCount = chunkBuildCount;
@@ -661,15 +1088,22 @@ public final class JfrController {
         event.textureUploadDurationNs = textureUploadDurationNs;
         event.shaderCompileCount = shaderCompileCount;
         event.shaderCompileDurationNs = shaderCompileDurationNs;
+        event.blockEntityCount = blockEntityTotalCount;
+        event.blockEntityDurationNs = blockEntityTotalDurationNs;
+        event.mainThreadTaskCount = mainThreadTaskCount;
+        event.mainThreadTaskDurationNs = mainThreadTaskRunNs;
+        event.mainThreadTaskMaxLatencyNs = mainThreadTaskMaxLatencyNs;
+        event.mainThreadTaskMaxQueueDepth = mainThreadTaskMaxDepth.getAndSet(0L);
         event.commit();
         frameSummaryCount.incrementAndGet();
+        resetBlockEntityStats();
+        resetMainThreadTaskStats();
 
         activeFrameId = 0L;
         activeFrameStartNs = 0L;
         activeFrameStartWallMs = 0L;
-        worldPhaseStartNs = 0L;
         hudPhaseStartNs = 0L;
-        worldDurationNs = 0L;
+        resetWorldStats();
         hudDurationNs = 0L;
         postDurationNs = 0L;
         chunkBuildCount = 0;
@@ -693,6 +1127,167 @@ public final class JfrController {
         pendingShaderCompileDurationNs = 0L;
     }
 
+    private void emitBlockEntityBreakdown(long frameId, long nowNs, long nowMs) {
+        for (int i = 0; i < blockEntityTouchedCount; i++) {
+            int slot = blockEntityTouchedSlots[i];
+            BlockEntityRenderEvent event = new BlockEntityRenderEvent();
+            event.frameId = frameId;
+            event.nanoTime = nowNs;
+            event.wallMillis = nowMs;
+            event.blockEntityType = blockEntityTypeNames[slot];
+            event.renderCount = blockEntityCounts[slot];
+            event.durationNs = blockEntityDurationNs[slot];
+            event.commit();
+            blockEntityTypeEventCount.incrementAndGet();
+        }
+        for (int i = 0; i < topBlockEntityUsed; i++) {
+            BlockEntityOffenderEvent event = new BlockEntityOffenderEvent();
+            event.frameId = frameId;
+            event.nanoTime = nowNs;
+            event.wallMillis = nowMs;
+            event.blockEntityType = blockEntityTypeNames[topBlockEntitySlot[i]];
+            event.x = topBlockEntityX[i];
+            event.y = topBlockEntityY[i];
+            event.z = topBlockEntityZ[i];
+            event.durationNs = topBlockEntityDurationNs[i];
+            event.commit();
+            blockEntityOffenderEventCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Called when a task is posted to the client executor, with the number of tasks already waiting there.
+     * Returns the enqueue timestamp, or 0 when no capture is recording and the task should not be tracked.
+     */
+    public static long onMainThreadTaskQueued(int queuedBefore) {
+        JfrController controller = ACTIVE.get();
+        if (controller == null || !controller.running.get()) {
+            return 0L;
+        }
+        markHookSeen(HookType.MAIN_THREAD_TASK);
+        controller.mainThreadTasksQueued.incrementAndGet();
+        controller.mainThreadTaskMaxDepth.accumulateAndGet(queuedBefore + 1L, Math::max);
+        return System.nanoTime();
+    }
+
+    /**
+     * Samples the client executor's queue at frame end. Depth is always read from the executor itself, so tasks
+     * it drops without running (cancelled, or cleared on disconnect) never leave a stale count behind.
+     */
+    public static void onMainThreadQueueDepth(int queued) {
+        JfrController controller = ACTIVE.get();
+        if (controller != null && controller.running.get()) {
+            controller.mainThreadTaskMaxDepth.accumulateAndGet(queued, Math::max);
+        }
+    }
+
+    public static void onMainThreadTaskRun(String taskOwner, long enqueueNs, long startNs, long endNs) {
+        JfrController controller = ACTIVE.get();
+        if (controller == null || !controller.running.get() || taskOwner == null) {
+            return;
+        }
+        long latencyNs = Math.max(0L, startNs - enqueueNs);
+        long runNs = Math.max(0L, endNs - startNs);
+        int slot = controller.mainThreadTaskSlot(taskOwner);
+        if (controller.mainThreadTaskOwnerCounts[slot] == 0) {
+            controller.mainThreadTaskTouchedSlots[controller.mainThreadTaskTouchedCount++] = slot;
+        }
+        controller.mainThreadTaskOwnerCounts[slot]++;
+        controller.mainThreadTaskOwnerRunNs[slot] += runNs;
+        controller.mainThreadTaskOwnerMaxLatencyNs[slot] = Math.max(controller.mainThreadTaskOwnerMaxLatencyNs[slot], latencyNs);
+        controller.mainThreadTaskCount++;
+        controller.mainThreadTaskRunNs += runNs;
+        controller.mainThreadTaskMaxLatencyNs = Math.max(controller.mainThreadTaskMaxLatencyNs, latencyNs);
+    }
+
+    private int mainThreadTaskSlot(String taskOwner) {
+        Integer existing = mainThreadTaskOwnerSlots.get(taskOwner);
+        if (existing != null) {
+            return existing;
+        }
+        int slot = mainThreadTaskOwnerSlots.size();
+        if (slot >= MAIN_THREAD_TASK_OWNER_SLOTS - 1) {
+            // Once the table is full every new owner shares the last slot; no need to remember them.
+            mainThreadTaskOwnerNames[MAIN_THREAD_TASK_OWNER_SLOTS - 1] = "<other>";
+            return MAIN_THREAD_TASK_OWNER_SLOTS - 1;
+        }
+        mainThreadTaskOwnerNames[slot] = taskOwner;
+        mainThreadTaskOwnerSlots.put(taskOwner, slot);
+        return slot;
+    }
+
+    /**
+     * Lambdas get hidden classes named {@code Owner$$Lambda/0x...}; the owner is what is useful to report.
+     */
+    static String taskOwnerName(String className) {
+        int lambda = className.indexOf("$$Lambda");
+        return lambda > 0 ? className.substring(0, lambda) : className;
+    }
+
+    private void emitMainThreadTaskBreakdown(long frameId, long nowNs, long nowMs) {
+        // Partial selection sort over the touched slots; the list is bounded by the slot table.
+        int limit = Math.min(MAIN_THREAD_TASK_TOP_OWNERS, mainThreadTaskTouchedCount);
+        for (int i = 0; i < limit; i++) {
+            int best = i;
+            for (int j = i + 1; j < mainThreadTaskTouchedCount; j++) {
+                if (mainThreadTaskOwnerRunNs[mainThreadTaskTouchedSlots[j]] > mainThreadTaskOwnerRunNs[mainThreadTaskTouchedSlots[best]]) {
+                    best = j;
+                }
+            }
+            int slot = mainThreadTaskTouchedSlots[best];
+            mainThreadTaskTouchedSlots[best] = mainThreadTaskTouchedSlots[i];
+            mainThreadTaskTouchedSlots[i] = slot;
+
+            MainThreadTaskEvent event = new MainThreadTaskEvent();
+            event.frameId = frameId;
+            event.nanoTime = nowNs;
+            event.wallMillis = nowMs;
+            event.taskOwner = mainThreadTaskOwnerNames[slot];
+            event.taskCount = mainThreadTaskOwnerCounts[slot];
+            event.runDurationNs = mainThreadTaskOwnerRunNs[slot];
+            event.maxQueueLatencyNs = mainThreadTaskOwnerMaxLatencyNs[slot];
+            event.commit();
+            mainThreadTaskEventCount.incrementAndGet();
+        }
+    }
+
+    private void resetMainThreadTaskStats() {
+        for (int i = 0; i < mainThreadTaskTouchedCount; i++) {
+            int slot = mainThreadTaskTouchedSlots[i];
+            mainThreadTaskOwnerCounts[slot] = 0;
+            mainThreadTaskOwnerRunNs[slot] = 0L;
+            mainThreadTaskOwnerMaxLatencyNs[slot] = 0L;
+        }
+        mainThreadTaskTouchedCount = 0;
+        mainThreadTaskCount = 0;
+        mainThreadTaskRunNs = 0L;
+        mainThreadTaskMaxLatencyNs = 0L;
+    }
+
+    private void resetWorldStats() {
+        worldPhaseStartNs = 0L;
+        worldStageStartNs = 0L;
+        worldStagePhase = 0;
+        worldDurationNs = 0L;
+        worldSetupDurationNs = 0L;
+        worldTerrainDurationNs = 0L;
+        worldEntitiesDurationNs = 0L;
+        worldTranslucentDurationNs = 0L;
+        worldLateDurationNs = 0L;
+    }
+
+    private void resetBlockEntityStats() {
+        for (int i = 0; i < blockEntityTouchedCount; i++) {
+            int slot = blockEntityTouchedSlots[i];
+            blockEntityCounts[slot] = 0;
+            blockEntityDurationNs[slot] = 0L;
+        }
+        blockEntityTouchedCount = 0;
+        blockEntityTotalCount = 0;
+        blockEntityTotalDurationNs = 0L;
+        topBlockEntityUsed = 0;
+    }
+
     static boolean shouldFlushUploadBatch(int uploadCount, long bytes, long durationNs) {
         return uploadCount >= UPLOAD_BATCH_COUNT_THRESHOLD
             || bytes >= UPLOAD_BATCH_BYTES_THRESHOLD
@@ -733,6 +1328,17 @@ public final class JfrController {
     private record FrameBoundary(long frameIndex, long nanoTime, long wallMillis) {
     }
 
+    record ReloaderStageRecord(
+        long reloadId,
+        String reloader,
+        String stage,
+        long startOffsetNs,
+        long endOffsetNs,
+        long busyNs,
+        int taskCount,
+        String threads) {
+    }
+
     private static void markHookSeen(HookType type) {
         JfrController controller = ACTIVE.get();
         if (controller == null || !controller.running.get()) {
@@ -746,6 +1352,8 @@ public final class JfrController {
             case TEXTURE -> controller.textureHookSeen;
             case VANILLA_SHADER -> controller.vanillaShaderHookSeen;
             case SODIUM_SHADER -> controller.sodiumShaderHookSeen;
+            case BLOCK_ENTITY -> controller.blockEntityHookSeen;
+            case MAIN_THREAD_TASK -> controller.mainThreadTaskHookSeen;
         };
         long seen = counter.incrementAndGet();
         if (seen == 1L) {
@@ -760,7 +1368,9 @@ public final class JfrController {
         SODIUM_BUFFER("sodium_buffer"),
         TEXTURE("texture"),
         VANILLA_SHADER("vanilla_shader"),
-        SODIUM_SHADER("sodium_shader");
+        SODIUM_SHADER("sodium_shader"),
+        BLOCK_ENTITY("block_entity"),
+        MAIN_THREAD_TASK("main_thread_task");
 
         private final String logName;
 
@@ -842,8 +1452,22 @@ public final class JfrController {
         long frameStartWallMillis;
         @Label("Total Frame Duration Nanos")
         long totalFrameDurationNs;
+        @Label("Render Thread CPU Nanos")
+        long cpuNs;
+        @Label("Render Thread Allocated Bytes")
+        long allocBytes;
         @Label("World Phase Duration Nanos")
         long worldDurationNs;
+        @Label("World Setup Duration Nanos")
+        long worldSetupDurationNs;
+        @Label("World Terrain Duration Nanos")
+        long worldTerrainDurationNs;
+        @Label("World Entities Duration Nanos")
+        long worldEntitiesDurationNs;
+        @Label("World Translucent Duration Nanos")
+        long worldTranslucentDurationNs;
+        @Label("World Late Duration Nanos")
+        long worldLateDurationNs;
         @Label("Hud Phase Duration Nanos")
         long hudDurationNs;
         @Label("Post Phase Duration Nanos")
@@ -870,6 +1494,106 @@ public final class JfrController {
         int shaderCompileCount;
         @Label("Shader Compile Duration Nanos")
         long shaderCompileDurationNs;
+        @Label("Block Entity Render Count")
+        int blockEntityCount;
+        @Label("Block Entity Render Duration Nanos")
+        long blockEntityDurationNs;
+        @Label("Main Thread Task Count")
+        int mainThreadTaskCount;
+        @Label("Main Thread Task Duration Nanos")
+        long mainThreadTaskDurationNs;
+        @Label("Main Thread Task Max Queue Latency Nanos")
+        long mainThreadTaskMaxLatencyNs;
+        @Label("Main Thread Task Max Queue Depth")
+        long mainThreadTaskMaxQueueDepth;
+    }
+
+    @Name("insignia.RenderStall")
+    @Label("Insignia Render Stall")
+    @Category("Insignia")
+    static class RenderStallEvent extends Event {
+        @Label("Frame Sequence")
+        long frameSequence;
+        @Label("Stall Start Wall Millis")
+        long stallStartWallMillis;
+        @Label("Stall Duration Nanos")
+        long stallDurationNs;
+        @Label("Sample Count")
+        int sampleCount;
+        @Label("Sample Interval Nanos")
+        long sampleIntervalNs;
+        @Label("Stacks")
+        String stacks;
+        @Label("Unfinished")
+        boolean unfinished;
+    }
+
+    @Name("insignia.HeapHistogram")
+    @Label("Insignia Heap Histogram")
+    @Category("Insignia")
+    static class HeapHistogramEvent extends Event {
+        @Label("Histogram Label")
+        String histogramLabel;
+    }
+
+    @Name("insignia.MainThreadTask")
+    @Label("Insignia Main Thread Task")
+    @Category("Insignia")
+    static class MainThreadTaskEvent extends Event {
+        @Label("Frame ID")
+        long frameId;
+        @Label("Nano Time")
+        long nanoTime;
+        @Label("Wall Time Millis")
+        long wallMillis;
+        @Label("Task Owner")
+        String taskOwner;
+        @Label("Task Count")
+        int taskCount;
+        @Label("Run Duration Nanos")
+        long runDurationNs;
+        @Label("Max Queue Latency Nanos")
+        long maxQueueLatencyNs;
+    }
+
+    @Name("insignia.BlockEntityRender")
+    @Label("Insignia Block Entity Render")
+    @Category("Insignia")
+    static class BlockEntityRenderEvent extends Event {
+        @Label("Frame ID")
+        long frameId;
+        @Label("Nano Time")
+        long nanoTime;
+        @Label("Wall Time Millis")
+        long wallMillis;
+        @Label("Block Entity Type")
+        String blockEntityType;
+        @Label("Render Count")
+        int renderCount;
+        @Label("Duration Nanos")
+        long durationNs;
+    }
+
+    @Name("insignia.BlockEntityOffender")
+    @Label("Insignia Block Entity Offender")
+    @Category("Insignia")
+    static class BlockEntityOffenderEvent extends Event {
+        @Label("Frame ID")
+        long frameId;
+        @Label("Nano Time")
+        long nanoTime;
+        @Label("Wall Time Millis")
+        long wallMillis;
+        @Label("Block Entity Type")
+        String blockEntityType;
+        @Label("X")
+        int x;
+        @Label("Y")
+        int y;
+        @Label("Z")
+        int z;
+        @Label("Duration Nanos")
+        long durationNs;
     }
 
     @Name("insignia.ChunkBuildBatch")
@@ -956,6 +1680,32 @@ public final class JfrController {
         long wallMillis;
     }
 
+    @Name("insignia.ResourceReloaderStage")
+    @Label("Insignia Resource Reloader Stage")
+    @Category("Insignia")
+    static class ResourceReloaderStageEvent extends Event {
+        @Label("Reload ID")
+        long reloadId;
+        @Label("Reloader")
+        String reloader;
+        @Label("Stage")
+        String stage;
+        @Label("Executor Threads")
+        String threads;
+        @Label("Start Offset Nanos")
+        long startOffsetNs;
+        @Label("Duration Nanos")
+        long durationNs;
+        @Label("Busy Nanos")
+        long busyNs;
+        @Label("Task Count")
+        int taskCount;
+        @Label("Nano Time")
+        long nanoTime;
+        @Label("Wall Time Millis")
+        long wallMillis;
+    }
+
     @Name("insignia.WorldTransition")
     @Label("Insignia World Transition")
     @Category("Insignia")
@@ -1,5 +1,6 @@
 package net.infiniteimperm.fabric.tagger.diagnose;
 
+import jdk.jfr.ValueDescriptor;
 import jdk.jfr.consumer.RecordedEvent;
 import jdk.jfr.consumer.RecordedFrame;
 import jdk.jfr.consumer.RecordedStackTrace;
@@ -23,11 +24,85 @@ import java.util.Map;
 public final class JfrParser {
     private static final double BAD_FRAME_MS = 16.67d;
     private static final int TOP_STACKS = 20;
+    private static final int TOP_BLOCK_ENTITY_TYPES = 10;
+    private static final int TOP_BLOCK_ENTITY_OFFENDERS = 8;
+    private static final int TOP_MAIN_THREAD_TASK_OWNERS = 8;
+    private static final int TOP_SCHED_THREADS = 8;
+    static final int CLASS_LOAD_BURST = 50;
+    // Share of a bad frame's overlapping sample intervals that must be stalled before it is labelled.
+    static final double CPU_PRESSURE_SHARE = 0.25d;
+    static final double MEMORY_PRESSURE_SHARE = 0.05d;
+    static final double IO_PRESSURE_SHARE = 0.10d;
+    static final double CGROUP_THROTTLE_SHARE = 0.10d;
+    // Share of the frame that must be lost to a single cause (GC pause, render-thread run-queue wait).
+    static final double FRAME_SHARE_CAUSE = 0.25d;
+    static final long DISK_READ_BYTES_CAUSE = 1024L * 1024L;
+    static final long MAJOR_FAULTS_CAUSE = 4L;
+    private static final List<String> PRESSURE_COLUMNS = List.of(
+        "cpu_some_us", "cpu_full_us", "mem_some_us", "mem_full_us", "io_some_us", "io_full_us",
+        "cg_nr_throttled", "cg_throttled_us", "cg_mem_high", "cg_mem_max", "cg_oom_kill");
+    private static final List<String> PROCESS_IO_COLUMNS = List.of(
+        "read_bytes", "write_bytes", "rchar", "wchar", "syscr", "syscw", "minflt", "majflt");
+    private static final List<String> OFF_HEAP_COLUMNS = List.of("vertex_upload_bytes", "texture_upload_bytes", "direct_delta_bytes");
+    // bad_frames.json key -> insignia.FrameSummary field, summed over the summaries inside a bad frame.
+    private static final Map<String, String> FRAME_SUMMARY_FIELDS = frameSummaryFields();
 
-    public void parse(Path jfrFile, Path presentMonCsv, Path outJson, Instant captureStart, Instant captureEnd) throws IOException {
-        PresentMonReadResult presentMon = readPresentMon(presentMonCsv, captureStart, captureEnd);
-        List<FrameRecord> frames = presentMon.frames();
+    private Path threadSchedCsv;
+    private Path pressureCsv;
+    private Path processIoCsv;
+    private Path offHeapCsv;
+    private Instant mangoHudLogStart;
+
+    /**
+     * Optional per-thread scheduler CSV from {@link ThreadSchedSampler}; its intervals are folded into each bad frame.
+     */
+    public JfrParser withThreadSchedCsv(Path csv) {
+        this.threadSchedCsv = csv;
+        return this;
+    }
+
+    /**
+     * Optional PSI/cgroup CSV from {@link PressureSampler}; feeds the system_pressure section and root-cause labels.
+     */
+    public JfrParser withPressureCsv(Path csv) {
+        this.pressureCsv = csv;
+        return this;
+    }
+
+    /**
+     * Optional /proc/self/io and page-fault CSV from {@link ProcessIoSampler}; feeds the process_io section.
+     */
+    public JfrParser withProcessIoCsv(Path csv) {
+        this.processIoCsv = csv;
+        return this;
+    }
+
+    /**
+     * Optional off-heap timeline CSV from {@link OffHeapCollector}; feeds the offheap section.
+     */
+    public JfrParser withOffHeapCsv(Path csv) {
+        this.offHeapCsv = csv;
+        return this;
+    }
+
+    /**
+     * When a MangoHud frame log began, from {@link MangoHudLogs#logStart}; without it the log is assumed to start
+     * with the capture.
+     */
+    public JfrParser withMangoHudLogStart(Instant start) {
+        this.mangoHudLogStart = start;
+        return this;
+    }
+
+    public void parse(Path jfrFile, Path frameCsv, Path outJson, Instant captureStart, Instant captureEnd) throws IOException {
+        FrameFormat format = detectFrameFormat(readHead(frameCsv, 4));
+        FrameReadResult frameRead = frameSource(format).read(frameCsv, captureStart, captureEnd);
+        List<FrameRecord> frames = frameRead.frames();
         List<EventRecord> events = readJfrEvents(jfrFile);
+        List<SchedRow> schedRows = readThreadSched(threadSchedCsv);
+        List<IntervalRow> pressureRows = readIntervalCsv(pressureCsv, PRESSURE_COLUMNS, "pressure");
+        List<IntervalRow> processIoRows = readIntervalCsv(processIoCsv, PROCESS_IO_COLUMNS, "process io");
+        List<IntervalRow> offHeapRows = readIntervalCsv(offHeapCsv, OFF_HEAP_COLUMNS, "off-heap");
 
         List<FrameRecord> badFrames = new ArrayList<>();
         List<FrameRecord> normalFrames = new ArrayList<>();
@@ -46,15 +121,16 @@ public final class JfrParser {
         json.append("  \"capture\": {\n");
         json.append("    \"start\": \"").append(captureStart).append("\",\n");
         json.append("    \"end\": \"").append(captureEnd).append("\",\n");
+        json.append("    \"frame_source\": \"").append(format.name().toLowerCase(Locale.ROOT)).append("\",\n");
         json.append("    \"total_frames\": ").append(frames.size()).append(",\n");
         json.append("    \"bad_frames\": ").append(badFrames.size()).append(",\n");
-        json.append("    \"ignored_out_of_window_frames\": ").append(presentMon.ignoredOutOfWindow()).append("\n");
+        json.append("    \"ignored_out_of_window_frames\": ").append(frameRead.ignoredOutOfWindow()).append("\n");
         json.append("  },\n");
         json.append("  \"baseline\": ").append(buildBaseline(normalFrames)).append(",\n");
         json.append("  \"bad_frames\": [\n");
         for (int i = 0; i < badFrames.size(); i++) {
             FrameRecord frame = badFrames.get(i);
-            json.append(buildBadFrame(frame, events, stackToId, idToStack));
+            json.append(buildBadFrame(frame, events, schedRows, pressureRows, processIoRows, offHeapRows, stackToId, idToStack));
             if (i + 1 < badFrames.size()) {
                 json.append(",");
             }
@@ -74,7 +150,9 @@ public final class JfrParser {
         Files.writeString(outJson, json.toString(), StandardCharsets.UTF_8);
     }
 
-    private String buildBadFrame(FrameRecord frame, List<EventRecord> events, Map<String, Integer> stackToId, List<String> idToStack) {
+    private String buildBadFrame(FrameRecord frame, List<EventRecord> events, List<SchedRow> schedRows, List<IntervalRow> pressureRows,
+                                 List<IntervalRow> processIoRows, List<IntervalRow> offHeapRows, Map<String, Integer> stackToId,
+                                 List<String> idToStack) {
         long start = frame.windowStartMs;
         long end = frame.windowEndMs;
         List<EventRecord> inWindow = new ArrayList<>();
@@ -90,6 +168,28 @@ public final class JfrParser {
         int monitorCount = 0;
         long gcPauseMs = 0;
         String gcType = "";
+        boolean heapHistogram = false;
+        long blockEntityTotalNs = 0L;
+        Map<String, long[]> blockEntityByType = new HashMap<>();
+        List<EventRecord> blockEntityOffenders = new ArrayList<>();
+        long tasksDrained = 0L;
+        long taskRunNs = 0L;
+        long taskMaxLatencyNs = 0L;
+        long taskMaxQueueDepth = 0L;
+        Map<String, long[]> tasksByOwner = new HashMap<>();
+        int compilations = 0;
+        long compileNs = 0L;
+        int deoptimizations = 0;
+        int safepoints = 0;
+        long safepointNs = 0L;
+        long timeToSafepointNs = 0L;
+        int classLoads = 0;
+        List<EventRecord> renderStalls = new ArrayList<>();
+        int frameSummaryCount = 0;
+        Map<String, Long> frameSummaryTotals = new LinkedHashMap<>();
+        for (String key : FRAME_SUMMARY_FIELDS.keySet()) {
+            frameSummaryTotals.put(key, 0L);
+        }
         for (EventRecord event : inWindow) {
             if (event.type.equals("jdk.ExecutionSample")) {
                 execStackCounts.merge(event.stack, 1, Integer::sum);
@@ -99,11 +199,57 @@ public final class JfrParser {
                 parkCount++;
             } else if (event.type.equals("jdk.JavaMonitorEnter")) {
                 monitorCount++;
+            } else if (event.type.equals("jdk.Compilation")) {
+                compilations++;
+                compileNs += clippedDurationNs(event, start, end);
+            } else if (event.type.equals("jdk.Deoptimization")) {
+                deoptimizations++;
+            } else if (event.type.equals("jdk.SafepointBegin")) {
+                safepoints++;
+                safepointNs += event.durationNs;
+            } else if (event.type.equals("jdk.SafepointStateSynchronization")) {
+                timeToSafepointNs += event.durationNs;
+            } else if (event.type.equals("jdk.ClassLoad")) {
+                classLoads++;
             } else if (event.type.startsWith("jdk.GC")) {
                 gcPauseMs += event.durationMs;
                 gcType = event.type;
+            } else if (event.type.equals("insignia.BlockEntityRender")) {
+                long[] agg = blockEntityByType.computeIfAbsent(event.string("blockEntityType"), k -> new long[2]);
+                agg[0] += event.number("renderCount");
+                agg[1] += event.number("durationNs");
+                blockEntityTotalNs += event.number("durationNs");
+            } else if (event.type.equals("insignia.BlockEntityOffender")) {
+                blockEntityOffenders.add(event);
+            } else if (event.type.equals("insignia.RenderStall")) {
+                renderStalls.add(event);
+            } else if (event.type.equals("insignia.HeapHistogram")) {
+                heapHistogram = true;
+            } else if (event.type.equals("insignia.MainThreadTask")) {
+                long[] agg = tasksByOwner.computeIfAbsent(event.string("taskOwner"), k -> new long[3]);
+                agg[0] += event.number("taskCount");
+                agg[1] += event.number("runDurationNs");
+                agg[2] = Math.max(agg[2], event.number("maxQueueLatencyNs"));
+            } else if (event.type.equals("insignia.FrameSummary")) {
+                frameSummaryCount++;
+                for (Map.Entry<String, String> field : FRAME_SUMMARY_FIELDS.entrySet()) {
+                    frameSummaryTotals.merge(field.getKey(), event.number(field.getValue()), Long::sum);
+                }
+                tasksDrained += event.number("mainThreadTaskCount");
+                taskRunNs += event.number("mainThreadTaskDurationNs");
+                taskMaxLatencyNs = Math.max(taskMaxLatencyNs, event.number("mainThreadTaskMaxLatencyNs"));
+                taskMaxQueueDepth = Math.max(taskMaxQueueDepth, event.number("mainThreadTaskMaxQueueDepth"));
             }
         }
+        List<Map.Entry<String, long[]>> topBlockEntityTypes = blockEntityByType.entrySet().stream()
+            .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+            .limit(TOP_BLOCK_ENTITY_TYPES).toList();
+        List<EventRecord> topBlockEntityOffenders = blockEntityOffenders.stream()
+            .sorted((a, b) -> Long.compare(b.number("durationNs"), a.number("durationNs")))
+            .limit(TOP_BLOCK_ENTITY_OFFENDERS).toList();
+        List<Map.Entry<String, long[]>> topTaskOwners = tasksByOwner.entrySet().stream()
+            .sorted((a, b) -> Long.compare(b.getValue()[1], a.getValue()[1]))
+            .limit(TOP_MAIN_THREAD_TASK_OWNERS).toList();
 
         List<Map.Entry<String, Integer>> topExec = execStackCounts.entrySet().stream()
             .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
@@ -141,12 +287,240 @@ public final class JfrParser {
             sb.append("\n");
         }
         sb.append("      ],\n");
+        sb.append("      \"render_phases\": {\"frame_summaries\": ").append(frameSummaryCount);
+        for (Map.Entry<String, Long> e : frameSummaryTotals.entrySet()) {
+            sb.append(", \"").append(e.getKey()).append("\": ").append(e.getValue());
+        }
+        sb.append("},\n");
+        sb.append("      \"block_entities\": {\"total_ns\": ").append(blockEntityTotalNs).append(", \"by_type\": [");
+        for (int i = 0; i < topBlockEntityTypes.size(); i++) {
+            Map.Entry<String, long[]> e = topBlockEntityTypes.get(i);
+            sb.append(i == 0 ? "" : ", ")
+                .append("{\"type\": \"").append(escape(e.getKey()))
+                .append("\", \"count\": ").append(e.getValue()[0])
+                .append(", \"duration_ns\": ").append(e.getValue()[1]).append("}");
+        }
+        sb.append("], \"top_offenders\": [");
+        for (int i = 0; i < topBlockEntityOffenders.size(); i++) {
+            EventRecord e = topBlockEntityOffenders.get(i);
+            sb.append(i == 0 ? "" : ", ")
+                .append("{\"type\": \"").append(escape(e.string("blockEntityType")))
+                .append("\", \"x\": ").append(e.number("x"))
+                .append(", \"y\": ").append(e.number("y"))
+                .append(", \"z\": ").append(e.number("z"))
+                .append(", \"duration_ns\": ").append(e.number("durationNs")).append("}");
+        }
+        sb.append("]},\n");
+        sb.append("      \"main_thread_tasks\": {\"drained\": ").append(tasksDrained)
+            .append(", \"run_ns\": ").append(taskRunNs)
+            .append(", \"max_queue_latency_ns\": ").append(taskMaxLatencyNs)
+            .append(", \"max_queue_depth\": ").append(taskMaxQueueDepth)
+            .append(", \"by_owner\": [");
+        for (int i = 0; i < topTaskOwners.size(); i++) {
+            Map.Entry<String, long[]> e = topTaskOwners.get(i);
+            sb.append(i == 0 ? "" : ", ")
+                .append("{\"owner\": \"").append(escape(e.getKey()))
+                .append("\", \"count\": ").append(e.getValue()[0])
+                .append(", \"run_ns\": ").append(e.getValue()[1])
+                .append(", \"max_queue_latency_ns\": ").append(e.getValue()[2]).append("}");
+        }
+        sb.append("]},\n");
+        sb.append("      \"render_stalls\": [");
+        for (int i = 0; i < renderStalls.size(); i++) {
+            EventRecord e = renderStalls.get(i);
+            String stacks = e.string("stacks");
+            int firstLineEnd = stacks.indexOf('\n');
+            sb.append(i == 0 ? "" : ", ")
+                .append("{\"duration_ns\": ").append(e.number("stallDurationNs"))
+                .append(", \"samples\": ").append(e.number("sampleCount"))
+                .append(", \"top_stack\": \"").append(escape(firstLineEnd >= 0 ? stacks.substring(0, firstLineEnd) : stacks))
+                .append("\"}");
+        }
+        sb.append("],\n");
+        sb.append("      \"jvm_runtime\": {\"compilations\": ").append(compilations)
+            .append(", \"compile_ns\": ").append(compileNs)
+            .append(", \"deoptimizations\": ").append(deoptimizations)
+            .append(", \"safepoints\": ").append(safepoints)
+            .append(", \"safepoint_ns\": ").append(safepointNs)
+            .append(", \"time_to_safepoint_ns\": ").append(timeToSafepointNs)
+            .append(", \"class_loads\": ").append(classLoads)
+            .append(", \"class_load_burst\": ").append(classLoads >= CLASS_LOAD_BURST)
+            .append(", \"warmup_suspected\": ").append(isWarmupStutter(frame.frameMs, compileNs, deoptimizations, classLoads))
+            .append("},\n");
+        long renderRunWaitUs = appendThreadSched(sb, frame, schedRows);
+        long[] pressure = appendIntervalTotals(sb, "system_pressure", frame, pressureRows, PRESSURE_COLUMNS);
+        long[] processIo = appendIntervalTotals(sb, "process_io", frame, processIoRows, PROCESS_IO_COLUMNS);
+        appendIntervalTotals(sb, "offheap", frame, offHeapRows, OFF_HEAP_COLUMNS);
         sb.append("      \"gc_overlap\": {\"pause_ms\": ").append(gcPauseMs).append(", \"type\": \"").append(escape(gcType)).append("\"},\n");
-        sb.append("      \"contention\": {\"thread_park_count\": ").append(parkCount).append(", \"monitor_enter_count\": ").append(monitorCount).append("}\n");
+        sb.append("      \"contention\": {\"thread_park_count\": ").append(parkCount).append(", \"monitor_enter_count\": ").append(monitorCount).append("},\n");
+        List<String> rootCauses = new ArrayList<>();
+        // The leak detector's own heap walk: blame it instead of the pause it caused.
+        if (heapHistogram) {
+            rootCauses.add("profiler_heap_histogram");
+        } else if (gcPauseMs >= frame.frameMs * FRAME_SHARE_CAUSE) {
+            rootCauses.add("gc_pause");
+        }
+        if (isWarmupStutter(frame.frameMs, compileNs, deoptimizations, classLoads)) {
+            rootCauses.add("jit_warmup");
+        }
+        if (renderRunWaitUs / 1000d >= frame.frameMs * FRAME_SHARE_CAUSE) {
+            rootCauses.add("render_thread_descheduled");
+        }
+        rootCauses.addAll(pressureLabels(pressure[0], intervalTotal(pressure, PRESSURE_COLUMNS, "cpu_some_us"),
+            intervalTotal(pressure, PRESSURE_COLUMNS, "mem_some_us"), intervalTotal(pressure, PRESSURE_COLUMNS, "io_some_us"),
+            intervalTotal(pressure, PRESSURE_COLUMNS, "cg_throttled_us")));
+        if (intervalTotal(processIo, PROCESS_IO_COLUMNS, "read_bytes") >= DISK_READ_BYTES_CAUSE) {
+            rootCauses.add("disk_reads");
+        }
+        if (intervalTotal(processIo, PROCESS_IO_COLUMNS, "majflt") >= MAJOR_FAULTS_CAUSE) {
+            rootCauses.add("major_page_faults");
+        }
+        sb.append("      \"root_causes\": [");
+        for (int i = 0; i < rootCauses.size(); i++) {
+            sb.append(i == 0 ? "\"" : ", \"").append(rootCauses.get(i)).append("\"");
+        }
+        sb.append("]\n");
         sb.append("    }");
         return sb.toString();
     }
 
+    // Returns the render thread's run-queue wait (us) across the overlapping intervals.
+    private long appendThreadSched(StringBuilder sb, FrameRecord frame, List<SchedRow> schedRows) {
+        Map<String, long[]> byThread = new LinkedHashMap<>();
+        Map<String, String> roles = new HashMap<>();
+        int intervals = 0;
+        long lastIntervalEnd = Long.MIN_VALUE;
+        long renderRunWaitUs = 0L;
+        for (SchedRow row : schedRows) {
+            if (row.endMs < frame.windowStartMs || row.endMs - row.intervalMs > frame.windowEndMs) {
+                continue;
+            }
+            if (row.endMs != lastIntervalEnd) {
+                intervals++;
+                lastIntervalEnd = row.endMs;
+            }
+            long[] agg = byThread.computeIfAbsent(row.thread, k -> new long[4]);
+            agg[0] += row.cpuUs;
+            agg[1] += row.runWaitUs;
+            agg[2] += row.voluntarySwitches;
+            agg[3] += row.involuntarySwitches;
+            roles.put(row.thread, row.role);
+            if (row.role.equals("render")) {
+                renderRunWaitUs += row.runWaitUs;
+            }
+        }
+        List<Map.Entry<String, long[]>> top = byThread.entrySet().stream()
+            .sorted((a, b) -> Long.compare(b.getValue()[0] + b.getValue()[1], a.getValue()[0] + a.getValue()[1]))
+            .limit(TOP_SCHED_THREADS).toList();
+        sb.append("      \"thread_sched\": {\"intervals\": ").append(intervals).append(", \"threads\": [");
+        for (int i = 0; i < top.size(); i++) {
+            Map.Entry<String, long[]> e = top.get(i);
+            sb.append(i == 0 ? "" : ", ")
+                .append("{\"thread\": \"").append(escape(e.getKey()))
+                .append("\", \"role\": \"").append(escape(roles.get(e.getKey())))
+                .append("\", \"cpu_us\": ").append(e.getValue()[0])
+                .append(", \"run_wait_us\": ").append(e.getValue()[1])
+                .append(", \"vol_csw\": ").append(e.getValue()[2])
+                .append(", \"invol_csw\": ").append(e.getValue()[3]).append("}");
+        }
+        sb.append("]},\n");
+        return renderRunWaitUs;
+    }
+
+    // Sums interval rows overlapping the frame; returns [interval_us, then one total per column].
+    private long[] appendIntervalTotals(StringBuilder sb, String key, FrameRecord frame, List<IntervalRow> rows, List<String> columns) {
+        long[] totals = new long[1 + columns.size()];
+        int intervals = 0;
+        for (IntervalRow row : rows) {
+            if (row.endMs < frame.windowStartMs || row.endMs - row.intervalMs > frame.windowEndMs) {
+                continue;
+            }
+            intervals++;
+            totals[0] += row.intervalMs * 1000L;
+            for (int i = 0; i < columns.size(); i++) {
+                totals[i + 1] += row.values[i];
+            }
+        }
+        sb.append("      \"").append(key).append("\": {\"intervals\": ").append(intervals)
+            .append(", \"interval_us\": ").append(totals[0]);
+        for (int i = 0; i < columns.size(); i++) {
+            sb.append(", \"").append(columns.get(i)).append("\": ").append(totals[i + 1]);
+        }
+        sb.append("},\n");
+        return totals;
+    }
+
+    private static long intervalTotal(long[] totals, List<String> columns, String column) {
+        return totals[1 + columns.indexOf(column)];
+    }
+
+    /**
+     * Host-side labels from PSI stall time and cgroup throttling accumulated over the sample intervals
+     * overlapping a bad frame.
+     */
+    static List<String> pressureLabels(long intervalUs, long cpuSomeUs, long memSomeUs, long ioSomeUs, long cgroupThrottledUs) {
+        List<String> labels = new ArrayList<>();
+        if (intervalUs <= 0L) {
+            return labels;
+        }
+        if (cpuSomeUs >= intervalUs * CPU_PRESSURE_SHARE) {
+            labels.add("cpu_pressure");
+        }
+        if (memSomeUs >= intervalUs * MEMORY_PRESSURE_SHARE) {
+            labels.add("memory_pressure");
+        }
+        if (ioSomeUs >= intervalUs * IO_PRESSURE_SHARE) {
+            labels.add("io_pressure");
+        }
+        if (cgroupThrottledUs >= intervalUs * CGROUP_THROTTLE_SHARE) {
+            labels.add("cgroup_cpu_throttled");
+        }
+        return labels;
+    }
+
+    /**
+     * A frame looks like JIT/class-loading warm-up rather than steady-state stutter when compilation
+     * overlaps a large share of it, or deopts and class-load bursts land in its window.
+     */
+    static boolean isWarmupStutter(double frameMs, long compileNs, int deoptimizations, int classLoads) {
+        double compileMs = compileNs / 1_000_000d;
+        return classLoads >= CLASS_LOAD_BURST
+            || (frameMs > 0d && compileMs >= frameMs * 0.25d)
+            || (deoptimizations > 0 && compileNs > 0L);
+    }
+
+    /**
+     * The part of an event's duration that falls inside {@code [windowStartMs, windowEndMs]}. A long compile that
+     * only brushes a frame's edge counts for the overlap, not its whole length.
+     */
+    static long clippedDurationNs(long eventStartMs, long eventEndMs, long durationNs, long windowStartMs, long windowEndMs) {
+        if (eventStartMs >= windowStartMs && eventEndMs <= windowEndMs) {
+            return durationNs;
+        }
+        long overlapMs = Math.min(eventEndMs, windowEndMs) - Math.max(eventStartMs, windowStartMs);
+        return overlapMs <= 0L ? 0L : Math.min(durationNs, overlapMs * 1_000_000L);
+    }
+
+    private static long clippedDurationNs(EventRecord event, long windowStartMs, long windowEndMs) {
+        return clippedDurationNs(event.startMs, event.endMs, event.durationNs, windowStartMs, windowEndMs);
+    }
+
+    private static Map<String, String> frameSummaryFields() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("total_frame_ns", "totalFrameDurationNs");
+        fields.put("cpu_ns", "cpuNs");
+        fields.put("alloc_bytes", "allocBytes");
+        fields.put("world_ns", "worldDurationNs");
+        fields.put("world_setup_ns", "worldSetupDurationNs");
+        fields.put("world_terrain_ns", "worldTerrainDurationNs");
+        fields.put("world_entities_ns", "worldEntitiesDurationNs");
+        fields.put("world_translucent_ns", "worldTranslucentDurationNs");
+        fields.put("world_late_ns", "worldLateDurationNs");
+        fields.put("hud_ns", "hudDurationNs");
+        fields.put("post_ns", "postDurationNs");
+        return fields;
+    }
+
     private int stackId(String stack, Map<String, Integer> stackToId, List<String> idToStack) {
         Integer existing = stackToId.get(stack);
         if (existing != null) {
@@ -168,7 +542,107 @@ public final class JfrParser {
         return "{\"median_frame_ms\": " + formatDouble(median) + ", \"sample_count\": " + normalFrames.size() + "}";
     }
 
-    private PresentMonReadResult readPresentMon(Path csv, Instant captureStart, Instant captureEnd) throws IOException {
+    // A frame source turns one kind of frame-time log into frame windows inside the capture.
+    private interface FrameSource {
+        FrameReadResult read(Path csv, Instant captureStart, Instant captureEnd) throws IOException;
+    }
+
+    enum FrameFormat {
+        PRESENTMON,
+        MANGOHUD
+    }
+
+    private FrameSource frameSource(FrameFormat format) {
+        return switch (format) {
+            case MANGOHUD -> this::readMangoHud;
+            case PRESENTMON -> this::readPresentMon;
+        };
+    }
+
+    /**
+     * MangoHud logs start with a system-info header ({@code os,cpu,gpu,...}) before the frame columns;
+     * everything else is treated as PresentMon-style CSV (including the in-process frametimes.csv).
+     */
+    static FrameFormat detectFrameFormat(List<String> headLines) {
+        if (!headLines.isEmpty()) {
+            List<String> first = parseCsvLine(headLines.get(0).toLowerCase(Locale.ROOT));
+            if (first.size() >= 2 && first.get(0).trim().equals("os") && first.get(1).trim().equals("cpu")) {
+                return FrameFormat.MANGOHUD;
+            }
+            if (first.contains("fps") && first.contains("frametime") && first.contains("elapsed")) {
+                return FrameFormat.MANGOHUD;
+            }
+        }
+        return FrameFormat.PRESENTMON;
+    }
+
+    private static List<String> readHead(Path csv, int maxLines) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            while (lines.size() < maxLines && (line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private FrameReadResult readMangoHud(Path csv, Instant captureStart, Instant captureEnd) throws IOException {
+        List<FrameRecord> rows = new ArrayList<>();
+        int ignoredOutOfWindow = 0;
+        long captureStartMs = captureStart.toEpochMilli();
+        long captureEndMs = captureEnd.toEpochMilli();
+        List<double[]> samples = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            int frameMsCol = -1;
+            int elapsedCol = -1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> cols = parseCsvLine(line);
+                if (frameMsCol < 0) {
+                    // Skip the system-info block (and the old "FRAME METRICS" separator) until the frame header.
+                    int ft = findHeader(cols, List.of("frametime"));
+                    if (ft >= 0) {
+                        frameMsCol = ft;
+                        elapsedCol = findHeader(cols, List.of("elapsed"));
+                    }
+                    continue;
+                }
+                if (cols.size() <= frameMsCol) {
+                    continue;
+                }
+                double frameMs = parseDouble(cols.get(frameMsCol), -1d);
+                double elapsedNs = elapsedCol >= 0 && cols.size() > elapsedCol ? parseDouble(cols.get(elapsedCol), Double.NaN) : Double.NaN;
+                if (frameMs >= 0d) {
+                    samples.add(new double[]{frameMs, elapsedNs});
+                }
+            }
+            if (frameMsCol < 0) {
+                throw new IOException("MangoHud log missing frametime column");
+            }
+        }
+        // elapsed is nanoseconds since logging began. The file's mtime is not used: MangoHud buffers rows, so it
+        // trails the last frame by an arbitrary flush delay.
+        long logStartMs = mangoHudLogStart != null ? mangoHudLogStart.toEpochMilli() : captureStartMs;
+        double runningMs = 0d;
+        for (int index = 0; index < samples.size(); index++) {
+            double frameMs = samples.get(index)[0];
+            double elapsedNs = samples.get(index)[1];
+            runningMs += frameMs;
+            long tsMs = logStartMs + (long) (Double.isNaN(elapsedNs) ? runningMs : elapsedNs / 1_000_000d);
+            if (tsMs < captureStartMs || tsMs > captureEndMs) {
+                ignoredOutOfWindow++;
+                continue;
+            }
+            long windowStart = Math.max(captureStartMs, tsMs - (long) frameMs);
+            long windowEnd = Math.min(captureEndMs, tsMs);
+            rows.add(new FrameRecord(index, tsMs, frameMs, windowStart, windowEnd));
+        }
+        TaggerMod.LOGGER.info("[Diagnose][Parser] MangoHud frames={} ignoredOutOfWindow={} badThreshold={}ms", rows.size(), ignoredOutOfWindow, BAD_FRAME_MS);
+        return new FrameReadResult(rows, ignoredOutOfWindow);
+    }
+
+    private FrameReadResult readPresentMon(Path csv, Instant captureStart, Instant captureEnd) throws IOException {
         List<FrameRecord> rows = new ArrayList<>();
         int ignoredOutOfWindow = 0;
         long captureStartMs = captureStart.toEpochMilli();
@@ -176,7 +650,7 @@ public final class JfrParser {
         try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
             String headerLine = reader.readLine();
             if (headerLine == null) {
-                return new PresentMonReadResult(rows, 0);
+                return new FrameReadResult(rows, 0);
             }
             List<String> headers = parseCsvLine(headerLine);
             int frameMsCol = findHeader(headers, List.of("msbetweenpresents", "msbetweendisplaychange", "cpuframetime", "frametime", "msuntilrendercomplete"));
@@ -213,7 +687,88 @@ public final class JfrParser {
             }
         }
         TaggerMod.LOGGER.info("[Diagnose][Parser] PresentMon frames={} ignoredOutOfWindow={} badThreshold={}ms", rows.size(), ignoredOutOfWindow, BAD_FRAME_MS);
-        return new PresentMonReadResult(rows, ignoredOutOfWindow);
+        return new FrameReadResult(rows, ignoredOutOfWindow);
+    }
+
+    private List<SchedRow> readThreadSched(Path csv) throws IOException {
+        List<SchedRow> rows = new ArrayList<>();
+        if (csv == null || !Files.isRegularFile(csv)) {
+            return rows;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return rows;
+            }
+            List<String> headers = parseCsvLine(headerLine);
+            int tsCol = headers.indexOf("ts_ms");
+            int intervalCol = headers.indexOf("interval_ms");
+            int threadCol = headers.indexOf("thread");
+            int roleCol = headers.indexOf("role");
+            int cpuCol = headers.indexOf("cpu_us");
+            int waitCol = headers.indexOf("run_wait_us");
+            int volCol = headers.indexOf("vol_csw");
+            int involCol = headers.indexOf("invol_csw");
+            if (tsCol < 0 || intervalCol < 0 || threadCol < 0 || cpuCol < 0 || waitCol < 0) {
+                throw new IOException("Thread scheduler CSV missing required columns");
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> cols = parseCsvLine(line);
+                if (cols.size() != headers.size()) {
+                    continue;
+                }
+                rows.add(new SchedRow(
+                    (long) parseDouble(cols.get(tsCol), 0d),
+                    (long) parseDouble(cols.get(intervalCol), 0d),
+                    cols.get(threadCol),
+                    roleCol >= 0 ? cols.get(roleCol) : "",
+                    (long) parseDouble(cols.get(cpuCol), 0d),
+                    (long) parseDouble(cols.get(waitCol), 0d),
+                    volCol >= 0 ? (long) parseDouble(cols.get(volCol), 0d) : 0L,
+                    involCol >= 0 ? (long) parseDouble(cols.get(involCol), 0d) : 0L));
+            }
+        }
+        TaggerMod.LOGGER.info("[Diagnose][Parser] thread sched rows={}", rows.size());
+        return rows;
+    }
+
+    // Sampler CSVs keyed by ts_ms (interval end) and interval_ms, plus the named counter columns.
+    private List<IntervalRow> readIntervalCsv(Path csv, List<String> columns, String label) throws IOException {
+        List<IntervalRow> rows = new ArrayList<>();
+        if (csv == null || !Files.isRegularFile(csv)) {
+            return rows;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return rows;
+            }
+            List<String> headers = parseCsvLine(headerLine);
+            int tsCol = headers.indexOf("ts_ms");
+            int intervalCol = headers.indexOf("interval_ms");
+            if (tsCol < 0 || intervalCol < 0) {
+                throw new IOException(label + " CSV missing required columns");
+            }
+            int[] valueCols = new int[columns.size()];
+            for (int i = 0; i < valueCols.length; i++) {
+                valueCols[i] = headers.indexOf(columns.get(i));
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> cols = parseCsvLine(line);
+                if (cols.size() != headers.size()) {
+                    continue;
+                }
+                long[] values = new long[valueCols.length];
+                for (int i = 0; i < valueCols.length; i++) {
+                    values[i] = valueCols[i] >= 0 ? (long) parseDouble(cols.get(valueCols[i]), 0d) : 0L;
+                }
+                rows.add(new IntervalRow((long) parseDouble(cols.get(tsCol), 0d), (long) parseDouble(cols.get(intervalCol), 0d), values));
+            }
+        }
+        TaggerMod.LOGGER.info("[Diagnose][Parser] {} rows={}", label, rows.size());
+        return rows;
     }
 
     private List<EventRecord> readJfrEvents(Path jfr) throws IOException {
@@ -225,9 +780,11 @@ public final class JfrParser {
                 long start = event.getStartTime() != null ? event.getStartTime().toEpochMilli() : 0L;
                 long end = event.getEndTime() != null ? event.getEndTime().toEpochMilli() : start;
                 long duration = Math.max(0L, end - start);
+                long durationNs = event.getDuration() != null ? Math.max(0L, event.getDuration().toNanos()) : 0L;
                 String stack = extractStack(event);
                 long alloc = extractLong(event, "allocationSize", 0L);
-                events.add(new EventRecord(name, start, end, duration, stack, alloc));
+                Map<String, Object> fields = name.startsWith("insignia.") ? extractFields(event) : Map.of();
+                events.add(new EventRecord(name, start, end, duration, durationNs, stack, alloc, fields));
             }
         }
         TaggerMod.LOGGER.info("[Diagnose][Parser] JFR events={}", events.size());
@@ -266,10 +823,25 @@ public final class JfrParser {
         return fallback;
     }
 
+    private Map<String, Object> extractFields(RecordedEvent event) {
+        Map<String, Object> fields = new HashMap<>();
+        for (ValueDescriptor descriptor : event.getFields()) {
+            try {
+                Object value = event.getValue(descriptor.getName());
+                if (value instanceof Number || value instanceof String || value instanceof Boolean) {
+                    fields.put(descriptor.getName(), value);
+                }
+            } catch (Throwable ignored) {
+            }
+        }
+        return fields;
+    }
+
+    // Aliases are in priority order: PresentMon and frametimes.csv both put Runtime before TimeInSeconds.
     private int findHeader(List<String> headers, List<String> aliases) {
-        for (int i = 0; i < headers.size(); i++) {
-            String key = headers.get(i).toLowerCase(Locale.ROOT).replace(" ", "");
-            for (String alias : aliases) {
+        for (String alias : aliases) {
+            for (int i = 0; i < headers.size(); i++) {
+                String key = headers.get(i).toLowerCase(Locale.ROOT).replace(" ", "");
                 if (key.equals(alias) || key.contains(alias)) {
                     return i;
                 }
@@ -335,9 +907,23 @@ public final class JfrParser {
     private record FrameRecord(int index, long presentTsMs, double frameMs, long windowStartMs, long windowEndMs) {
     }
 
-    private record EventRecord(String type, long startMs, long endMs, long durationMs, String stack, long allocationBytes) {
+    private record EventRecord(String type, long startMs, long endMs, long durationMs, long durationNs, String stack, long allocationBytes, Map<String, Object> fields) {
+        long number(String field) {
+            return fields.get(field) instanceof Number number ? number.longValue() : 0L;
+        }
+
+        String string(String field) {
+            Object value = fields.get(field);
+            return value == null ? "" : value.toString();
+        }
+    }
+
+    private record SchedRow(long endMs, long intervalMs, String thread, String role, long cpuUs, long runWaitUs, long voluntarySwitches, long involuntarySwitches) {
+    }
+
+    private record IntervalRow(long endMs, long intervalMs, long[] values) {
     }
 
-    private record PresentMonReadResult(List<FrameRecord> frames, int ignoredOutOfWindow) {
+    private record FrameReadResult(List<FrameRecord> frames, int ignoredOutOfWindow) {
     }
 }
@@ -0,0 +1,290 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-thread CPU time and allocation for the JVM's own threads, read in bulk from {@link ThreadMXBean} and summed
+ * per thread role every interval. Writes a per-interval CSV plus a summary table on close, so chunk workers or mod
+ * threads saturating cores the render thread needs show up without a native profiler.
+ */
+public final class JvmThreadSampler implements SamplingScheduler.Sampler {
+    static final String CSV_HEADER = "ts_ms,mono_ns,interval_ms,role,threads,cpu_us,alloc_bytes";
+    static final List<String> ROLES = ThreadRoles.ROLES;
+    private static final int TOP_THREADS = 15;
+
+    private final Path outCsv;
+    private final Path summaryFile;
+    private final long intervalMs;
+    private final Map<Long, ThreadTotals> threads = new HashMap<>();
+    private final long[] intervalCpuNs = new long[ROLES.size()];
+    private final long[] intervalAllocBytes = new long[ROLES.size()];
+    private final int[] intervalThreads = new int[ROLES.size()];
+    private final double[] peakCores = new double[ROLES.size()];
+    private final StringBuilder sb = new StringBuilder(512);
+    // Threads that exited: the busiest keep their own line, the rest are folded per role, so memory stays bounded
+    // under thread churn over long captures.
+    private final List<ThreadTotals> exitedTop = new ArrayList<>();
+    private final ThreadTotals[] exited = new ThreadTotals[ROLES.size()];
+    private com.sun.management.ThreadMXBean bean;
+    private boolean allocSupported;
+    // The MXBean switches are JVM-wide and shared with JFR frame summaries; the last holder to close restores them.
+    private ThreadCounters counters;
+    private SamplerOutput writer;
+    private long firstWallMs;
+    private long previousWallMs;
+    private long sampleSeq;
+
+    public JvmThreadSampler(Path outCsv, Path summaryFile, long intervalMs) {
+        this.outCsv = outCsv;
+        this.summaryFile = summaryFile;
+        this.intervalMs = intervalMs;
+    }
+
+    public static boolean isSupported() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        return threadBean instanceof com.sun.management.ThreadMXBean && threadBean.isThreadCpuTimeSupported();
+    }
+
+    @Override
+    public String name() {
+        return "jvm-threads";
+    }
+
+    @Override
+    public long intervalMs() {
+        return intervalMs;
+    }
+
+    @Override
+    public void open(SamplingScheduler.Tick tick) throws Exception {
+        bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        counters = ThreadCounters.acquire();
+        allocSupported = ThreadCounters.allocationEnabled();
+        writer = SamplerOutput.csv(outCsv, CSV_HEADER);
+        firstWallMs = tick.wallMillis();
+        previousWallMs = tick.wallMillis();
+        read();
+    }
+
+    @Override
+    public void sample(SamplingScheduler.Tick tick) throws Exception {
+        Arrays.fill(intervalCpuNs, 0L);
+        Arrays.fill(intervalAllocBytes, 0L);
+        Arrays.fill(intervalThreads, 0);
+        read();
+        long elapsedMs = tick.wallMillis() - previousWallMs;
+        sb.setLength(0);
+        for (int role = 0; role < ROLES.size(); role++) {
+            if (intervalThreads[role] == 0 || (intervalCpuNs[role] <= 0L && intervalAllocBytes[role] <= 0L)) {
+                continue;
+            }
+            sb.append(tick.wallMillis()).append(',')
+                .append(tick.nanoTime()).append(',')
+                .append(elapsedMs).append(',')
+                .append(ROLES.get(role)).append(',')
+                .append(intervalThreads[role]).append(',')
+                .append(intervalCpuNs[role] / 1_000L).append(',')
+                .append(intervalAllocBytes[role]).append('\n');
+            if (elapsedMs > 0L) {
+                peakCores[role] = Math.max(peakCores[role], intervalCpuNs[role] / (elapsedMs * 1_000_000d));
+            }
+        }
+        writer.write(sb, tick.wallMillis());
+        previousWallMs = tick.wallMillis();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][JvmThreads] Failed closing output", e);
+        }
+        try {
+            if (counters != null) {
+                counters.close();
+            }
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][JvmThreads] Failed restoring thread CPU/allocation measurement", e);
+        }
+        List<ThreadTotals> all = new ArrayList<>(threads.values());
+        all.addAll(exitedTop);
+        for (ThreadTotals folded : exited) {
+            if (folded != null) {
+                all.add(folded);
+            }
+        }
+        try {
+            Files.writeString(summaryFile, formatSummary(all, previousWallMs - firstWallMs,
+                Runtime.getRuntime().availableProcessors(), peakCores), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][JvmThreads] Failed writing summary", e);
+        }
+    }
+
+    int trackedThreads() {
+        return threads.size();
+    }
+
+    private void read() {
+        long[] ids = bean.getAllThreadIds();
+        long[] cpu = bean.getThreadCpuTime(ids);
+        long[] alloc = allocSupported ? bean.getThreadAllocatedBytes(ids) : null;
+        resolveNewThreads(ids);
+        sampleSeq++;
+        for (int i = 0; i < ids.length; i++) {
+            ThreadTotals thread = threads.get(ids[i]);
+            if (thread == null || cpu[i] < 0L) {
+                continue;
+            }
+            long allocNow = alloc != null && alloc[i] >= 0L ? alloc[i] : 0L;
+            if (thread.lastSeq > 0L) {
+                long cpuDelta = Math.max(0L, cpu[i] - thread.lastCpuNs);
+                long allocDelta = Math.max(0L, allocNow - thread.lastAllocBytes);
+                thread.cpuNs += cpuDelta;
+                thread.allocBytes += allocDelta;
+                intervalCpuNs[thread.role] += cpuDelta;
+                intervalAllocBytes[thread.role] += allocDelta;
+                intervalThreads[thread.role]++;
+            }
+            thread.lastCpuNs = cpu[i];
+            thread.lastAllocBytes = allocNow;
+            thread.lastSeq = sampleSeq;
+        }
+        pruneExitedThreads();
+    }
+
+    private void pruneExitedThreads() {
+        Iterator<ThreadTotals> it = threads.values().iterator();
+        while (it.hasNext()) {
+            ThreadTotals thread = it.next();
+            if (thread.lastSeq == sampleSeq) {
+                continue;
+            }
+            it.remove();
+            if (thread.lastSeq == 0L) {
+                continue;
+            }
+            exitedTop.add(thread);
+            if (exitedTop.size() <= TOP_THREADS) {
+                continue;
+            }
+            ThreadTotals idlest = exitedTop.get(0);
+            for (ThreadTotals candidate : exitedTop) {
+                if (candidate.cpuNs < idlest.cpuNs) {
+                    idlest = candidate;
+                }
+            }
+            exitedTop.remove(idlest);
+            fold(idlest);
+        }
+    }
+
+    private void fold(ThreadTotals thread) {
+        ThreadTotals folded = exited[thread.role];
+        if (folded == null) {
+            folded = new ThreadTotals("<exited " + ROLES.get(thread.role) + " threads>", thread.role);
+            folded.threadCount = 0;
+            exited[thread.role] = folded;
+        }
+        folded.cpuNs += thread.cpuNs;
+        folded.allocBytes += thread.allocBytes;
+        folded.threadCount++;
+    }
+
+    // ThreadInfo lookups allocate, so names are only fetched for ids not seen before.
+    private void resolveNewThreads(long[] ids) {
+        int missing = 0;
+        for (long id : ids) {
+            if (!threads.containsKey(id)) {
+                missing++;
+            }
+        }
+        if (missing == 0) {
+            return;
+        }
+        long[] newIds = new long[missing];
+        int n = 0;
+        for (long id : ids) {
+            if (!threads.containsKey(id)) {
+                newIds[n++] = id;
+            }
+        }
+        for (ThreadInfo info : bean.getThreadInfo(newIds, 0)) {
+            if (info != null) {
+                threads.put(info.getThreadId(), new ThreadTotals(info.getThreadName(), ROLES.indexOf(ThreadRoles.role(info.getThreadName()))));
+            }
+        }
+    }
+
+    static String formatSummary(List<ThreadTotals> threads, long wallMs, int cores, double[] peakCores) {
+        long[] cpuNs = new long[ROLES.size()];
+        long[] allocBytes = new long[ROLES.size()];
+        int[] count = new int[ROLES.size()];
+        long totalCpuNs = 0L;
+        for (ThreadTotals thread : threads) {
+            cpuNs[thread.role] += thread.cpuNs;
+            allocBytes[thread.role] += thread.allocBytes;
+            count[thread.role] += thread.threadCount;
+            totalCpuNs += thread.cpuNs;
+        }
+        double wallNs = Math.max(1L, wallMs) * 1_000_000d;
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "JVM thread CPU by role over %.1f s (%d cores available)%n", wallMs / 1000d, cores));
+        out.append(String.format(Locale.ROOT, "%-14s %7s %10s %6s %9s %10s %10s%n",
+            "role", "threads", "cpu_ms", "share", "avg_cores", "peak_cores", "alloc_mb"));
+        for (int role = 0; role < ROLES.size(); role++) {
+            if (count[role] == 0) {
+                continue;
+            }
+            out.append(String.format(Locale.ROOT, "%-14s %7d %10d %5.1f%% %9.2f %10.2f %10.1f%n",
+                ROLES.get(role), count[role], cpuNs[role] / 1_000_000L,
+                totalCpuNs > 0L ? cpuNs[role] * 100d / totalCpuNs : 0d,
+                cpuNs[role] / wallNs, peakCores[role], allocBytes[role] / (1024d * 1024d)));
+        }
+        out.append(String.format(Locale.ROOT, "%nTop threads by CPU:%n"));
+        List<ThreadTotals> top = new ArrayList<>(threads);
+        top.sort(Comparator.comparingLong((ThreadTotals t) -> t.cpuNs).reversed());
+        for (ThreadTotals thread : top.subList(0, Math.min(TOP_THREADS, top.size()))) {
+            if (thread.cpuNs <= 0L) {
+                break;
+            }
+            out.append(String.format(Locale.ROOT, "  %-40s %-14s %10d ms %10.1f MB%n",
+                thread.name, ROLES.get(thread.role), thread.cpuNs / 1_000_000L, thread.allocBytes / (1024d * 1024d)));
+        }
+        return out.toString();
+    }
+
+    static final class ThreadTotals {
+        final String name;
+        final int role;
+        long cpuNs;
+        long allocBytes;
+        long lastCpuNs;
+        long lastAllocBytes;
+        long lastSeq;
+        int threadCount = 1;
+
+        ThreadTotals(String name, int role) {
+            this.name = name;
+            this.role = role;
+        }
+    }
+}
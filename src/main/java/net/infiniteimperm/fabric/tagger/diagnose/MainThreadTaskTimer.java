@@ -0,0 +1,75 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.minecraft.network.packet.Packet;
+
+import java.lang.reflect.Field;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Wraps a task posted to the client executor so its queue latency and run time reach {@link JfrController}, keyed by
+ * the task's owner. A packet handed to the main thread by {@code NetworkThreadUtils} reports the packet class;
+ * everything else, {@code CompletableFuture} stages included, reports its own class.
+ */
+public final class MainThreadTaskTimer implements Runnable {
+    private static final ClassValue<Function<Object, String>> OWNERS = new ClassValue<>() {
+        @Override
+        protected Function<Object, String> computeValue(Class<?> type) {
+            return ownerResolver(type, Packet.class::isAssignableFrom);
+        }
+    };
+
+    private final Runnable task;
+    private final long enqueueNs;
+
+    private MainThreadTaskTimer(Runnable task, long enqueueNs) {
+        this.task = task;
+        this.enqueueNs = enqueueNs;
+    }
+
+    public static Runnable wrap(Runnable task, int queuedBefore) {
+        if (task == null || task instanceof MainThreadTaskTimer) {
+            return task;
+        }
+        long enqueueNs = JfrController.onMainThreadTaskQueued(queuedBefore);
+        return enqueueNs == 0L ? task : new MainThreadTaskTimer(task, enqueueNs);
+    }
+
+    @Override
+    public void run() {
+        long startNs = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            JfrController.onMainThreadTaskRun(ownerName(task), enqueueNs, startNs, System.nanoTime());
+        }
+    }
+
+    static String ownerName(Object task) {
+        return OWNERS.get(task.getClass()).apply(task);
+    }
+
+    /**
+     * How to name tasks of {@code type}, worked out once per class. Lambdas capturing a value whose declared type
+     * passes {@code unwrapCaptured} are named after that value's class.
+     */
+    static Function<Object, String> ownerResolver(Class<?> type, Predicate<Class<?>> unwrapCaptured) {
+        String name = type.getName();
+        String owner = JfrController.taskOwnerName(name);
+        if (name.contains("$$Lambda")) {
+            for (Field field : type.getDeclaredFields()) {
+                if (unwrapCaptured.test(field.getType()) && field.trySetAccessible()) {
+                    return task -> {
+                        try {
+                            Object captured = field.get(task);
+                            return captured != null ? captured.getClass().getName() : owner;
+                        } catch (IllegalAccessException e) {
+                            return owner;
+                        }
+                    };
+                }
+            }
+        }
+        return task -> owner;
+    }
+}
@@ -0,0 +1,148 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Locates a MangoHud frame log written during a capture so it can be used as the frame source on Linux.
+ */
+public final class MangoHudLogs {
+    // MangoHud names each log <program>_<local start time>.csv when logging begins.
+    private static final Pattern LOG_NAME_START = Pattern.compile("_(\\d{4}-\\d{2}-\\d{2}_\\d{2}-\\d{2}-\\d{2})\\.csv$");
+    private static final DateTimeFormatter LOG_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss", Locale.ROOT);
+
+    private MangoHudLogs() {
+    }
+
+    /**
+     * Output folders MangoHud may log to: {@code output_folder} from MANGOHUD_CONFIG or the MangoHud
+     * config files, then the home directory (MangoHud's default).
+     */
+    public static List<Path> candidateDirs() {
+        Set<Path> dirs = new LinkedHashSet<>();
+        outputFolderFromOptions(System.getenv("MANGOHUD_CONFIG"), ',').ifPresent(dirs::add);
+        String home = System.getProperty("user.home");
+        String xdgConfig = System.getenv("XDG_CONFIG_HOME");
+        Path configRoot = xdgConfig != null && !xdgConfig.isBlank()
+            ? Path.of(xdgConfig)
+            : (home != null ? Path.of(home, ".config") : null);
+        if (configRoot != null) {
+            for (String name : List.of("MangoHud.conf", "java.conf")) {
+                Path conf = configRoot.resolve("MangoHud").resolve(name);
+                try {
+                    if (Files.isRegularFile(conf)) {
+                        outputFolderFromOptions(Files.readString(conf, StandardCharsets.UTF_8), '\n').ifPresent(dirs::add);
+                    }
+                } catch (Exception e) {
+                    TaggerMod.LOGGER.debug("[Diagnose][MangoHud] Failed reading {}", conf, e);
+                }
+            }
+        }
+        if (home != null) {
+            dirs.add(Path.of(home));
+        }
+        return new ArrayList<>(dirs);
+    }
+
+    static Optional<Path> outputFolderFromOptions(String options, char separator) {
+        if (options == null) {
+            return Optional.empty();
+        }
+        for (String raw : options.split(separator == '\n' ? "\\R" : String.valueOf(separator))) {
+            String option = raw.trim();
+            if (option.startsWith("#")) {
+                continue;
+            }
+            int eq = option.indexOf('=');
+            if (eq > 0 && option.substring(0, eq).trim().equals("output_folder")) {
+                String value = option.substring(eq + 1).trim();
+                if (value.startsWith("~/")) {
+                    value = System.getProperty("user.home") + value.substring(1);
+                }
+                return value.isEmpty() ? Optional.empty() : Optional.of(Path.of(value));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Newest MangoHud frame log (not the {@code _summary.csv}) last written at or after {@code since}.
+     */
+    public static Optional<Path> findLatest(List<Path> dirs, Instant since) {
+        Path best = null;
+        long bestModified = Long.MIN_VALUE;
+        for (Path dir : dirs) {
+            if (dir == null || !Files.isDirectory(dir)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.toList()) {
+                    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                    if (!name.endsWith(".csv") || name.endsWith("_summary.csv") || !Files.isRegularFile(file)) {
+                        continue;
+                    }
+                    long modified = Files.getLastModifiedTime(file).toMillis();
+                    if (modified < since.toEpochMilli() || modified <= bestModified || !looksLikeMangoHudLog(file)) {
+                        continue;
+                    }
+                    best = file;
+                    bestModified = modified;
+                }
+            } catch (Exception e) {
+                TaggerMod.LOGGER.debug("[Diagnose][MangoHud] Failed listing {}", dir, e);
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * When MangoHud began writing {@code file}, from the start time in its name; its {@code elapsed} column counts
+     * from there. Empty for renamed logs.
+     */
+    public static Optional<Instant> logStart(Path file) {
+        return logStart(file, ZoneId.systemDefault());
+    }
+
+    static Optional<Instant> logStart(Path file, ZoneId zone) {
+        Matcher matcher = LOG_NAME_START.matcher(file.getFileName().toString());
+        if (!matcher.find()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LocalDateTime.parse(matcher.group(1), LOG_NAME_FORMAT).atZone(zone).toInstant());
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean looksLikeMangoHudLog(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> head = new ArrayList<>();
+            String line;
+            while (head.size() < 4 && (line = reader.readLine()) != null) {
+                head.add(line);
+            }
+            return JfrParser.detectFrameFormat(head) == JfrParser.FrameFormat.MANGOHUD;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * nvidia-smi GPU telemetry (utilisation, memory, clocks, power, temperature at 1 s) as a {@link Collector}.
+ */
+public final class NvidiaSmiCollector implements Collector {
+    public static final String ID = "nvidia_smi";
+
+    private ToolDetection.ToolInfo tool;
+    private NvidiaSmiController controller;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String displayName() {
+        return "nvidia-smi";
+    }
+
+    @Override
+    public Overhead overhead() {
+        return Overhead.LOW;
+    }
+
+    @Override
+    public boolean detect() {
+        tool = ToolDetection.detectNvidiaSmi();
+        return tool.found;
+    }
+
+    @Override
+    public boolean start(CollectorContext context) {
+        controller = new NvidiaSmiController(tool, context.runDir(), csv(context), context.logsDir().resolve("nvidia-smi.stderr.log"));
+        return controller.start(context.notes());
+    }
+
+    @Override
+    public void stop(CollectorContext context) {
+        if (controller != null) {
+            controller.stop(context.notes());
+            controller = null;
+        }
+    }
+
+    @Override
+    public List<Path> artifacts(CollectorContext context) {
+        return List.of(csv(context));
+    }
+
+    private static Path csv(CollectorContext context) {
+        return context.runDir().resolve("nvidia_smi.csv");
+    }
+}
@@ -0,0 +1,236 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import javax.management.ObjectName;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Off-heap memory timeline: direct and mapped {@link BufferPoolMXBean} usage, heap/non-heap for reference, vertex and
+ * texture upload bytes per interval reported by the renderer mixins, live NativeImage and vertex buffer sizes tracked
+ * from allocation to close, and (when the JVM runs with {@code -XX:NativeMemoryTracking=summary}) periodic NMT
+ * summaries through the DiagnosticCommand MBean. The estimate column only sums live figures that sit in process
+ * memory: direct, mapped and NativeImage pixels. Vertex buffers live in the driver and uploads are volume, not size.
+ */
+public final class OffHeapCollector implements SamplingScheduler.Sampler {
+    static final String CSV_HEADER = "ts_ms,mono_ns,interval_ms,direct_count,direct_used,direct_capacity,mapped_used,heap_used,nonheap_used,"
+        + "vertex_upload_bytes,texture_upload_bytes,direct_delta_bytes,native_image_bytes,vertex_buffer_bytes,offheap_estimate_bytes,nmt_committed_kb";
+    static final String NMT_HEADER = "ts_ms,mono_ns,category,reserved_kb,committed_kb";
+    static final long NMT_INTERVAL_MS = 5000L;
+    private static final Pattern NMT_TOTAL = Pattern.compile("^Total: reserved=(\\d+)KB, committed=(\\d+)KB");
+    private static final Pattern NMT_CATEGORY = Pattern.compile("^-\\s+(.+?) \\(reserved=(\\d+)KB, committed=(\\d+)KB\\)");
+    private static final LongAdder VERTEX_BYTES = new LongAdder();
+    private static final LongAdder TEXTURE_BYTES = new LongAdder();
+    // Live sizes; tracked from game start because images and buffers allocated before the capture still count.
+    private static final LongAdder NATIVE_IMAGE_LIVE = new LongAdder();
+    private static final LongAdder VERTEX_BUFFER_LIVE = new LongAdder();
+    private static volatile boolean tracking;
+
+    private final Path outCsv;
+    private final Path nmtCsv;
+    private final long intervalMs;
+    private final Callable<String> nmtSource;
+    private final StringBuilder sb = new StringBuilder(256);
+    private BufferPoolMXBean direct;
+    private BufferPoolMXBean mapped;
+    private MemoryMXBean memory;
+    private SamplerOutput writer;
+    private SamplerOutput nmtWriter;
+    private long previousWallMs;
+    private long previousVertex;
+    private long previousTexture;
+    private long previousDirect;
+    private long lastNmtWallMs = Long.MIN_VALUE;
+    private long nmtCommittedKb = -1L;
+
+    public OffHeapCollector(Path outCsv, Path nmtCsv, long intervalMs) {
+        this(outCsv, nmtCsv, intervalMs, OffHeapCollector::nmtSummary);
+    }
+
+    OffHeapCollector(Path outCsv, Path nmtCsv, long intervalMs, Callable<String> nmtSource) {
+        this.outCsv = outCsv;
+        this.nmtCsv = nmtCsv;
+        this.intervalMs = intervalMs;
+        this.nmtSource = nmtSource;
+    }
+
+    /**
+     * Vertex data handed to {@code VertexBuffer.upload}; counted only while a collector is open.
+     */
+    public static void onVertexUpload(long bytes) {
+        if (tracking && bytes > 0L) {
+            VERTEX_BYTES.add(bytes);
+        }
+    }
+
+    /**
+     * Pixel bytes passed to {@code NativeImage.uploadInternal}; counted only while a collector is open.
+     */
+    public static void onTextureUpload(long bytes) {
+        if (tracking && bytes > 0L) {
+            TEXTURE_BYTES.add(bytes);
+        }
+    }
+
+    /**
+     * Pixel memory a {@code NativeImage} allocated in its constructor ({@code delta > 0}) or released on close.
+     */
+    public static void onNativeImageMemory(long delta) {
+        NATIVE_IMAGE_LIVE.add(delta);
+    }
+
+    /**
+     * Change in the data a {@code VertexBuffer} holds: the new upload replaces the old store; close releases it.
+     */
+    public static void onVertexBufferMemory(long delta) {
+        VERTEX_BUFFER_LIVE.add(delta);
+    }
+
+    @Override
+    public String name() {
+        return "off-heap";
+    }
+
+    @Override
+    public long intervalMs() {
+        return intervalMs;
+    }
+
+    @Override
+    public void open(SamplingScheduler.Tick tick) throws Exception {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                direct = pool;
+            } else if (pool.getName().equals("mapped")) {
+                mapped = pool;
+            }
+        }
+        memory = ManagementFactory.getMemoryMXBean();
+        writer = SamplerOutput.csv(outCsv, CSV_HEADER);
+        previousWallMs = tick.wallMillis();
+        previousVertex = VERTEX_BYTES.sum();
+        previousTexture = TEXTURE_BYTES.sum();
+        previousDirect = direct != null ? direct.getMemoryUsed() : 0L;
+        tracking = true;
+        sampleNmt(tick);
+    }
+
+    @Override
+    public void sample(SamplingScheduler.Tick tick) throws Exception {
+        long vertex = VERTEX_BYTES.sum();
+        long texture = TEXTURE_BYTES.sum();
+        long directUsed = direct != null ? direct.getMemoryUsed() : 0L;
+        long mappedUsed = mapped != null ? mapped.getMemoryUsed() : 0L;
+        long nativeImages = NATIVE_IMAGE_LIVE.sum();
+        if (tick.wallMillis() - lastNmtWallMs >= NMT_INTERVAL_MS) {
+            sampleNmt(tick);
+        }
+        sb.setLength(0);
+        sb.append(tick.wallMillis()).append(',')
+            .append(tick.nanoTime()).append(',')
+            .append(tick.wallMillis() - previousWallMs).append(',')
+            .append(direct != null ? direct.getCount() : 0L).append(',')
+            .append(directUsed).append(',')
+            .append(direct != null ? direct.getTotalCapacity() : 0L).append(',')
+            .append(mappedUsed).append(',')
+            .append(memory.getHeapMemoryUsage().getUsed()).append(',')
+            .append(memory.getNonHeapMemoryUsage().getUsed()).append(',')
+            .append(vertex - previousVertex).append(',')
+            .append(texture - previousTexture).append(',')
+            .append(directUsed - previousDirect).append(',')
+            .append(nativeImages).append(',')
+            .append(VERTEX_BUFFER_LIVE.sum()).append(',')
+            .append(directUsed + mappedUsed + nativeImages).append(',');
+        if (nmtCommittedKb >= 0L) {
+            sb.append(nmtCommittedKb);
+        }
+        sb.append('\n');
+        writer.write(sb, tick.wallMillis());
+        previousWallMs = tick.wallMillis();
+        previousVertex = vertex;
+        previousTexture = texture;
+        previousDirect = directUsed;
+    }
+
+    @Override
+    public void close() {
+        tracking = false;
+        for (SamplerOutput output : new SamplerOutput[]{writer, nmtWriter}) {
+            try {
+                if (output != null) {
+                    output.close();
+                }
+            } catch (Exception e) {
+                TaggerMod.LOGGER.warn("[Diagnose][OffHeap] Failed closing output", e);
+            }
+        }
+    }
+
+    private void sampleNmt(SamplingScheduler.Tick tick) {
+        if (lastNmtWallMs != Long.MIN_VALUE && nmtWriter == null) {
+            // NMT was off (or the command failed) on the first attempt; it cannot be enabled at runtime.
+            return;
+        }
+        lastNmtWallMs = tick.wallMillis();
+        try {
+            String text = nmtSource.call();
+            Map<String, long[]> categories = parseNmt(text);
+            if (categories.isEmpty()) {
+                if (nmtWriter == null) {
+                    TaggerMod.LOGGER.info("[Diagnose][OffHeap] native memory tracking unavailable: {}", text.strip());
+                }
+                return;
+            }
+            if (nmtWriter == null) {
+                nmtWriter = SamplerOutput.csv(nmtCsv, NMT_HEADER);
+            }
+            sb.setLength(0);
+            for (Map.Entry<String, long[]> entry : categories.entrySet()) {
+                sb.append(tick.wallMillis()).append(',')
+                    .append(tick.nanoTime()).append(',')
+                    .append(entry.getKey().replace(',', ' ')).append(',')
+                    .append(entry.getValue()[0]).append(',')
+                    .append(entry.getValue()[1]).append('\n');
+            }
+            nmtWriter.write(sb, tick.wallMillis());
+            long[] total = categories.get("Total");
+            nmtCommittedKb = total != null ? total[1] : -1L;
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][OffHeap] NMT summary failed", e);
+        }
+    }
+
+    /**
+     * {@code VM.native_memory summary} -> category (plus "Total") -> {reserved KB, committed KB}; empty when NMT is off.
+     */
+    static Map<String, long[]> parseNmt(String text) {
+        Map<String, long[]> categories = new LinkedHashMap<>();
+        for (String line : text.split("\n")) {
+            Matcher total = NMT_TOTAL.matcher(line);
+            if (total.find()) {
+                categories.put("Total", new long[]{Long.parseLong(total.group(1)), Long.parseLong(total.group(2))});
+                continue;
+            }
+            Matcher category = NMT_CATEGORY.matcher(line);
+            if (category.find()) {
+                categories.put(category.group(1).trim(), new long[]{Long.parseLong(category.group(2)), Long.parseLong(category.group(3))});
+            }
+        }
+        return categories;
+    }
+
+    private static String nmtSummary() throws Exception {
+        ObjectName name = new ObjectName("com.sun.management:type=DiagnosticCommand");
+        return (String) ManagementFactory.getPlatformMBeanServer().invoke(name, "vmNativeMemory",
+            new Object[]{new String[]{"summary"}}, new String[]{String[].class.getName()});
+    }
+}
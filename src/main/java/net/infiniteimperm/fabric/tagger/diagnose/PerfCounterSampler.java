@@ -4,19 +4,18 @@ import com.sun.management.OperatingSystemMXBean;
 import net.infiniteimperm.fabric.tagger.TaggerMod;
 
 import java.lang.management.ManagementFactory;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.util.Locale;
-import java.util.concurrent.atomic.AtomicBoolean;
 
-public final class PerfCounterSampler {
+public final class PerfCounterSampler implements SamplingScheduler.Sampler {
     private final Path csvPath;
     private final Path logPath;
     private final long sampleIntervalMs;
-    private final AtomicBoolean running = new AtomicBoolean(false);
-    private Thread thread;
+    private final StringBuilder sb = new StringBuilder(128);
+    private OperatingSystemMXBean os;
+    private SamplerOutput csv;
+    private SamplerOutput log;
 
     public PerfCounterSampler(Path csvPath, Path logPath, long sampleIntervalMs) {
         this.csvPath = csvPath;
@@ -24,71 +23,65 @@ public final class PerfCounterSampler {
         this.sampleIntervalMs = sampleIntervalMs;
     }
 
-    public void start() {
-        try {
-            Files.createDirectories(csvPath.getParent());
-            Files.createDirectories(logPath.getParent());
-            Files.writeString(csvPath, "ts,processCpuLoad,systemCpuLoad,freePhysicalMb,totalPhysicalMb,freeSwapMb,totalSwapMb\n", StandardCharsets.UTF_8);
-            Files.writeString(logPath, "[" + Instant.now() + "] starting perf sampler\n", StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            TaggerMod.LOGGER.warn("[Diagnose][PerfCounters] Failed to initialize sampler files", e);
-            return;
-        }
-
-        running.set(true);
-        thread = new Thread(this::runLoop, "insignia-perf-counter-sampler");
-        thread.setDaemon(true);
-        thread.start();
+    @Override
+    public String name() {
+        return "perf-counters";
     }
 
-    public void stop() {
-        running.set(false);
-        if (thread != null) {
-            try {
-                thread.join(1200L);
-            } catch (InterruptedException ignored) {
-                Thread.currentThread().interrupt();
-            }
-        }
+    @Override
+    public long intervalMs() {
+        return sampleIntervalMs;
     }
 
-    private void runLoop() {
-        OperatingSystemMXBean os;
+    @Override
+    public void open(SamplingScheduler.Tick tick) throws Exception {
+        csv = SamplerOutput.csv(csvPath, "ts,mono_ns,processCpuLoad,systemCpuLoad,freePhysicalMb,totalPhysicalMb,freeSwapMb,totalSwapMb");
+        log = SamplerOutput.log(logPath);
+        appendLog("starting perf sampler");
         try {
             os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
         } catch (Exception e) {
             appendLog("No OperatingSystemMXBean available: " + e.getMessage());
-            return;
+            throw e;
         }
         appendLog("Sampling started at interval " + sampleIntervalMs + "ms");
-        while (running.get()) {
-            long ts = System.currentTimeMillis();
-            double proc = os.getProcessCpuLoad();
-            double sys = os.getCpuLoad();
-            long freePhys = os.getFreeMemorySize() / (1024L * 1024L);
-            long totalPhys = os.getTotalMemorySize() / (1024L * 1024L);
-            long freeSwap = os.getFreeSwapSpaceSize() / (1024L * 1024L);
-            long totalSwap = os.getTotalSwapSpaceSize() / (1024L * 1024L);
-            String line = String.format(Locale.ROOT, "%d,%.6f,%.6f,%d,%d,%d,%d%n", ts, proc, sys, freePhys, totalPhys, freeSwap, totalSwap);
+    }
+
+    @Override
+    public void sample(SamplingScheduler.Tick tick) throws Exception {
+        double proc = os.getProcessCpuLoad();
+        double sys = os.getCpuLoad();
+        long freePhys = os.getFreeMemorySize() / (1024L * 1024L);
+        long totalPhys = os.getTotalMemorySize() / (1024L * 1024L);
+        long freeSwap = os.getFreeSwapSpaceSize() / (1024L * 1024L);
+        long totalSwap = os.getTotalSwapSpaceSize() / (1024L * 1024L);
+        sb.setLength(0);
+        sb.append(tick.wallMillis()).append(',').append(tick.nanoTime()).append(',')
+            .append(String.format(Locale.ROOT, "%.6f,%.6f", proc, sys)).append(',')
+            .append(freePhys).append(',').append(totalPhys).append(',')
+            .append(freeSwap).append(',').append(totalSwap).append('\n');
+        csv.write(sb, tick.wallMillis());
+    }
+
+    @Override
+    public void close() {
+        appendLog("Sampling stopped.");
+        for (SamplerOutput output : new SamplerOutput[]{csv, log}) {
             try {
-                Files.writeString(csvPath, line, StandardCharsets.UTF_8, java.nio.file.StandardOpenOption.APPEND);
+                if (output != null) {
+                    output.close();
+                }
             } catch (Exception e) {
-                appendLog("Sample write failed: " + e.getMessage());
-            }
-            try {
-                Thread.sleep(sampleIntervalMs);
-            } catch (InterruptedException ignored) {
-                Thread.currentThread().interrupt();
-                break;
+                TaggerMod.LOGGER.warn("[Diagnose][PerfCounters] Failed closing output", e);
             }
         }
-        appendLog("Sampling stopped.");
     }
 
     private void appendLog(String line) {
         try {
-            Files.writeString(logPath, "[" + Instant.now() + "] " + line + "\n", StandardCharsets.UTF_8,
-                Files.exists(logPath) ? java.nio.file.StandardOpenOption.APPEND : java.nio.file.StandardOpenOption.CREATE);
+            if (log != null) {
+                log.write("[" + Instant.now() + "] " + line + "\n", System.currentTimeMillis());
+            }
         } catch (Exception e) {
             TaggerMod.LOGGER.warn("[Diagnose][PerfCounters] Failed writing log", e);
         }
@@ -7,7 +7,9 @@ import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -18,6 +20,7 @@ public final class PresentMonController {
     private static final String SESSION_NAME = "InsigniaPresentMon";
     private static final Duration STARTUP_PROBE_TIMEOUT = Duration.ofSeconds(4);
     private static final long STARTUP_PROBE_POLL_MS = 200L;
+    private static final int START_DELAY_SECONDS = 2;
     private final ToolDetection.ToolInfo tool;
     private final Path workDir;
     private final Path csvPath;
@@ -27,6 +30,8 @@ public final class PresentMonController {
     private Process process;
     private long targetPid = -1L;
     private boolean elevatedTimedMode = false;
+    private volatile Instant launchedAt;
+    private volatile Instant elevatedCsvCreatedAt;
 
     public PresentMonController(ToolDetection.ToolInfo tool, Path workDir, Path csvPath, Path stdoutLog, Path stderrLog, int timedCaptureSeconds) {
         this.tool = tool;
@@ -83,6 +88,9 @@ public final class PresentMonController {
     public void stop() throws Exception {
         if (elevatedTimedMode) {
             waitForCsvReady(Duration.ofSeconds(20));
+            if (Files.exists(csvPath)) {
+                elevatedCsvCreatedAt = Files.readAttributes(csvPath, BasicFileAttributes.class).creationTime().toInstant();
+            }
             ensureCsvFromFallback();
             waitForCsvReadable(Duration.ofSeconds(15));
             return;
@@ -100,6 +108,31 @@ public final class PresentMonController {
         return targetPid;
     }
 
+    /**
+     * When PresentMon began capturing: the last direct launch plus the start delay. An elevated launch waits on the
+     * UAC prompt for an unknown time, so there it is the CSV's creation time, known only after {@link #stop}; null
+     * until then or when no CSV was written.
+     */
+    public Instant captureStartWall() {
+        if (elevatedTimedMode) {
+            return elevatedCsvCreatedAt;
+        }
+        Instant launched = launchedAt;
+        return launched != null ? launched.plusSeconds(START_DELAY_SECONDS) : null;
+    }
+
+    public boolean isElevated() {
+        return elevatedTimedMode;
+    }
+
+    /**
+     * When the timed capture runs out on its own (capture start + duration); null while the start is unknown.
+     */
+    public Instant timedEndWall() {
+        Instant started = captureStartWall();
+        return started != null ? started.plusSeconds(timedCaptureSeconds) : null;
+    }
+
     private List<String> baseTimedCommand() {
         List<String> command = new ArrayList<>();
         command.add(tool.path.toString());
@@ -107,7 +140,7 @@ public final class PresentMonController {
         command.add(csvPath.toAbsolutePath().toString());
         command.add("--stop_existing_session");
         command.add("--delay");
-        command.add("2");
+        command.add(Integer.toString(START_DELAY_SECONDS));
         command.add("--timed");
         command.add(Integer.toString(timedCaptureSeconds));
         command.add("--terminate_after_timed");
@@ -121,6 +154,7 @@ public final class PresentMonController {
 
     private LaunchOutcome startDirect(List<String> command) throws Exception {
         process = ProcessRunner.start(command, workDir, stdoutLog, stderrLog);
+        launchedAt = Instant.now();
         long deadline = System.currentTimeMillis() + STARTUP_PROBE_TIMEOUT.toMillis();
         while (System.currentTimeMillis() < deadline) {
             String combined = readCombinedLogs();
@@ -146,12 +180,13 @@ public final class PresentMonController {
     private void startElevatedTimedCapture() throws Exception {
         elevatedTimedMode = true;
         process = null;
+        launchedAt = Instant.now();
         List<String> pmArgs = new ArrayList<>();
         pmArgs.add("--output_file");
         pmArgs.add(csvPath.toAbsolutePath().toString());
         pmArgs.add("--stop_existing_session");
         pmArgs.add("--delay");
-        pmArgs.add("2");
+        pmArgs.add(Integer.toString(START_DELAY_SECONDS));
         pmArgs.add("--timed");
         pmArgs.add(Integer.toString(timedCaptureSeconds));
         pmArgs.add("--terminate_after_timed");
@@ -0,0 +1,202 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Linux-only system pressure sampler: PSI stall totals from {@code /proc/pressure/{cpu,memory,io}} and, when the
+ * game runs in a cgroup v2 hierarchy, CPU throttling ({@code cpu.stat}) and memory limit events
+ * ({@code memory.events}). Writes per-interval deltas so the parser can tell host pressure from in-game cost.
+ */
+public final class PressureSampler implements SamplingScheduler.Sampler {
+    static final String CSV_HEADER = "ts_ms,mono_ns,interval_ms,cpu_some_us,cpu_full_us,mem_some_us,mem_full_us,io_some_us,io_full_us,"
+        + "cg_nr_throttled,cg_throttled_us,cg_mem_high,cg_mem_max,cg_oom_kill";
+    private static final Path PRESSURE_DIR = Path.of("/proc/pressure");
+    private static final Path CGROUP_ROOT = Path.of("/sys/fs/cgroup");
+    // Snapshot keys in CSV column order; counters this kernel does not expose are left empty.
+    private static final List<String> COUNTERS = List.of(
+        "cpu_some", "cpu_full", "mem_some", "mem_full", "io_some", "io_full",
+        "cg_nr_throttled", "cg_throttled_usec", "cg_high", "cg_max", "cg_oom_kill");
+
+    private final Path outCsv;
+    private final Path logFile;
+    private final long intervalMs;
+    private final Path pressureDir;
+    private final Path cgroupDir;
+    private final StringBuilder sb = new StringBuilder(128);
+    private SamplerOutput writer;
+    private SamplerOutput log;
+    private Map<String, Long> previous;
+    private long previousWallMs;
+
+    public PressureSampler(Path outCsv, Path logFile, long intervalMs) {
+        this(outCsv, logFile, intervalMs, PRESSURE_DIR, findCgroupDir());
+    }
+
+    PressureSampler(Path outCsv, Path logFile, long intervalMs, Path pressureDir, Path cgroupDir) {
+        this.outCsv = outCsv;
+        this.logFile = logFile;
+        this.intervalMs = intervalMs;
+        this.pressureDir = pressureDir;
+        this.cgroupDir = cgroupDir;
+    }
+
+    public static boolean isSupported() {
+        return Files.isDirectory(PRESSURE_DIR) || findCgroupDir() != null;
+    }
+
+    @Override
+    public String name() {
+        return "pressure";
+    }
+
+    @Override
+    public long intervalMs() {
+        return intervalMs;
+    }
+
+    @Override
+    public void open(SamplingScheduler.Tick tick) throws Exception {
+        writer = SamplerOutput.csv(outCsv, CSV_HEADER);
+        log = SamplerOutput.log(logFile);
+        previous = snapshot();
+        previousWallMs = tick.wallMillis();
+        appendLog("Pressure sampler started. intervalMs=" + intervalMs
+            + " psi=" + Files.isDirectory(pressureDir) + " cgroup=" + (cgroupDir != null ? cgroupDir : "none")
+            + " counters=" + previous.keySet());
+    }
+
+    @Override
+    public void sample(SamplingScheduler.Tick tick) throws Exception {
+        Map<String, Long> current = snapshot();
+        sb.setLength(0);
+        sb.append(tick.wallMillis()).append(',').append(tick.nanoTime()).append(',').append(tick.wallMillis() - previousWallMs);
+        for (String counter : COUNTERS) {
+            sb.append(',');
+            Long now = current.get(counter);
+            Long before = previous.get(counter);
+            if (now != null && before != null) {
+                sb.append(Math.max(0L, now - before));
+            }
+        }
+        sb.append('\n');
+        writer.write(sb, tick.wallMillis());
+        previous = current;
+        previousWallMs = tick.wallMillis();
+    }
+
+    @Override
+    public void close() {
+        appendLog("Pressure sampler stopped.");
+        for (SamplerOutput output : new SamplerOutput[]{writer, log}) {
+            try {
+                if (output != null) {
+                    output.close();
+                }
+            } catch (Exception e) {
+                TaggerMod.LOGGER.warn("[Diagnose][Pressure] Failed closing output", e);
+            }
+        }
+    }
+
+    private Map<String, Long> snapshot() {
+        Map<String, Long> values = new HashMap<>();
+        readPsi(pressureDir.resolve("cpu"), "cpu", values);
+        readPsi(pressureDir.resolve("memory"), "mem", values);
+        readPsi(pressureDir.resolve("io"), "io", values);
+        if (cgroupDir != null) {
+            readKeyed(cgroupDir.resolve("cpu.stat"), "cg_", List.of("nr_throttled", "throttled_usec"), values);
+            readKeyed(cgroupDir.resolve("memory.events"), "cg_", List.of("high", "max", "oom_kill"), values);
+        }
+        return values;
+    }
+
+    private static void readPsi(Path file, String prefix, Map<String, Long> out) {
+        try {
+            if (Files.isReadable(file)) {
+                parsePsi(Files.readString(file, StandardCharsets.US_ASCII), prefix, out);
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
+    private static void readKeyed(Path file, String prefix, List<String> keys, Map<String, Long> out) {
+        try {
+            if (Files.isReadable(file)) {
+                parseKeyed(Files.readString(file, StandardCharsets.US_ASCII), prefix, keys, out);
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * {@code some avg10=0.00 avg60=0.00 avg300=0.00 total=1234} -> {@code <prefix>_some=1234} (microseconds).
+     */
+    static void parsePsi(String text, String prefix, Map<String, Long> out) {
+        for (String line : text.split("\n")) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length < 2 || !(parts[0].equals("some") || parts[0].equals("full"))) {
+                continue;
+            }
+            for (String part : parts) {
+                if (part.startsWith("total=")) {
+                    out.put(prefix + "_" + parts[0], Long.parseLong(part.substring("total=".length())));
+                }
+            }
+        }
+    }
+
+    static void parseKeyed(String text, String prefix, List<String> keys, Map<String, Long> out) {
+        for (String line : text.split("\n")) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length == 2 && keys.contains(parts[0])) {
+                out.put(prefix + parts[0], Long.parseLong(parts[1]));
+            }
+        }
+    }
+
+    /**
+     * The process's cgroup v2 directory, from the {@code 0::<path>} line of /proc/self/cgroup; null on cgroup v1 only.
+     */
+    static Path findCgroupDir() {
+        try {
+            Path self = Path.of("/proc/self/cgroup");
+            if (!Files.isReadable(self)) {
+                return null;
+            }
+            String relative = cgroupV2Path(Files.readString(self, StandardCharsets.US_ASCII));
+            if (relative == null) {
+                return null;
+            }
+            Path mount = Files.exists(CGROUP_ROOT.resolve("cgroup.controllers")) ? CGROUP_ROOT : CGROUP_ROOT.resolve("unified");
+            Path dir = mount.resolve(relative.startsWith("/") ? relative.substring(1) : relative);
+            return Files.isDirectory(dir) ? dir : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static String cgroupV2Path(String procSelfCgroup) {
+        for (String line : procSelfCgroup.split("\n")) {
+            if (line.startsWith("0::")) {
+                return line.substring(3).trim();
+            }
+        }
+        return null;
+    }
+
+    private void appendLog(String line) {
+        try {
+            if (log != null) {
+                log.write(java.time.Instant.now() + " " + line + "\n", System.currentTimeMillis());
+            }
+        } catch (Exception ignored) {
+        }
+    }
+}
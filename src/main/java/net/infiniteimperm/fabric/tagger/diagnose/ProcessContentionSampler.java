@@ -3,87 +3,140 @@ package net.infiniteimperm.fabric.tagger.diagnose;
 import net.infiniteimperm.fabric.tagger.TaggerMod;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Top-N CPU consumers among other processes per interval. On Linux, reads {@code /proc/<pid>/stat} directly into
+ * pid-keyed primitive tables and resolves names only for the processes that make the top N; elsewhere it falls
+ * back to {@link ProcessHandle}. The sampler's own CPU cost is written to its log on close.
+ */
+public final class ProcessContentionSampler implements SamplingScheduler.Sampler {
+    private static final Path PROC_DIR = Path.of("/proc");
+    // USER_HZ is 100 on every mainstream kernel.
+    private static final long MS_PER_CLOCK_TICK = 10L;
+    // 1-based /proc/<pid>/stat field numbers.
+    private static final int STAT_UTIME = 14;
+    private static final int STAT_STIME = 15;
+    private static final int STAT_STARTTIME = 22;
 
-public final class ProcessContentionSampler {
     private final Path outCsv;
     private final Path logFile;
     private final long intervalMs;
     private final int topN;
-    private volatile boolean running;
-    private Thread thread;
+    private final Path procDir;
+    private final long selfPid = ProcessHandle.current().pid();
+    private final Map<Long, Long> prevCpuByPid = new HashMap<>();
+    private final StringBuilder sb = new StringBuilder(1024);
+    private final ByteBuffer statBuffer = ByteBuffer.allocate(1024);
+    private PidTable previous = new PidTable();
+    private PidTable current = new PidTable();
+    private ThreadMXBean threadBean;
+    private SamplerOutput csv;
+    private SamplerOutput log;
+    private long samples;
+    private long selfCpuNs;
+    private long selfWallNs;
+    private long maxSampleWallNs;
 
     public ProcessContentionSampler(Path outCsv, Path logFile, long intervalMs, int topN) {
+        this(outCsv, logFile, intervalMs, topN, Files.isReadable(PROC_DIR.resolve("self").resolve("stat")) ? PROC_DIR : null);
+    }
+
+    /**
+     * @param procDir procfs root for the fast path, or null to sample through {@link ProcessHandle}
+     */
+    ProcessContentionSampler(Path outCsv, Path logFile, long intervalMs, int topN, Path procDir) {
         this.outCsv = outCsv;
         this.logFile = logFile;
         this.intervalMs = intervalMs;
         this.topN = topN;
+        this.procDir = procDir;
+    }
+
+    @Override
+    public String name() {
+        return "process-contention";
     }
 
-    public void start() {
-        if (running) {
-            return;
+    @Override
+    public long intervalMs() {
+        return intervalMs;
+    }
+
+    @Override
+    public void open(SamplingScheduler.Tick tick) throws IOException {
+        csv = SamplerOutput.csv(outCsv, "timestamp,mono_ns,pid,process,cpu_delta_ms,total_cpu_ms");
+        log = SamplerOutput.log(logFile);
+        appendLog("Process contention sampler started. intervalMs=" + intervalMs + " topN=" + topN
+            + " source=" + (procDir != null ? procDir : "ProcessHandle"));
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        threadBean = bean.isCurrentThreadCpuTimeSupported() ? bean : null;
+        if (procDir != null) {
+            sampleTopProc();
+        } else {
+            snapshotCpu(prevCpuByPid);
         }
-        running = true;
-        thread = new Thread(this::runLoop, "insignia-proc-contention");
-        thread.setDaemon(true);
-        thread.start();
     }
 
-    public void stop() {
-        running = false;
-        if (thread == null) {
-            return;
+    @Override
+    public void sample(SamplingScheduler.Tick tick) throws IOException {
+        long wallStart = System.nanoTime();
+        long cpuStart = threadBean != null ? threadBean.getCurrentThreadCpuTime() : 0L;
+        List<Sample> top = procDir != null ? sampleTopProc() : sampleTop(prevCpuByPid, selfPid);
+        String ts = Instant.ofEpochMilli(tick.wallMillis()).toString();
+        sb.setLength(0);
+        for (Sample sample : top) {
+            sb.append(ts).append(',')
+                .append(tick.nanoTime()).append(',')
+                .append(sample.pid).append(',')
+                .append(escapeCsv(sample.name)).append(',')
+                .append(sample.deltaCpuMs).append(',')
+                .append(sample.totalCpuMs).append('\n');
         }
-        try {
-            thread.join(2000L);
-        } catch (InterruptedException ignored) {
-            Thread.currentThread().interrupt();
+        if (!top.isEmpty()) {
+            csv.write(sb, tick.wallMillis());
+        }
+        long wallNs = System.nanoTime() - wallStart;
+        samples++;
+        selfWallNs += wallNs;
+        maxSampleWallNs = Math.max(maxSampleWallNs, wallNs);
+        if (threadBean != null) {
+            selfCpuNs += threadBean.getCurrentThreadCpuTime() - cpuStart;
         }
     }
 
-    private void runLoop() {
-        try {
-            Files.createDirectories(outCsv.getParent());
-            Files.createDirectories(logFile.getParent());
-            Files.writeString(
-                outCsv,
-                "timestamp,pid,process,cpu_delta_ms,total_cpu_ms\n",
-                StandardCharsets.UTF_8);
-            appendLog("Process contention sampler started. intervalMs=" + intervalMs + " topN=" + topN);
-            long selfPid = ProcessHandle.current().pid();
-            Map<Long, Long> prevCpuByPid = new HashMap<>();
-            snapshotCpu(prevCpuByPid);
-            while (running) {
-                Thread.sleep(intervalMs);
-                List<Sample> top = sampleTop(prevCpuByPid, selfPid);
-                String ts = Instant.now().toString();
-                StringBuilder sb = new StringBuilder();
-                for (Sample sample : top) {
-                    sb.append(ts).append(',')
-                        .append(sample.pid).append(',')
-                        .append(escapeCsv(sample.name)).append(',')
-                        .append(sample.deltaCpuMs).append(',')
-                        .append(sample.totalCpuMs).append('\n');
-                }
-                if (!top.isEmpty()) {
-                    Files.writeString(outCsv, sb.toString(), StandardCharsets.UTF_8, java.nio.file.StandardOpenOption.APPEND);
+    @Override
+    public void close() {
+        appendLog("Process contention sampler stopped. samples=" + samples
+            + " selfCpuMs=" + (threadBean != null ? String.valueOf(selfCpuNs / 1_000_000L) : "n/a")
+            + " avgSampleUs=" + (samples > 0L ? selfWallNs / samples / 1_000L : 0L)
+            + " maxSampleUs=" + maxSampleWallNs / 1_000L);
+        for (SamplerOutput output : new SamplerOutput[]{csv, log}) {
+            try {
+                if (output != null) {
+                    output.close();
                 }
+            } catch (IOException e) {
+                TaggerMod.LOGGER.warn("[Diagnose][Contention] Failed closing output", e);
             }
-            appendLog("Process contention sampler stopped.");
-        } catch (Exception e) {
-            TaggerMod.LOGGER.warn("[Diagnose][ProcContention] sampler failure", e);
-            appendLog("Sampler failed: " + e.getMessage());
         }
     }
 
@@ -118,6 +171,111 @@ public final class ProcessContentionSampler {
         return candidates;
     }
 
+    private List<Sample> sampleTopProc() {
+        current.clear();
+        PriorityQueue<Sample> heap = new PriorityQueue<>(Math.max(1, topN), Comparator.comparingLong(Sample::deltaCpuMs));
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(procDir)) {
+            for (Path entry : entries) {
+                long pid = parsePid(entry.getFileName().toString());
+                if (pid <= 0L) {
+                    continue;
+                }
+                int len = readStat(entry.resolve("stat"));
+                if (len <= 0) {
+                    // Exited between listing and reading.
+                    continue;
+                }
+                byte[] data = statBuffer.array();
+                long cpuMs = (ProcessIoSampler.statField(data, len, STAT_UTIME) + ProcessIoSampler.statField(data, len, STAT_STIME))
+                    * MS_PER_CLOCK_TICK;
+                long startTime = ProcessIoSampler.statField(data, len, STAT_STARTTIME);
+                int before = previous.indexOf(pid);
+                boolean samePid = before >= 0 && previous.startTime[before] == startTime;
+                current.put(pid, cpuMs, startTime, samePid ? previous.name[before] : null);
+                if (!samePid || pid == selfPid || topN <= 0) {
+                    continue;
+                }
+                long delta = cpuMs - previous.cpuMs[before];
+                if (delta <= 0L) {
+                    continue;
+                }
+                if (heap.size() < topN) {
+                    heap.add(new Sample(pid, null, delta, cpuMs));
+                } else if (delta > heap.peek().deltaCpuMs) {
+                    heap.poll();
+                    heap.add(new Sample(pid, null, delta, cpuMs));
+                }
+            }
+        } catch (IOException e) {
+            appendLog("Failed listing " + procDir + ": " + e.getMessage());
+        }
+        List<Sample> top = new ArrayList<>(heap.size());
+        for (Sample sample : heap) {
+            int slot = current.indexOf(sample.pid);
+            String name = current.name[slot];
+            if (name == null) {
+                name = procName(sample.pid);
+                current.name[slot] = name;
+            }
+            top.add(new Sample(sample.pid, name, sample.deltaCpuMs, sample.totalCpuMs));
+        }
+        top.sort(Comparator.comparingLong((Sample s) -> s.deltaCpuMs).reversed());
+        PidTable swap = previous;
+        previous = current;
+        current = swap;
+        return top;
+    }
+
+    private int readStat(Path stat) {
+        statBuffer.clear();
+        try (FileChannel channel = FileChannel.open(stat, StandardOpenOption.READ)) {
+            while (statBuffer.hasRemaining() && channel.read(statBuffer) > 0) {
+                // keep reading
+            }
+            return statBuffer.position();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Same naming as the ProcessHandle path (lower-cased executable basename); falls back to the kernel comm when
+     * {@code exe} is not readable, e.g. for other users' processes.
+     */
+    private String procName(long pid) {
+        Path dir = procDir.resolve(Long.toString(pid));
+        try {
+            Path exe = Files.readSymbolicLink(dir.resolve("exe")).getFileName();
+            if (exe != null) {
+                return exe.toString().toLowerCase(Locale.ROOT);
+            }
+        } catch (Exception ignored) {
+        }
+        int len = readStat(dir.resolve("stat"));
+        if (len > 0) {
+            String comm = ThreadSchedSampler.commFromStat(new String(statBuffer.array(), 0, len, StandardCharsets.US_ASCII));
+            if (!comm.isEmpty()) {
+                return comm.toLowerCase(Locale.ROOT);
+            }
+        }
+        return "unknown";
+    }
+
+    static long parsePid(String name) {
+        if (name.isEmpty() || name.length() > 10) {
+            return -1L;
+        }
+        long pid = 0L;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1L;
+            }
+            pid = pid * 10L + (c - '0');
+        }
+        return pid;
+    }
+
     private void snapshotCpu(Map<Long, Long> map) {
         for (ProcessHandle handle : ProcessHandle.allProcesses().toList()) {
             long ms = cpuMillis(handle.info().totalCpuDuration());
@@ -150,14 +308,80 @@ public final class ProcessContentionSampler {
 
     private void appendLog(String line) {
         try {
-            Files.writeString(logFile, Instant.now() + " " + line + "\n", StandardCharsets.UTF_8,
-                Files.exists(logFile)
-                    ? java.nio.file.StandardOpenOption.APPEND
-                    : java.nio.file.StandardOpenOption.CREATE);
+            if (log != null) {
+                log.write(Instant.now() + " " + line + "\n", System.currentTimeMillis());
+            }
         } catch (IOException ignored) {
         }
     }
 
     private record Sample(long pid, String name, long deltaCpuMs, long totalCpuMs) {
     }
+
+    /**
+     * Open-addressing pid table with parallel primitive columns; rebuilt each sample and swapped with the previous one.
+     */
+    static final class PidTable {
+        long[] pid = new long[1024];
+        long[] cpuMs = new long[1024];
+        long[] startTime = new long[1024];
+        String[] name = new String[1024];
+        int size;
+
+        void clear() {
+            Arrays.fill(pid, 0L);
+            Arrays.fill(name, null);
+            size = 0;
+        }
+
+        int indexOf(long key) {
+            int mask = pid.length - 1;
+            for (int i = slot(key, mask); pid[i] != 0L; i = (i + 1) & mask) {
+                if (pid[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, long cpu, long start, String processName) {
+            if ((size + 1) * 2 > pid.length) {
+                grow();
+            }
+            int mask = pid.length - 1;
+            int i = slot(key, mask);
+            while (pid[i] != 0L && pid[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (pid[i] == 0L) {
+                size++;
+            }
+            pid[i] = key;
+            cpuMs[i] = cpu;
+            startTime[i] = start;
+            name[i] = processName;
+        }
+
+        private void grow() {
+            long[] oldPid = pid;
+            long[] oldCpu = cpuMs;
+            long[] oldStart = startTime;
+            String[] oldName = name;
+            int capacity = oldPid.length * 2;
+            pid = new long[capacity];
+            cpuMs = new long[capacity];
+            startTime = new long[capacity];
+            name = new String[capacity];
+            size = 0;
+            for (int i = 0; i < oldPid.length; i++) {
+                if (oldPid[i] != 0L) {
+                    put(oldPid[i], oldCpu[i], oldStart[i], oldName[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            return (int) (key * 0x9E3779B97F4A7C15L >>> 32) & mask;
+        }
+    }
 }
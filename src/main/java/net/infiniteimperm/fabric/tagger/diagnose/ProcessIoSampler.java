@@ -0,0 +1,210 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Linux-only process IO and page-fault sampler. Re-reads {@code /proc/self/io} and {@code /proc/self/stat}
+ * through held-open channels into preallocated buffers (no per-sample allocation) and writes a row whenever
+ * storage IO or page faults moved, so region-file loads, pack reads and swap-ins can be lined up with bad frames.
+ * rchar/wchar/syscr/syscw are reported on those rows but never trigger one: this sampler's own procfs reads and
+ * CSV writes move them on every tick.
+ */
+public final class ProcessIoSampler implements SamplingScheduler.Sampler {
+    static final String CSV_HEADER = "ts_ms,mono_ns,interval_ms,read_bytes,write_bytes,rchar,wchar,syscr,syscw,minflt,majflt";
+    static final int COUNTERS = 8;
+    private static final Path PROC_IO = Path.of("/proc/self/io");
+    private static final Path PROC_STAT = Path.of("/proc/self/stat");
+    private static final byte[][] IO_KEYS = {
+        "read_bytes:".getBytes(StandardCharsets.US_ASCII),
+        "write_bytes:".getBytes(StandardCharsets.US_ASCII),
+        "rchar:".getBytes(StandardCharsets.US_ASCII),
+        "wchar:".getBytes(StandardCharsets.US_ASCII),
+        "syscr:".getBytes(StandardCharsets.US_ASCII),
+        "syscw:".getBytes(StandardCharsets.US_ASCII)
+    };
+    // 1-based /proc/<pid>/stat field numbers.
+    private static final int STAT_MINFLT = 10;
+    private static final int STAT_MAJFLT = 12;
+    // read_bytes, write_bytes, minflt, majflt.
+    private static final int[] ROW_TRIGGERS = {0, 1, 6, 7};
+
+    private final Path outCsv;
+    private final long intervalMs;
+    private final Path ioFile;
+    private final Path statFile;
+    private final ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private long[] previous = new long[COUNTERS];
+    private long[] current = new long[COUNTERS];
+    private final StringBuilder sb = new StringBuilder(128);
+    private FileChannel io;
+    private FileChannel stat;
+    private SamplerOutput writer;
+    private long previousWallMs;
+    private long rowsWritten;
+
+    public ProcessIoSampler(Path outCsv, long intervalMs) {
+        this(outCsv, intervalMs, PROC_IO, PROC_STAT);
+    }
+
+    ProcessIoSampler(Path outCsv, long intervalMs, Path ioFile, Path statFile) {
+        this.outCsv = outCsv;
+        this.intervalMs = intervalMs;
+        this.ioFile = ioFile;
+        this.statFile = statFile;
+    }
+
+    public static boolean isSupported() {
+        return Files.isReadable(PROC_IO) && Files.isReadable(PROC_STAT);
+    }
+
+    @Override
+    public String name() {
+        return "process-io";
+    }
+
+    @Override
+    public long intervalMs() {
+        return intervalMs;
+    }
+
+    @Override
+    public void open(SamplingScheduler.Tick tick) throws Exception {
+        io = FileChannel.open(ioFile, StandardOpenOption.READ);
+        stat = FileChannel.open(statFile, StandardOpenOption.READ);
+        writer = SamplerOutput.csv(outCsv, CSV_HEADER);
+        readCounters(previous);
+        previousWallMs = tick.wallMillis();
+    }
+
+    @Override
+    public void sample(SamplingScheduler.Tick tick) throws Exception {
+        readCounters(current);
+        long nowMs = tick.wallMillis();
+        boolean moved = false;
+        for (int i : ROW_TRIGGERS) {
+            moved |= current[i] != previous[i];
+        }
+        if (moved) {
+            sb.setLength(0);
+            sb.append(nowMs).append(',').append(tick.nanoTime()).append(',').append(nowMs - previousWallMs);
+            for (int i = 0; i < COUNTERS; i++) {
+                sb.append(',').append(Math.max(0L, current[i] - previous[i]));
+            }
+            sb.append('\n');
+            writer.write(sb, nowMs);
+            rowsWritten++;
+        }
+        long[] swap = previous;
+        previous = current;
+        current = swap;
+        previousWallMs = nowMs;
+    }
+
+    @Override
+    public void close() {
+        for (Closeable closeable : new Closeable[]{writer, io, stat}) {
+            try {
+                if (closeable != null) {
+                    closeable.close();
+                }
+            } catch (Exception e) {
+                TaggerMod.LOGGER.warn("[Diagnose][ProcessIo] Failed closing {}", closeable, e);
+            }
+        }
+        TaggerMod.LOGGER.info("[Diagnose][ProcessIo] stopped rows={} intervalMs={}", rowsWritten, intervalMs);
+    }
+
+    private void readCounters(long[] out) throws IOException {
+        int len = readFully(io);
+        for (int i = 0; i < IO_KEYS.length; i++) {
+            out[i] = keyedValue(buffer.array(), len, IO_KEYS[i]);
+        }
+        len = readFully(stat);
+        out[6] = statField(buffer.array(), len, STAT_MINFLT);
+        out[7] = statField(buffer.array(), len, STAT_MAJFLT);
+    }
+
+    // procfs regenerates the file on a read from offset 0, so one open channel serves every sample.
+    private int readFully(FileChannel channel) throws IOException {
+        buffer.clear();
+        long position = 0L;
+        int n;
+        while (buffer.hasRemaining() && (n = channel.read(buffer, position)) > 0) {
+            position += n;
+        }
+        return buffer.position();
+    }
+
+    static long keyedValue(byte[] data, int len, byte[] key) {
+        int i = 0;
+        while (i < len) {
+            if (startsWith(data, i, len, key)) {
+                return parseLong(data, i + key.length, len);
+            }
+            while (i < len && data[i] != '\n') {
+                i++;
+            }
+            i++;
+        }
+        return 0L;
+    }
+
+    /**
+     * Value of 1-based {@code field} in a /proc stat line, counting from after the parenthesised comm.
+     */
+    static long statField(byte[] data, int len, int field) {
+        int close = -1;
+        for (int i = 0; i < len; i++) {
+            if (data[i] == ')') {
+                close = i;
+            }
+        }
+        if (close < 0) {
+            return 0L;
+        }
+        // Field 3 (state) starts two bytes after ')'.
+        int current = 3;
+        int i = close + 2;
+        while (i < len && current < field) {
+            if (data[i] == ' ') {
+                current++;
+            }
+            i++;
+        }
+        return current == field ? parseLong(data, i, len) : 0L;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int len, byte[] key) {
+        if (offset + key.length > len) {
+            return false;
+        }
+        for (int k = 0; k < key.length; k++) {
+            if (data[offset + k] != key[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseLong(byte[] data, int offset, int len) {
+        int i = offset;
+        while (i < len && data[i] == ' ') {
+            i++;
+        }
+        long value = 0L;
+        while (i < len && data[i] >= '0' && data[i] <= '9') {
+            value = value * 10L + (data[i] - '0');
+            i++;
+        }
+        return value;
+    }
+}
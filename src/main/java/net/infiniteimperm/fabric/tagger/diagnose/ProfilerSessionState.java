@@ -2,6 +2,7 @@ package net.infiniteimperm.fabric.tagger.diagnose;
 
 import net.infiniteimperm.fabric.tagger.TaggerMod;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -9,6 +10,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
 
@@ -32,6 +35,11 @@ public final class ProfilerSessionState {
             state.wprStartedElevated = Boolean.parseBoolean(props.getProperty("wprStartedElevated", "false"));
             state.createdAt = props.getProperty("createdAt", "");
             state.ownerPid = parseLong(props.getProperty("ownerPid", "-1"));
+            state.mode = props.getProperty("mode", "");
+            state.jfrRepository = props.getProperty("jfrRepository", "");
+            state.samplerFiles = splitPaths(props.getProperty("samplerFiles", ""));
+            state.segmentDir = props.getProperty("segmentDir", "");
+            state.segmentStartedAt = props.getProperty("segmentStartedAt", "");
             return Optional.of(state);
         } catch (Exception e) {
             TaggerMod.LOGGER.warn("[Diagnose][State] Failed to read state file {}", stateFile, e);
@@ -53,6 +61,11 @@ public final class ProfilerSessionState {
             props.setProperty("wprStartedElevated", Boolean.toString(state.wprStartedElevated));
             props.setProperty("createdAt", nullSafe(state.createdAt.isBlank() ? Instant.now().toString() : state.createdAt));
             props.setProperty("ownerPid", Long.toString(state.ownerPid));
+            props.setProperty("mode", nullSafe(state.mode));
+            props.setProperty("jfrRepository", nullSafe(state.jfrRepository));
+            props.setProperty("samplerFiles", String.join(File.pathSeparator, state.samplerFiles));
+            props.setProperty("segmentDir", nullSafe(state.segmentDir));
+            props.setProperty("segmentStartedAt", nullSafe(state.segmentStartedAt));
             StringWriter writer = new StringWriter();
             props.store(writer, "insignia diagnose state");
             Files.writeString(stateFile, writer.toString(), StandardCharsets.UTF_8);
@@ -76,6 +89,16 @@ public final class ProfilerSessionState {
         return value == null ? "" : value;
     }
 
+    private static List<String> splitPaths(String value) {
+        List<String> paths = new ArrayList<>();
+        for (String path : value.split(File.pathSeparator)) {
+            if (!path.isBlank()) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
     private static long parseLong(String value) {
         try {
             return Long.parseLong(value);
@@ -92,5 +115,20 @@ public final class ProfilerSessionState {
         public boolean wprStartedElevated;
         public String createdAt = "";
         public long ownerPid = -1L;
+        public String mode = "";
+        // Where an interrupted capture left data behind; used by crash recovery on the next launch.
+        public String jfrRepository = "";
+        public List<String> samplerFiles = new ArrayList<>();
+        // Segmented captures only: the segment being written, whose recording starts at segmentStartedAt.
+        public String segmentDir = "";
+        public String segmentStartedAt = "";
+
+        public boolean hasCaptureData() {
+            return (jfrRepository != null && !jfrRepository.isBlank()) || !samplerFiles.isEmpty();
+        }
+
+        public boolean hasExternalTools() {
+            return nsysStartedByUs || wprStartedByUs;
+        }
     }
 }
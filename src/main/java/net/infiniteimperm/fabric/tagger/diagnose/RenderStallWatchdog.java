@@ -0,0 +1,233 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Watches the render thread's HUD frames and, once a frame runs past the stall threshold, samples the render
+ * thread's stack every millisecond until the frame ends. Runs independently of JFR so short hitches are caught
+ * even when no recording is active. Only frame start to frame end is timed: the gap before the next frame start
+ * (buffer swap, frame limiter, frames presented with the HUD hidden) is never sampled as a stall.
+ */
+public final class RenderStallWatchdog {
+    static final long DEFAULT_THRESHOLD_NS = 50_000_000L;
+    static final long DEFAULT_SAMPLE_INTERVAL_NS = 1_000_000L;
+    // Past this with no frame presented either, the render thread is hung; the stall is recorded as unfinished.
+    static final long MAX_STALL_NS = 5_000_000_000L;
+    static final int MAX_SAMPLES_PER_STALL = 5_000;
+    static final int MAX_STACK_DEPTH = 32;
+    static final int TOP_STACKS = 8;
+    private static final long IDLE_POLL_NS = 5_000_000L;
+    private static final AtomicReference<RenderStallWatchdog> ACTIVE = new AtomicReference<>();
+
+    private final Path outFile;
+    private final long thresholdNs;
+    private final long sampleIntervalNs;
+    private final AtomicLong frameSequence = new AtomicLong(0);
+    private final AtomicLong stallCount = new AtomicLong(0);
+    // Start of the open frame, or 0 between frames.
+    private volatile long frameStartNs;
+    private volatile long frameEndNs;
+    private long handledFrameStartNs;
+    private volatile Thread renderThread;
+    private volatile boolean running;
+    private Thread thread;
+    // Watchdog thread only, until stop() has joined it.
+    private SamplerOutput output;
+
+    public RenderStallWatchdog(Path outFile) {
+        this(outFile, DEFAULT_THRESHOLD_NS, DEFAULT_SAMPLE_INTERVAL_NS);
+    }
+
+    RenderStallWatchdog(Path outFile, long thresholdNs, long sampleIntervalNs) {
+        this.outFile = outFile;
+        this.thresholdNs = thresholdNs;
+        this.sampleIntervalNs = sampleIntervalNs;
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        try {
+            output = SamplerOutput.csv(outFile, "# render stall watchdog thresholdMs=" + thresholdNs / 1_000_000L
+                + " sampleIntervalUs=" + sampleIntervalNs / 1_000L
+                + " stacks are root-first, frames separated by ';'");
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][StallWatchdog] Failed to initialize output", e);
+            return;
+        }
+        running = true;
+        ACTIVE.set(this);
+        thread = new Thread(this::runLoop, "insignia-render-stall-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        ACTIVE.compareAndSet(this, null);
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(2000L);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            output.close();
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][StallWatchdog] Failed closing output", e);
+        }
+        TaggerMod.LOGGER.info("[Diagnose][StallWatchdog] stopped stalls={} frames={}", stallCount.get(), frameSequence.get());
+    }
+
+    public long stallCount() {
+        return stallCount.get();
+    }
+
+    /**
+     * Called on the render thread at every HUD frame start and end.
+     */
+    public static void onFrameBoundary(boolean frameStart) {
+        RenderStallWatchdog watchdog = ACTIVE.get();
+        if (watchdog == null) {
+            return;
+        }
+        if (watchdog.renderThread == null) {
+            watchdog.renderThread = Thread.currentThread();
+        }
+        long nowNs = System.nanoTime();
+        if (frameStart) {
+            watchdog.frameSequence.incrementAndGet();
+            watchdog.frameStartNs = nowNs;
+        } else {
+            watchdog.closeFrame(nowNs);
+        }
+    }
+
+    /**
+     * Called on the render thread after every buffer swap, menus and loading screens included. Closes a frame
+     * whose end boundary never fired, so a present is never timed as part of one.
+     */
+    public static void onFramePresented() {
+        RenderStallWatchdog watchdog = ACTIVE.get();
+        if (watchdog != null && watchdog.frameStartNs != 0L) {
+            watchdog.closeFrame(System.nanoTime());
+        }
+    }
+
+    private void closeFrame(long nowNs) {
+        frameEndNs = nowNs;
+        frameStartNs = 0L;
+    }
+
+    private void runLoop() {
+        while (running) {
+            long frameStart = frameStartNs;
+            Thread target = renderThread;
+            if (frameStart == 0L || target == null || frameStart == handledFrameStartNs) {
+                LockSupport.parkNanos(IDLE_POLL_NS);
+                continue;
+            }
+            long waitNs = frameStart + thresholdNs - System.nanoTime();
+            if (waitNs > 0L) {
+                LockSupport.parkNanos(Math.min(waitNs, IDLE_POLL_NS));
+                continue;
+            }
+            handledFrameStartNs = frameStart;
+            sampleStall(target, frameStart);
+        }
+    }
+
+    private void sampleStall(Thread target, long frameStart) {
+        long frameId = frameSequence.get();
+        long stallStartWallMs = System.currentTimeMillis() - (System.nanoTime() - frameStart) / 1_000_000L;
+        Map<List<StackTraceElement>, int[]> counts = new HashMap<>();
+        int samples = 0;
+        boolean unfinished = false;
+        while (running && frameStartNs == frameStart) {
+            if (System.nanoTime() - frameStart > MAX_STALL_NS) {
+                unfinished = true;
+                break;
+            }
+            if (samples < MAX_SAMPLES_PER_STALL) {
+                StackTraceElement[] stack = target.getStackTrace();
+                if (stack.length > 0) {
+                    List<StackTraceElement> key = Arrays.asList(Arrays.copyOf(stack, Math.min(stack.length, MAX_STACK_DEPTH)));
+                    counts.computeIfAbsent(key, k -> new int[1])[0]++;
+                    samples++;
+                }
+            }
+            LockSupport.parkNanos(sampleIntervalNs);
+        }
+        // Sampling notices the end within one interval, long before a later frame could overwrite frameEndNs.
+        long end = frameStartNs != frameStart ? frameEndNs : System.nanoTime();
+        long stallNs = Math.max(0L, end - frameStart);
+        if (samples == 0) {
+            return;
+        }
+        stallCount.incrementAndGet();
+        String stacks = formatStacks(counts, TOP_STACKS);
+
+        JfrController.RenderStallEvent event = new JfrController.RenderStallEvent();
+        event.frameSequence = frameId;
+        event.stallStartWallMillis = stallStartWallMs;
+        event.stallDurationNs = stallNs;
+        event.sampleCount = samples;
+        event.sampleIntervalNs = sampleIntervalNs;
+        event.stacks = stacks;
+        event.unfinished = unfinished;
+        event.commit();
+        JfrController.onRenderStallRecorded();
+
+        String block = String.format(Locale.ROOT, "stall frameSeq=%d start=%s durationMs=%.3f samples=%d%s%n",
+            frameId, Instant.ofEpochMilli(stallStartWallMs), stallNs / 1_000_000d, samples,
+            unfinished ? " unfinished=true" : "")
+            + stacks.indent(2);
+        try {
+            output.write(block, System.currentTimeMillis());
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][StallWatchdog] Failed writing stall", e);
+        }
+    }
+
+    /**
+     * One line per distinct stack, most-sampled first: {@code <count> <root;...;leaf>}.
+     */
+    static String formatStacks(Map<List<StackTraceElement>, int[]> counts, int limit) {
+        List<Map.Entry<List<StackTraceElement>, int[]>> sorted = new ArrayList<>(counts.entrySet());
+        sorted.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.min(limit, sorted.size()); i++) {
+            Map.Entry<List<StackTraceElement>, int[]> e = sorted.get(i);
+            sb.append(e.getValue()[0]).append(' ');
+            List<StackTraceElement> stack = e.getKey();
+            for (int f = stack.size() - 1; f >= 0; f--) {
+                StackTraceElement frame = stack.get(f);
+                sb.append(frame.getClassName()).append('.').append(frame.getMethodName());
+                if (frame.getLineNumber() >= 0) {
+                    sb.append(':').append(frame.getLineNumber());
+                }
+                if (f > 0) {
+                    sb.append(';');
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
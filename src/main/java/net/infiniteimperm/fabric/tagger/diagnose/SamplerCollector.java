@@ -0,0 +1,125 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.InsigniaConfig;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A {@link Collector} made of in-process {@link SamplingScheduler.Sampler}s. Its samplers are registered on the
+ * capture's shared scheduler (once per segment in segmented captures), so they tick on the same aligned timestamps
+ * as every other sampler; starting and stopping them is the scheduler's job, not {@link #start}/{@link #stop}.
+ */
+public final class SamplerCollector implements Collector {
+    public static final String THREAD_SCHED = "thread_sched";
+    public static final String PROCESS_IO = "process_io";
+    public static final String JVM_THREADS = "jvm_threads";
+    public static final String GC_TELEMETRY = "gc_telemetry";
+    public static final String OFF_HEAP = "offheap";
+
+    /**
+     * Creates the samplers writing into {@code dir}, with their logs in {@code logsDir}.
+     */
+    @FunctionalInterface
+    public interface Samplers {
+        List<SamplingScheduler.Sampler> create(Path dir, Path logsDir);
+    }
+
+    private final String id;
+    private final String displayName;
+    private final Overhead overhead;
+    private final BooleanSupplier supported;
+    private final List<String> dataFiles;
+    private final List<String> summaryFiles;
+    private final Samplers samplers;
+
+    /**
+     * @param dataFiles    files the samplers stream rows into, relative to the run directory; kept for crash recovery
+     * @param summaryFiles files only written when the samplers close
+     */
+    public SamplerCollector(String id, String displayName, Overhead overhead, BooleanSupplier supported,
+                            List<String> dataFiles, List<String> summaryFiles, Samplers samplers) {
+        this.id = id;
+        this.displayName = displayName;
+        this.overhead = overhead;
+        this.supported = supported;
+        this.dataFiles = List.copyOf(dataFiles);
+        this.summaryFiles = List.copyOf(summaryFiles);
+        this.samplers = samplers;
+    }
+
+    static List<Collector> builtIns() {
+        return List.of(
+            new SamplerCollector(THREAD_SCHED, "thread scheduler", Overhead.LOW, ThreadSchedSampler::isSupported,
+                List.of("thread_sched.csv"), List.of(),
+                (dir, logsDir) -> List.of(new ThreadSchedSampler(dir.resolve("thread_sched.csv"),
+                    InsigniaConfig.getInstance().diagnoseThreadSchedIntervalMs))),
+            new SamplerCollector(PROCESS_IO, "process IO", Overhead.LOW, ProcessIoSampler::isSupported,
+                List.of("process_io.csv"), List.of(),
+                (dir, logsDir) -> List.of(new ProcessIoSampler(dir.resolve("process_io.csv"), 10L))),
+            new SamplerCollector(JVM_THREADS, "JVM threads", Overhead.LOW, JvmThreadSampler::isSupported,
+                List.of("jvm_threads.csv"), List.of("jvm_threads_summary.txt"),
+                (dir, logsDir) -> List.of(new JvmThreadSampler(dir.resolve("jvm_threads.csv"), dir.resolve("jvm_threads_summary.txt"), 100L))),
+            new SamplerCollector(GC_TELEMETRY, "GC telemetry", Overhead.LOW, GcTelemetryCollector::isSupported,
+                List.of("gc_events.csv", "memory_pools.csv"), List.of("gc_summary.txt"),
+                (dir, logsDir) -> List.of(new GcTelemetryCollector(dir.resolve("gc_events.csv"), dir.resolve("memory_pools.csv"),
+                    dir.resolve("gc_summary.txt"), 100L, new HeapLeakDetector(dir, InsigniaConfig.getInstance().diagnoseLeakThresholdMbPerMin)))),
+            new SamplerCollector(OFF_HEAP, "off-heap memory", Overhead.LOW, () -> true,
+                List.of("offheap.csv"), List.of("nmt.csv"),
+                (dir, logsDir) -> List.of(new OffHeapCollector(dir.resolve("offheap.csv"), dir.resolve("nmt.csv"), 100L))));
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public String displayName() {
+        return displayName;
+    }
+
+    @Override
+    public Overhead overhead() {
+        return overhead;
+    }
+
+    @Override
+    public boolean detect() {
+        return supported.getAsBoolean();
+    }
+
+    public List<SamplingScheduler.Sampler> samplers(Path dir, Path logsDir) {
+        return samplers.create(dir, logsDir);
+    }
+
+    public List<Path> dataFiles(Path dir) {
+        return resolve(dir, dataFiles);
+    }
+
+    @Override
+    public boolean start(CollectorContext context) {
+        return true;
+    }
+
+    @Override
+    public void stop(CollectorContext context) {
+    }
+
+    @Override
+    public List<Path> artifacts(CollectorContext context) {
+        List<Path> artifacts = new ArrayList<>(dataFiles(context.runDir()));
+        artifacts.addAll(resolve(context.runDir(), summaryFiles));
+        return artifacts;
+    }
+
+    private static List<Path> resolve(Path dir, List<String> names) {
+        List<Path> paths = new ArrayList<>(names.size());
+        for (String name : names) {
+            paths.add(dir.resolve(name));
+        }
+        return paths;
+    }
+}
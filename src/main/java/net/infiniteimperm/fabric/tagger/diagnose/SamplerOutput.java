@@ -0,0 +1,133 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongSupplier;
+
+/**
+ * Long-lived, batched output file for samplers. Rows accumulate in a reusable buffer and reach the disk in one
+ * channel write per flush interval (or when the batch fills), instead of an open/write/close per sample; the
+ * file is fsynced once on close. Not thread-safe: each sampler owns its outputs on the scheduler thread.
+ */
+public final class SamplerOutput implements Closeable {
+    static final long DEFAULT_FLUSH_INTERVAL_MS = 1000L;
+    private static final int BATCH_CHARS = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long flushIntervalMs;
+    // Same clock as the nowMs callers pass to write(); used for the header and close flushes.
+    private final LongSupplier clock;
+    private final StringBuilder pending = new StringBuilder(BATCH_CHARS);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BATCH_CHARS);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private long lastFlushMs = Long.MIN_VALUE;
+    private long bytesWritten;
+    private long channelWrites;
+    private boolean closed;
+
+    private SamplerOutput(FileChannel channel, long flushIntervalMs, LongSupplier clock) {
+        this.channel = channel;
+        this.flushIntervalMs = flushIntervalMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Truncates {@code file} and writes {@code header} through to disk, so the file exists as soon as the sampler opens.
+     */
+    public static SamplerOutput csv(Path file, String header) throws IOException {
+        return csv(file, header, DEFAULT_FLUSH_INTERVAL_MS);
+    }
+
+    public static SamplerOutput csv(Path file, String header, long flushIntervalMs) throws IOException {
+        return csv(file, header, flushIntervalMs, System::currentTimeMillis);
+    }
+
+    static SamplerOutput csv(Path file, String header, long flushIntervalMs, LongSupplier clock) throws IOException {
+        Files.createDirectories(file.getParent());
+        SamplerOutput out = new SamplerOutput(FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), flushIntervalMs, clock);
+        out.pending.append(header).append('\n');
+        out.flush(clock.getAsLong());
+        return out;
+    }
+
+    /**
+     * Appends to {@code file}; every line is written through, since sampler logs are sparse and read after a crash.
+     */
+    public static SamplerOutput log(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return new SamplerOutput(FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE), 0L, System::currentTimeMillis);
+    }
+
+    public void write(CharSequence text, long nowMs) throws IOException {
+        if (closed) {
+            return;
+        }
+        pending.append(text);
+        if (lastFlushMs == Long.MIN_VALUE) {
+            lastFlushMs = nowMs;
+        }
+        if (pending.length() >= BATCH_CHARS || nowMs - lastFlushMs >= flushIntervalMs) {
+            flush(nowMs);
+        }
+    }
+
+    public void flush(long nowMs) throws IOException {
+        lastFlushMs = nowMs;
+        if (pending.isEmpty()) {
+            return;
+        }
+        CharBuffer in = CharBuffer.wrap(pending);
+        encoder.reset();
+        boolean done = false;
+        while (!done) {
+            bytes.clear();
+            CoderResult result = encoder.encode(in, bytes, true);
+            if (result.isUnderflow()) {
+                encoder.flush(bytes);
+                done = true;
+            }
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                bytesWritten += channel.write(bytes);
+            }
+            channelWrites++;
+        }
+        pending.setLength(0);
+    }
+
+    long bytesWritten() {
+        return bytesWritten;
+    }
+
+    long channelWrites() {
+        return channelWrites;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush(clock.getAsLong());
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+}
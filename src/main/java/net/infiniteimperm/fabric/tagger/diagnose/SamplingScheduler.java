@@ -0,0 +1,164 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One timer thread driving every periodic sampler. Ticks are scheduled on absolute multiples of the base
+ * tick from a single anchor, so samplers whose intervals share a multiple sample at the same instant and
+ * carry the same {@link Tick} timestamps. A tick that falls behind is skipped rather than replayed.
+ */
+public final class SamplingScheduler {
+    /**
+     * A periodic counter source. All methods run on the scheduler thread.
+     */
+    public interface Sampler {
+        String name();
+
+        long intervalMs();
+
+        void open(Tick tick) throws Exception;
+
+        void sample(Tick tick) throws Exception;
+
+        void close();
+    }
+
+    /**
+     * Common timestamp for one scheduler tick: monotonic nanoTime plus the wall clock derived from the anchor.
+     */
+    public record Tick(long nanoTime, long wallMillis) {
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private volatile boolean running;
+    private Thread thread;
+    private long anchorNs;
+    private long anchorWallMs;
+    private long tickNs;
+    private long skippedTicks;
+
+    public synchronized void register(Sampler sampler) {
+        if (running) {
+            throw new IllegalStateException("Cannot register " + sampler.name() + " after the scheduler started");
+        }
+        entries.add(new Entry(sampler, Math.max(1L, sampler.intervalMs())));
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public synchronized void start() {
+        if (running || entries.isEmpty()) {
+            return;
+        }
+        long tickMs = entries.get(0).intervalMs;
+        for (Entry entry : entries) {
+            tickMs = gcd(tickMs, entry.intervalMs);
+        }
+        tickNs = tickMs * 1_000_000L;
+        for (Entry entry : entries) {
+            entry.everyTicks = entry.intervalMs / tickMs;
+        }
+        anchorWallMs = System.currentTimeMillis();
+        anchorNs = System.nanoTime();
+        running = true;
+        thread = new Thread(this::runLoop, "insignia-sampling");
+        thread.setDaemon(true);
+        thread.start();
+        TaggerMod.LOGGER.info("[Diagnose][Sampling] started samplers={} tickMs={} anchorWallMs={} anchorNs={}",
+            entries.size(), tickMs, anchorWallMs, anchorNs);
+    }
+
+    public void stop() {
+        running = false;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(2000L);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+        TaggerMod.LOGGER.info("[Diagnose][Sampling] stopped skippedTicks={}", skippedTicks);
+    }
+
+    public Tick tickAt(long nanoTime) {
+        return new Tick(nanoTime, anchorWallMs + (nanoTime - anchorNs) / 1_000_000L);
+    }
+
+    private void runLoop() {
+        Tick first = tickAt(anchorNs);
+        for (Entry entry : entries) {
+            try {
+                entry.sampler.open(first);
+                entry.open = true;
+            } catch (Exception e) {
+                TaggerMod.LOGGER.warn("[Diagnose][Sampling] {} failed to open", entry.sampler.name(), e);
+                // open() may have got partway (files created, channels opened) before throwing.
+                entry.sampler.close();
+            }
+        }
+        long tick = 0L;
+        while (running) {
+            tick++;
+            long deadline = anchorNs + tick * tickNs;
+            long wait;
+            while (running && (wait = deadline - System.nanoTime()) > 0L) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!running) {
+                break;
+            }
+            Tick now = tickAt(deadline);
+            for (Entry entry : entries) {
+                if (!entry.open || tick % entry.everyTicks != 0L) {
+                    continue;
+                }
+                try {
+                    entry.sampler.sample(now);
+                } catch (Exception e) {
+                    entry.open = false;
+                    TaggerMod.LOGGER.warn("[Diagnose][Sampling] {} failed; disabling it for this capture", entry.sampler.name(), e);
+                    entry.sampler.close();
+                }
+            }
+            long behind = (System.nanoTime() - deadline) / tickNs;
+            if (behind > 0L) {
+                skippedTicks += behind;
+                tick += behind;
+            }
+        }
+        for (Entry entry : entries) {
+            if (entry.open) {
+                entry.sampler.close();
+            }
+        }
+    }
+
+    static long gcd(long a, long b) {
+        while (b != 0L) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static final class Entry {
+        final Sampler sampler;
+        final long intervalMs;
+        long everyTicks;
+        boolean open;
+
+        Entry(Sampler sampler, long intervalMs) {
+            this.sampler = sampler;
+            this.intervalMs = intervalMs;
+        }
+    }
+}
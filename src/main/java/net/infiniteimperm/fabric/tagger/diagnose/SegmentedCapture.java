@@ -0,0 +1,285 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Long captures split into fixed-length segments. JFR, in-process frame timing and the samplers roll over into a new
+ * {@code segment_NNN} directory every segment; each closed segment is parsed into its own {@code bad_frames.json} on a
+ * background thread while the next one records, so memory and export time depend on the segment length only. At the
+ * end {@code segments.csv} indexes every segment and {@code segments_summary.txt} aggregates across them.
+ */
+public final class SegmentedCapture {
+    static final String INDEX_HEADER = "segment,dir,start,end,total_frames,bad_frames,bad_frame_pct,jfr_bytes,analysis_ms,status";
+    private static final Pattern TOTAL_FRAMES = Pattern.compile("\"total_frames\": (\\d+)");
+    private static final Pattern BAD_FRAMES = Pattern.compile("\"bad_frames\": (\\d+)");
+    private static final int WORST_SEGMENTS = 5;
+
+    /**
+     * Registers this segment's samplers (writing into {@code segmentDir}) and returns the files they write.
+     */
+    @FunctionalInterface
+    public interface SamplerFactory {
+        List<Path> register(SamplingScheduler sampling, Path segmentDir) throws Exception;
+    }
+
+    /**
+     * Told once a segment is recording and the previous one has been closed, so the capture state can point crash
+     * recovery at the segment still being written.
+     */
+    @FunctionalInterface
+    public interface SegmentListener {
+        void opened(Path segmentDir, Instant start, List<Path> samplerFiles);
+    }
+
+    public record SegmentResult(int index, String dir, Instant start, Instant end, long totalFrames, long badFrames,
+                                long jfrBytes, long analysisMs, String status) {
+    }
+
+    private final Path runDir;
+    private final long totalMs;
+    private final long segmentMs;
+    private final boolean jvmRuntimeEvents;
+    private final SamplerFactory samplers;
+    private final SegmentListener listener;
+    private final Consumer<String> log;
+
+    public SegmentedCapture(Path runDir, long totalMs, long segmentMs, boolean jvmRuntimeEvents, SamplerFactory samplers, Consumer<String> log) {
+        this(runDir, totalMs, segmentMs, jvmRuntimeEvents, samplers, (dir, start, files) -> {
+        }, log);
+    }
+
+    public SegmentedCapture(Path runDir, long totalMs, long segmentMs, boolean jvmRuntimeEvents, SamplerFactory samplers,
+                            SegmentListener listener, Consumer<String> log) {
+        this.runDir = runDir;
+        this.totalMs = totalMs;
+        this.segmentMs = segmentMs;
+        this.jvmRuntimeEvents = jvmRuntimeEvents;
+        this.samplers = samplers;
+        this.listener = listener;
+        this.log = log;
+    }
+
+    /**
+     * Records until {@code totalMs} has elapsed, blocking the calling thread, then waits for the last analysis and
+     * writes the index and summary.
+     */
+    public List<SegmentResult> run() throws Exception {
+        ExecutorService analysis = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "insignia-segment-analysis");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<SegmentResult>> pending = new ArrayList<>();
+        Segment current = null;
+        try {
+            long started = System.currentTimeMillis();
+            long end = started + totalMs;
+            current = openSegment(1, null);
+            long rollAt = started + segmentMs;
+            while (System.currentTimeMillis() < end) {
+                Thread.sleep(Math.max(1L, Math.min(250L, Math.min(rollAt, end) - System.currentTimeMillis())));
+                long now = System.currentTimeMillis();
+                if (now >= rollAt && now < end) {
+                    Segment next = openSegment(current.index + 1, current);
+                    Segment closed = current;
+                    pending.add(analysis.submit(() -> analyse(closed)));
+                    current = next;
+                    rollAt += segmentMs;
+                }
+            }
+            Segment last = current;
+            current = null;
+            last.sampling.stop();
+            last.closeRecording();
+            pending.add(analysis.submit(() -> analyse(last)));
+
+            List<SegmentResult> results = new ArrayList<>();
+            for (Future<SegmentResult> result : pending) {
+                results.add(result.get());
+            }
+            Files.writeString(runDir.resolve("segments.csv"), formatIndex(results), StandardCharsets.UTF_8);
+            Files.writeString(runDir.resolve("segments_summary.txt"), formatSummary(results), StandardCharsets.UTF_8);
+            return results;
+        } finally {
+            if (current != null) {
+                current.sampling.stop();
+                try {
+                    current.closeRecording();
+                } catch (Exception e) {
+                    TaggerMod.LOGGER.warn("[Diagnose][Segments] Failed closing segment {} during cleanup", current.index, e);
+                }
+            }
+            analysis.shutdown();
+        }
+    }
+
+    // The next segment's JFR recording starts before the previous one stops, so no events fall between segments.
+    // Samplers cannot overlap (some keep static state), so the previous scheduler stops first.
+    private Segment openSegment(int index, Segment previous) throws Exception {
+        Path dir = runDir.resolve(String.format(Locale.ROOT, "segment_%03d", index));
+        Path logsDir = dir.resolve("logs");
+        Files.createDirectories(logsDir);
+        if (previous != null) {
+            previous.sampling.stop();
+        }
+        JfrController jfr = new JfrController(logsDir.resolve("jfr.log"), jvmRuntimeEvents);
+        jfr.start();
+        FrameTimingCapture frameTiming = new FrameTimingCapture(dir.resolve("frametimes.csv"), jfr.startWall());
+        frameTiming.start();
+        SamplingScheduler sampling = new SamplingScheduler();
+        List<Path> samplerFiles = samplers.register(sampling, dir);
+        if (!sampling.isEmpty()) {
+            sampling.start();
+        }
+        if (previous != null) {
+            previous.closeRecording();
+        }
+        listener.opened(dir, jfr.startWall(), samplerFiles);
+        log.accept("Segment " + index + " started: " + dir.getFileName());
+        return new Segment(index, dir, jfr, frameTiming, sampling);
+    }
+
+    private SegmentResult analyse(Segment segment) {
+        long t0 = System.nanoTime();
+        Path dir = segment.dir;
+        Path recording = dir.resolve("recording.jfr");
+        Path badFrames = dir.resolve("bad_frames.json");
+        Instant start = segment.jfr.startWall();
+        Instant end = segment.jfr.endWall() != null ? segment.jfr.endWall() : Instant.now();
+        String status = "ok";
+        long totalFrames = 0L;
+        long bad = 0L;
+        try {
+            Path frames = DiagnoseOrchestrator.selectFrameSource(dir.resolve("frametimes.csv"));
+            if (frames == null) {
+                status = "no_frames";
+            } else {
+                new JfrParser()
+                    .withThreadSchedCsv(dir.resolve("thread_sched.csv"))
+                    .withPressureCsv(dir.resolve("system_pressure.csv"))
+                    .withProcessIoCsv(dir.resolve("process_io.csv"))
+                    .withOffHeapCsv(dir.resolve("offheap.csv"))
+                    .parse(recording, frames, badFrames, start, end);
+                String json = Files.readString(badFrames, StandardCharsets.UTF_8);
+                totalFrames = readCount(json, TOTAL_FRAMES);
+                bad = readCount(json, BAD_FRAMES);
+            }
+        } catch (Exception e) {
+            status = "analysis_failed";
+            TaggerMod.LOGGER.warn("[Diagnose][Segments] analysis of {} failed", dir.getFileName(), e);
+        }
+        long analysisMs = (System.nanoTime() - t0) / 1_000_000L;
+        long jfrBytes = 0L;
+        try {
+            jfrBytes = Files.exists(recording) ? Files.size(recording) : 0L;
+        } catch (Exception ignored) {
+        }
+        log.accept("Segment " + segment.index + " analysed in " + analysisMs + " ms: frames=" + totalFrames + " bad=" + bad + " status=" + status);
+        return new SegmentResult(segment.index, dir.getFileName().toString(), start, end, totalFrames, bad, jfrBytes, analysisMs, status);
+    }
+
+    static long readCount(String json, Pattern key) {
+        Matcher m = key.matcher(json);
+        return m.find() ? Long.parseLong(m.group(1)) : 0L;
+    }
+
+    static String formatIndex(List<SegmentResult> results) {
+        StringBuilder out = new StringBuilder(INDEX_HEADER).append('\n');
+        for (SegmentResult r : results) {
+            out.append(r.index()).append(',')
+                .append(r.dir()).append(',')
+                .append(r.start()).append(',')
+                .append(r.end()).append(',')
+                .append(r.totalFrames()).append(',')
+                .append(r.badFrames()).append(',')
+                .append(String.format(Locale.ROOT, "%.3f", badPct(r.badFrames(), r.totalFrames()))).append(',')
+                .append(r.jfrBytes()).append(',')
+                .append(r.analysisMs()).append(',')
+                .append(r.status()).append('\n');
+        }
+        return out.toString();
+    }
+
+    static String formatSummary(List<SegmentResult> results) {
+        long frames = 0L;
+        long bad = 0L;
+        long jfrBytes = 0L;
+        long analysisMs = 0L;
+        long maxAnalysisMs = 0L;
+        int failed = 0;
+        for (SegmentResult r : results) {
+            frames += r.totalFrames();
+            bad += r.badFrames();
+            jfrBytes += r.jfrBytes();
+            analysisMs += r.analysisMs();
+            maxAnalysisMs = Math.max(maxAnalysisMs, r.analysisMs());
+            if (!r.status().equals("ok")) {
+                failed++;
+            }
+        }
+        Duration span = results.isEmpty() ? Duration.ZERO : Duration.between(results.get(0).start(), results.get(results.size() - 1).end());
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "Segmented capture: %d segment(s) over %.1f min (%d without analysis)%n",
+            results.size(), span.toMillis() / 60_000d, failed));
+        out.append(String.format(Locale.ROOT, "Frames: %d, bad frames: %d (%.3f%%)%n", frames, bad, badPct(bad, frames)));
+        out.append(String.format(Locale.ROOT, "JFR: %.1f MB total; analysis %d ms total, %d ms worst segment%n",
+            jfrBytes / (1024d * 1024d), analysisMs, maxAnalysisMs));
+        List<SegmentResult> worst = new ArrayList<>(results);
+        worst.removeIf(r -> r.badFrames() == 0L);
+        worst.sort(Comparator.comparingDouble((SegmentResult r) -> badPct(r.badFrames(), r.totalFrames())).reversed());
+        if (!worst.isEmpty()) {
+            out.append(String.format(Locale.ROOT, "%nWorst segments by bad frame share (see <dir>/bad_frames.json):%n"));
+            for (SegmentResult r : worst.subList(0, Math.min(WORST_SEGMENTS, worst.size()))) {
+                out.append(String.format(Locale.ROOT, "  %-12s %s  %6d / %7d frames  %7.3f%%%n",
+                    r.dir(), r.start(), r.badFrames(), r.totalFrames(), badPct(r.badFrames(), r.totalFrames())));
+            }
+        }
+        return out.toString();
+    }
+
+    private static double badPct(long bad, long frames) {
+        return frames > 0L ? bad * 100d / frames : 0d;
+    }
+
+    private static final class Segment {
+        final int index;
+        final Path dir;
+        final JfrController jfr;
+        final FrameTimingCapture frameTiming;
+        final SamplingScheduler sampling;
+        private boolean recordingClosed;
+
+        Segment(int index, Path dir, JfrController jfr, FrameTimingCapture frameTiming, SamplingScheduler sampling) {
+            this.index = index;
+            this.dir = dir;
+            this.jfr = jfr;
+            this.frameTiming = frameTiming;
+            this.sampling = sampling;
+        }
+
+        void closeRecording() throws Exception {
+            if (recordingClosed) {
+                return;
+            }
+            recordingClosed = true;
+            frameTiming.stop();
+            jfr.stopAndDump(dir.resolve("recording.jfr"));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * A hold on the JVM-wide {@link ThreadMXBean} thread CPU time and allocation switches. The first hold turns on
+ * whichever are supported and off; the last one closed puts them back as it found them. JFR frame summaries and
+ * the JVM thread sampler both read these counters, so neither may switch them off while the other still runs.
+ */
+final class ThreadCounters implements AutoCloseable {
+    private static final Object LOCK = new Object();
+    private static int holders;
+    private static boolean enabledCpuTime;
+    private static boolean enabledAlloc;
+
+    private boolean closed;
+
+    private ThreadCounters() {
+    }
+
+    static ThreadCounters acquire() {
+        synchronized (LOCK) {
+            if (holders == 0) {
+                enableSupported();
+            }
+            holders++;
+            return new ThreadCounters();
+        }
+    }
+
+    static boolean cpuTimeEnabled() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean.isCurrentThreadCpuTimeSupported() && bean.isThreadCpuTimeEnabled();
+    }
+
+    static boolean allocationEnabled() {
+        return ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+            && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled();
+    }
+
+    static int holders() {
+        synchronized (LOCK) {
+            return holders;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (LOCK) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (--holders == 0) {
+                restore();
+            }
+        }
+    }
+
+    private static void enableSupported() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        enabledCpuTime = false;
+        enabledAlloc = false;
+        try {
+            if (bean.isThreadCpuTimeSupported() && !bean.isThreadCpuTimeEnabled()) {
+                bean.setThreadCpuTimeEnabled(true);
+                enabledCpuTime = true;
+            }
+            if (bean instanceof com.sun.management.ThreadMXBean sunBean
+                && sunBean.isThreadAllocatedMemorySupported() && !sunBean.isThreadAllocatedMemoryEnabled()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+                enabledAlloc = true;
+            }
+        } catch (RuntimeException e) {
+            restore();
+            throw e;
+        }
+    }
+
+    private static void restore() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        try {
+            if (enabledCpuTime) {
+                bean.setThreadCpuTimeEnabled(false);
+            }
+            if (enabledAlloc && bean instanceof com.sun.management.ThreadMXBean sunBean) {
+                sunBean.setThreadAllocatedMemoryEnabled(false);
+            }
+        } finally {
+            enabledCpuTime = false;
+            enabledAlloc = false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import java.util.List;
+
+/**
+ * Thread-name to role mapping shared by {@link JvmThreadSampler} and {@link ThreadSchedSampler}, so the role columns
+ * in jvm_threads.csv and thread_sched.csv can be joined. Matches on prefixes that survive the 15-character Linux comm
+ * truncation ({@code "C2 CompilerThre"}, {@code "Worker-Main-12"}).
+ */
+final class ThreadRoles {
+    static final List<String> ROLES = List.of("render", "server", "chunk_workers", "io", "gc", "jit", "jfr", "insignia", "jvm", "other");
+
+    private ThreadRoles() {
+    }
+
+    static String role(String name) {
+        if (name.startsWith("Render thread")) {
+            return "render";
+        }
+        if (name.startsWith("Server thread")) {
+            return "server";
+        }
+        if (name.startsWith("Worker-Main") || name.startsWith("Worker-Bootstrap") || name.startsWith("Chunk Render")
+            || name.startsWith("Sodium") || name.startsWith("c2me")) {
+            return "chunk_workers";
+        }
+        if (name.startsWith("IO-Worker") || name.contains("Netty") || name.startsWith("Download-") || name.startsWith("Server Connector")) {
+            return "io";
+        }
+        if (name.startsWith("GC ") || name.startsWith("G1 ") || name.startsWith("ZGC") || name.startsWith("Shenandoah")) {
+            return "gc";
+        }
+        if (name.startsWith("C1 Compiler") || name.startsWith("C2 Compiler")) {
+            return "jit";
+        }
+        if (name.startsWith("JFR ")) {
+            return "jfr";
+        }
+        if (name.startsWith("insignia-")) {
+            return "insignia";
+        }
+        if (name.equals("Reference Handler") || name.equals("Finalizer") || name.equals("Signal Dispatcher")
+            || name.equals("Common-Cleaner") || name.equals("Attach Listener") || name.equals("Notification Thread")
+            || name.equals("DestroyJavaVM") || name.startsWith("process reaper") || name.startsWith("ForkJoinPool.commonPool")) {
+            return "jvm";
+        }
+        return "other";
+    }
+}
@@ -0,0 +1,240 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.infiniteimperm.fabric.tagger.TaggerMod;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Linux-only per-thread scheduler sampler. Reads {@code /proc/self/task/<tid>/{stat,schedstat,status}}
+ * every interval and writes per-thread deltas of CPU time, run-queue wait and context switches, so a
+ * bad frame can be told apart as "render thread busy" vs "render thread runnable but not scheduled".
+ */
+public final class ThreadSchedSampler implements SamplingScheduler.Sampler {
+    static final String CSV_HEADER = "ts_ms,mono_ns,interval_ms,tid,thread,role,cpu_us,run_wait_us,vol_csw,invol_csw";
+    // USER_HZ is 100 on every mainstream kernel; only used when schedstat is unavailable.
+    private static final long NS_PER_CLOCK_TICK = 10_000_000L;
+    private static final Path TASK_DIR = Path.of("/proc/self/task");
+
+    private final Path outCsv;
+    private final long intervalMs;
+    private final Path taskDir;
+    private final Map<Long, String> namesByTid = new HashMap<>();
+    private final StringBuilder sb = new StringBuilder(4096);
+    private SamplerOutput writer;
+    private Map<Long, ThreadSample> previous;
+    private long previousWallMs;
+    private long rowsWritten;
+
+    public ThreadSchedSampler(Path outCsv, long intervalMs) {
+        this(outCsv, intervalMs, TASK_DIR);
+    }
+
+    ThreadSchedSampler(Path outCsv, long intervalMs, Path taskDir) {
+        this.outCsv = outCsv;
+        this.intervalMs = intervalMs;
+        this.taskDir = taskDir;
+    }
+
+    public static boolean isSupported() {
+        return Files.isDirectory(TASK_DIR);
+    }
+
+    @Override
+    public String name() {
+        return "thread-sched";
+    }
+
+    @Override
+    public long intervalMs() {
+        return intervalMs;
+    }
+
+    @Override
+    public void open(SamplingScheduler.Tick tick) throws Exception {
+        writer = SamplerOutput.csv(outCsv, CSV_HEADER);
+        previous = snapshot();
+        previousWallMs = tick.wallMillis();
+    }
+
+    @Override
+    public void sample(SamplingScheduler.Tick tick) throws Exception {
+        Map<Long, ThreadSample> current = snapshot();
+        sb.setLength(0);
+        for (ThreadSample now : current.values()) {
+            ThreadSample before = previous.get(now.tid());
+            if (before == null) {
+                continue;
+            }
+            long cpuNs = now.cpuNs() - before.cpuNs();
+            long waitNs = now.runWaitNs() < 0L || before.runWaitNs() < 0L ? 0L : now.runWaitNs() - before.runWaitNs();
+            long vol = now.voluntarySwitches() - before.voluntarySwitches();
+            long invol = now.involuntarySwitches() - before.involuntarySwitches();
+            if (cpuNs <= 0L && waitNs <= 0L && vol <= 0L && invol <= 0L) {
+                continue;
+            }
+            sb.append(tick.wallMillis()).append(',')
+                .append(tick.nanoTime()).append(',')
+                .append(tick.wallMillis() - previousWallMs).append(',')
+                .append(now.tid()).append(',')
+                .append(csvCell(now.name())).append(',')
+                .append(ThreadRoles.role(now.name())).append(',')
+                .append(Math.max(0L, cpuNs) / 1_000L).append(',')
+                .append(Math.max(0L, waitNs) / 1_000L).append(',')
+                .append(Math.max(0L, vol)).append(',')
+                .append(Math.max(0L, invol)).append('\n');
+            rowsWritten++;
+        }
+        writer.write(sb, tick.wallMillis());
+        previous = current;
+        previousWallMs = tick.wallMillis();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (Exception e) {
+            TaggerMod.LOGGER.warn("[Diagnose][ThreadSched] Failed closing output", e);
+        }
+        TaggerMod.LOGGER.info("[Diagnose][ThreadSched] stopped rows={} intervalMs={}", rowsWritten, intervalMs);
+    }
+
+    private Map<Long, ThreadSample> snapshot() {
+        Map<Long, ThreadSample> samples = new HashMap<>();
+        List<Path> tasks;
+        try (Stream<Path> list = Files.list(taskDir)) {
+            tasks = list.toList();
+        } catch (Exception e) {
+            return samples;
+        }
+        for (Path task : tasks) {
+            try {
+                long tid = Long.parseLong(task.getFileName().toString());
+                ThreadSample sample = readTask(tid, task);
+                if (sample != null) {
+                    samples.put(tid, sample);
+                }
+            } catch (Exception ignored) {
+                // Thread exited between listing and reading.
+            }
+        }
+        namesByTid.keySet().retainAll(samples.keySet());
+        return samples;
+    }
+
+    private ThreadSample readTask(long tid, Path task) throws Exception {
+        String stat = Files.readString(task.resolve("stat"), StandardCharsets.US_ASCII);
+        String comm = commFromStat(stat);
+        long cpuNs = cpuTicksFromStat(stat) * NS_PER_CLOCK_TICK;
+        long runWaitNs = -1L;
+        Path schedstat = task.resolve("schedstat");
+        if (Files.isReadable(schedstat)) {
+            long[] sched = parseSchedstat(Files.readString(schedstat, StandardCharsets.US_ASCII));
+            if (sched != null) {
+                cpuNs = sched[0];
+                runWaitNs = sched[1];
+            }
+        }
+        long[] switches = parseContextSwitches(Files.readString(task.resolve("status"), StandardCharsets.US_ASCII));
+        String name = namesByTid.computeIfAbsent(tid, ignored -> resolveJavaThreadName(comm));
+        return new ThreadSample(tid, name, cpuNs, runWaitNs, switches[0], switches[1]);
+    }
+
+    /**
+     * The kernel truncates thread names to 15 bytes; map back to the full Java name when exactly one live
+     * Java thread has that prefix (e.g. {@code Worker-Main-12}, {@code Netty Client IO #3}).
+     */
+    static String resolveJavaThreadName(String comm) {
+        if (comm.length() < 15) {
+            return comm;
+        }
+        String match = null;
+        for (Thread t : liveThreads()) {
+            String name = t.getName();
+            if (name.startsWith(comm)) {
+                if (match != null && !match.equals(name)) {
+                    return comm;
+                }
+                match = name;
+            }
+        }
+        return match != null ? match : comm;
+    }
+
+    private static List<Thread> liveThreads() {
+        ThreadGroup root = Thread.currentThread().getThreadGroup();
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        Thread[] threads = new Thread[root.activeCount() + 16];
+        int n = root.enumerate(threads, true);
+        List<Thread> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            out.add(threads[i]);
+        }
+        return out;
+    }
+
+    static String commFromStat(String stat) {
+        int open = stat.indexOf('(');
+        int close = stat.lastIndexOf(')');
+        return open >= 0 && close > open ? stat.substring(open + 1, close) : "";
+    }
+
+    // utime + stime (fields 14 and 15); counted after the comm field since comm may contain spaces.
+    static long cpuTicksFromStat(String stat) {
+        int close = stat.lastIndexOf(')');
+        if (close < 0) {
+            return 0L;
+        }
+        String[] fields = stat.substring(close + 1).trim().split("\\s+");
+        if (fields.length < 13) {
+            return 0L;
+        }
+        return Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+    }
+
+    static long[] parseSchedstat(String schedstat) {
+        String[] fields = schedstat.trim().split("\\s+");
+        if (fields.length < 2) {
+            return null;
+        }
+        try {
+            return new long[]{Long.parseLong(fields[0]), Long.parseLong(fields[1])};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static long[] parseContextSwitches(String status) {
+        long voluntary = 0L;
+        long involuntary = 0L;
+        for (String line : status.split("\n")) {
+            if (line.startsWith("voluntary_ctxt_switches:")) {
+                voluntary = Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            } else if (line.startsWith("nonvoluntary_ctxt_switches:")) {
+                involuntary = Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            }
+        }
+        return new long[]{voluntary, involuntary};
+    }
+
+    private static String csvCell(String value) {
+        if (value.contains(",") || value.contains("\"")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    private record ThreadSample(long tid, String name, long cpuNs, long runWaitNs, long voluntarySwitches, long involuntarySwitches) {
+    }
+}
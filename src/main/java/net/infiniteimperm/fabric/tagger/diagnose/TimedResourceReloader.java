@@ -0,0 +1,103 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceReloader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wraps a {@link ResourceReloader} so the time its prepare and apply work spends on the reload executors
+ * is reported to {@link JfrController}. Only installed while a capture is recording.
+ */
+public final class TimedResourceReloader implements ResourceReloader {
+    private static final int MAX_THREAD_NAMES = 8;
+
+    private final ResourceReloader delegate;
+
+    private TimedResourceReloader(ResourceReloader delegate) {
+        this.delegate = delegate;
+    }
+
+    public static List<ResourceReloader> wrapAll(List<ResourceReloader> reloaders) {
+        if (reloaders == null || reloaders.isEmpty() || !JfrController.isRecording()) {
+            return reloaders;
+        }
+        List<ResourceReloader> wrapped = new ArrayList<>(reloaders.size());
+        for (ResourceReloader reloader : reloaders) {
+            wrapped.add(reloader instanceof TimedResourceReloader ? reloader : new TimedResourceReloader(reloader));
+        }
+        return wrapped;
+    }
+
+    @Override
+    public CompletableFuture<Void> reload(Synchronizer synchronizer, ResourceManager manager, Executor prepareExecutor, Executor applyExecutor) {
+        StageTimer prepare = new StageTimer(prepareExecutor);
+        StageTimer apply = new StageTimer(applyExecutor);
+        CompletableFuture<Void> future = delegate.reload(synchronizer, manager, prepare, apply);
+        String name = getName();
+        return future.whenComplete((ignored, error) -> {
+            prepare.report(name, "prepare");
+            apply.report(name, "apply");
+        });
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    private static final class StageTimer implements Executor {
+        private final Executor executor;
+        private final AtomicLong firstStartNs = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastEndNs = new AtomicLong(0L);
+        private final AtomicLong busyNs = new AtomicLong(0L);
+        private final AtomicInteger tasks = new AtomicInteger(0);
+        private final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        private StageTimer(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    command.run();
+                } finally {
+                    long end = System.nanoTime();
+                    firstStartNs.accumulateAndGet(start, Math::min);
+                    lastEndNs.accumulateAndGet(end, Math::max);
+                    busyNs.addAndGet(end - start);
+                    tasks.incrementAndGet();
+                    if (threads.size() < MAX_THREAD_NAMES) {
+                        threads.add(Thread.currentThread().getName());
+                    }
+                }
+            });
+        }
+
+        private void report(String reloader, String stage) {
+            int count = tasks.get();
+            if (count <= 0) {
+                return;
+            }
+            JfrController.onResourceReloaderStage(
+                reloader,
+                stage,
+                firstStartNs.get(),
+                lastEndNs.get(),
+                busyNs.get(),
+                count,
+                String.join("|", new TreeSet<>(threads)));
+        }
+    }
+}
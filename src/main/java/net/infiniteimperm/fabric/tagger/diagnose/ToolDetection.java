@@ -27,11 +27,16 @@ public final class ToolDetection {
         report.wpaExporter = detectExe("WPAExporter", "wpaexporter.exe", commonWpaExporterPaths());
         report.tracerpt = detectExe("tracerpt", "tracerpt.exe", commonTracerptPaths());
         report.typeperf = detectExe("typeperf", "typeperf.exe", commonTypeperfPaths());
-        report.nvidiaSmi = detectExe("nvidia-smi", "nvidia-smi.exe", commonNvidiaSmiPaths());
+        report.nvidiaSmi = detectNvidiaSmi();
         report.sparkPresent = FabricLoader.getInstance().isModLoaded("spark");
         return report;
     }
 
+    // nvidia-smi also ships with the Linux driver, where it is found on PATH without the .exe suffix.
+    public static ToolInfo detectNvidiaSmi() {
+        return detectExe("nvidia-smi", isWindows() ? "nvidia-smi.exe" : "nvidia-smi", commonNvidiaSmiPaths());
+    }
+
     public static boolean isWindows() {
         return System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("win");
     }
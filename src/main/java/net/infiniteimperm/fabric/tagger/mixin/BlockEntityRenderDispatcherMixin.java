@@ -0,0 +1,54 @@
+package net.infiniteimperm.fabric.tagger.mixin;
+
+import net.infiniteimperm.fabric.tagger.diagnose.JfrController;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.block.entity.BlockEntityType;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.render.block.entity.BlockEntityRenderDispatcher;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.function.Function;
+
+@Mixin(BlockEntityRenderDispatcher.class)
+abstract class BlockEntityRenderDispatcherMixin {
+    @Unique
+    private static final Function<Object, String> INSIGNIA_TYPE_NAMER =
+        type -> String.valueOf(Registries.BLOCK_ENTITY_TYPE.getId((BlockEntityType<?>) type));
+
+    @Unique
+    private long insigniaBlockEntityStartNs;
+
+    @Inject(
+        method = "render(Lnet/minecraft/block/entity/BlockEntity;FLnet/minecraft/client/util/math/MatrixStack;Lnet/minecraft/client/render/VertexConsumerProvider;)V",
+        at = @At("HEAD")
+    )
+    private void insignia$beforeBlockEntityRender(BlockEntity blockEntity, float tickDelta, MatrixStack matrices, VertexConsumerProvider vertexConsumers, CallbackInfo ci) {
+        JfrController.onBlockEntityHookSeen();
+        insigniaBlockEntityStartNs = System.nanoTime();
+    }
+
+    @Inject(
+        method = "render(Lnet/minecraft/block/entity/BlockEntity;FLnet/minecraft/client/util/math/MatrixStack;Lnet/minecraft/client/render/VertexConsumerProvider;)V",
+        at = @At("RETURN")
+    )
+    private void insignia$afterBlockEntityRender(BlockEntity blockEntity, float tickDelta, MatrixStack matrices, VertexConsumerProvider vertexConsumers, CallbackInfo ci) {
+        if (insigniaBlockEntityStartNs > 0L && blockEntity != null) {
+            BlockPos pos = blockEntity.getPos();
+            JfrController.onBlockEntityRender(
+                blockEntity.getType(),
+                INSIGNIA_TYPE_NAMER,
+                pos.getX(),
+                pos.getY(),
+                pos.getZ(),
+                Math.max(0L, System.nanoTime() - insigniaBlockEntityStartNs));
+        }
+        insigniaBlockEntityStartNs = 0L;
+    }
+}
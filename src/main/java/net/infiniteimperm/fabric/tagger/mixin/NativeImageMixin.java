@@ -1,6 +1,7 @@
 package net.infiniteimperm.fabric.tagger.mixin;
 
 import net.infiniteimperm.fabric.tagger.diagnose.JfrController;
+import net.infiniteimperm.fabric.tagger.diagnose.OffHeapCollector;
 import net.minecraft.client.texture.NativeImage;
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
@@ -15,10 +16,33 @@ abstract class NativeImageMixin {
     @Shadow
     @Final
     private NativeImage.Format format;
+    @Shadow
+    private long pointer;
+    @Shadow
+    @Final
+    private long sizeBytes;
 
     @Unique
     private long insigniaTextureUploadStartNs;
 
+    // Both constructors that set the pointer; the (width, height, useStb) one delegates to the first.
+    @Inject(method = {
+        "<init>(Lnet/minecraft/client/texture/NativeImage$Format;IIZ)V",
+        "<init>(Lnet/minecraft/client/texture/NativeImage$Format;IIZJ)V"
+    }, at = @At("RETURN"))
+    private void insignia$afterAllocate(CallbackInfo ci) {
+        if (pointer != 0L) {
+            OffHeapCollector.onNativeImageMemory(sizeBytes);
+        }
+    }
+
+    @Inject(method = "close", at = @At("HEAD"))
+    private void insignia$beforeClose(CallbackInfo ci) {
+        if (pointer != 0L) {
+            OffHeapCollector.onNativeImageMemory(-sizeBytes);
+        }
+    }
+
     @Inject(method = "uploadInternal", at = @At("HEAD"))
     private void insignia$beforeTextureUpload(
         int level,
@@ -55,6 +79,7 @@ abstract class NativeImageMixin {
         long durationNs = insigniaTextureUploadStartNs > 0L ? Math.max(0L, System.nanoTime() - insigniaTextureUploadStartNs) : 0L;
         long bytes = Math.max(0L, (long) width * height * format.getChannelCount());
         JfrController.onTextureUploadBatch(1, bytes, durationNs);
+        OffHeapCollector.onTextureUpload(bytes);
         insigniaTextureUploadStartNs = 0L;
     }
 }
@@ -0,0 +1,33 @@
+package net.infiniteimperm.fabric.tagger.mixin;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.infiniteimperm.fabric.tagger.diagnose.FrameTimingCapture;
+import net.infiniteimperm.fabric.tagger.diagnose.JfrController;
+import net.infiniteimperm.fabric.tagger.diagnose.RenderStallWatchdog;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(value = RenderSystem.class, remap = false)
+abstract class RenderSystemFlipFrameMixin {
+    @Inject(
+        method = "flipFrame",
+        at = @At(value = "INVOKE", target = "Lorg/lwjgl/glfw/GLFW;glfwSwapBuffers(J)V"),
+        require = 0
+    )
+    private static void insignia$beforeSwapBuffers(CallbackInfo ci) {
+        FrameTimingCapture.onSwapStart();
+    }
+
+    @Inject(
+        method = "flipFrame",
+        at = @At(value = "INVOKE", target = "Lorg/lwjgl/glfw/GLFW;glfwSwapBuffers(J)V", shift = At.Shift.AFTER),
+        require = 0
+    )
+    private static void insignia$afterSwapBuffers(CallbackInfo ci) {
+        FrameTimingCapture.onSwapEnd();
+        RenderStallWatchdog.onFramePresented();
+        JfrController.onFramePresented();
+    }
+}
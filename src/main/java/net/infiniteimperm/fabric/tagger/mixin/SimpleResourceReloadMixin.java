@@ -0,0 +1,18 @@
+package net.infiniteimperm.fabric.tagger.mixin;
+
+import net.infiniteimperm.fabric.tagger.diagnose.TimedResourceReloader;
+import net.minecraft.resource.ResourceReloader;
+import net.minecraft.resource.SimpleResourceReload;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.ModifyVariable;
+
+import java.util.List;
+
+@Mixin(SimpleResourceReload.class)
+abstract class SimpleResourceReloadMixin {
+    @ModifyVariable(method = "start", at = @At("HEAD"), argsOnly = true, require = 0)
+    private static List<ResourceReloader> insignia$timeReloaders(List<ResourceReloader> reloaders) {
+        return TimedResourceReloader.wrapAll(reloaders);
+    }
+}
@@ -0,0 +1,21 @@
+package net.infiniteimperm.fabric.tagger.mixin;
+
+import net.infiniteimperm.fabric.tagger.diagnose.JfrController;
+import net.infiniteimperm.fabric.tagger.diagnose.MainThreadTaskTimer;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.util.thread.ThreadExecutor;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.ModifyVariable;
+
+@Mixin(ThreadExecutor.class)
+abstract class ThreadExecutorMixin {
+    // Only the client executor is timed; its task type is plain Runnable, so the wrapper fits the queue.
+    @ModifyVariable(method = "send", at = @At("HEAD"), argsOnly = true, require = 0)
+    private Runnable insignia$timeClientTask(Runnable task) {
+        if ((Object) this instanceof MinecraftClient client && JfrController.isRecording()) {
+            return MainThreadTaskTimer.wrap(task, client.getTaskCount());
+        }
+        return task;
+    }
+}
@@ -1,6 +1,7 @@
 package net.infiniteimperm.fabric.tagger.mixin;
 
 import net.infiniteimperm.fabric.tagger.diagnose.JfrController;
+import net.infiniteimperm.fabric.tagger.diagnose.OffHeapCollector;
 import net.minecraft.client.gl.VertexBuffer;
 import net.minecraft.client.render.BuiltBuffer;
 import org.jetbrains.annotations.Nullable;
@@ -16,6 +17,8 @@ abstract class VertexBufferMixin {
     private long insigniaUploadStartNs;
     @Unique
     private long insigniaUploadBytes;
+    @Unique
+    private long insigniaResidentBytes;
 
     @Inject(method = "upload", at = @At("HEAD"))
     private void insignia$beforeVertexUpload(BuiltBuffer data, CallbackInfo ci) {
@@ -38,7 +41,16 @@ abstract class VertexBufferMixin {
     private void insignia$afterVertexUpload(BuiltBuffer data, CallbackInfo ci) {
         long durationNs = insigniaUploadStartNs > 0L ? Math.max(0L, System.nanoTime() - insigniaUploadStartNs) : 0L;
         JfrController.onBufferUploadBatch(1, insigniaUploadBytes, durationNs);
+        OffHeapCollector.onVertexUpload(insigniaUploadBytes);
+        OffHeapCollector.onVertexBufferMemory(insigniaUploadBytes - insigniaResidentBytes);
+        insigniaResidentBytes = insigniaUploadBytes;
         insigniaUploadStartNs = 0L;
         insigniaUploadBytes = 0L;
     }
+
+    @Inject(method = "close", at = @At("HEAD"))
+    private void insignia$beforeClose(CallbackInfo ci) {
+        OffHeapCollector.onVertexBufferMemory(-insigniaResidentBytes);
+        insigniaResidentBytes = 0L;
+    }
 }
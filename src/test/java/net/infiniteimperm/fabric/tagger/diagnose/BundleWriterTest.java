@@ -7,6 +7,7 @@ import java.nio.charset.StandardCharsets;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -56,6 +57,23 @@ class BundleWriterTest {
         assertTrue(json.contains("\"nvidia_smi\": true"));
     }
 
+    @Test
+    void manifestRecordsCollectorSpansAndCaptureWindow() throws Exception {
+        ToolDetection.DetectionReport report = ToolDetection.detectAll();
+        Instant t0 = Instant.parse("2026-01-01T10:00:00Z");
+        Path manifest = tempDir.resolve("index.json");
+
+        BundleWriter.writeManifest(manifest, report, List.of(), List.of(), List.of("ok"),
+            List.of(new CollectorStartup.Timing("jfr", t0, t0.plusSeconds(60), "ok"),
+                new CollectorStartup.Timing("nvidia_smi", null, null, "not_started")),
+            new CollectorStartup.Window(t0.plusMillis(250), t0.plusSeconds(59)));
+        String json = Files.readString(manifest, StandardCharsets.UTF_8);
+
+        assertTrue(json.contains("{\"name\": \"jfr\", \"start\": \"2026-01-01T10:00:00Z\", \"stop\": \"2026-01-01T10:01:00Z\", \"status\": \"ok\"},"));
+        assertTrue(json.contains("{\"name\": \"nvidia_smi\", \"start\": null, \"stop\": null, \"status\": \"not_started\"}"));
+        assertTrue(json.contains("\"capture_window\": {\"start\": \"2026-01-01T10:00:00.250Z\", \"end\": \"2026-01-01T10:00:59Z\", \"duration_ms\": 58750},"));
+    }
+
     @Test
     void zipResultsFailsWhenRequiredArtifactIsMissing() throws Exception {
         Path runDir = tempDir.resolve("run-missing");
@@ -0,0 +1,99 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CaptureRecoveryTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void stitchesReadableChunksInOrderAndSkipsTornOnes() throws Exception {
+        Path repository = tempDir.resolve("repo");
+        Files.createDirectories(repository);
+        Instant since = Instant.now().minusSeconds(5);
+        Path first = repository.resolve("2026_01_01_10_00_00.jfr");
+        Path second = repository.resolve("2026_01_01_10_00_05.jfr");
+        dumpRecording(first);
+        dumpRecording(second);
+        Path torn = repository.resolve("2026_01_01_10_00_10.jfr");
+        Files.write(torn, new byte[]{'F', 'L', 'R', 0, 0, 2, 0, 1, 0, 0});
+        Path older = repository.resolve("2025_12_31_09_00_00.jfr");
+        Files.copy(first, older);
+        Files.setLastModifiedTime(older, FileTime.from(since.minusSeconds(60)));
+
+        Path out = tempDir.resolve("recording.jfr");
+        CaptureRecovery.Stitched stitched = CaptureRecovery.stitchChunks(repository, since, out);
+
+        assertEquals(2, stitched.chunks());
+        assertEquals(1, stitched.skipped());
+        assertEquals(Files.size(first) + Files.size(second), stitched.bytes());
+        assertEquals(countEvents(first) + countEvents(second), countEvents(out));
+    }
+
+    @Test
+    void leavesNoRecordingWhenNothingSurvived() throws Exception {
+        Path out = tempDir.resolve("recording.jfr");
+        CaptureRecovery.Stitched stitched = CaptureRecovery.stitchChunks(tempDir.resolve("missing"), Instant.EPOCH, out);
+        assertEquals(0, stitched.chunks());
+        assertFalse(Files.exists(out));
+    }
+
+    @Test
+    void endsCaptureAtLastWrittenFile() throws Exception {
+        Instant start = Instant.parse("2026-01-01T10:00:00Z");
+        Path csv = tempDir.resolve("process_io.csv");
+        Files.writeString(csv, ProcessIoSampler.CSV_HEADER + "\n", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(csv, FileTime.from(start.plusSeconds(42)));
+
+        assertEquals(start.plusSeconds(42), CaptureRecovery.lastWrite(List.of(csv, tempDir.resolve("absent.csv")), start));
+        assertEquals(start, CaptureRecovery.lastWrite(List.of(), start));
+    }
+
+    @Test
+    void treatsOnlyOlderLiveProcessAsOwner() {
+        long self = ProcessHandle.current().pid();
+        assertFalse(DiagnoseOrchestrator.isOwnerAlive(self, Instant.now()));
+        assertFalse(DiagnoseOrchestrator.isOwnerAlive(-1L, Instant.now()));
+        ProcessHandle parent = ProcessHandle.current().parent().orElse(null);
+        if (parent != null && parent.info().startInstant().isPresent()) {
+            Instant parentStart = parent.info().startInstant().get();
+            assertTrue(DiagnoseOrchestrator.isOwnerAlive(parent.pid(), parentStart.plusSeconds(1)));
+            assertFalse(DiagnoseOrchestrator.isOwnerAlive(parent.pid(), parentStart.minusSeconds(1)));
+        }
+    }
+
+    private static void dumpRecording(Path out) throws Exception {
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.JavaThreadStatistics");
+            recording.start();
+            Thread.sleep(20L);
+            recording.stop();
+            recording.dump(out);
+        }
+    }
+
+    private static int countEvents(Path jfr) throws Exception {
+        int events = 0;
+        try (RecordingFile file = new RecordingFile(jfr)) {
+            while (file.hasMoreEvents()) {
+                file.readEvent();
+                events++;
+            }
+        }
+        return events;
+    }
+}
@@ -0,0 +1,94 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CaptureTriggersTest {
+    private static final long SECOND_NS = 1_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void frameWindowFiresWhenPercentileExceedsLimit() {
+        CaptureTriggers.FrameWindow window = new CaptureTriggers.FrameWindow(2, 20, 90);
+        long now = 100L * SECOND_NS;
+        // 100 frames in one second, 5 slow: the p90 stays under the limit.
+        for (int i = 0; i < 100; i++) {
+            assertFalse(window.record(now + i * 1_000_000L, i < 5 ? 50_000_000L : 10_000_000L));
+        }
+        assertFalse(window.record(now + SECOND_NS, 10_000_000L));
+        // Next second: 30 of 100 slow puts the window at 35 of 201 (> 10%).
+        for (int i = 1; i < 100; i++) {
+            window.record(now + SECOND_NS + i * 1_000_000L, i <= 30 ? 50_000_000L : 10_000_000L);
+        }
+        assertTrue(window.record(now + 2 * SECOND_NS, 10_000_000L));
+    }
+
+    @Test
+    void frameWindowNeedsEnoughFramesAndForgetsOldSeconds() {
+        CaptureTriggers.FrameWindow window = new CaptureTriggers.FrameWindow(1, 20, 99);
+        long now = 10L * SECOND_NS;
+        for (int i = 0; i < 10; i++) {
+            window.record(now + i, 100_000_000L);
+        }
+        assertFalse(window.record(now + SECOND_NS, 10_000_000L), "too few frames to judge");
+        for (int i = 0; i < 100; i++) {
+            window.record(now + 5 * SECOND_NS + i, 10_000_000L);
+        }
+        assertFalse(window.exceeded());
+    }
+
+    @Test
+    void repeatedMarksFireOnceAndCooldownHoldsFurtherTriggers() {
+        List<String> fired = new ArrayList<>();
+        CaptureTriggers triggers = new CaptureTriggers(reason -> fired.add(reason));
+        triggers.apply(new CaptureTriggers.Settings(false, false, false, 0, 99, 10, 3, false, 60, 1));
+
+        triggers.mark(0L);
+        triggers.mark(4_000L);
+        triggers.mark(CaptureTriggers.MARK_WINDOW_MS + 1_000L);
+        assertTrue(fired.isEmpty(), "first mark fell out of the window");
+        triggers.mark(12_000L);
+        assertEquals(List.of("f8_x3"), fired);
+
+        triggers.fire("world_join", 30_000L);
+        assertEquals(1, fired.size(), "cooldown");
+        triggers.fire("world_join", 12_000L + 60_000L);
+        assertEquals(List.of("f8_x3", "world_join"), fired);
+    }
+
+    @Test
+    void busySinkDoesNotStartCooldown() {
+        List<String> fired = new ArrayList<>();
+        boolean[] busy = {true};
+        CaptureTriggers triggers = new CaptureTriggers(reason -> {
+            fired.add(reason);
+            return !busy[0];
+        });
+        triggers.apply(new CaptureTriggers.Settings(true, false, false, 0, 99, 10, 0, false, 60, 10));
+        triggers.fire("world_join", 1_000L);
+        busy[0] = false;
+        triggers.fire("world_join", 2_000L);
+        triggers.fire("world_join", 3_000L);
+        assertEquals(2, fired.size());
+    }
+
+    @Test
+    void sumsDirectorySizeRecursively() throws Exception {
+        Files.write(tempDir.resolve("a.jfr"), new byte[1000]);
+        Files.createDirectories(tempDir.resolve("run/logs"));
+        Files.write(tempDir.resolve("run/logs/b.log"), new byte[234]);
+        assertEquals(1234L, CaptureTriggers.directorySize(tempDir));
+        assertEquals(0L, CaptureTriggers.directorySize(tempDir.resolve("missing")));
+    }
+}
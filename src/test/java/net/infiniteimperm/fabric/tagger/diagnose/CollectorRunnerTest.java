@@ -0,0 +1,147 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollectorRunnerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void runsLifecycleAndReportsFailuresWithoutFailingCapture() throws Exception {
+        FakeCollector good = new FakeCollector("good", 0L, null);
+        FakeCollector hangs = new FakeCollector("hangs", 5_000L, null);
+        FakeCollector broken = new FakeCollector("broken", 0L, new IllegalStateException("no device"));
+        List<String> notes = Collections.synchronizedList(new ArrayList<>());
+        CollectorContext context = new CollectorContext(tempDir, tempDir, DiagnoseOrchestrator.Mode.NORMAL, 5, notes);
+        CollectorRunner runner = new CollectorRunner(List.of(good, hangs, broken), context, Duration.ofSeconds(1));
+        CollectorStartup startup = new CollectorStartup();
+
+        runner.register(startup);
+        startup.startAll(Duration.ofSeconds(5));
+        assertEquals(List.of(good, hangs), runner.started(startup));
+
+        long t0 = System.nanoTime();
+        runner.stopAll(startup);
+        assertTrue((System.nanoTime() - t0) / 1_000_000L < 3_000L, "hanging stop is bounded by the timeout");
+        runner.stopAll(startup);
+        assertEquals(1, good.stops);
+        assertEquals(1, broken.stops, "stop runs after a failed start");
+        runner.exportAll(startup);
+        assertEquals(1, good.exports);
+        assertEquals(0, broken.exports);
+
+        List<String> working = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        runner.addStatus(working, failed);
+        assertEquals(List.of("good"), working);
+        assertEquals(List.of("hangs", "broken"), failed);
+        assertTrue(notes.contains("broken failed to start: no device"));
+        assertTrue(notes.contains("hangs stop timed out after 1 s."));
+    }
+
+    @Test
+    void selectsByModeOverheadAndCustomToggles() {
+        FakeCollector light = new FakeCollector("light", 0L, null);
+        FakeCollector heavy = new FakeCollector("heavy", 0L, null);
+        heavy.overhead = Collector.Overhead.HIGH;
+        FakeCollector missing = new FakeCollector("missing", 0L, null);
+        missing.detected = false;
+        List<Collector> all = List.of(light, heavy, missing);
+
+        assertEquals(List.of(light), CollectorRegistry.select(all, DiagnoseOrchestrator.Mode.NORMAL, Map.of()));
+        assertEquals(List.of(light, heavy), CollectorRegistry.select(all, DiagnoseOrchestrator.Mode.FULL, Map.of()));
+        assertEquals(List.of(heavy), CollectorRegistry.select(all, DiagnoseOrchestrator.Mode.CUSTOM, Map.of("light", false, "heavy", true)));
+    }
+
+    @Test
+    void dropsDuplicateAndReservedIds() {
+        FakeCollector first = new FakeCollector("gpu", 0L, null);
+        List<Collector> kept = CollectorRegistry.dedupe(List.of(first, new FakeCollector("gpu", 0L, null), new FakeCollector("jfr", 0L, null)));
+        assertEquals(List.of(first), kept);
+    }
+
+    @Test
+    void samplerCollectorsRegisterOnTheSharedSchedulerAndListTheirFiles() {
+        List<Path> created = new ArrayList<>();
+        SamplerCollector sampler = new SamplerCollector("ticks", "ticks", Collector.Overhead.LOW, () -> true,
+            List.of("ticks.csv"), List.of("ticks_summary.txt"), (dir, logsDir) -> {
+                created.add(dir);
+                return List.of();
+            });
+        CollectorContext context = new CollectorContext(tempDir, tempDir, DiagnoseOrchestrator.Mode.NORMAL, 5, new ArrayList<>());
+
+        assertEquals(List.of(), sampler.samplers(tempDir.resolve("segment_1"), tempDir));
+        assertEquals(List.of(tempDir.resolve("segment_1")), created);
+        assertEquals(List.of(tempDir.resolve("ticks.csv")), sampler.dataFiles(tempDir));
+        assertEquals(List.of(tempDir.resolve("ticks.csv"), tempDir.resolve("ticks_summary.txt")), sampler.artifacts(context));
+        assertEquals(List.of(), CollectorRegistry.select(List.of(sampler), DiagnoseOrchestrator.Mode.CUSTOM, Map.of("ticks", false)));
+    }
+
+    private final class FakeCollector implements Collector {
+        private final String id;
+        private final long stopDelayMs;
+        private final Exception startFailure;
+        Collector.Overhead overhead = Collector.Overhead.LOW;
+        boolean detected = true;
+        volatile int stops;
+        volatile int exports;
+
+        FakeCollector(String id, long stopDelayMs, Exception startFailure) {
+            this.id = id;
+            this.stopDelayMs = stopDelayMs;
+            this.startFailure = startFailure;
+        }
+
+        @Override
+        public String id() {
+            return id;
+        }
+
+        @Override
+        public Overhead overhead() {
+            return overhead;
+        }
+
+        @Override
+        public boolean detect() {
+            return detected;
+        }
+
+        @Override
+        public boolean start(CollectorContext context) throws Exception {
+            if (startFailure != null) {
+                throw startFailure;
+            }
+            Files.writeString(context.runDir().resolve(id + ".csv"), "ts_ms\n");
+            return true;
+        }
+
+        @Override
+        public void stop(CollectorContext context) throws Exception {
+            stops++;
+            Thread.sleep(stopDelayMs);
+        }
+
+        @Override
+        public void export(CollectorContext context) {
+            exports++;
+        }
+
+        @Override
+        public List<Path> artifacts(CollectorContext context) {
+            return List.of(context.runDir().resolve(id + ".csv"));
+        }
+    }
+}
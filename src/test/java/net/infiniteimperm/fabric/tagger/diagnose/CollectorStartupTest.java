@@ -0,0 +1,118 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollectorStartupTest {
+    @Test
+    void startsCollectorsTogetherBehindBarrier() throws Exception {
+        AtomicLong firstCall = new AtomicLong(Long.MAX_VALUE);
+        AtomicLong lastCall = new AtomicLong();
+        CollectorStartup startup = new CollectorStartup();
+        for (String name : new String[]{"a", "b", "c"}) {
+            startup.add(name, () -> {
+                long now = System.nanoTime();
+                firstCall.accumulateAndGet(now, Math::min);
+                lastCall.accumulateAndGet(now, Math::max);
+                Thread.sleep(300L);
+                return true;
+            });
+        }
+
+        long t0 = System.nanoTime();
+        startup.startAll();
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000L;
+
+        assertTrue(elapsedMs < 800L, "starters ran one after another: " + elapsedMs + " ms");
+        assertTrue(lastCall.get() - firstCall.get() < 100_000_000L, "start calls released together");
+        assertTrue(startup.started("a") && startup.started("b") && startup.started("c"));
+    }
+
+    @Test
+    void recordsFailuresAndCollectorsThatDidNotStart() throws Exception {
+        CollectorStartup startup = new CollectorStartup();
+        startup.add("ok", () -> true);
+        startup.add("optional", () -> false);
+        startup.add("broken", () -> {
+            throw new IllegalStateException("no tool");
+        });
+
+        startup.startAll();
+
+        assertTrue(startup.started("ok"));
+        assertFalse(startup.started("optional"));
+        assertNull(startup.failure("optional"));
+        assertEquals("no tool", startup.failure("broken").getMessage());
+        assertEquals("ok", startup.timings().get(0).status());
+        assertEquals("not_started", startup.timings().get(1).status());
+        assertEquals("failed", startup.timings().get(2).status());
+        assertNotNull(startup.window());
+    }
+
+    @Test
+    void windowIsIntersectionOfStartedCollectors() throws Exception {
+        CollectorStartup startup = new CollectorStartup();
+        startup.add("early", () -> true);
+        startup.add("late", () -> {
+            Thread.sleep(50L);
+            return true;
+        });
+        startup.add("replaced", () -> {
+            Thread.sleep(150L);
+            return true;
+        });
+        startup.startAll();
+        Instant earlyStart = startup.timings().get(0).start();
+        Instant lateStart = startup.timings().get(1).start();
+        assertTrue(lateStart.isAfter(earlyStart));
+
+        startup.drop("replaced");
+        Instant stopEarly = lateStart.plusSeconds(10);
+        startup.markStopped("early", stopEarly);
+        startup.markStopped("late", stopEarly.plusSeconds(2));
+        startup.markStopped("late", stopEarly.plusSeconds(5));
+
+        CollectorStartup.Window window = startup.window();
+        assertEquals(lateStart, window.start());
+        assertEquals(stopEarly, window.end());
+        assertEquals(stopEarly.plusSeconds(2), startup.timings().get(1).stop(), "first stop wins");
+        assertEquals("dropped", startup.timings().get(2).status());
+
+        CollectorStartup disjoint = new CollectorStartup();
+        disjoint.add("x", () -> true);
+        disjoint.startAll();
+        disjoint.markStopped("x", Instant.EPOCH);
+        assertNull(disjoint.window());
+    }
+
+    @Test
+    void usesReportedCaptureStartAndLaterCorrections() throws Exception {
+        Instant probeStarted = Instant.now();
+        CollectorStartup startup = new CollectorStartup();
+        // Like PresentMon: capturing from launch + delay, but start() only returns after a longer probe.
+        startup.addTimed("probed", () -> {
+            Thread.sleep(200L);
+            return probeStarted.plusMillis(50);
+        });
+        startup.addTimed("elevated", Instant::now);
+        startup.startAll();
+
+        assertEquals(probeStarted.plusMillis(50), startup.timings().get(0).start());
+        Instant approved = Instant.now().plusSeconds(3);
+        startup.correctStart("elevated", approved);
+        startup.markStopped("probed", approved.plusSeconds(10));
+        startup.markStopped("elevated", approved.plusSeconds(10));
+        assertEquals(approved, startup.window().start());
+
+        startup.drop("elevated");
+        assertEquals(probeStarted.plusMillis(50), startup.window().start());
+    }
+}
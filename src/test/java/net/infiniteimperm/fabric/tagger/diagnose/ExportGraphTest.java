@@ -0,0 +1,98 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExportGraphTest {
+    @Test
+    void runsIndependentStepsInParallelAndRespectsDependencies() throws Exception {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        ExportGraph graph = new ExportGraph(3, log::add);
+        graph.add("a", () -> sleepThen(300L, order, "a"));
+        graph.add("b", () -> sleepThen(300L, order, "b"));
+        graph.add("c", () -> sleepThen(300L, order, "c"));
+        graph.add("last", () -> order.add("last"), graph.all());
+
+        long t0 = System.nanoTime();
+        List<ExportGraph.StepResult> results = graph.run();
+        long wallMs = (System.nanoTime() - t0) / 1_000_000L;
+
+        assertTrue(wallMs < 800L, "three 300 ms steps on three threads took " + wallMs + " ms");
+        assertEquals("last", order.get(3));
+        assertEquals(4, results.size());
+        assertTrue(results.stream().allMatch(r -> r.status().equals("ok")));
+        assertTrue(log.stream().anyMatch(line -> line.startsWith("Export step a: ok in ")));
+        assertTrue(log.get(log.size() - 1).startsWith("Export graph finished in "));
+    }
+
+    @Test
+    void failureSkipsDependentsButNotOtherBranches() {
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        IOException boom = new IOException("boom");
+        ExportGraph graph = new ExportGraph(2, log::add);
+        graph.add("broken", () -> {
+            throw boom;
+        });
+        graph.add("after_broken", () -> ran.add("after_broken"), "broken");
+        graph.add("after_after", () -> ran.add("after_after"), "after_broken");
+        graph.add("unrelated", () -> ran.add("unrelated"));
+
+        IOException thrown = assertThrows(IOException.class, graph::run);
+
+        assertEquals(boom, thrown);
+        assertEquals(List.of("unrelated"), ran);
+        assertTrue(log.contains("Export step after_broken: skipped (broken failed)"));
+        assertTrue(log.contains("Export step after_after: skipped (after_broken failed)"));
+    }
+
+    @Test
+    void optionalFailureAndDisabledStepsDoNotBlockDependents() throws Exception {
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        ExportGraph graph = new ExportGraph(2, line -> {
+        });
+        graph.add("flaky", () -> {
+            throw new IllegalStateException("flaky");
+        }).optional("flaky");
+        graph.addIf(false, "off", () -> ran.add("off"));
+        graph.add("needs_both", () -> ran.add("needs_both"), "flaky", "off");
+
+        Map<String, String> status = graph.run().stream()
+            .collect(Collectors.toMap(ExportGraph.StepResult::name, ExportGraph.StepResult::status));
+
+        assertEquals(List.of("needs_both"), ran);
+        assertEquals("failed", status.get("flaky"));
+        assertEquals("ok", status.get("needs_both"));
+        assertFalse(status.containsKey("off"));
+    }
+
+    @Test
+    void rejectsUnknownAndDuplicateSteps() {
+        ExportGraph graph = new ExportGraph(1, line -> {
+        });
+        graph.add("a", () -> {
+        });
+        assertThrows(IllegalArgumentException.class, () -> graph.add("a", () -> {
+        }));
+        assertThrows(IllegalArgumentException.class, () -> graph.add("b", () -> {
+        }, "missing"));
+        assertThrows(IllegalArgumentException.class, () -> graph.optional("missing"));
+    }
+
+    private static void sleepThen(long ms, List<String> order, String name) throws InterruptedException {
+        Thread.sleep(ms);
+        order.add(name);
+    }
+}
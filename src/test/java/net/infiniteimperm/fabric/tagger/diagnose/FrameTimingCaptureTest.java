@@ -0,0 +1,53 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameTimingCaptureTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesPresentMonCompatibleRows() throws Exception {
+        Path csv = tempDir.resolve("frametimes.csv");
+        FrameTimingCapture capture = new FrameTimingCapture(csv, Instant.now());
+        capture.start();
+        long base = System.nanoTime();
+        capture.record(base + 10_000_000L, 1_000_000L);
+        capture.record(base + 26_000_000L, 2_500_000L);
+        capture.record(base + 126_000_000L, 1_000_000L);
+        capture.stop();
+
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertEquals(FrameTimingCapture.CSV_HEADER, lines.get(0));
+        List<String> first = JfrParser.parseCsvLine(lines.get(1));
+        assertEquals("16.0000", first.get(4));
+        assertEquals("2.5000", first.get(5));
+        List<String> second = JfrParser.parseCsvLine(lines.get(2));
+        assertEquals("100.0000", second.get(4));
+        assertTrue(Double.parseDouble(second.get(3)) > Double.parseDouble(first.get(3)));
+    }
+
+    @Test
+    void prefersPresentMonOnlyWhenItHasRows() throws Exception {
+        Path present = tempDir.resolve("presentmon.csv");
+        Path inProcess = tempDir.resolve("frametimes.csv");
+        Files.writeString(present, "TimeInSeconds,MsBetweenPresents\n", StandardCharsets.UTF_8);
+        Files.writeString(inProcess, FrameTimingCapture.CSV_HEADER + "\njava,1,OpenGL,0.5,16.0,1.0\n", StandardCharsets.UTF_8);
+        assertEquals(inProcess, DiagnoseOrchestrator.selectFrameSource(present, inProcess));
+        Files.writeString(present, "TimeInSeconds,MsBetweenPresents\n0.5,16.0\n", StandardCharsets.UTF_8);
+        assertEquals(present, DiagnoseOrchestrator.selectFrameSource(present, inProcess));
+        assertNull(DiagnoseOrchestrator.selectFrameSource(null, tempDir.resolve("missing.csv")));
+    }
+}
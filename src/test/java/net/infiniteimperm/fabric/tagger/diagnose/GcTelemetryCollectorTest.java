@@ -0,0 +1,48 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class GcTelemetryCollectorTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sanitizesPoolNamesIntoColumns() {
+        assertEquals("g1_eden_space", GcTelemetryCollector.columnName("G1 Eden Space"));
+        assertEquals("codeheap_non_nmethods", GcTelemetryCollector.columnName("CodeHeap 'non-nmethods'"));
+    }
+
+    @Test
+    void recordsExplicitGcWithCauseAndPoolOccupancy() throws Exception {
+        assumeTrue(GcTelemetryCollector.isSupported(), "GC notifications are not available in this JVM");
+        Path gcCsv = tempDir.resolve("gc_events.csv");
+        Path poolsCsv = tempDir.resolve("memory_pools.csv");
+        Path summary = tempDir.resolve("gc_summary.txt");
+        SamplingScheduler sampling = new SamplingScheduler();
+        sampling.register(new GcTelemetryCollector(gcCsv, poolsCsv, summary, 20L, null));
+        sampling.start();
+        Thread.sleep(50L);
+        System.gc();
+        Thread.sleep(200L);
+        sampling.stop();
+
+        List<String> gcLines = Files.readAllLines(gcCsv, StandardCharsets.UTF_8);
+        assertTrue(gcLines.get(0).startsWith("ts_ms,gc_id,gc,action,cause,start_ms,duration_ms,alloc_bytes,alloc_mb_s,"), gcLines.get(0));
+        assertTrue(gcLines.stream().anyMatch(line -> line.contains(",System.gc(),")), String.join("\n", gcLines));
+        List<String> poolLines = Files.readAllLines(poolsCsv, StandardCharsets.UTF_8);
+        assertTrue(poolLines.size() > 2, String.join("\n", poolLines));
+        String table = Files.readString(summary, StandardCharsets.UTF_8);
+        assertTrue(table.contains("System.gc()"), table);
+        assertTrue(table.contains("Pool peaks"), table);
+    }
+}
@@ -0,0 +1,103 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeapLeakDetectorTest {
+    private static final long MB = 1024L * 1024L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fitsLinearTrendToAfterGcOccupancy() {
+        List<long[]> points = List.of(new long[]{0L, 100L * MB}, new long[]{60_000L, 160L * MB}, new long[]{120_000L, 220L * MB});
+        assertEquals(60d, HeapLeakDetector.slopeBytesPerMs(points) * 60_000d / MB, 1e-6);
+        assertEquals(0d, HeapLeakDetector.slopeBytesPerMs(List.of(new long[]{0L, 5L})), 0d);
+    }
+
+    @Test
+    void parsesHistogramAndRanksGrowingClasses() {
+        Map<String, long[]> before = HeapLeakDetector.parseHistogram(""
+            + " num     #instances         #bytes  class name (module)\n"
+            + "-------------------------------------------------------\n"
+            + "   1:        120000        9600000  [B (java.base@21)\n"
+            + "   2:           400          32000  net.minecraft.class_1657\n");
+        Map<String, long[]> after = HeapLeakDetector.parseHistogram(""
+            + "   1:        121000        9680000  [B (java.base@21)\n"
+            + "   2:          4400         352000  net.minecraft.class_1657\n"
+            + "   3:           100           1600  java.lang.String (java.base@21)\n"
+            + "Total        125500       10033600\n");
+        assertArrayEquals(new long[]{400L, 32000L}, before.get("net.minecraft.class_1657"));
+
+        List<String[]> rows = HeapLeakDetector.topGrowing(before, after, 2);
+        assertEquals(2, rows.size());
+        assertArrayEquals(new String[]{"net.minecraft.class_1657", "320000", "4000", "352000"}, rows.get(0));
+        assertEquals("[B", rows.get(1)[0]);
+    }
+
+    @Test
+    void fitsOnlyCollectionsThatReclaimOldGen() {
+        assertTrue(HeapLeakDetector.reclaimsOldGen("G1 Old Generation", "end of major GC"));
+        assertTrue(HeapLeakDetector.reclaimsOldGen("PS MarkSweep", "end of major GC"));
+        assertTrue(HeapLeakDetector.reclaimsOldGen("ZGC Cycles", "end of GC cycle"));
+        assertTrue(HeapLeakDetector.reclaimsOldGen("ZGC Major Cycles", "end of GC cycle"));
+        assertFalse(HeapLeakDetector.reclaimsOldGen("G1 Young Generation", "end of minor GC"));
+        assertFalse(HeapLeakDetector.reclaimsOldGen("ZGC Minor Cycles", "end of GC cycle"));
+        assertFalse(HeapLeakDetector.reclaimsOldGen("ZGC Pauses", "end of GC pause"));
+    }
+
+    @Test
+    void reportsNoTrendBeforeEnoughOldCollections() {
+        HeapLeakDetector detector = new HeapLeakDetector(tempDir, 50d, () -> "", Runnable::run);
+        detector.onGc(0L, 200L * MB);
+        detector.onGc(60_000L, 400L * MB);
+        assertTrue(detector.describe().contains("not enough old/full collections (2 of 5 needed)"), detector.describe());
+    }
+
+    @Test
+    void takesBaselineThenTriggerHistogramOnSustainedGrowth() throws Exception {
+        Deque<String> histograms = new ArrayDeque<>(List.of(
+            "   1:           400          32000  net.minecraft.class_1657\n",
+            "   1:          9000         720000  net.minecraft.class_1657\n"));
+        HeapLeakDetector detector = new HeapLeakDetector(tempDir, 50d, histograms::poll, Runnable::run);
+
+        // 30 MB/min: past half the threshold, so only the baseline is taken.
+        for (int i = 0; i <= 6; i++) {
+            detector.onGc(i * 10_000L, 200L * MB + i * 5L * MB);
+        }
+        assertTrue(Files.exists(tempDir.resolve("heap_histogram_1_baseline.txt")));
+        assertFalse(Files.exists(tempDir.resolve("leak_suspects.txt")));
+
+        // Steeper growth; the trigger waits out the re-arm interval after the baseline.
+        for (int i = 7; i <= 16; i++) {
+            detector.onGc(i * 10_000L, 200L * MB + (i - 6) * 20L * MB);
+        }
+        assertTrue(Files.exists(tempDir.resolve("heap_histogram_2_trigger.txt")));
+        String suspects = Files.readString(tempDir.resolve("leak_suspects.txt"), StandardCharsets.UTF_8);
+        assertTrue(suspects.contains("net.minecraft.class_1657"), suspects);
+        assertTrue(suspects.contains("688000"), suspects);
+        assertTrue(detector.describe().contains("histograms=2; see leak_suspects.txt"), detector.describe());
+
+        // One triggered histogram per capture, however long the growth continues.
+        histograms.add("   1:         20000        1600000  net.minecraft.class_1657\n");
+        for (int i = 17; i <= 40; i++) {
+            detector.onGc(i * 10_000L, 200L * MB + (i - 6) * 20L * MB);
+        }
+        assertEquals(1, histograms.size());
+        assertTrue(detector.describe().contains("histograms=2"), detector.describe());
+    }
+}
@@ -2,6 +2,11 @@ package net.infiniteimperm.fabric.tagger.diagnose;
 
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -38,4 +43,64 @@ class JfrControllerTest {
     void shaderBatchDoesNotFlushWithoutDuration() {
         assertFalse(JfrController.shouldFlushShaderBatch(1, JfrController.SHADER_BATCH_DURATION_THRESHOLD_NS - 1L));
     }
+
+    @Test
+    void blockEntityOffenderFillsFreeSlotsFirst() {
+        long[] durations = new long[JfrController.BLOCK_ENTITY_TOP_OFFENDERS];
+        assertEquals(0, JfrController.offenderSlotToReplace(durations, 0, 10L));
+        assertEquals(3, JfrController.offenderSlotToReplace(durations, 3, 1L));
+    }
+
+    @Test
+    void blockEntityOffenderReplacesFastestWhenFull() {
+        long[] durations = {50L, 20L, 70L, 40L, 90L, 60L, 80L, 30L};
+        assertEquals(1, JfrController.offenderSlotToReplace(durations, durations.length, 25L));
+        assertEquals(-1, JfrController.offenderSlotToReplace(durations, durations.length, 20L));
+    }
+
+    @Test
+    void blockEntityBreakdownReportedOnlyAboveThreshold() {
+        assertTrue(JfrController.shouldReportBlockEntities(JfrController.BLOCK_ENTITY_REPORT_THRESHOLD_NS));
+        assertFalse(JfrController.shouldReportBlockEntities(JfrController.BLOCK_ENTITY_REPORT_THRESHOLD_NS - 1L));
+    }
+
+    @Test
+    void blockEntityTypesPastTheTableShareTheOtherSlot() {
+        JfrController controller = new JfrController(Path.of("jfr.log"));
+        int other = JfrController.BLOCK_ENTITY_TYPE_SLOTS - 1;
+        for (int i = 0; i < other; i++) {
+            assertEquals(i, controller.blockEntitySlot(new Object(), type -> "type"));
+        }
+        Function<Object, String> unnamed = type -> {
+            throw new AssertionError("overflow types are not named");
+        };
+        assertEquals(other, controller.blockEntitySlot(new Object(), unnamed));
+        assertEquals(other, controller.blockEntitySlot(new Object(), unnamed));
+    }
+
+    @Test
+    void reloadWaterfallSortsByStartAndQuotesNames() {
+        String csv = JfrController.formatReloadWaterfall(List.of(
+            new JfrController.ReloaderStageRecord(1L, "SoundManager", "apply", 40_000_000L, 45_000_000L, 5_000_000L, 1, "Render thread"),
+            new JfrController.ReloaderStageRecord(1L, "Textures, atlas", "prepare", 2_000_000L, 30_500_000L, 55_000_000L, 12, "Worker-Main-1|Worker-Main-2")));
+        String[] lines = csv.split("\n");
+        assertEquals("reload_id,reloader,stage,start_offset_ms,end_offset_ms,span_ms,busy_ms,tasks,threads", lines[0]);
+        assertEquals("1,\"Textures, atlas\",prepare,2.000,30.500,28.500,55.000,12,Worker-Main-1|Worker-Main-2", lines[1]);
+        assertEquals("1,SoundManager,apply,40.000,45.000,5.000,5.000,1,Render thread", lines[2]);
+    }
+
+    @Test
+    void taskOwnerStripsLambdaSuffix() {
+        assertEquals("net.minecraft.client.network.ClientPlayNetworkHandler",
+            JfrController.taskOwnerName("net.minecraft.client.network.ClientPlayNetworkHandler$$Lambda/0x000001f0a1234567"));
+        assertEquals("com.example.SomeTask", JfrController.taskOwnerName("com.example.SomeTask"));
+    }
+
+    @Test
+    void threadCounterDeltaIgnoresMissingOrBackwardsSamples() {
+        assertEquals(500L, JfrController.counterDelta(1_000L, 1_500L));
+        assertEquals(0L, JfrController.counterDelta(-1L, 1_500L));
+        assertEquals(0L, JfrController.counterDelta(1_000L, -1L));
+        assertEquals(0L, JfrController.counterDelta(2_000L, 1_500L));
+    }
 }
@@ -1,5 +1,9 @@
 package net.infiniteimperm.fabric.tagger.diagnose;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import jdk.jfr.Event;
 import jdk.jfr.Recording;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -9,7 +13,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -19,48 +26,26 @@ class JfrParserIntegrationTest {
 
     @Test
     void generatesBadFramesJsonFromInputs() throws Exception {
-        Path jfr = tempDir.resolve("recording.jfr");
-        Path csv = tempDir.resolve("presentmon.csv");
-        Path out = tempDir.resolve("bad_frames.json");
-
-        try (Recording recording = new Recording()) {
-            recording.start();
-            Thread.sleep(20L);
-            recording.stop();
-            recording.dump(jfr);
-        }
-
-        String csvText = "TimeInSeconds,MsBetweenPresents\n" +
+        Capture capture = capture("basic", () -> Thread.sleep(20L));
+        Path csv = writeCsv("presentmon-basic.csv", "TimeInSeconds,MsBetweenPresents\n" +
             "0.001,10.0\n" +
-            "0.020,22.5\n";
-        Files.writeString(csv, csvText, StandardCharsets.UTF_8);
+            "0.020,22.5\n");
 
-        Instant start = Instant.now().minusSeconds(1);
-        Instant end = Instant.now();
-        new JfrParser().parse(jfr, csv, out, start, end);
+        JsonObject json = parse(capture, new JfrParser(), csv, Instant.now().minusSeconds(1), Instant.now());
 
-        String json = Files.readString(out, StandardCharsets.UTF_8);
-        assertTrue(json.contains("\"bad_frames\": 1"));
-        assertTrue(json.contains("\"frame_ms\": 22.500"));
-        assertTrue(json.contains("\"baseline\""));
+        assertEquals(1, json.getAsJsonObject("capture").get("bad_frames").getAsInt());
+        assertEquals(22.5d, onlyBadFrame(json).get("frame_ms").getAsDouble(), 1e-9);
+        assertTrue(json.has("baseline"));
     }
 
     @Test
     void throwsOnMissingFrameColumn() throws Exception {
-        Path jfr = tempDir.resolve("recording.jfr");
-        Path csv = tempDir.resolve("presentmon_invalid.csv");
-        Path out = tempDir.resolve("bad_frames.json");
-
-        try (Recording recording = new Recording()) {
-            recording.start();
-            recording.stop();
-            recording.dump(jfr);
-        }
-
-        Files.writeString(csv, "TimeInSeconds,RandomColumn\n0.010,123\n", StandardCharsets.UTF_8);
+        Capture capture = capture("invalid", () -> {
+        });
+        Path csv = writeCsv("presentmon-invalid.csv", "TimeInSeconds,RandomColumn\n0.010,123\n");
 
         try {
-            new JfrParser().parse(jfr, csv, out, Instant.now().minusSeconds(1), Instant.now());
+            parse(capture, new JfrParser(), csv, Instant.now().minusSeconds(1), Instant.now());
             fail("Expected IOException");
         } catch (IOException expected) {
             assertTrue(expected.getMessage().contains("missing frame time column"));
@@ -69,31 +54,298 @@ class JfrParserIntegrationTest {
 
     @Test
     void ignoresPresentMonFramesOutsideCaptureWindow() throws Exception {
-        Path jfr = tempDir.resolve("recording-windowed.jfr");
-        Path csv = tempDir.resolve("presentmon-windowed.csv");
-        Path out = tempDir.resolve("bad_frames-windowed.json");
+        Capture capture = capture("windowed", () -> {
+        });
+        Instant start = Instant.parse("2026-03-24T12:00:00Z");
+        Path csv = writeCsv("presentmon-windowed.csv", "TimeInSeconds,MsBetweenPresents\n" +
+            "0.010,10.0\n" +
+            "0.050,25.0\n" +
+            "0.105,40.0\n" +
+            "0.250,40.0\n");
+
+        JsonObject json = parse(capture, new JfrParser(), csv, start, start.plusMillis(100));
+
+        JsonObject summary = json.getAsJsonObject("capture");
+        assertEquals(2, summary.get("total_frames").getAsInt());
+        assertEquals(1, summary.get("bad_frames").getAsInt());
+        assertEquals(2, summary.get("ignored_out_of_window_frames").getAsInt());
+        assertEquals(25d, onlyBadFrame(json).get("frame_ms").getAsDouble(), 1e-9);
+    }
+
+    @Test
+    void readsInProcessFrameTimesAtTheirOwnTimestamps() throws Exception {
+        Capture capture = capture("frametimes", () -> {
+        });
+        StringBuilder rows = new StringBuilder(FrameTimingCapture.CSV_HEADER).append('\n');
+        FrameTimingCapture.formatRow(rows, 1L, 500_000_000L, 16_000_000L, 1_000_000L);
+        FrameTimingCapture.formatRow(rows, 1L, 1_200_000_000L, 60_000_000L, 1_000_000L);
+        Path csv = writeCsv("frametimes.csv", rows.toString());
+        Instant start = Instant.parse("2026-03-24T12:00:00Z");
+
+        JsonObject json = parse(capture, new JfrParser(), csv, start, start.plusSeconds(2));
+
+        assertEquals(start.toEpochMilli() + 1_200L, onlyBadFrame(json).get("present_ts_ms").getAsLong());
+    }
+
+    @Test
+    void foldsBlockEntityEventsIntoBadFrames() throws Exception {
+        Capture capture = capture("block-entities", () -> {
+            JfrController.BlockEntityRenderEvent byType = new JfrController.BlockEntityRenderEvent();
+            byType.frameId = 7L;
+            byType.blockEntityType = "minecraft:chest";
+            byType.renderCount = 120;
+            byType.durationNs = 4_000_000L;
+            byType.commit();
+            JfrController.BlockEntityOffenderEvent offender = new JfrController.BlockEntityOffenderEvent();
+            offender.frameId = 7L;
+            offender.blockEntityType = "minecraft:chest";
+            offender.x = 10;
+            offender.y = 64;
+            offender.z = -3;
+            offender.durationNs = 900_000L;
+            offender.commit();
+        }, JfrController.BlockEntityRenderEvent.class, JfrController.BlockEntityOffenderEvent.class);
+
+        JsonObject blockEntities = parseSpike(capture, new JfrParser()).getAsJsonObject("block_entities");
+
+        assertEquals(4_000_000L, blockEntities.get("total_ns").getAsLong());
+        JsonArray byType = blockEntities.getAsJsonArray("by_type");
+        assertEquals(1, byType.size());
+        JsonObject chests = byType.get(0).getAsJsonObject();
+        assertEquals("minecraft:chest", chests.get("type").getAsString());
+        assertEquals(120, chests.get("count").getAsInt());
+        assertEquals(4_000_000L, chests.get("duration_ns").getAsLong());
+        JsonObject offender = blockEntities.getAsJsonArray("top_offenders").get(0).getAsJsonObject();
+        assertEquals(List.of(10, 64, -3), List.of(offender.get("x").getAsInt(), offender.get("y").getAsInt(), offender.get("z").getAsInt()));
+        assertEquals(900_000L, offender.get("duration_ns").getAsLong());
+    }
+
+    @Test
+    void reportsWorldPhaseSplitForBadFrames() throws Exception {
+        Capture capture = capture("world-phases", () -> {
+            JfrController.FrameSummaryEvent summary = new JfrController.FrameSummaryEvent();
+            summary.frameId = 3L;
+            summary.worldDurationNs = 30_000_000L;
+            summary.worldSetupDurationNs = 1_000_000L;
+            summary.worldTerrainDurationNs = 4_000_000L;
+            summary.worldEntitiesDurationNs = 22_000_000L;
+            summary.worldTranslucentDurationNs = 2_000_000L;
+            summary.worldLateDurationNs = 1_000_000L;
+            summary.cpuNs = 12_000_000L;
+            summary.allocBytes = 48_000_000L;
+            summary.commit();
+        }, JfrController.FrameSummaryEvent.class);
+
+        JsonObject phases = parseSpike(capture, new JfrParser()).getAsJsonObject("render_phases");
+
+        assertEquals(1, phases.get("frame_summaries").getAsInt());
+        assertEquals(30_000_000L, phases.get("world_ns").getAsLong());
+        assertEquals(1_000_000L, phases.get("world_setup_ns").getAsLong());
+        assertEquals(4_000_000L, phases.get("world_terrain_ns").getAsLong());
+        assertEquals(22_000_000L, phases.get("world_entities_ns").getAsLong());
+        assertEquals(2_000_000L, phases.get("world_translucent_ns").getAsLong());
+        assertEquals(1_000_000L, phases.get("world_late_ns").getAsLong());
+        assertEquals(12_000_000L, phases.get("cpu_ns").getAsLong());
+        assertEquals(48_000_000L, phases.get("alloc_bytes").getAsLong());
+    }
+
+    @Test
+    void reportsMainThreadTaskDrainForBadFrames() throws Exception {
+        Capture capture = capture("main-thread-tasks", () -> {
+            JfrController.MainThreadTaskEvent task = new JfrController.MainThreadTaskEvent();
+            task.frameId = 5L;
+            task.taskOwner = "net.minecraft.client.network.ClientPlayNetworkHandler";
+            task.taskCount = 300;
+            task.runDurationNs = 20_000_000L;
+            task.maxQueueLatencyNs = 16_000_000L;
+            task.commit();
+            JfrController.FrameSummaryEvent summary = new JfrController.FrameSummaryEvent();
+            summary.frameId = 5L;
+            summary.mainThreadTaskCount = 312;
+            summary.mainThreadTaskDurationNs = 22_000_000L;
+            summary.mainThreadTaskMaxLatencyNs = 16_000_000L;
+            summary.mainThreadTaskMaxQueueDepth = 290L;
+            summary.commit();
+        }, JfrController.FrameSummaryEvent.class, JfrController.MainThreadTaskEvent.class);
 
+        JsonObject tasks = parseSpike(capture, new JfrParser()).getAsJsonObject("main_thread_tasks");
+
+        assertEquals(312, tasks.get("drained").getAsInt());
+        assertEquals(22_000_000L, tasks.get("run_ns").getAsLong());
+        assertEquals(16_000_000L, tasks.get("max_queue_latency_ns").getAsLong());
+        assertEquals(290L, tasks.get("max_queue_depth").getAsLong());
+        JsonArray byOwner = tasks.getAsJsonArray("by_owner");
+        assertEquals(1, byOwner.size());
+        JsonObject owner = byOwner.get(0).getAsJsonObject();
+        assertEquals("net.minecraft.client.network.ClientPlayNetworkHandler", owner.get("owner").getAsString());
+        assertEquals(300, owner.get("count").getAsInt());
+        assertEquals(20_000_000L, owner.get("run_ns").getAsLong());
+        assertEquals(16_000_000L, owner.get("max_queue_latency_ns").getAsLong());
+    }
+
+    @Test
+    void blamesLeakDetectorHistogramInsteadOfItsPause() throws Exception {
+        Capture capture = capture("heap-histogram", () -> {
+            JfrController.HeapHistogramEvent histogram = new JfrController.HeapHistogramEvent();
+            histogram.begin();
+            Thread.sleep(20L);
+            histogram.histogramLabel = "baseline";
+            histogram.commit();
+        }, JfrController.HeapHistogramEvent.class);
+
+        JsonObject frame = parseSpike(capture, new JfrParser());
+
+        assertEquals(List.of("profiler_heap_histogram"), strings(frame.getAsJsonArray("root_causes")));
+    }
+
+    @Test
+    void readsMangoHudLogAsFrameSource() throws Exception {
+        Capture capture = capture("mangohud", () -> {
+            JfrController.FrameSummaryEvent summary = new JfrController.FrameSummaryEvent();
+            summary.frameId = 9L;
+            summary.worldDurationNs = 40_000_000L;
+            summary.commit();
+        }, JfrController.FrameSummaryEvent.class);
+        Path csv = writeCsv("mangohud.csv",
+            "os,cpu,gpu,ram,kernel,driver,cpuscheduler\n"
+                + "Arch Linux,Ryzen 7,RX 7800,32GB,6.9,Mesa,scx\n"
+                + "fps,frametime,cpu_load,gpu_load,elapsed\n"
+                + "60,16.0,20,50,0\n"
+                + "2,500.0,20,50,500000000\n"
+                + "60,16.0,20,50,5000000000\n");
+
+        // The spike row ends just after the summary was committed.
+        JfrParser parser = new JfrParser().withMangoHudLogStart(Instant.ofEpochMilli(capture.presentMs() - 500L));
+        JsonObject json = parse(capture, parser, csv, capture.start(), capture.end());
+
+        JsonObject summary = json.getAsJsonObject("capture");
+        assertEquals("mangohud", summary.get("frame_source").getAsString());
+        assertEquals(1, summary.get("bad_frames").getAsInt());
+        assertEquals(1, summary.get("ignored_out_of_window_frames").getAsInt());
+        assertEquals(40_000_000L, onlyBadFrame(json).getAsJsonObject("render_phases").get("world_ns").getAsLong());
+    }
+
+    @Test
+    void foldsThreadSchedulerIntervalsIntoBadFrames() throws Exception {
+        Capture capture = capture("thread-sched", () -> {
+        });
+        long inFrame = capture.presentMs() - 100L;
+        long beforeFrame = capture.presentMs() - 2_000L;
+        Path sched = writeCsv("thread_sched.csv", ThreadSchedSampler.CSV_HEADER + "\n"
+            + beforeFrame + ",0,50,11,Render thread,render,40000,0,5,0\n"
+            + inFrame + ",0,50,11,Render thread,render,9000,41000,3,12\n"
+            + inFrame + ",0,50,12,Worker-Main-3,chunk_workers,48000,1000,0,1\n");
+
+        JsonObject threadSched = parseSpike(capture, new JfrParser().withThreadSchedCsv(sched)).getAsJsonObject("thread_sched");
+
+        assertEquals(1, threadSched.get("intervals").getAsInt());
+        JsonArray threads = threadSched.getAsJsonArray("threads");
+        assertEquals(2, threads.size());
+        JsonObject render = threads.get(0).getAsJsonObject();
+        assertEquals("Render thread", render.get("thread").getAsString());
+        assertEquals("render", render.get("role").getAsString());
+        assertEquals(9000L, render.get("cpu_us").getAsLong());
+        assertEquals(41000L, render.get("run_wait_us").getAsLong());
+        assertEquals(3L, render.get("vol_csw").getAsLong());
+        assertEquals(12L, render.get("invol_csw").getAsLong());
+        JsonObject worker = threads.get(1).getAsJsonObject();
+        assertEquals("Worker-Main-3", worker.get("thread").getAsString());
+        assertEquals("chunk_workers", worker.get("role").getAsString());
+        assertEquals(48000L, worker.get("cpu_us").getAsLong());
+        assertEquals(1000L, worker.get("run_wait_us").getAsLong());
+    }
+
+    @Test
+    void labelsHostPressureAndDiskStallsAsRootCauses() throws Exception {
+        Capture capture = capture("pressure", () -> {
+        });
+        long presentMs = capture.presentMs();
+        Path pressure = writeCsv("system_pressure.csv", PressureSampler.CSV_HEADER + "\n"
+            + (presentMs - 200L) + ",0,100,60000,,2000,0,1000,0,1,25000,0,0,0\n"
+            + (presentMs - 100L) + ",0,100,70000,,0,0,0,0,,,,,\n");
+        Path processIo = writeCsv("process_io.csv", ProcessIoSampler.CSV_HEADER + "\n"
+            + (presentMs - 30L) + ",0,10,2097152,0,2097152,0,40,0,300,6\n");
+        Path offHeap = writeCsv("offheap.csv", OffHeapCollector.CSV_HEADER + "\n"
+            + (presentMs - 40L) + ",0,100,40,8388608,8388608,0,1,1,1048576,262144,65536,0,0,8388608,\n");
+
+        JsonObject frame = parseSpike(capture, new JfrParser().withPressureCsv(pressure).withProcessIoCsv(processIo).withOffHeapCsv(offHeap));
+
+        JsonObject hostPressure = frame.getAsJsonObject("system_pressure");
+        assertEquals(2, hostPressure.get("intervals").getAsInt());
+        assertEquals(200_000L, hostPressure.get("interval_us").getAsLong());
+        assertEquals(130_000L, hostPressure.get("cpu_some_us").getAsLong());
+        assertEquals(0L, hostPressure.get("cpu_full_us").getAsLong());
+        assertEquals(2_000L, hostPressure.get("mem_some_us").getAsLong());
+        JsonObject io = frame.getAsJsonObject("process_io");
+        assertEquals(1, io.get("intervals").getAsInt());
+        assertEquals(2_097_152L, io.get("read_bytes").getAsLong());
+        assertEquals(300L, io.get("minflt").getAsLong());
+        assertEquals(6L, io.get("majflt").getAsLong());
+        JsonObject offHeapTotals = frame.getAsJsonObject("offheap");
+        assertEquals(1_048_576L, offHeapTotals.get("vertex_upload_bytes").getAsLong());
+        assertEquals(262_144L, offHeapTotals.get("texture_upload_bytes").getAsLong());
+        assertEquals(65_536L, offHeapTotals.get("direct_delta_bytes").getAsLong());
+        assertEquals(List.of("cpu_pressure", "cgroup_cpu_throttled", "disk_reads", "major_page_faults"),
+            strings(frame.getAsJsonArray("root_causes")));
+    }
+
+    @FunctionalInterface
+    private interface Emitter {
+        void emit() throws Exception;
+    }
+
+    /**
+     * A dumped recording; the capture window spans half a second either side of it, and {@code presentMs} is just
+     * after the last event so a 500 ms frame presented then covers everything emitted.
+     */
+    private record Capture(Path jfr, Instant start, Instant end, long presentMs) {
+    }
+
+    @SafeVarargs
+    private Capture capture(String name, Emitter emitter, Class<? extends Event>... events) throws Exception {
+        Path jfr = tempDir.resolve("recording-" + name + ".jfr");
+        Instant start = Instant.now().minusMillis(500);
         try (Recording recording = new Recording()) {
+            for (Class<? extends Event> event : events) {
+                recording.enable(event);
+            }
             recording.start();
+            emitter.emit();
             recording.stop();
             recording.dump(jfr);
         }
+        long presentMs = Instant.now().toEpochMilli() + 50L;
+        return new Capture(jfr, start, Instant.now().plusMillis(500), presentMs);
+    }
 
-        Instant start = Instant.parse("2026-03-24T12:00:00Z");
-        Instant end = start.plusMillis(100);
-        String csvText = "TimeInSeconds,MsBetweenPresents\n" +
-            "0.010,10.0\n" +
-            "0.050,25.0\n" +
-            "0.105,40.0\n" +
-            "0.250,40.0\n";
-        Files.writeString(csv, csvText, StandardCharsets.UTF_8);
+    // Parses the capture against a single 500 ms PresentMon frame at presentMs and returns that bad frame.
+    private JsonObject parseSpike(Capture capture, JfrParser parser) throws IOException {
+        double presentSeconds = (capture.presentMs() - capture.start().toEpochMilli()) / 1000d;
+        Path csv = writeCsv("presentmon-" + capture.jfr().getFileName() + ".csv", "TimeInSeconds,MsBetweenPresents\n" + presentSeconds + ",500.0\n");
+        return onlyBadFrame(parse(capture, parser, csv, capture.start(), capture.end()));
+    }
 
-        new JfrParser().parse(jfr, csv, out, start, end);
+    private JsonObject parse(Capture capture, JfrParser parser, Path frameCsv, Instant start, Instant end) throws IOException {
+        Path out = tempDir.resolve("bad_frames-" + capture.jfr().getFileName() + ".json");
+        parser.parse(capture.jfr(), frameCsv, out, start, end);
+        return JsonParser.parseString(Files.readString(out, StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    private Path writeCsv(String name, String text) throws IOException {
+        Path csv = tempDir.resolve(name);
+        Files.writeString(csv, text, StandardCharsets.UTF_8);
+        return csv;
+    }
+
+    private static JsonObject onlyBadFrame(JsonObject json) {
+        JsonArray badFrames = json.getAsJsonArray("bad_frames");
+        assertEquals(1, badFrames.size(), json.toString());
+        return badFrames.get(0).getAsJsonObject();
+    }
 
-        String json = Files.readString(out, StandardCharsets.UTF_8);
-        assertTrue(json.contains("\"total_frames\": 2"));
-        assertTrue(json.contains("\"bad_frames\": 1"));
-        assertTrue(json.contains("\"ignored_out_of_window_frames\": 2"));
-        assertTrue(!json.contains("\"frame_ms\": 40.000"));
+    private static List<String> strings(JsonArray array) {
+        List<String> values = new ArrayList<>();
+        array.forEach(value -> values.add(value.getAsString()));
+        return values;
     }
 }
@@ -0,0 +1,35 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JfrParserWarmupTest {
+    @Test
+    void classLoadBurstMarksWarmup() {
+        assertTrue(JfrParser.isWarmupStutter(40d, 0L, 0, JfrParser.CLASS_LOAD_BURST));
+        assertFalse(JfrParser.isWarmupStutter(40d, 0L, 0, JfrParser.CLASS_LOAD_BURST - 1));
+    }
+
+    @Test
+    void compileShareOfFrameMarksWarmup() {
+        assertTrue(JfrParser.isWarmupStutter(40d, 10_000_000L, 0, 0));
+        assertFalse(JfrParser.isWarmupStutter(40d, 9_000_000L, 0, 0));
+    }
+
+    @Test
+    void deoptWithCompilationMarksWarmup() {
+        assertTrue(JfrParser.isWarmupStutter(40d, 1_000L, 1, 0));
+        assertFalse(JfrParser.isWarmupStutter(40d, 0L, 1, 0));
+    }
+
+    @Test
+    void compileTimeIsClippedToTheFrame() {
+        assertEquals(3_500_000L, JfrParser.clippedDurationNs(1_010L, 1_014L, 3_500_000L, 1_000L, 1_040L));
+        assertEquals(10_000_000L, JfrParser.clippedDurationNs(900L, 1_010L, 110_000_000L, 1_000L, 1_040L));
+        assertEquals(40_000_000L, JfrParser.clippedDurationNs(900L, 1_200L, 300_000_000L, 1_000L, 1_040L));
+        assertEquals(0L, JfrParser.clippedDurationNs(900L, 1_000L, 100_000_000L, 1_000L, 1_040L));
+    }
+}
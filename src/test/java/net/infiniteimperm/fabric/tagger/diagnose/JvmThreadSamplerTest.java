@@ -0,0 +1,89 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class JvmThreadSamplerTest {
+    // Keeps the spinner's allocations observable so they are not optimised away.
+    static volatile long sink;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void samplesBusyWorkerAndWritesSummary() throws Exception {
+        assumeTrue(JvmThreadSampler.isSupported(), "thread CPU time is not supported by this JVM");
+        Path csv = tempDir.resolve("jvm_threads.csv");
+        Path summary = tempDir.resolve("jvm_threads_summary.txt");
+        Thread spinner = new Thread(() -> {
+            long until = System.nanoTime() + 250_000_000L;
+            while (System.nanoTime() < until) {
+                sink += new byte[256].length;
+            }
+        }, "Worker-Main-99");
+        SamplingScheduler sampling = new SamplingScheduler();
+        sampling.register(new JvmThreadSampler(csv, summary, 20L));
+        sampling.start();
+        spinner.start();
+        spinner.join();
+        Thread.sleep(60L);
+        sampling.stop();
+
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        assertEquals(JvmThreadSampler.CSV_HEADER, lines.get(0));
+        assertTrue(lines.stream().anyMatch(line -> line.contains(",chunk_workers,")), String.join("\n", lines));
+        String table = Files.readString(summary, StandardCharsets.UTF_8);
+        assertTrue(table.contains("chunk_workers"), table);
+        assertTrue(table.contains("Worker-Main-99"), table);
+    }
+
+    @Test
+    void foldsExitedThreadsAndRestoresCpuTimeMeasurement() throws Exception {
+        assumeTrue(JvmThreadSampler.isSupported(), "thread CPU time is not supported by this JVM");
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        boolean wasEnabled = bean.isThreadCpuTimeEnabled();
+        bean.setThreadCpuTimeEnabled(false);
+        Path summary = tempDir.resolve("jvm_threads_summary.txt");
+        JvmThreadSampler sampler = new JvmThreadSampler(tempDir.resolve("jvm_threads.csv"), summary, 10L);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread worker = new Thread(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "Worker-Main-98");
+        try {
+            worker.start();
+            sampler.open(new SamplingScheduler.Tick(System.nanoTime(), 1_000L));
+            assertTrue(bean.isThreadCpuTimeEnabled());
+            int withWorker = sampler.trackedThreads();
+            sampler.sample(new SamplingScheduler.Tick(System.nanoTime(), 1_010L));
+            release.countDown();
+            worker.join();
+            sampler.sample(new SamplingScheduler.Tick(System.nanoTime(), 1_020L));
+
+            assertTrue(sampler.trackedThreads() < withWorker, sampler.trackedThreads() + " >= " + withWorker);
+            sampler.close();
+            assertFalse(bean.isThreadCpuTimeEnabled());
+            String table = Files.readString(summary, StandardCharsets.UTF_8);
+            assertTrue(table.contains("chunk_workers"), table);
+        } finally {
+            release.countDown();
+            bean.setThreadCpuTimeEnabled(wasEnabled);
+        }
+    }
+}
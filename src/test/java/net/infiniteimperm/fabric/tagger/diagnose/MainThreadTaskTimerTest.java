@@ -0,0 +1,53 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MainThreadTaskTimerTest {
+    @Test
+    void lambdasFromOneOwnerShareItsName() {
+        Runnable first = () -> {
+        };
+        Runnable second = () -> System.nanoTime();
+        assertEquals(MainThreadTaskTimerTest.class.getName(), MainThreadTaskTimer.ownerName(first));
+        assertEquals(MainThreadTaskTimer.ownerName(first), MainThreadTaskTimer.ownerName(second));
+    }
+
+    @Test
+    void unwrapsCapturedMessageToItsClass() {
+        FakePacket packet = new ChunkPacket();
+        Runnable dispatch = () -> packet.apply();
+        assertEquals(ChunkPacket.class.getName(),
+            MainThreadTaskTimer.ownerResolver(dispatch.getClass(), FakePacket.class::isAssignableFrom).apply(dispatch));
+    }
+
+    @Test
+    void namesFutureStageAfterItsOwnClass() {
+        AtomicReference<Runnable> posted = new AtomicReference<>();
+        CompletableFuture<Void> source = new CompletableFuture<>();
+        source.thenRunAsync(Callback::run, posted::set);
+        source.complete(null);
+        assertEquals(posted.get().getClass().getName(), MainThreadTaskTimer.ownerName(posted.get()));
+        assertTrue(MainThreadTaskTimer.ownerName(posted.get()).startsWith("java.util.concurrent.CompletableFuture$"));
+    }
+
+    interface FakePacket {
+        void apply();
+    }
+
+    static final class ChunkPacket implements FakePacket {
+        @Override
+        public void apply() {
+        }
+    }
+
+    static final class Callback {
+        static void run() {
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MangoHudLogsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void detectsMangoHudHeaders() {
+        assertEquals(JfrParser.FrameFormat.MANGOHUD,
+            JfrParser.detectFrameFormat(List.of("os,cpu,gpu,ram,kernel,driver,cpuscheduler", "Linux,x,y,z,k,d,s")));
+        assertEquals(JfrParser.FrameFormat.MANGOHUD,
+            JfrParser.detectFrameFormat(List.of("fps,frametime,cpu_load,gpu_load,elapsed")));
+        assertEquals(JfrParser.FrameFormat.PRESENTMON,
+            JfrParser.detectFrameFormat(List.of("Application,ProcessID,TimeInSeconds,MsBetweenPresents")));
+    }
+
+    @Test
+    void readsOutputFolderOption() {
+        assertEquals(Optional.of(Path.of("/tmp/mango")),
+            MangoHudLogs.outputFolderFromOptions("fps,log_duration=30,output_folder=/tmp/mango", ','));
+        assertEquals(Optional.of(Path.of("/var/logs")),
+            MangoHudLogs.outputFolderFromOptions("# output_folder=/ignored\noutput_folder = /var/logs\n", '\n'));
+        assertTrue(MangoHudLogs.outputFolderFromOptions("fps", ',').isEmpty());
+    }
+
+    @Test
+    void findsNewestLogWrittenDuringCapture() throws Exception {
+        Instant since = Instant.now().minusSeconds(60);
+        String mango = "os,cpu,gpu,ram,kernel,driver\nLinux,a,b,c,d,e\nfps,frametime,elapsed\n60,16.6,0\n";
+        Path stale = tempDir.resolve("java_2024-01-01_10-00-00.csv");
+        Path fresh = tempDir.resolve("java_2024-01-01_11-00-00.csv");
+        Path summary = tempDir.resolve("java_2024-01-01_11-00-00_summary.csv");
+        Path other = tempDir.resolve("notes.csv");
+        Files.writeString(stale, mango, StandardCharsets.UTF_8);
+        Files.writeString(fresh, mango, StandardCharsets.UTF_8);
+        Files.writeString(summary, mango, StandardCharsets.UTF_8);
+        Files.writeString(other, "a,b\n1,2\n", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(stale, FileTime.from(since.minusSeconds(600)));
+
+        assertEquals(Optional.of(fresh), MangoHudLogs.findLatest(List.of(tempDir), since));
+    }
+
+    @Test
+    void readsLogStartFromFileName() {
+        assertEquals(Optional.of(Instant.parse("2024-03-05T12:22:31Z")),
+            MangoHudLogs.logStart(Path.of("/home/u/java_2024-03-05_14-22-31.csv"), ZoneOffset.ofHours(2)));
+        assertTrue(MangoHudLogs.logStart(Path.of("/tmp/mangohud.csv"), ZoneOffset.UTC).isEmpty());
+    }
+}
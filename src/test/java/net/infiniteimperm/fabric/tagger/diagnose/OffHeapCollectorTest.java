@@ -0,0 +1,97 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapCollectorTest {
+    private static final String NMT_SUMMARY = ""
+        + "Native Memory Tracking:\n"
+        + "\n"
+        + "Total: reserved=5634519KB, committed=412345KB\n"
+        + "       malloc: 41234KB #120345\n"
+        + "\n"
+        + "-                 Java Heap (reserved=4194304KB, committed=262144KB)\n"
+        + "                            (mmap: reserved=4194304KB, committed=262144KB)\n"
+        + "\n"
+        + "-                     Class (reserved=1048712KB, committed=9224KB)\n"
+        + "                            (classes #12034)\n"
+        + "-                     Other (reserved=65536KB, committed=65536KB)\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parsesNativeMemorySummary() {
+        Map<String, long[]> categories = OffHeapCollector.parseNmt(NMT_SUMMARY);
+        assertEquals(List.of("Total", "Java Heap", "Class", "Other"), List.copyOf(categories.keySet()));
+        assertArrayEquals(new long[]{5634519L, 412345L}, categories.get("Total"));
+        assertArrayEquals(new long[]{65536L, 65536L}, categories.get("Other"));
+        assertTrue(OffHeapCollector.parseNmt("Native memory tracking is not enabled\n").isEmpty());
+    }
+
+    @Test
+    void writesUploadDeltasPerInterval() throws Exception {
+        Path csv = tempDir.resolve("offheap.csv");
+        Path nmt = tempDir.resolve("nmt.csv");
+        OffHeapCollector collector = new OffHeapCollector(csv, nmt, 100L, () -> NMT_SUMMARY);
+
+        OffHeapCollector.onVertexUpload(999L);
+        OffHeapCollector.onNativeImageMemory(65536L);
+        collector.open(new SamplingScheduler.Tick(0L, 1_000L));
+        OffHeapCollector.onVertexUpload(4096L);
+        OffHeapCollector.onTextureUpload(1024L);
+        collector.sample(new SamplingScheduler.Tick(100_000_000L, 1_100L));
+        OffHeapCollector.onTextureUpload(2048L);
+        OffHeapCollector.onNativeImageMemory(-65536L);
+        OffHeapCollector.onVertexBufferMemory(4096L);
+        collector.sample(new SamplingScheduler.Tick(200_000_000L, 1_200L));
+        collector.close();
+        OffHeapCollector.onVertexUpload(4096L);
+
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        assertEquals(OffHeapCollector.CSV_HEADER, lines.get(0));
+        assertEquals(3, lines.size());
+        String[] first = lines.get(1).split(",", -1);
+        String[] second = lines.get(2).split(",", -1);
+        assertEquals("100", first[2]);
+        assertEquals("4096", first[9]);
+        assertEquals("1024", first[10]);
+        assertEquals("0", second[9]);
+        assertEquals("2048", second[10]);
+        // Live NativeImage bytes (allocated before the capture) count toward the estimate; uploads and vertex buffers do not.
+        long firstImages = Long.parseLong(first[12]);
+        assertEquals(firstImages - 65536L, Long.parseLong(second[12]));
+        assertEquals(Long.parseLong(first[13]) + 4096L, Long.parseLong(second[13]));
+        assertEquals(Long.parseLong(first[4]) + Long.parseLong(first[6]) + firstImages, Long.parseLong(first[14]));
+        assertEquals("412345", second[15]);
+
+        List<String> nmtLines = Files.readAllLines(nmt, StandardCharsets.UTF_8);
+        assertEquals(OffHeapCollector.NMT_HEADER, nmtLines.get(0));
+        assertEquals("1000,0,Total,5634519,412345", nmtLines.get(1));
+        assertEquals(5, nmtLines.size());
+    }
+
+    @Test
+    void skipsNmtFileWhenTrackingIsOff() throws Exception {
+        Path csv = tempDir.resolve("offheap.csv");
+        Path nmt = tempDir.resolve("nmt.csv");
+        OffHeapCollector collector = new OffHeapCollector(csv, nmt, 100L, () -> "Native memory tracking is not enabled\n");
+        collector.open(new SamplingScheduler.Tick(0L, 0L));
+        collector.sample(new SamplingScheduler.Tick(100_000_000L, 100L));
+        collector.close();
+
+        assertFalse(Files.exists(nmt));
+        assertTrue(Files.readAllLines(csv, StandardCharsets.UTF_8).get(1).endsWith(","));
+    }
+}
@@ -0,0 +1,67 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PressureSamplerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parsesPsiAndCgroupFiles() {
+        Map<String, Long> values = new HashMap<>();
+        PressureSampler.parsePsi("some avg10=1.20 avg60=0.50 avg300=0.10 total=123456\n"
+            + "full avg10=0.00 avg60=0.00 avg300=0.00 total=789\n", "mem", values);
+        PressureSampler.parseKeyed("usage_usec 900\nnr_periods 40\nnr_throttled 3\nthrottled_usec 15000\n",
+            "cg_", List.of("nr_throttled", "throttled_usec"), values);
+        assertEquals(123456L, (long) values.get("mem_some"));
+        assertEquals(789L, (long) values.get("mem_full"));
+        assertEquals(3L, (long) values.get("cg_nr_throttled"));
+        assertEquals(15000L, (long) values.get("cg_throttled_usec"));
+        assertEquals("/user.slice/user-1000.slice/session-2.scope",
+            PressureSampler.cgroupV2Path("12:memory:/legacy\n0::/user.slice/user-1000.slice/session-2.scope\n"));
+    }
+
+    @Test
+    void writesDeltasFromFakeProcTree() throws Exception {
+        Path pressure = Files.createDirectories(tempDir.resolve("pressure"));
+        Path cgroup = Files.createDirectories(tempDir.resolve("cgroup"));
+        Path cpu = pressure.resolve("cpu");
+        Path stat = cgroup.resolve("cpu.stat");
+        Files.writeString(cpu, "some avg10=0.00 avg60=0.00 avg300=0.00 total=1000\n", StandardCharsets.US_ASCII);
+        Files.writeString(stat, "nr_throttled 1\nthrottled_usec 100\n", StandardCharsets.US_ASCII);
+        Path csv = tempDir.resolve("system_pressure.csv");
+
+        SamplingScheduler sampling = new SamplingScheduler();
+        sampling.register(new PressureSampler(csv, tempDir.resolve("pressure.log"), 50L, pressure, cgroup));
+        sampling.start();
+        Thread.sleep(20L);
+        Files.writeString(cpu, "some avg10=0.00 avg60=0.00 avg300=0.00 total=41000\n", StandardCharsets.US_ASCII);
+        Files.writeString(stat, "nr_throttled 2\nthrottled_usec 5100\n", StandardCharsets.US_ASCII);
+        Thread.sleep(120L);
+        sampling.stop();
+
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        assertEquals(PressureSampler.CSV_HEADER, lines.get(0));
+        // cpu_some_us=40000, cpu_full/mem/io unavailable, one throttle period of 5000 us.
+        assertTrue(lines.stream().anyMatch(line -> line.endsWith(",40000,,,,,,1,5000,,,")), String.join("\n", lines));
+    }
+
+    @Test
+    void labelsHostPressureByStallShare() {
+        assertEquals(List.of(), JfrParser.pressureLabels(0L, 1_000L, 1_000L, 1_000L, 0L));
+        assertEquals(List.of("cpu_pressure", "cgroup_cpu_throttled"), JfrParser.pressureLabels(100_000L, 30_000L, 4_000L, 9_000L, 12_000L));
+        assertEquals(List.of(), JfrParser.pressureLabels(100_000L, 0L, 0L, 0L, 2_000L));
+        assertEquals(List.of("memory_pressure", "io_pressure"), JfrParser.pressureLabels(100_000L, 0L, 5_000L, 10_000L, 0L));
+    }
+}
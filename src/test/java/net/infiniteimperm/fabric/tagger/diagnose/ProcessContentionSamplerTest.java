@@ -8,6 +8,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ProcessContentionSamplerTest {
@@ -18,30 +19,89 @@ class ProcessContentionSamplerTest {
     void writesCsvHeaderAndLogFile() throws Exception {
         Path csv = tempDir.resolve("process_contention.csv");
         Path log = tempDir.resolve("process_contention.log");
-        ProcessContentionSampler sampler = new ProcessContentionSampler(csv, log, 200L, 5);
+        SamplingScheduler sampling = new SamplingScheduler();
+        sampling.register(new ProcessContentionSampler(csv, log, 200L, 5));
 
-        sampler.start();
+        sampling.start();
         Thread.sleep(650L);
-        sampler.stop();
+        sampling.stop();
 
         assertTrue(Files.exists(csv));
         assertTrue(Files.exists(log));
         List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
         assertTrue(!lines.isEmpty());
-        assertTrue(lines.get(0).contains("timestamp,pid,process,cpu_delta_ms,total_cpu_ms"));
+        assertTrue(lines.get(0).contains("timestamp,mono_ns,pid,process,cpu_delta_ms,total_cpu_ms"));
     }
 
     @Test
     void handlesZeroTopNWithoutCrashing() throws Exception {
         Path csv = tempDir.resolve("process_contention_zero.csv");
         Path log = tempDir.resolve("process_contention_zero.log");
-        ProcessContentionSampler sampler = new ProcessContentionSampler(csv, log, 150L, 0);
+        SamplingScheduler sampling = new SamplingScheduler();
+        sampling.register(new ProcessContentionSampler(csv, log, 150L, 0));
 
-        sampler.start();
+        sampling.start();
         Thread.sleep(400L);
-        sampler.stop();
+        sampling.stop();
 
         assertTrue(Files.exists(csv));
         assertTrue(Files.exists(log));
     }
+
+    @Test
+    void readsProcStatIntoTopNAndRenamesReusedPids() throws Exception {
+        Path proc = Files.createDirectories(tempDir.resolve("proc"));
+        writeStat(proc, 100, "chrome", 1000, 0, 5);
+        writeStat(proc, 200, "obs", 500, 0, 7);
+        writeStat(proc, 300, "idle helper", 10, 0, 9);
+        Files.createDirectories(proc.resolve("self"));
+        Path csv = tempDir.resolve("process_contention_proc.csv");
+        Path log = tempDir.resolve("process_contention_proc.log");
+        ProcessContentionSampler sampler = new ProcessContentionSampler(csv, log, 1000L, 2, proc);
+
+        sampler.open(new SamplingScheduler.Tick(0L, 1_000L));
+        writeStat(proc, 100, "chrome", 1100, 20, 5);
+        writeStat(proc, 200, "obs", 530, 0, 7);
+        writeStat(proc, 300, "idle helper", 60, 0, 9);
+        sampler.sample(new SamplingScheduler.Tick(1_000_000_000L, 2_000L));
+        // pid 200 exits and is reused by another process: no delta against the old process.
+        writeStat(proc, 200, "rustc", 900, 0, 42);
+        writeStat(proc, 300, "idle helper", 61, 0, 9);
+        sampler.sample(new SamplingScheduler.Tick(2_000_000_000L, 3_000L));
+        sampler.close();
+
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        assertEquals(List.of(
+            "timestamp,mono_ns,pid,process,cpu_delta_ms,total_cpu_ms",
+            "1970-01-01T00:00:02Z,1000000000,100,chrome,1200,11200",
+            "1970-01-01T00:00:02Z,1000000000,300,idle helper,500,600",
+            "1970-01-01T00:00:03Z,2000000000,300,idle helper,10,610"), lines);
+        String logText = Files.readString(log, StandardCharsets.UTF_8);
+        assertTrue(logText.contains("source=" + proc), logText);
+        assertTrue(logText.contains("samples=2 selfCpuMs="), logText);
+    }
+
+    @Test
+    void growsPidTableAndParsesOnlyNumericEntries() {
+        ProcessContentionSampler.PidTable table = new ProcessContentionSampler.PidTable();
+        for (long pid = 1L; pid <= 5_000L; pid++) {
+            table.put(pid, pid * 10L, pid, null);
+        }
+        assertEquals(5_000, table.size);
+        assertEquals(42_000L, table.cpuMs[table.indexOf(4_200L)]);
+        assertEquals(-1, table.indexOf(5_001L));
+        assertEquals(1234L, ProcessContentionSampler.parsePid("1234"));
+        assertEquals(-1L, ProcessContentionSampler.parsePid("self"));
+        assertEquals(-1L, ProcessContentionSampler.parsePid("thread-self"));
+    }
+
+    private static void writeStat(Path proc, long pid, String comm, long utime, long stime, long startTime) throws Exception {
+        Path dir = Files.createDirectories(proc.resolve(Long.toString(pid)));
+        StringBuilder stat = new StringBuilder().append(pid).append(" (").append(comm).append(") S");
+        for (int field = 4; field <= 22; field++) {
+            long value = field == 14 ? utime : field == 15 ? stime : field == 22 ? startTime : 0L;
+            stat.append(' ').append(value);
+        }
+        Files.writeString(dir.resolve("stat"), stat.append('\n').toString(), StandardCharsets.US_ASCII);
+    }
 }
@@ -0,0 +1,56 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProcessIoSamplerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parsesProcFilesWithoutAllocatingStrings() {
+        byte[] io = ("rchar: 3980\nwchar: 12\nsyscr: 9\nsyscw: 1\nread_bytes: 4096\nwrite_bytes: 0\n"
+            + "cancelled_write_bytes: 0\n").getBytes(StandardCharsets.US_ASCII);
+        assertEquals(4096L, ProcessIoSampler.keyedValue(io, io.length, "read_bytes:".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(3980L, ProcessIoSampler.keyedValue(io, io.length, "rchar:".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(0L, ProcessIoSampler.keyedValue(io, io.length, "missing:".getBytes(StandardCharsets.US_ASCII)));
+
+        byte[] stat = "99 (java (main)) S 1 99 99 0 -1 4194560 52311 0 17 0 120 30 0 0 20 0 40 0"
+            .getBytes(StandardCharsets.US_ASCII);
+        assertEquals(52311L, ProcessIoSampler.statField(stat, stat.length, 10));
+        assertEquals(17L, ProcessIoSampler.statField(stat, stat.length, 12));
+    }
+
+    @Test
+    void writesRowsOnlyWhenStorageIoOrFaultsMove() throws Exception {
+        Path io = tempDir.resolve("io");
+        Path stat = tempDir.resolve("stat");
+        Files.writeString(io, "rchar: 100\nwchar: 0\nsyscr: 1\nsyscw: 0\nread_bytes: 0\nwrite_bytes: 0\n", StandardCharsets.US_ASCII);
+        Files.writeString(stat, "5 (java) S 1 5 5 0 -1 0 1000 0 2 0 1 1 0 0", StandardCharsets.US_ASCII);
+        Path csv = tempDir.resolve("process_io.csv");
+
+        // Driven directly rather than through the scheduler so the fake proc files never change mid-read.
+        ProcessIoSampler sampler = new ProcessIoSampler(csv, 10L, io, stat);
+        sampler.open(new SamplingScheduler.Tick(0L, 1_000L));
+        sampler.sample(new SamplingScheduler.Tick(10_000_000L, 1_010L));
+        // Only the sampler's own reads: character and syscall counters move, storage IO and faults do not.
+        Files.writeString(io, "rchar: 300\nwchar: 0\nsyscr: 5\nsyscw: 0\nread_bytes: 0\nwrite_bytes: 0\n", StandardCharsets.US_ASCII);
+        sampler.sample(new SamplingScheduler.Tick(20_000_000L, 1_020L));
+        Files.writeString(io, "rchar: 8592\nwchar: 0\nsyscr: 7\nsyscw: 0\nread_bytes: 8192\nwrite_bytes: 0\n", StandardCharsets.US_ASCII);
+        Files.writeString(stat, "5 (java) S 1 5 5 0 -1 0 1040 0 5 0 1 1 0 0", StandardCharsets.US_ASCII);
+        sampler.sample(new SamplingScheduler.Tick(30_000_000L, 1_030L));
+        sampler.close();
+
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        assertEquals(ProcessIoSampler.CSV_HEADER, lines.get(0));
+        assertEquals(2, lines.size(), String.join("\n", lines));
+        assertEquals("1030,30000000,10,8192,0,8292,0,2,0,40,3", lines.get(1));
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -23,6 +24,11 @@ class ProfilerSessionStateTest {
         state.nsysSession = "insignia_abc";
         state.nsysStartedByUs = true;
         state.wprStartedByUs = true;
+        state.mode = "FULL";
+        state.jfrRepository = "/tmp/2026_01_01_10_00_00_1234";
+        state.samplerFiles = List.of("/tmp/run/results/process_io.csv", "/tmp/run/results/offheap.csv");
+        state.segmentDir = "/tmp/run/results/segment_004";
+        state.segmentStartedAt = "2026-01-01T10:30:00Z";
 
         ProfilerSessionState.save(stateFile, state);
         assertTrue(Files.exists(stateFile));
@@ -33,6 +39,12 @@ class ProfilerSessionStateTest {
         assertEquals("insignia_abc", loaded.get().nsysSession);
         assertTrue(loaded.get().nsysStartedByUs);
         assertTrue(loaded.get().wprStartedByUs);
+        assertEquals("FULL", loaded.get().mode);
+        assertEquals("/tmp/2026_01_01_10_00_00_1234", loaded.get().jfrRepository);
+        assertEquals(state.samplerFiles, loaded.get().samplerFiles);
+        assertEquals("/tmp/run/results/segment_004", loaded.get().segmentDir);
+        assertEquals("2026-01-01T10:30:00Z", loaded.get().segmentStartedAt);
+        assertTrue(loaded.get().hasCaptureData());
 
         ProfilerSessionState.clear(stateFile);
         assertFalse(Files.exists(stateFile));
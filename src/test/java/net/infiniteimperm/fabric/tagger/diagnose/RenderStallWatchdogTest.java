@@ -0,0 +1,119 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderStallWatchdogTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void formatsStacksRootFirstByCount() {
+        Map<List<StackTraceElement>, int[]> counts = new LinkedHashMap<>();
+        counts.put(Arrays.asList(
+            new StackTraceElement("a.Leaf", "spin", "Leaf.java", 12),
+            new StackTraceElement("a.Root", "main", "Root.java", 3)), new int[]{2});
+        counts.put(Arrays.asList(
+            new StackTraceElement("a.Other", "wait", null, -1)), new int[]{7});
+        String formatted = RenderStallWatchdog.formatStacks(counts, 8);
+        assertEquals("7 a.Other.wait\n2 a.Root.main:3;a.Leaf.spin:12\n", formatted);
+    }
+
+    @Test
+    void samplesRenderThreadDuringLongFrame() throws Exception {
+        Path out = tempDir.resolve("render_stalls.txt");
+        RenderStallWatchdog watchdog = new RenderStallWatchdog(out, 20_000_000L, 1_000_000L);
+        watchdog.start();
+        try {
+            Thread render = new Thread(() -> {
+                RenderStallWatchdog.onFrameBoundary(true);
+                stallHere();
+                RenderStallWatchdog.onFrameBoundary(false);
+            }, "test-render");
+            render.start();
+            render.join(5000L);
+            Thread.sleep(50L);
+        } finally {
+            watchdog.stop();
+        }
+        String text = Files.readString(out, StandardCharsets.UTF_8);
+        assertEquals(1L, watchdog.stallCount());
+        assertTrue(text.contains("stall frameSeq=1"));
+        assertTrue(text.contains("RenderStallWatchdogTest.stallHere"));
+    }
+
+    @Test
+    void framesWithoutHudDisarmInsteadOfRecordingAStall() throws Exception {
+        Path out = tempDir.resolve("render_stalls.txt");
+        RenderStallWatchdog watchdog = new RenderStallWatchdog(out, 20_000_000L, 1_000_000L);
+        watchdog.start();
+        try {
+            Thread render = new Thread(() -> {
+                RenderStallWatchdog.onFrameBoundary(true);
+                RenderStallWatchdog.onFrameBoundary(false);
+                RenderStallWatchdog.onFramePresented();
+                // HUD hidden: frames keep being presented, no HUD boundaries.
+                for (int i = 0; i < 15; i++) {
+                    stallFor(10L);
+                    RenderStallWatchdog.onFramePresented();
+                }
+            }, "test-render");
+            render.start();
+            render.join(5000L);
+            Thread.sleep(50L);
+        } finally {
+            watchdog.stop();
+        }
+        assertEquals(0L, watchdog.stallCount());
+        assertFalse(Files.readString(out, StandardCharsets.UTF_8).contains("stall frameSeq="));
+    }
+
+    @Test
+    void gapBetweenFramesIsNotTimed() throws Exception {
+        Path out = tempDir.resolve("render_stalls.txt");
+        RenderStallWatchdog watchdog = new RenderStallWatchdog(out, 20_000_000L, 1_000_000L);
+        watchdog.start();
+        try {
+            Thread render = new Thread(() -> {
+                RenderStallWatchdog.onFrameBoundary(true);
+                RenderStallWatchdog.onFrameBoundary(false);
+                // Swap, frame limiter and ticks happen outside the HUD frame.
+                stallFor(150L);
+                RenderStallWatchdog.onFramePresented();
+                RenderStallWatchdog.onFrameBoundary(true);
+                RenderStallWatchdog.onFrameBoundary(false);
+            }, "test-render");
+            render.start();
+            render.join(5000L);
+            Thread.sleep(50L);
+        } finally {
+            watchdog.stop();
+        }
+        assertEquals(0L, watchdog.stallCount());
+        assertFalse(Files.readString(out, StandardCharsets.UTF_8).contains("stall frameSeq="));
+    }
+
+    private static void stallHere() {
+        stallFor(150L);
+    }
+
+    private static void stallFor(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
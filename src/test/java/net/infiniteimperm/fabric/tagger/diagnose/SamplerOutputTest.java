@@ -0,0 +1,67 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SamplerOutputTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void batchesOneHourCaptureAtTenMillisecondSampling() throws Exception {
+        Path csv = tempDir.resolve("process_io.csv");
+        long startMs = 1_700_000_000_000L;
+        int samples = 60 * 60 * 100;
+        StringBuilder row = new StringBuilder(128);
+        SamplerOutput out = SamplerOutput.csv(csv, ProcessIoSampler.CSV_HEADER, SamplerOutput.DEFAULT_FLUSH_INTERVAL_MS, () -> startMs);
+        for (int i = 1; i <= samples; i++) {
+            long nowMs = startMs + i * 10L;
+            row.setLength(0);
+            row.append(nowMs).append(',').append(i * 10_000_000L).append(",10,4096,0,4096,0,1,0,").append(i).append(",0\n");
+            out.write(row, nowMs);
+        }
+        long writesBeforeClose = out.channelWrites();
+        out.close();
+
+        // One time-based flush per simulated second plus the header; a second of rows is far below the batch size.
+        assertEquals(3_601L, writesBeforeClose);
+        assertEquals(Files.size(csv), out.bytesWritten());
+        long lines = 0L;
+        String last = null;
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (lines == 0L) {
+                    assertEquals(ProcessIoSampler.CSV_HEADER, line);
+                }
+                last = line;
+                lines++;
+            }
+        }
+        assertEquals(samples + 1L, lines);
+        assertEquals((startMs + samples * 10L) + "," + (samples * 10_000_000L) + ",10,4096,0,4096,0,1,0," + samples + ",0", last);
+    }
+
+    @Test
+    void logAppendsAndWritesThrough() throws Exception {
+        Path log = tempDir.resolve("logs").resolve("sampler.log");
+        Files.createDirectories(log.getParent());
+        Files.writeString(log, "previous run\n", StandardCharsets.UTF_8);
+
+        SamplerOutput out = SamplerOutput.log(log);
+        out.write("started é\n", 1L);
+        assertEquals(List.of("previous run", "started é"), Files.readAllLines(log, StandardCharsets.UTF_8));
+        out.close();
+        out.write("after close\n", 2L);
+
+        assertEquals(List.of("previous run", "started é"), Files.readAllLines(log, StandardCharsets.UTF_8));
+    }
+}
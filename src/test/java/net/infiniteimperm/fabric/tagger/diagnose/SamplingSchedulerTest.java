@@ -0,0 +1,129 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SamplingSchedulerTest {
+    @Test
+    void derivesBaseTickFromIntervals() {
+        assertEquals(10L, SamplingScheduler.gcd(100L, 10L));
+        assertEquals(20L, SamplingScheduler.gcd(100L, 20L));
+        assertEquals(1L, SamplingScheduler.gcd(7L, 10L));
+    }
+
+    @Test
+    void samplersOnCommonMultiplesShareTickTimestamps() throws Exception {
+        RecordingSampler fast = new RecordingSampler("fast", 10L, false);
+        RecordingSampler slow = new RecordingSampler("slow", 30L, false);
+        SamplingScheduler sampling = new SamplingScheduler();
+        sampling.register(fast);
+        sampling.register(slow);
+        sampling.start();
+        Thread.sleep(200L);
+        sampling.stop();
+
+        assertTrue(fast.opened && fast.closed && slow.opened && slow.closed);
+        assertFalse(slow.ticks.isEmpty());
+        for (SamplingScheduler.Tick tick : slow.ticks) {
+            assertTrue(fast.ticks.contains(tick), "slow tick " + tick + " not seen by fast sampler");
+        }
+        assertTrue(fast.ticks.size() > slow.ticks.size());
+    }
+
+    @Test
+    void disablesSamplerThatThrowsWithoutStoppingOthers() throws Exception {
+        RecordingSampler broken = new RecordingSampler("broken", 10L, true);
+        RecordingSampler healthy = new RecordingSampler("healthy", 10L, false);
+        SamplingScheduler sampling = new SamplingScheduler();
+        sampling.register(broken);
+        sampling.register(healthy);
+        sampling.start();
+        Thread.sleep(100L);
+        sampling.stop();
+
+        assertEquals(1, broken.ticks.size());
+        assertTrue(broken.closed);
+        assertTrue(healthy.ticks.size() > 1);
+        assertThrows(IllegalStateException.class, () -> {
+            SamplingScheduler started = new SamplingScheduler();
+            started.register(healthy);
+            started.start();
+            try {
+                started.register(broken);
+            } finally {
+                started.stop();
+            }
+        });
+    }
+
+    @Test
+    void closesSamplerWhoseOpenThrows() throws Exception {
+        RecordingSampler unopenable = new RecordingSampler("unopenable", 10L, false) {
+            @Override
+            public void open(SamplingScheduler.Tick tick) {
+                throw new IllegalStateException("no /proc");
+            }
+        };
+        RecordingSampler healthy = new RecordingSampler("healthy", 10L, false);
+        SamplingScheduler sampling = new SamplingScheduler();
+        sampling.register(unopenable);
+        sampling.register(healthy);
+        sampling.start();
+        Thread.sleep(100L);
+        sampling.stop();
+
+        assertTrue(unopenable.closed);
+        assertTrue(unopenable.ticks.isEmpty());
+        assertTrue(healthy.ticks.size() > 1);
+    }
+
+    private static class RecordingSampler implements SamplingScheduler.Sampler {
+        private final String name;
+        private final long intervalMs;
+        private final boolean fail;
+        final List<SamplingScheduler.Tick> ticks = new ArrayList<>();
+        volatile boolean opened;
+        volatile boolean closed;
+
+        RecordingSampler(String name, long intervalMs, boolean fail) {
+            this.name = name;
+            this.intervalMs = intervalMs;
+            this.fail = fail;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public long intervalMs() {
+            return intervalMs;
+        }
+
+        @Override
+        public void open(SamplingScheduler.Tick tick) {
+            opened = true;
+        }
+
+        @Override
+        public void sample(SamplingScheduler.Tick tick) {
+            ticks.add(tick);
+            if (fail) {
+                throw new IllegalStateException("boom");
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentedCaptureTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rollsRecordingAndSamplersIntoSegments() throws Exception {
+        List<Path> samplerDirs = new ArrayList<>();
+        List<String> opened = new ArrayList<>();
+        SegmentedCapture capture = new SegmentedCapture(tempDir, 1_300L, 500L, false, (sampling, dir) -> {
+            samplerDirs.add(dir);
+            Path csv = dir.resolve("process_io.csv");
+            sampling.register(new ProcessIoSampler(csv, 50L));
+            return List.of(csv);
+        }, (dir, start, files) -> opened.add(dir.getFileName() + " " + start + " " + files), line -> {
+        });
+
+        List<SegmentedCapture.SegmentResult> results = capture.run();
+
+        assertEquals(3, results.size());
+        assertEquals(List.of(tempDir.resolve("segment_001"), tempDir.resolve("segment_002"), tempDir.resolve("segment_003")), samplerDirs);
+        for (SegmentedCapture.SegmentResult result : results) {
+            assertTrue(Files.size(tempDir.resolve(result.dir()).resolve("recording.jfr")) > 0L);
+            assertEquals("no_frames", result.status());
+        }
+        assertTrue(!results.get(1).start().isAfter(results.get(0).end()), "next segment starts before the previous one stops");
+        assertEquals("segment_002 " + results.get(1).start() + " [" + tempDir.resolve("segment_002").resolve("process_io.csv") + "]", opened.get(1));
+        assertEquals(3, opened.size());
+        List<String> index = Files.readAllLines(tempDir.resolve("segments.csv"), StandardCharsets.UTF_8);
+        assertEquals(SegmentedCapture.INDEX_HEADER, index.get(0));
+        assertEquals(4, index.size());
+        assertTrue(Files.readString(tempDir.resolve("segments_summary.txt"), StandardCharsets.UTF_8).startsWith("Segmented capture: 3 segment(s)"));
+    }
+
+    @Test
+    void summarisesAcrossSegmentsAndRanksWorst() {
+        Instant t0 = Instant.parse("2026-01-01T10:00:00Z");
+        List<SegmentedCapture.SegmentResult> results = List.of(
+            new SegmentedCapture.SegmentResult(1, "segment_001", t0, t0.plusSeconds(600), 36_000L, 36L, 50L * 1024 * 1024, 900L, "ok"),
+            new SegmentedCapture.SegmentResult(2, "segment_002", t0.plusSeconds(600), t0.plusSeconds(1200), 30_000L, 300L, 60L * 1024 * 1024, 1100L, "ok"),
+            new SegmentedCapture.SegmentResult(3, "segment_003", t0.plusSeconds(1200), t0.plusSeconds(1800), 0L, 0L, 0L, 5L, "no_frames"));
+
+        String index = SegmentedCapture.formatIndex(results);
+        assertTrue(index.contains("\n2,segment_002,2026-01-01T10:10:00Z,2026-01-01T10:20:00Z,30000,300,1.000,62914560,1100,ok\n"));
+
+        String summary = SegmentedCapture.formatSummary(results);
+        assertTrue(summary.contains("3 segment(s) over 30.0 min (1 without analysis)"));
+        assertTrue(summary.contains("Frames: 66000, bad frames: 336 (0.509%)"));
+        assertTrue(summary.contains("analysis 2005 ms total, 1100 ms worst segment"));
+        assertTrue(summary.indexOf("segment_002") < summary.indexOf("segment_001"));
+    }
+
+    @Test
+    void readsCountsFromBadFramesJson() {
+        String json = "{\n  \"capture\": {\n    \"total_frames\": 7200,\n    \"bad_frames\": 14,\n";
+        assertEquals(7200L, SegmentedCapture.readCount(json, Pattern.compile("\"total_frames\": (\\d+)")));
+        assertEquals(0L, SegmentedCapture.readCount(json, Pattern.compile("\"missing\": (\\d+)")));
+    }
+}
@@ -0,0 +1,51 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ThreadCountersTest {
+    @Test
+    void lastHolderRestoresCpuTimeSwitch() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean.isThreadCpuTimeSupported(), "thread CPU time is not supported by this JVM");
+        boolean wasEnabled = bean.isThreadCpuTimeEnabled();
+        bean.setThreadCpuTimeEnabled(false);
+        try {
+            ThreadCounters jfr = ThreadCounters.acquire();
+            ThreadCounters sampler = ThreadCounters.acquire();
+            assertTrue(ThreadCounters.cpuTimeEnabled());
+
+            sampler.close();
+            sampler.close();
+            assertTrue(bean.isThreadCpuTimeEnabled());
+            assertEquals(1, ThreadCounters.holders());
+
+            jfr.close();
+            assertFalse(bean.isThreadCpuTimeEnabled());
+            assertEquals(0, ThreadCounters.holders());
+        } finally {
+            bean.setThreadCpuTimeEnabled(wasEnabled);
+        }
+    }
+
+    @Test
+    void leavesSwitchOnWhenItWasAlreadyOn() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean.isThreadCpuTimeSupported(), "thread CPU time is not supported by this JVM");
+        boolean wasEnabled = bean.isThreadCpuTimeEnabled();
+        bean.setThreadCpuTimeEnabled(true);
+        try {
+            ThreadCounters.acquire().close();
+            assertTrue(bean.isThreadCpuTimeEnabled());
+        } finally {
+            bean.setThreadCpuTimeEnabled(wasEnabled);
+        }
+    }
+}
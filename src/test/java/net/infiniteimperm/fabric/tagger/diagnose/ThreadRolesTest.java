@@ -0,0 +1,28 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ThreadRolesTest {
+    @Test
+    void groupsThreadNamesIntoRoles() {
+        assertEquals("render", ThreadRoles.role("Render thread"));
+        assertEquals("server", ThreadRoles.role("Server thread"));
+        assertEquals("chunk_workers", ThreadRoles.role("Worker-Main-7"));
+        assertEquals("io", ThreadRoles.role("Netty Epoll Client IO #1"));
+        assertEquals("jfr", ThreadRoles.role("JFR Periodic Tasks"));
+        assertEquals("insignia", ThreadRoles.role("insignia-sampling"));
+        assertEquals("jvm", ThreadRoles.role("Common-Cleaner"));
+        assertEquals("other", ThreadRoles.role("Timer-0"));
+    }
+
+    @Test
+    void classifiesTruncatedLinuxCommNames() {
+        assertEquals("chunk_workers", ThreadRoles.role("Worker-Main-12"));
+        assertEquals("io", ThreadRoles.role("Netty Epoll Cli"));
+        assertEquals("jit", ThreadRoles.role("C2 CompilerThre"));
+        assertEquals("gc", ThreadRoles.role("GC Thread#0"));
+        assertEquals("other", ThreadRoles.role("Timer hack thre"));
+    }
+}
@@ -0,0 +1,58 @@
+package net.infiniteimperm.fabric.tagger.diagnose;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ThreadSchedSamplerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parsesProcTaskFiles() {
+        String stat = "4242 (Render thread) R 1 4242 4242 0 -1 4194560 9021 0 3 0 1500 250 0 0 20 0 80 0 123 0 0";
+        assertEquals("Render thread", ThreadSchedSampler.commFromStat(stat));
+        assertEquals(1750L, ThreadSchedSampler.cpuTicksFromStat(stat));
+        assertEquals("we (ird) name", ThreadSchedSampler.commFromStat("7 (we (ird) name) S 1 2 3 0 -1 0 0 0 0 0 4 6 0 0"));
+
+        long[] sched = ThreadSchedSampler.parseSchedstat("17500000000 320000000 91234\n");
+        assertEquals(17_500_000_000L, sched[0]);
+        assertEquals(320_000_000L, sched[1]);
+
+        long[] switches = ThreadSchedSampler.parseContextSwitches("Name:\tRender thread\nState:\tR (running)\n"
+            + "voluntary_ctxt_switches:\t1200\nnonvoluntary_ctxt_switches:\t345\n");
+        assertEquals(1200L, switches[0]);
+        assertEquals(345L, switches[1]);
+    }
+
+    @Test
+    void samplesOwnThreadsFromProc() throws Exception {
+        assumeTrue(ThreadSchedSampler.isSupported(), "/proc/self/task is only available on Linux");
+        Path csv = tempDir.resolve("thread_sched.csv");
+        Thread spinner = new Thread(() -> {
+            long until = System.nanoTime() + 300_000_000L;
+            while (System.nanoTime() < until) {
+                Math.sqrt(System.nanoTime());
+            }
+        }, "insignia-test-spinner-thread-long-name");
+        SamplingScheduler sampling = new SamplingScheduler();
+        sampling.register(new ThreadSchedSampler(csv, 20L));
+        sampling.start();
+        spinner.start();
+        spinner.join();
+        Thread.sleep(60L);
+        sampling.stop();
+
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        assertEquals(ThreadSchedSampler.CSV_HEADER, lines.get(0));
+        assertTrue(lines.stream().anyMatch(line -> line.contains(",insignia-test-spinner-thread-long-name,insignia,")));
+    }
+}